@@ -0,0 +1,112 @@
+package fr.s4e2.ouatelse.benchmarks;
+
+import fr.s4e2.ouatelse.managers.DatabaseConfiguration;
+import fr.s4e2.ouatelse.managers.DatabaseManager;
+import fr.s4e2.ouatelse.managers.DatasetConfiguration;
+import fr.s4e2.ouatelse.managers.DatasetGenerator;
+import fr.s4e2.ouatelse.objects.Client;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A database filled with closed carts spread over the last year, the benchmarks being run against it.
+ * The database is generated from a fixed seed so that two runs measure the same rows
+ */
+public class BenchmarkDataset {
+    public static final String DATABASE_NAME = "sqlite-benchmark.db";
+    public static final String STORE_PASSWORD = DatasetGenerator.STORE_PASSWORD;
+    public static final int STORES = 5;
+    public static final long FIRST_REFERENCE = DatasetGenerator.FIRST_REFERENCE;
+
+    private static final long SEED = 42;
+    private static final int HISTORY_DAYS = 365;
+    // the sold products never run out, however long the benchmarks run
+    private static final int STOCK_QUANTITY = 1000000;
+
+    private final String databaseName;
+    private final DatabaseManager databaseManager;
+    private final DatasetGenerator datasetGenerator;
+
+    /**
+     * Generates a new database with the default settings
+     *
+     * @param carts the number of closed carts, each holding three products on average
+     */
+    public BenchmarkDataset(int carts) {
+        this(new DatabaseConfiguration(DATABASE_NAME), carts);
+    }
+
+    /**
+     * Generates a new database
+     *
+     * @param databaseConfiguration the settings of the database, its file being replaced
+     * @param carts                 the number of closed carts, each holding three products on average
+     */
+    public BenchmarkDataset(DatabaseConfiguration databaseConfiguration, int carts) {
+        this.databaseName = databaseConfiguration.getDatabaseName();
+        DatabaseManager.deleteDatabase(this.databaseName);
+        this.databaseManager = new DatabaseManager(databaseConfiguration);
+
+        DatasetConfiguration configuration = new DatasetConfiguration();
+        configuration.setSeed(SEED);
+        configuration.setStores(STORES);
+        configuration.setProducts(Math.max(100, carts / 100));
+        configuration.setClients(Math.max(100, carts / 10));
+        configuration.setCartsPerDay(Math.max(1, carts / (STORES * HISTORY_DAYS)));
+        configuration.setHistoryDays(HISTORY_DAYS);
+        configuration.setMinStockQuantity(STOCK_QUANTITY);
+        configuration.setMaxStockQuantity(STOCK_QUANTITY);
+
+        this.datasetGenerator = new DatasetGenerator(this.databaseManager, configuration);
+        this.datasetGenerator.generate();
+    }
+
+    /**
+     * Gets the database manager of the dataset
+     *
+     * @return the database manager
+     */
+    public DatabaseManager getDatabaseManager() {
+        return this.databaseManager;
+    }
+
+    /**
+     * Gets the stores of the dataset
+     *
+     * @return the stores
+     */
+    public List<Store> getStores() {
+        return this.datasetGenerator.getStores();
+    }
+
+    /**
+     * Gets the products of the dataset, in reference order
+     *
+     * @return the products
+     */
+    public List<Product> getProducts() {
+        return this.datasetGenerator.getProducts();
+    }
+
+    /**
+     * Gets the clients of the dataset
+     *
+     * @return the clients
+     */
+    public List<Client> getClients() {
+        return this.datasetGenerator.getClients();
+    }
+
+    /**
+     * Closes and deletes the database
+     *
+     * @throws IOException if the database can't be closed
+     */
+    public void close() throws IOException {
+        this.databaseManager.close();
+        DatabaseManager.deleteDatabase(this.databaseName);
+    }
+}
@@ -0,0 +1,122 @@
+package fr.s4e2.ouatelse.benchmarks;
+
+import fr.s4e2.ouatelse.exceptions.OversellException;
+import fr.s4e2.ouatelse.managers.DatabaseManager;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the entity manager calls made by the tills : product lookup, store authentication, catalogue search and sale
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityManagerBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private BenchmarkDataset dataset;
+    private DatabaseManager databaseManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.dataset = new BenchmarkDataset(this.rows);
+        this.databaseManager = this.dataset.getDatabaseManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.dataset.close();
+    }
+
+    @Benchmark
+    public Product getProductIfExists(Lookup lookup) {
+        return this.databaseManager.getEntityManagerProduct().getProductIfExists(lookup.nextReference());
+    }
+
+    @Benchmark
+    public Store authGetStoreIfExists(Lookup lookup) {
+        return this.databaseManager.getEntityManagerStore().authGetStoreIfExists(lookup.nextStore().getId(), BenchmarkDataset.STORE_PASSWORD);
+    }
+
+    @Benchmark
+    public List<Product.ProductTree> searchProductTrees(Lookup lookup) {
+        return this.databaseManager.getEntityManagerProduct().searchProductTrees(lookup.nextSearch(), 50);
+    }
+
+    @Benchmark
+    public boolean sellCart(OpenCart openCart) throws OversellException {
+        return this.databaseManager.getStockLedger().sell(openCart.cart, openCart.store, openCart.clientStocks);
+    }
+
+    /**
+     * The references, stores and searches looked up by a thread, drawn from a fixed seed
+     */
+    @State(Scope.Thread)
+    public static class Lookup {
+        private final Random random = new Random(42);
+        private List<Store> stores;
+        private List<Product> products;
+
+        @Setup(Level.Trial)
+        public void setUp(EntityManagerBenchmark benchmark) {
+            this.stores = benchmark.dataset.getStores();
+            this.products = benchmark.dataset.getProducts();
+        }
+
+        long nextReference() {
+            return BenchmarkDataset.FIRST_REFERENCE + this.random.nextInt(this.products.size());
+        }
+
+        Store nextStore() {
+            return this.stores.get(this.random.nextInt(this.stores.size()));
+        }
+
+        String nextSearch() {
+            // the article and the finish of a product, shared by many products of the catalogue
+            String name = this.products.get(this.random.nextInt(this.products.size())).getName();
+            return name.substring(0, name.lastIndexOf(' '));
+        }
+    }
+
+    /**
+     * A cart holding one product, opened before each sale so that the sale measures the closing only
+     */
+    @State(Scope.Thread)
+    public static class OpenCart {
+        private final Random random = new Random(42);
+        private Cart cart;
+        private Store store;
+        private List<ClientStock> clientStocks;
+
+        @Setup(Level.Invocation)
+        public void setUp(EntityManagerBenchmark benchmark) {
+            List<Product> products = benchmark.dataset.getProducts();
+            List<Store> stores = benchmark.dataset.getStores();
+
+            this.cart = new Cart();
+            benchmark.databaseManager.getEntityManagerCart().create(this.cart);
+            this.store = stores.get(this.random.nextInt(stores.size()));
+
+            ClientStock clientStock = new ClientStock();
+            clientStock.setCart(this.cart);
+            clientStock.setProduct(products.get(this.random.nextInt(products.size())));
+            clientStock.setQuantity(1);
+            benchmark.databaseManager.getEntityManagerClientStock().create(clientStock);
+            this.clientStocks = Collections.singletonList(clientStock);
+        }
+    }
+}
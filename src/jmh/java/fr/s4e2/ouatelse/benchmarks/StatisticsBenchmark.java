@@ -0,0 +1,66 @@
+package fr.s4e2.ouatelse.benchmarks;
+
+import fr.s4e2.ouatelse.managers.EntityManagerDailySales;
+import fr.s4e2.ouatelse.objects.DailySales;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.statistics.SalesAggregator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the aggregations of the statistics screen, with and without reading the daily sales of the year
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsBenchmark {
+    private static final long YEAR_MILLIS = 365 * 24 * 60 * 60 * 1000L;
+
+    @Param({"10000"})
+    private int rows;
+
+    private BenchmarkDataset dataset;
+    private EntityManagerDailySales entityManagerDailySales;
+    private Store localStore;
+    private List<DailySales> yearSales;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.dataset = new BenchmarkDataset(this.rows);
+        this.entityManagerDailySales = this.dataset.getDatabaseManager().getEntityManagerDailySales();
+        this.localStore = this.dataset.getStores().get(0);
+        this.yearSales = this.getYearSales();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.dataset.close();
+    }
+
+    @Benchmark
+    public SalesAggregator loadYearSales() {
+        return new SalesAggregator(this.localStore).addDailySales(this.getYearSales());
+    }
+
+    @Benchmark
+    public SalesAggregator aggregateYearSales() {
+        return new SalesAggregator(this.localStore).addDailySales(this.yearSales);
+    }
+
+    /**
+     * Reads the daily sales of the last year, as the statistics screen does when it opens
+     *
+     * @return the daily sales rows
+     */
+    private List<DailySales> getYearSales() {
+        Date now = new Date();
+        return this.entityManagerDailySales.getSalesBetween(new Date(now.getTime() - YEAR_MILLIS), now);
+    }
+}
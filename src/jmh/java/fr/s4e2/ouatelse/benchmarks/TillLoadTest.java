@@ -0,0 +1,393 @@
+package fr.s4e2.ouatelse.benchmarks;
+
+import com.itextpdf.text.DocumentException;
+import fr.s4e2.ouatelse.exceptions.OversellException;
+import fr.s4e2.ouatelse.managers.DatabaseConfiguration;
+import fr.s4e2.ouatelse.managers.DatabaseManager;
+import fr.s4e2.ouatelse.monitoring.PerformanceMonitor;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.Client;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.utils.InvoiceGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives the sales flow of the sales and catalogue screens from several tills at once, without any screen,
+ * and reports the throughput of the sales, the latency of every step and the failures caused by the database locks.
+ * Each till selects a client, opens a cart, puts products in it, adjusts their quantities, closes the cart
+ * and generates its invoice, again and again. The settings are read from the system properties :
+ * <ul>
+ * <li>load.tills : the number of tills selling at once, 10 by default</li>
+ * <li>load.warmup : the seconds of sales which aren't measured, 10 by default</li>
+ * <li>load.duration : the seconds of measured sales, 60 by default</li>
+ * <li>load.carts : the number of closed carts of the generated database, 100000 by default</li>
+ * <li>load.lines : the maximum number of products put in a cart, 5 by default</li>
+ * <li>load.properties : the properties file holding the database settings under test, ouatelse.properties by default</li>
+ * </ul>
+ */
+public class TillLoadTest {
+    public static final String DATABASE_NAME = "sqlite-load-test.db";
+
+    private final BenchmarkDataset dataset;
+    private final DatabaseManager databaseManager;
+    private final PerformanceMonitor performanceMonitor = PerformanceMonitor.getInstance();
+
+    /**
+     * Generates the database the tills sell from
+     *
+     * @param databaseConfiguration the settings of the database
+     * @param carts                 the number of closed carts of the generated database
+     */
+    public TillLoadTest(DatabaseConfiguration databaseConfiguration, int carts) {
+        this.dataset = new BenchmarkDataset(databaseConfiguration, carts);
+        this.databaseManager = this.dataset.getDatabaseManager();
+    }
+
+    /**
+     * Runs a load test from the system properties and prints its report
+     *
+     * @param args unused
+     * @throws Exception if a till failed unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        int tills = Integer.getInteger("load.tills", 10);
+        long warmupMillis = Long.getLong("load.warmup", 10) * 1000;
+        long durationMillis = Long.getLong("load.duration", 60) * 1000;
+        int carts = Integer.getInteger("load.carts", 100000);
+        int maxLines = Integer.getInteger("load.lines", 5);
+        String propertiesFile = System.getProperty("load.properties", "ouatelse.properties");
+
+        DatabaseConfiguration databaseConfiguration = DatabaseConfiguration.load(Paths.get(propertiesFile));
+        databaseConfiguration.setDatabaseName(DATABASE_NAME);
+
+        TillLoadTest loadTest = new TillLoadTest(databaseConfiguration, carts);
+        try {
+            System.out.print(loadTest.run(tills, warmupMillis, durationMillis, maxLines));
+        } finally {
+            loadTest.close();
+        }
+    }
+
+    /**
+     * Sells from several tills at once
+     *
+     * @param tills          the number of tills
+     * @param warmupMillis   the time during which the sales aren't measured
+     * @param durationMillis the time during which the sales are measured
+     * @param maxLines       the maximum number of products put in a cart
+     * @return the report of the measured sales
+     * @throws InterruptedException if interrupted while waiting for the tills
+     * @throws ExecutionException   if a till failed unexpectedly
+     */
+    public Report run(int tills, long warmupMillis, long durationMillis, int maxLines) throws InterruptedException, ExecutionException {
+        ExecutorService executorService = Executors.newFixedThreadPool(tills);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Till>> futures = new ArrayList<>();
+
+        for (int i = 0; i < tills; i++) {
+            Till till = new Till(i, maxLines);
+            futures.add(executorService.submit(() -> {
+                startSignal.await();
+                long measureFrom = System.nanoTime() + warmupMillis * 1000000;
+                till.sell(measureFrom, measureFrom + durationMillis * 1000000);
+                return till;
+            }));
+        }
+
+        startSignal.countDown();
+        Thread.sleep(warmupMillis);
+        long lockFailuresBefore = this.performanceMonitor.getLockFailures();
+
+        Report report = new Report(tills, durationMillis);
+        try {
+            for (Future<Till> future : futures) {
+                report.add(future.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        report.lockFailures = this.performanceMonitor.getLockFailures() - lockFailuresBefore;
+        return report;
+    }
+
+    /**
+     * Closes and deletes the database
+     *
+     * @throws IOException if the database can't be closed
+     */
+    public void close() throws IOException {
+        this.dataset.close();
+    }
+
+    /**
+     * The steps of a sale, the sale step measuring the whole sale
+     */
+    private enum Step {
+        SELECT_CLIENT,
+        OPEN_CART,
+        ADD_PRODUCTS,
+        ADJUST_QUANTITIES,
+        CLOSE_CART,
+        GENERATE_INVOICE,
+        SALE
+    }
+
+    /**
+     * The latencies measured for a step, in nanoseconds
+     */
+    private static class Latencies {
+        private long[] values = new long[1024];
+        private int size;
+        private boolean isSorted;
+
+        private void add(long latency) {
+            if (this.size == this.values.length) this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.values[this.size++] = latency;
+            this.isSorted = false;
+        }
+
+        private void addAll(Latencies latencies) {
+            for (int i = 0; i < latencies.size; i++) this.add(latencies.values[i]);
+        }
+
+        private double getPercentileMillis(double percentile) {
+            if (this.size == 0) return 0;
+            if (!this.isSorted) {
+                Arrays.sort(this.values, 0, this.size);
+                this.isSorted = true;
+            }
+
+            int index = (int) Math.ceil(percentile / 100 * this.size) - 1;
+            return this.values[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    /**
+     * A till selling from its own thread, to the clients of the dataset, in one of its stores
+     */
+    private class Till {
+        private final Random random;
+        private final Store store;
+        private final int maxLines;
+        private final Map<Step, Latencies> latencies = new EnumMap<>(Step.class);
+        private final Map<Step, Integer> failures = new EnumMap<>(Step.class);
+        private int sales;
+
+        private Till(int index, int maxLines) {
+            this.random = new Random(index);
+            this.store = dataset.getStores().get(index % dataset.getStores().size());
+            this.maxLines = Math.max(1, maxLines);
+            for (Step step : Step.values()) this.latencies.put(step, new Latencies());
+        }
+
+        /**
+         * Sells until the end of the test
+         *
+         * @param measureFrom the instant the sales start to be measured at, in nanoseconds
+         * @param measureTo   the instant the test ends at, in nanoseconds
+         */
+        private void sell(long measureFrom, long measureTo) {
+            long saleStart;
+            while ((saleStart = System.nanoTime()) < measureTo) {
+                boolean isMeasured = saleStart >= measureFrom;
+                Step failedStep = this.sell(isMeasured);
+                if (!isMeasured) continue;
+
+                if (failedStep == null) {
+                    this.latencies.get(Step.SALE).add(System.nanoTime() - saleStart);
+                    this.sales++;
+                } else {
+                    this.failures.merge(failedStep, 1, Integer::sum);
+                }
+            }
+        }
+
+        /**
+         * Sells a cart the way the sales and catalogue screens do
+         *
+         * @param isMeasured true to measure the latency of the steps
+         * @return the step which failed, null if the cart was sold
+         */
+        private Step sell(boolean isMeasured) {
+            Step step = Step.SELECT_CLIENT;
+            long stepStart = System.nanoTime();
+
+            try {
+                List<Client> clients = dataset.getClients();
+                Client client = databaseManager.getEntityManagerClient().getIfExists(clients.get(this.random.nextInt(clients.size())).getId());
+                if (client == null) return step;
+                databaseManager.getEntityManagerCart().executeQuery(databaseManager.getEntityManagerCart().getQueryBuilder()
+                        .where().eq("client_id", client.getId())
+                        .prepare()
+                );
+                stepStart = this.measure(step, stepStart, isMeasured);
+
+                step = Step.OPEN_CART;
+                Cart cart = new Cart();
+                cart.setClient(client);
+                databaseManager.getEntityManagerCart().create(cart);
+                if (cart.getId() == 0) return step;
+                stepStart = this.measure(step, stepStart, isMeasured);
+
+                step = Step.ADD_PRODUCTS;
+                List<Product> products = dataset.getProducts();
+                List<ClientStock> clientStocks = new ArrayList<>();
+                int lineCount = 1 + this.random.nextInt(this.maxLines);
+                for (int line = 0; line < lineCount; line++) {
+                    long reference = products.get(this.random.nextInt(products.size())).getReference();
+                    Product product = databaseManager.getEntityManagerProduct().getProductIfExists(reference);
+                    if (product == null) return step;
+
+                    ClientStock clientStock = new ClientStock();
+                    clientStock.setProduct(product);
+                    clientStock.setQuantity(1);
+                    clientStock.setClient(client);
+                    clientStock.setCart(cart);
+                    databaseManager.getEntityManagerClientStock().create(clientStock);
+                    if (clientStock.getId() == 0) return step;
+
+                    databaseManager.getEntityManagerCart().update(cart);
+                    clientStocks.add(clientStock);
+                }
+                stepStart = this.measure(step, stepStart, isMeasured);
+
+                step = Step.ADJUST_QUANTITIES;
+                for (ClientStock clientStock : clientStocks) {
+                    if (this.random.nextBoolean()) continue;
+
+                    clientStock.setQuantity(clientStock.getQuantity() + 1);
+                    databaseManager.getEntityManagerClientStock().update(clientStock);
+                }
+                stepStart = this.measure(step, stepStart, isMeasured);
+
+                step = Step.CLOSE_CART;
+                List<ClientStock> cartLines = databaseManager.getEntityManagerClientStock().executeQuery(
+                        databaseManager.getEntityManagerClientStock().getQueryBuilder()
+                                .where().eq("cart_id", cart.getId())
+                                .prepare()
+                );
+                if (cartLines == null || cartLines.size() != clientStocks.size()) return step;
+                if (!databaseManager.getStockLedger().sell(cart, this.store, cartLines)) return step;
+                stepStart = this.measure(step, stepStart, isMeasured);
+
+                step = Step.GENERATE_INVOICE;
+                InvoiceGenerator.write(cart, cartLines, new ByteArrayOutputStream());
+                this.measure(step, stepStart, isMeasured);
+
+                return null;
+            } catch (SQLException | OversellException | DocumentException | RuntimeException exception) {
+                if (PerformanceMonitor.isLockFailure(exception)) performanceMonitor.recordLockFailure();
+                return step;
+            }
+        }
+
+        /**
+         * Measures the latency of a step
+         *
+         * @param step       the step
+         * @param stepStart  the instant the step started at, in nanoseconds
+         * @param isMeasured true to keep the latency
+         * @return the instant the step ended at, in nanoseconds
+         */
+        private long measure(Step step, long stepStart, boolean isMeasured) {
+            long stepEnd = System.nanoTime();
+            if (isMeasured) this.latencies.get(step).add(stepEnd - stepStart);
+            return stepEnd;
+        }
+    }
+
+    /**
+     * The throughput, the latencies and the failures of the measured sales of all the tills
+     */
+    public static class Report {
+        private final int tills;
+        private final long durationMillis;
+        private final Map<Step, Latencies> latencies = new EnumMap<>(Step.class);
+        private final Map<Step, Integer> failures = new EnumMap<>(Step.class);
+        private int sales;
+        private long lockFailures;
+
+        private Report(int tills, long durationMillis) {
+            this.tills = tills;
+            this.durationMillis = durationMillis;
+            for (Step step : Step.values()) this.latencies.put(step, new Latencies());
+        }
+
+        private void add(Till till) {
+            till.latencies.forEach((step, latencies) -> this.latencies.get(step).addAll(latencies));
+            till.failures.forEach((step, count) -> this.failures.merge(step, count, Integer::sum));
+            this.sales += till.sales;
+        }
+
+        /**
+         * Gets the number of measured sales
+         *
+         * @return the number of carts sold
+         */
+        public int getSales() {
+            return this.sales;
+        }
+
+        /**
+         * Gets the number of measured sales which failed
+         *
+         * @return the number of carts which couldn't be sold
+         */
+        public int getFailedSales() {
+            return this.failures.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        /**
+         * Gets the number of database operations which failed on a lock during the measured sales
+         *
+         * @return the number of lock failures
+         */
+        public long getLockFailures() {
+            return this.lockFailures;
+        }
+
+        /**
+         * Gets the number of sales per second
+         *
+         * @return the throughput
+         */
+        public double getThroughput() {
+            return this.sales * 1000.0 / this.durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("%d tills during %d s%n", this.tills, this.durationMillis / 1000));
+            report.append(String.format("%d sales, %.1f sales/s, %d failed sales, %d lock failures%n",
+                    this.sales, this.getThroughput(), this.getFailedSales(), this.lockFailures));
+            report.append(String.format("%-18s %8s %10s %10s %10s %8s%n", "Step", "Count", "p50 (ms)", "p99 (ms)", "max (ms)", "Failed"));
+
+            for (Step step : Step.values()) {
+                Latencies stepLatencies = this.latencies.get(step);
+                report.append(String.format("%-18s %8d %10.2f %10.2f %10.2f %8d%n", step, stepLatencies.size,
+                        stepLatencies.getPercentileMillis(50), stepLatencies.getPercentileMillis(99),
+                        stepLatencies.getPercentileMillis(100), this.failures.getOrDefault(step, 0)));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -1,23 +1,37 @@
 package fr.s4e2.ouatelse;
 
 import com.j256.ormlite.logger.LocalLog;
+import fr.s4e2.ouatelse.managers.DatabaseConfiguration;
 import fr.s4e2.ouatelse.managers.DatabaseManager;
 import fr.s4e2.ouatelse.screens.AuthUserScreen;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import lombok.Getter;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Software's main class
  */
 public class Main extends Application {
+    private static final String CONFIGURATION_FILE = "ouatelse.properties";
 
     @Getter
     private static DatabaseManager databaseManager;
 
     static {
         System.setProperty(LocalLog.LOCAL_LOG_LEVEL_PROPERTY, "ERROR");
-        Main.databaseManager = new DatabaseManager("sqlite.db");
+        // the search indexes and the stock snapshots are set up while the login screen is shown
+        Executor deferredSetupExecutor = runnable -> {
+            Thread thread = new Thread(runnable, "ouatelse-deferred-setup");
+            thread.setDaemon(true);
+            thread.start();
+        };
+        Main.databaseManager = new DatabaseManager(DatabaseConfiguration.load(Paths.get(CONFIGURATION_FILE)), deferredSetupExecutor);
     }
 
     /**
@@ -36,6 +50,20 @@ public class Main extends Application {
      */
     @Override
     public void start(Stage primaryStage) {
+        // the deliveries move the stocks, they wait for the stock snapshots to be taken
+        Main.databaseManager.getDeferredSetup().thenRun(Main.databaseManager.getOrderScheduler()::start);
         new AuthUserScreen().open();
     }
+
+    /**
+     * Closes the database connections when the software exits
+     */
+    @Override
+    public void stop() {
+        try {
+            Main.databaseManager.close();
+        } catch (IOException exception) {
+            Logger.getLogger(Main.class.getName()).log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
 }
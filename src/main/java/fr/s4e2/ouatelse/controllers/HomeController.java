@@ -9,6 +9,9 @@ import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
 import fr.s4e2.ouatelse.Main;
 import fr.s4e2.ouatelse.managers.EntityManagerProductStock;
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import fr.s4e2.ouatelse.managers.ReorderEngine;
+import fr.s4e2.ouatelse.objects.Permission;
 import fr.s4e2.ouatelse.objects.ProductStock;
 import fr.s4e2.ouatelse.objects.Store;
 import fr.s4e2.ouatelse.objects.User;
@@ -18,6 +21,7 @@ import javafx.fxml.FXML;
 import javafx.scene.Cursor;
 import javafx.scene.control.*;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Paint;
 import javafx.scene.text.Font;
@@ -25,6 +29,7 @@ import javafx.scene.text.TextAlignment;
 import javafx.stage.Stage;
 
 import java.sql.SQLException;
+import java.text.SimpleDateFormat;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,9 +40,16 @@ public class HomeController extends BaseController {
 
     private static final double DEFAULT_BUTTON_SIZE = 1000;
     private static final double MINIMUM_BUTTON_HEIGHT = 74;
+    private static final String REORDER_REQUEST = "home-reorder";
+    private static final String REORDER_BUTTON_TEXT = "Commander les produits bientôt épuisés";
+    private static final String NO_REORDER_TEXT = "Aucun produit n'est sur le point d'être épuisé";
+    private static final String REORDER_TEXT = "%d commande(s) créée(s) :";
+    private static final String REORDER_LINE_TEXT = "%nRéf. %d : %d, livrée le %s";
 
     private final Logger logger = Logger.getLogger(this.getClass().getName());
     private final EntityManagerProductStock entityManagerProductStock = Main.getDatabaseManager().getEntityManagerProductStock();
+    private final ReorderEngine reorderEngine = Main.getDatabaseManager().getReorderEngine();
+    private final QueryExecutor queryExecutor = Main.getDatabaseManager().getQueryExecutor();
 
     @FXML
     private VBox verticalButtonsBar;
@@ -95,6 +107,7 @@ public class HomeController extends BaseController {
      */
     public void onDisconnectClick() {
         this.authentificationUser = null;
+        ScreenRegistry.getInstance().clear();
         Stage stage = (Stage) this.homeName.getScene().getWindow();
         stage.close();
 
@@ -134,7 +147,7 @@ public class HomeController extends BaseController {
      * Opens the Monitoring Screen
      */
     private void onMonitoringButtonClick() {
-        logger.warning("The monitoring screen hasn't been implemented yet!");
+        new MonitoringScreen(this.authentificationStore).open();
     }
 
     /**
@@ -210,10 +223,13 @@ public class HomeController extends BaseController {
     }
 
     private void displayStocks() {
+        VBox stocksBox = new VBox();
+        stocksBox.prefWidthProperty().bind(this.leftPane.widthProperty());
+        stocksBox.prefHeightProperty().bind(this.leftPane.heightProperty());
+
         JFXTreeTableView<ProductStock.ProductStockInfoTree> tree = new JFXTreeTableView<>();
-        tree.prefWidthProperty().bind(this.leftPane.widthProperty());
-        tree.prefHeightProperty().bind(this.leftPane.heightProperty());
         tree.getStylesheets().add(Main.class.getResource("/css/management.css").toExternalForm());
+        VBox.setVgrow(tree, Priority.ALWAYS);
 
         JFXTreeTableColumn<ProductStock.ProductStockInfoTree, Long> reference = new JFXTreeTableColumn<>("Référence");
         JFXTreeTableColumn<ProductStock.ProductStockInfoTree, Integer> stockQuantity = new JFXTreeTableColumn<>("Quantité");
@@ -232,10 +248,51 @@ public class HomeController extends BaseController {
         tree.setShowRoot(false);
         tree.setColumnResizePolicy(TreeTableView.CONSTRAINED_RESIZE_POLICY);
 
-        this.leftPane.getChildren().add(tree);
+        Label reorderLabel = new Label();
+        reorderLabel.setWrapText(true);
+        reorderLabel.setTextFill(Paint.valueOf("WHITE"));
+
+        JFXButton reorderButton = new JFXButton(REORDER_BUTTON_TEXT);
+        reorderButton.setWrapText(true);
+        reorderButton.setTextAlignment(TextAlignment.CENTER);
+        reorderButton.setTextFill(Paint.valueOf("WHITE"));
+        reorderButton.setCursor(Cursor.HAND);
+        reorderButton.setMaxWidth(Double.MAX_VALUE);
+        reorderButton.setOnMouseClicked(event -> this.reorderFromCurrentStore(reorderButton, reorderLabel));
+
+        stocksBox.getChildren().addAll(tree, reorderButton, reorderLabel);
+        this.leftPane.getChildren().add(stocksBox);
         this.loadStocksFromCurrentStore(tree);
     }
 
+    /**
+     * Orders in the background the products of the current store which are about to run out, on the request
+     * of a user allowed to manage the stocks, and shows the created orders
+     *
+     * @param reorderButton the button requesting the orders, disabled while they are created
+     * @param reorderLabel  the label showing the created orders
+     */
+    private void reorderFromCurrentStore(JFXButton reorderButton, Label reorderLabel) {
+        if (this.authentificationUser == null || !this.authentificationUser.hasPermission(Permission.STOCKS_MANAGEMENT)) return;
+
+        Store store = this.authentificationStore;
+        reorderButton.setDisable(true);
+        this.queryExecutor.submit(REORDER_REQUEST, () -> this.reorderEngine.reorder(store), createdOrders -> {
+            reorderButton.setDisable(false);
+            if (createdOrders.isEmpty()) {
+                reorderLabel.setText(NO_REORDER_TEXT);
+                return;
+            }
+
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+            StringBuilder orders = new StringBuilder(String.format(REORDER_TEXT, createdOrders.size()));
+            createdOrders.forEach(createdOrder -> orders.append(String.format(REORDER_LINE_TEXT,
+                    createdOrder.getProduct().getReference(), createdOrder.getQuantity(),
+                    dateFormat.format(createdOrder.getScheduledOrderDate()))));
+            reorderLabel.setText(orders.toString());
+        });
+    }
+
     private void loadStocksFromCurrentStore(JFXTreeTableView<ProductStock.ProductStockInfoTree> tree) {
         try {
             this.entityManagerProductStock.executeQuery(this.entityManagerProductStock.getQueryBuilder()
@@ -251,7 +308,8 @@ public class HomeController extends BaseController {
     }
 
     /**
-     * Builds the Home Screen with buttons according to the user's permissions
+     * Builds the Home Screen with buttons according to the user's permissions, and preloads in the background
+     * the screens the user will open again and again
      */
     public void buildButtonsFromPermissions() {
         if (this.authentificationUser != null) {
@@ -298,6 +356,8 @@ public class HomeController extends BaseController {
                         newButton.setText("Gestion des ventes");
                         newButton.setOnMouseClicked(event -> onSalesButtonClick());
                         fontAwesomeIconView = new FontAwesomeIconView(FontAwesomeIcon.SELLSY);
+                        ScreenRegistry.getInstance().preload(ManagementSalesScreen.FXML);
+                        ScreenRegistry.getInstance().preload(ProductsCatalogScreen.FXML);
                         break;
                     // ###############################################################################
                     case CLIENTS_MANAGEMENT:
@@ -5,13 +5,15 @@ import com.jfoenix.controls.datamodels.treetable.RecursiveTreeObject;
 import fr.s4e2.ouatelse.Main;
 import fr.s4e2.ouatelse.managers.EntityManagerAddress;
 import fr.s4e2.ouatelse.managers.EntityManagerClient;
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import fr.s4e2.ouatelse.managers.SearchIndex;
 import fr.s4e2.ouatelse.objects.Address;
 import fr.s4e2.ouatelse.objects.Civility;
 import fr.s4e2.ouatelse.objects.Client;
 import fr.s4e2.ouatelse.utils.JFXUtils;
+import fr.s4e2.ouatelse.utils.PageLoader;
+import fr.s4e2.ouatelse.utils.SearchPipeline;
 import fr.s4e2.ouatelse.utils.Utils;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TreeItem;
@@ -21,7 +23,6 @@ import java.net.URL;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -35,10 +36,22 @@ public class ManagementClientController extends BaseController {
     private static final String CLIENT_ALREADY_EXISTS = "Ce client existe déjà!";
     private static final String NOT_A_ZIPCODE = "Le code postal est incorrect!";
     private static final String NOT_A_VALID_DOB = "La date de naissance est invalide!";
+    private static final String CLIENT_SEARCH_REQUEST = "clients.search";
 
     private final EntityManagerClient entityManagerClient = Main.getDatabaseManager().getEntityManagerClient();
     private final EntityManagerAddress entityManagerAddress = Main.getDatabaseManager().getEntityManagerAddress();
+    private final QueryExecutor queryExecutor = Main.getDatabaseManager().getQueryExecutor();
     private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final PageLoader<Client.ClientTree, Long> clientPageLoader = new PageLoader<>(
+            this.entityManagerClient::getClientTreePage, clientTree -> clientTree.getId().get(), PageLoader.DEFAULT_PAGE_SIZE
+    );
+    private final SearchPipeline<Client.ClientTree, Long> clientSearch = new SearchPipeline<>(
+            this.queryExecutor, CLIENT_SEARCH_REQUEST, input -> this.entityManagerClient.searchClientTrees(input, SearchIndex.DEFAULT_LIMIT),
+            (clientTree, input) -> SearchPipeline.containsIgnoreCase(clientTree.getSurname().get(), input)
+                    || SearchPipeline.containsIgnoreCase(clientTree.getName().get(), input)
+                    || SearchPipeline.containsIgnoreCase(clientTree.getEmail().get(), input),
+            clientTree -> clientTree.getId().get(), () -> this.clientTreeTableView.getRoot().getChildren()
+    ).withResultLimit(SearchIndex.DEFAULT_LIMIT);
 
     @FXML
     private Label errorMessage;
@@ -85,6 +98,7 @@ public class ManagementClientController extends BaseController {
         Arrays.stream(Civility.values()).forEach(value -> clientCivilityDropdown.getItems().add(value));
 
         this.loadClientTreeTable();
+        this.clientPageLoader.bind(this.clientTreeTableView);
         this.clientBirthDate.setConverter(JFXUtils.getDateConverter());
 
         // escape to unselect item in the table
@@ -174,6 +188,7 @@ public class ManagementClientController extends BaseController {
 
             this.updateClient(currentClient);
             this.entityManagerClient.update(currentClient);
+            this.clientSearch.invalidate();
 
             // updates client in the table
             this.addClientToTreeTable(currentClient);
@@ -190,6 +205,7 @@ public class ManagementClientController extends BaseController {
             newClient.setAddress(newAddress);
             this.updateClient(newClient);
             this.entityManagerClient.create(newClient);
+            this.clientSearch.invalidate();
 
             // adds created client to the table
             this.addClientToTreeTable(newClient);
@@ -206,6 +222,7 @@ public class ManagementClientController extends BaseController {
         if (currentClient == null) return;
 
         this.entityManagerClient.delete(currentClient);
+        this.clientSearch.invalidate();
         this.clientTreeTableView.getRoot().getChildren().remove(clientTreeTableView.getSelectionModel().getSelectedItem());
         this.clientTreeTableView.getSelectionModel().clearSelection();
         this.clearInformation();
@@ -266,10 +283,9 @@ public class ManagementClientController extends BaseController {
         firstName.setCellValueFactory(param -> param.getValue().getValue().getName());
         email.setCellValueFactory(param -> param.getValue().getValue().getEmail());
 
-        ObservableList<Client.ClientTree> clients = FXCollections.observableArrayList();
-        this.entityManagerClient.getQueryForAll().forEach(client -> clients.add(client.toClientTree()));
+        this.clientPageLoader.reset();
 
-        TreeItem<Client.ClientTree> root = new RecursiveTreeItem<>(clients, RecursiveTreeObject::getChildren);
+        TreeItem<Client.ClientTree> root = new RecursiveTreeItem<>(this.clientPageLoader.getRows(), RecursiveTreeObject::getChildren);
         //noinspection unchecked
         this.clientTreeTableView.getColumns().setAll(id, lastName, firstName, email);
         this.clientTreeTableView.getColumns().forEach(c -> c.setContextMenu(null));
@@ -314,28 +330,20 @@ public class ManagementClientController extends BaseController {
     }
 
     /**
-     * Searches a client in the database from its credentials
+     * Searches a client in the database from its name or email
      *
-     * @param input the searched client name
+     * @param input the searched client name or email
      */
     private void searchClientFromText(String input) {
-        this.clientTreeTableView.getRoot().getChildren().clear();
-
         if (input.isEmpty()) {
+            this.clientSearch.clear();
+            this.clientTreeTableView.getRoot().getChildren().clear();
             this.loadClientTreeTable();
             return;
         }
 
+        this.clientPageLoader.cancel();
         this.clearInformation();
-
-        try {
-            List<Client> searchResults = entityManagerClient.executeQuery(entityManagerClient.getQueryBuilder()
-                    .where().like("surname", "%" + input + "%")
-                    .prepare()
-            );
-            searchResults.forEach(client -> this.clientTreeTableView.getRoot().getChildren().add(new TreeItem<>(client.toClientTree())));
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        this.clientSearch.search(input);
     }
 }
@@ -5,6 +5,7 @@ import com.jfoenix.controls.datamodels.treetable.RecursiveTreeObject;
 import fr.s4e2.ouatelse.Main;
 import fr.s4e2.ouatelse.managers.EntityManagerProduct;
 import fr.s4e2.ouatelse.managers.EntityManagerScheduledOrder;
+import fr.s4e2.ouatelse.managers.OrderScheduler;
 import fr.s4e2.ouatelse.objects.Product;
 import fr.s4e2.ouatelse.objects.ScheduledOrder;
 import fr.s4e2.ouatelse.objects.Store;
@@ -27,6 +28,7 @@ import java.util.logging.Logger;
 public class ManagementOrdersController extends BaseController {
     private final EntityManagerProduct entityManagerProduct = Main.getDatabaseManager().getEntityManagerProduct();
     private final EntityManagerScheduledOrder entityManagerScheduledOrder = Main.getDatabaseManager().getEntityManagerScheduledOrder();
+    private final OrderScheduler orderScheduler = Main.getDatabaseManager().getOrderScheduler();
     // Error messages
     private static final String FIELDS_NOT_SET = "Veuillez remplir tous les champs";
     private final Logger logger = Logger.getLogger(this.getClass().getName());
@@ -142,11 +144,7 @@ public class ManagementOrdersController extends BaseController {
             return;
         }
 
-        Product product = this.entityManagerProduct.executeQuery(
-                this.entityManagerProduct.getQueryBuilder()
-                        .where().eq("reference", productReference)
-                        .prepare()
-        ).stream().findFirst().orElse(null);
+        Product product = this.entityManagerProduct.getProductIfExists(productReference);
         if (product == null) {
             this.errorMessage.setText(PRODUCT_DOES_NOT_EXIST);
             this.articleReferenceField.getParent().requestFocus();
@@ -161,6 +159,7 @@ public class ManagementOrdersController extends BaseController {
 
         ScheduledOrder order = new ScheduledOrder(product, this.getAuthentificationStore(), date, quantity);
         this.entityManagerScheduledOrder.create(order);
+        this.orderScheduler.schedule(order);
         addScheduledOrderToTreeTable(order);
         this.clearInformation();
     }
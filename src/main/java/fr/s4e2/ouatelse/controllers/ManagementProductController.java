@@ -7,11 +7,15 @@ import fr.s4e2.ouatelse.managers.EntityManagerProduct;
 import fr.s4e2.ouatelse.managers.EntityManagerProductStock;
 import fr.s4e2.ouatelse.managers.EntityManagerStore;
 import fr.s4e2.ouatelse.managers.EntityManagerVendor;
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import fr.s4e2.ouatelse.managers.SearchIndex;
 import fr.s4e2.ouatelse.objects.*;
 import fr.s4e2.ouatelse.objects.Product.ProductPricesTree;
 import fr.s4e2.ouatelse.objects.Product.ProductTree;
 import fr.s4e2.ouatelse.objects.ProductStock.ProductStockInfoTree;
 import fr.s4e2.ouatelse.utils.JFXUtils;
+import fr.s4e2.ouatelse.utils.PageLoader;
+import fr.s4e2.ouatelse.utils.SearchPipeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -41,12 +45,21 @@ public class ManagementProductController extends BaseController {
     private static final String NOT_ALL_FIELDS_FILLED = "Informations sur le produit inexistantes ou manquantes, création de celui-ci impossible";
     private static final String CURRENT_USER_NOT_SET = "Veuillez sélectionner un produit";
     private static final String REFERENCE_NOT_NUMBERS = "La référence doit être un nombre";
+    private static final String PRODUCT_SEARCH_REQUEST = "products.search";
 
     private final EntityManagerProduct entityManagerProduct = Main.getDatabaseManager().getEntityManagerProduct();
     private final EntityManagerProductStock entityManagerProductStock = Main.getDatabaseManager().getEntityManagerProductStock();
     private final EntityManagerStore entityManagerStore = Main.getDatabaseManager().getEntityManagerStore();
     private final EntityManagerVendor entityManagerVendor = Main.getDatabaseManager().getEntityManagerVendor();
+    private final QueryExecutor queryExecutor = Main.getDatabaseManager().getQueryExecutor();
     private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final PageLoader<ProductTree, Long> productPageLoader = new PageLoader<>(
+            this.entityManagerProduct::getProductTreePage, productTree -> productTree.getReference().get(), PageLoader.DEFAULT_PAGE_SIZE
+    );
+    private final SearchPipeline<ProductTree, Long> productSearch = new SearchPipeline<>(
+            this.queryExecutor, PRODUCT_SEARCH_REQUEST, input -> this.entityManagerProduct.searchProductTrees(input, SearchIndex.DEFAULT_LIMIT),
+            EntityManagerProduct::matches, productTree -> productTree.getReference().get(), () -> this.productsTreeView.getRoot().getChildren()
+    ).withResultLimit(SearchIndex.DEFAULT_LIMIT);
 
     // top
     @FXML
@@ -104,6 +117,7 @@ public class ManagementProductController extends BaseController {
     public void initialize(URL location, ResourceBundle resources) {
         super.initialize(location, resources);
         this.loadProductTreeTable();
+        this.productPageLoader.bind(this.productsTreeView);
         this.initializeProductPricesTreeTable();
         this.initializeProductStockInfoTreeTable();
 
@@ -161,26 +175,20 @@ public class ManagementProductController extends BaseController {
     }
 
     /**
-     * Searches a product in the database from its name
+     * Searches a product in the database from its name, brand, reference or bar code
      *
-     * @param input the searched product name
+     * @param input the searched product
      */
     private void searchProductFromText(String input) {
-        this.productsTreeView.getRoot().getChildren().clear();
-
         if (input.isEmpty()) {
+            this.productSearch.clear();
+            this.productsTreeView.getRoot().getChildren().clear();
             this.loadProductTreeTable();
             return;
         }
 
-        try {
-            List<Product> searchResults = entityManagerProduct.executeQuery(
-                    entityManagerProduct.getQueryBuilder().where().like("name", "%" + input + "%").prepare()
-            );
-            searchResults.forEach(this::addProductToTreeTable);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        this.productPageLoader.cancel();
+        this.productSearch.search(input);
     }
 
 
@@ -269,6 +277,7 @@ public class ManagementProductController extends BaseController {
         if (!this.isSelected()) return;
 
         this.entityManagerProduct.delete(this.currentProduct);
+        this.productSearch.invalidate();
         this.productsTreeView.getRoot().getChildren().remove(productsTreeView.getSelectionModel().getSelectedItem());
         this.productsTreeView.getSelectionModel().clearSelection();
         this.clearInformation();
@@ -342,10 +351,9 @@ public class ManagementProductController extends BaseController {
         soldByName.setCellValueFactory(param -> param.getValue().getValue().getSoldByName());
 
 
-        ObservableList<ProductTree> products = FXCollections.observableArrayList();
-        this.entityManagerProduct.getQueryForAll().forEach(product -> products.add(product.toProductTree()));
+        this.productPageLoader.reset();
 
-        TreeItem<ProductTree> root = new RecursiveTreeItem<>(products, RecursiveTreeObject::getChildren);
+        TreeItem<ProductTree> root = new RecursiveTreeItem<>(this.productPageLoader.getRows(), RecursiveTreeObject::getChildren);
 
         //noinspection unchecked
         this.productsTreeView.getColumns().setAll(reference, name, sellingPrice, purchasePrice, brand, state, category, soldByName);
@@ -468,6 +476,7 @@ public class ManagementProductController extends BaseController {
      */
     private void addProductToTreeTable(Product product) {
         TreeItem<ProductTree> productRow = new TreeItem<>(product.toProductTree());
+        this.productSearch.invalidate();
 
         this.productsTreeView.getRoot().getChildren().remove(productsTreeView.getSelectionModel().getSelectedItem());
         this.productsTreeView.getRoot().getChildren().add(productRow);
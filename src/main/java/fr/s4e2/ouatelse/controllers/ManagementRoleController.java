@@ -150,7 +150,7 @@ public class ManagementRoleController extends BaseController {
 
         Permission selectedPermission = permissionsRoleHasnt.getSelectionModel().getSelectedItem();
         if (selectedPermission == null) return;
-        this.currentRole.getPermissions().add(selectedPermission);
+        this.currentRole.addPermission(selectedPermission);
 
         // Saves role state and disables buttons
         loadPermissionLists(currentRole);
@@ -169,7 +169,7 @@ public class ManagementRoleController extends BaseController {
 
         Permission selectedPermission = permissionsRoleHas.getSelectionModel().getSelectedItem();
         if (selectedPermission == null) return;
-        this.currentRole.getPermissions().remove(selectedPermission);
+        this.currentRole.removePermission(selectedPermission);
 
         // Saves role state and disables buttons
         loadPermissionLists(currentRole);
@@ -211,7 +211,7 @@ public class ManagementRoleController extends BaseController {
         this.clearPermissionLists();
         role.getPermissions().forEach(permission -> permissionsRoleHas.getItems().add(permission));
         Stream.of(Permission.values()).forEachOrdered(permission -> {
-            if (!role.getPermissions().contains(permission)) {
+            if (!role.hasPermission(permission)) {
                 this.permissionsRoleHasnt.getItems().add(permission);
             }
         });
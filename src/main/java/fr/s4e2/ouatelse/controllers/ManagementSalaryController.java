@@ -94,7 +94,7 @@ public class ManagementSalaryController extends BaseController {
             }
 
             try {
-                this.currentUser = this.entityManagerUser.executeQuery(this.entityManagerUser.getQueryBuilder()
+                this.currentUser = this.entityManagerUser.executeQuery(this.entityManagerUser.getQueryBuilder(EntityManagerUser.SALARY_SHEETS_PROFILE)
                         .where().eq("credentials", newValue.getValue().getId().getValue())
                         .prepare()
                 ).stream().findFirst().orElse(null);
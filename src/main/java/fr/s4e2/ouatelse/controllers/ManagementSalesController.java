@@ -1,30 +1,37 @@
 package fr.s4e2.ouatelse.controllers;
 
 import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.PdfPCell;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
 import com.jfoenix.controls.JFXTextField;
 import com.jfoenix.controls.JFXTreeTableColumn;
 import com.jfoenix.controls.JFXTreeTableView;
 import com.jfoenix.controls.RecursiveTreeItem;
 import com.jfoenix.controls.datamodels.treetable.RecursiveTreeObject;
 import fr.s4e2.ouatelse.Main;
+import fr.s4e2.ouatelse.exceptions.OversellException;
 import fr.s4e2.ouatelse.managers.EntityManagerCart;
 import fr.s4e2.ouatelse.managers.EntityManagerClient;
 import fr.s4e2.ouatelse.managers.EntityManagerClientStock;
 import fr.s4e2.ouatelse.managers.EntityManagerProduct;
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import fr.s4e2.ouatelse.managers.SearchIndex;
+import fr.s4e2.ouatelse.managers.StockLedger;
+import fr.s4e2.ouatelse.managers.UnitOfWork;
 import fr.s4e2.ouatelse.objects.Cart;
 import fr.s4e2.ouatelse.objects.Client;
 import fr.s4e2.ouatelse.objects.ClientStock;
 import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
 import fr.s4e2.ouatelse.screens.ProductsCatalogScreen;
 import fr.s4e2.ouatelse.screens.StatisticsSalesScreen;
-import fr.s4e2.ouatelse.utils.PDFUtils;
+import fr.s4e2.ouatelse.utils.InvoiceGenerator;
+import fr.s4e2.ouatelse.utils.PageLoader;
+import fr.s4e2.ouatelse.utils.SearchPipeline;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TreeItem;
 import javafx.scene.input.KeyCode;
 
@@ -35,32 +42,53 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Stream;
 
 /**
  * Controller for the {@link fr.s4e2.ouatelse.screens.StatisticsSalesScreen}
  */
-public class ManagementSalesController extends BaseController {
+public class ManagementSalesController extends BaseController implements Resettable {
+    private static final String CLIENT_SELECTION_REQUEST = "sales.client-selection";
+    private static final String CLIENT_CARTS_REQUEST = "sales.client-carts";
+    private static final String CART_SELECTION_REQUEST = "sales.cart-selection";
+    private static final String CART_PRODUCTS_REQUEST = "sales.cart-products";
+    private static final String CLIENT_STOCK_SELECTION_REQUEST = "sales.client-stock-selection";
+    private static final String CLIENT_SEARCH_REQUEST = "sales.client-search";
+    private static final String ERROR_CART_NOT_CLOSED = "Le panier n'a pas pu être clôturé, il l'a peut-être déjà été";
+    private static final String ERROR_CART_CLOSED = "Le panier a déjà été facturé, il ne peut plus être annulé";
+    private static final String ERROR_NOT_ENOUGH_STOCK = "Le produit %s n'est pas disponible en quantité suffisante dans le stock";
+    private static final String ERROR_INVOICE_NOT_GENERATED = "Le panier a été facturé, mais la facture n'a pas pu être générée";
 
     private final EntityManagerClient entityManagerClient = Main.getDatabaseManager().getEntityManagerClient();
     private final EntityManagerCart entityManagerCart = Main.getDatabaseManager().getEntityManagerCart();
     private final EntityManagerClientStock entityManagerClientStock = Main.getDatabaseManager().getEntityManagerClientStock();
     private final EntityManagerProduct entityManagerProduct = Main.getDatabaseManager().getEntityManagerProduct();
+    private final StockLedger stockLedger = Main.getDatabaseManager().getStockLedger();
+    private final QueryExecutor queryExecutor = Main.getDatabaseManager().getQueryExecutor();
 
     private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final PageLoader<Client.ClientTree, Long> clientPageLoader = new PageLoader<>(
+            this.entityManagerClient::getClientTreePage, clientTree -> clientTree.getId().get(), PageLoader.DEFAULT_PAGE_SIZE
+    );
+    private final SearchPipeline<Client.ClientTree, Long> clientSearch = new SearchPipeline<>(
+            this.queryExecutor, CLIENT_SEARCH_REQUEST, input -> this.entityManagerClient.searchClientTrees(input, SearchIndex.DEFAULT_LIMIT),
+            (clientTree, input) -> SearchPipeline.containsIgnoreCase(clientTree.getSurname().get(), input)
+                    || SearchPipeline.containsIgnoreCase(clientTree.getName().get(), input)
+                    || SearchPipeline.containsIgnoreCase(clientTree.getEmail().get(), input),
+            clientTree -> clientTree.getId().get(), () -> this.clientsTreeTableView.getRoot().getChildren()
+    ).withResultLimit(SearchIndex.DEFAULT_LIMIT);
+    @FXML
+    private Label errorField;
     @FXML
     private Button removeSampleButton;
     @FXML
     private Button addSampleButton;
+    @FXML
+    private Button createBillButton;
 
     @FXML
     private JFXTextField clientSearchBar;
@@ -91,7 +119,8 @@ public class ManagementSalesController extends BaseController {
         this.buildCurrentClientsCartTreeTableView();
         this.buildCurrentCartProductsTreetableView();
 
-        this.entityManagerClient.getQueryForAll().forEach(client -> clientsTreeTableView.getRoot().getChildren().add(new TreeItem<>(client.toClientTree())));
+        this.clientPageLoader.reset();
+        this.clientPageLoader.bind(this.clientsTreeTableView);
 
         // deselect an item in the stock tree table
         this.getBaseBorderPane().setOnKeyReleased(event -> {
@@ -107,41 +136,38 @@ public class ManagementSalesController extends BaseController {
 
         // Handles the client selection event
         this.clientsTreeTableView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            this.currentClient = null;
             if (newValue == null) {
-                this.currentClient = null;
+                this.queryExecutor.cancel(CLIENT_SELECTION_REQUEST);
                 return;
             }
 
-            try {
-                this.currentClient = entityManagerClient.executeQuery(entityManagerClient.getQueryBuilder()
-                        .where().eq("id", newValue.getValue().getId().getValue()).prepare())
-                        .stream().findFirst().orElse(null);
-            } catch (SQLException exception) {
-                this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            }
-
-            this.clearInformation();
-            this.loadInformation();
+            long clientId = newValue.getValue().getId().getValue();
+            this.queryExecutor.submit(CLIENT_SELECTION_REQUEST, () -> this.entityManagerClient.getIfExists(clientId), client -> {
+                this.currentClient = client;
+                this.clearInformation();
+                this.loadInformation();
+            });
         });
 
         // Handles the cart selection event
         this.currentClientsCartTreeTableView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
+            this.currentCart = null;
             if (newValue == null) {
-                this.currentCart = null;
+                this.cancelCartRequests();
                 return;
             }
 
-            try {
-                this.currentCart = entityManagerCart.executeQuery(entityManagerCart.getQueryBuilder()
-                        .where().eq("id", newValue.getValue().getId().getValue()).prepare())
-                        .stream().findFirst().orElse(null);
-            } catch (SQLException exception) {
-                this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            }
+            long cartId = newValue.getValue().getId().getValue();
+            this.queryExecutor.submit(CART_SELECTION_REQUEST, () -> this.entityManagerCart.getIfExists(cartId), cart -> {
+                this.currentCart = cart;
 
-            //load products
-            currentCartProductsTreetableView.getRoot().getChildren().clear();
-            getClientStocks().forEach(clientStock -> currentCartProductsTreetableView.getRoot().getChildren().add(new TreeItem<>(clientStock.toClientStockTree())));
+                //load products
+                this.queryExecutor.submit(CART_PRODUCTS_REQUEST, () -> this.getClientStocks(cart), clientStocks -> {
+                    currentCartProductsTreetableView.getRoot().getChildren().clear();
+                    clientStocks.forEach(clientStock -> currentCartProductsTreetableView.getRoot().getChildren().add(new TreeItem<>(clientStock.toClientStockTree())));
+                });
+            });
         });
 
         this.currentCartProductsTreetableView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
@@ -152,35 +178,54 @@ public class ManagementSalesController extends BaseController {
                 return;
             }
 
-            try {
-                Product product = this.entityManagerProduct.executeQuery(
-                        this.entityManagerProduct.getQueryBuilder().where()
-                                .eq("reference", newValue.getValue().getReference().getValue())
+            long reference = newValue.getValue().getReference().getValue();
+            Cart cart = this.currentCart;
+            this.queryExecutor.submit(CLIENT_STOCK_SELECTION_REQUEST, () -> {
+                Product product = this.entityManagerProduct.getProductIfExists(reference);
+                if (product == null || cart == null) return null;
+
+                return this.entityManagerClientStock.executeQuery(
+                        this.entityManagerClientStock.getQueryBuilder().where()
+                                .eq("product_id", product.getId()).and()
+                                .eq("cart_id", cart.getId())
                                 .prepare()
                 ).stream().findFirst().orElse(null);
+            }, clientStock -> {
+                if (clientStock == null) return;
 
-                if (product != null && this.currentCart != null) {
-                    this.currentClientStock = this.entityManagerClientStock.executeQuery(
-                            this.entityManagerClientStock.getQueryBuilder().where()
-                                    .eq("product_id", product.getId()).and()
-                                    .eq("cart_id", this.currentCart.getId())
-                                    .prepare()
-                    ).stream().findFirst().orElse(null);
-
-                    if (this.currentClientStock != null) {
-                        this.addSampleButton.setDisable(false);
-                        this.removeSampleButton.setDisable(false);
-                    }
-                }
-            } catch (SQLException exception) {
-                this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            }
+                this.currentClientStock = clientStock;
+                this.addSampleButton.setDisable(false);
+                this.removeSampleButton.setDisable(false);
+            });
         });
 
         // handles search bar for clients
         this.clientSearchBar.textProperty().addListener((observable, oldValue, newValue) -> searchProductFromText(newValue.trim()));
     }
 
+    /**
+     * Empties the search bar and the selections, and reloads the clients
+     */
+    @Override
+    public void reset() {
+        this.queryExecutor.cancel(CLIENT_SELECTION_REQUEST);
+        this.queryExecutor.cancel(CLIENT_CARTS_REQUEST);
+        this.cancelCartRequests();
+
+        this.errorField.setText("");
+        this.clientsTreeTableView.getSelectionModel().clearSelection();
+        this.currentClient = null;
+        this.currentCart = null;
+        this.currentClientStock = null;
+        this.clearInformation();
+
+        // an empty search bar reloads the clients from the first page
+        if (this.clientSearchBar.getText().isEmpty()) {
+            this.searchProductFromText("");
+        } else {
+            this.clientSearchBar.clear();
+        }
+    }
 
     /**
      * Searches a client in the database from its name or email
@@ -188,24 +233,15 @@ public class ManagementSalesController extends BaseController {
      * @param input the searched client name or email
      */
     private void searchProductFromText(String input) {
-        this.clientsTreeTableView.getRoot().getChildren().clear();
-
         if (input.isEmpty()) {
-            this.entityManagerClient.getQueryForAll().forEach(client -> clientsTreeTableView.getRoot().getChildren().add(new TreeItem<>(client.toClientTree())));
+            this.clientSearch.clear();
+            this.clientsTreeTableView.getRoot().getChildren().clear();
+            this.clientPageLoader.reset();
             return;
         }
 
-        try {
-            List<Client> searchResults = entityManagerClient.executeQuery(
-                    entityManagerClient.getQueryBuilder()
-                            .where().like("name", "%" + input + "%")
-                            .or().like("email", "%" + input + "%")
-                            .prepare()
-            );
-            searchResults.forEach(this::addClientToTreeTable);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        this.clientPageLoader.cancel();
+        this.clientSearch.search(input);
     }
 
     /**
@@ -223,8 +259,7 @@ public class ManagementSalesController extends BaseController {
         surname.setCellValueFactory(param -> param.getValue().getValue().getSurname());
         email.setCellValueFactory(param -> param.getValue().getValue().getEmail());
 
-        ObservableList<Client.ClientTree> clients = FXCollections.observableArrayList();
-        TreeItem<Client.ClientTree> root = new RecursiveTreeItem<>(clients, RecursiveTreeObject::getChildren);
+        TreeItem<Client.ClientTree> root = new RecursiveTreeItem<>(this.clientPageLoader.getRows(), RecursiveTreeObject::getChildren);
 
         //noinspection unchecked
         this.clientsTreeTableView.getColumns().setAll(id, name, surname, email);
@@ -281,19 +316,6 @@ public class ManagementSalesController extends BaseController {
         this.currentCartProductsTreetableView.setShowRoot(false);
     }
 
-    /**
-     * Adds a client to the sheet at the top of the window
-     *
-     * @param client The client to add to the sheet
-     */
-    private void addClientToTreeTable(Client client) {
-        TreeItem<Client.ClientTree> clientRow = new TreeItem<>(client.toClientTree());
-
-        this.clientsTreeTableView.getRoot().getChildren().add(clientRow);
-        this.clientsTreeTableView.getSelectionModel().select(clientRow);
-        this.currentClient = client;
-    }
-
     /**
      * Adds a cart to the sheet at the bottom left of the window
      *
@@ -311,12 +333,22 @@ public class ManagementSalesController extends BaseController {
      * Clears the client sales information from the different tables
      */
     private void clearInformation() {
+        this.cancelCartRequests();
         this.currentClientsCartTreeTableView.getSelectionModel().clearSelection();
         this.currentClientsCartTreeTableView.getRoot().getChildren().clear();
         this.currentCartProductsTreetableView.getSelectionModel().clearSelection();
         this.currentCartProductsTreetableView.getRoot().getChildren().clear();
     }
 
+    /**
+     * Cancels the queries of the selected cart, so that their late results don't fill the tables of another cart
+     */
+    private void cancelCartRequests() {
+        this.queryExecutor.cancel(CART_SELECTION_REQUEST);
+        this.queryExecutor.cancel(CART_PRODUCTS_REQUEST);
+        this.queryExecutor.cancel(CLIENT_STOCK_SELECTION_REQUEST);
+    }
+
     /**
      * Loads the information of client sales into the table
      */
@@ -324,16 +356,14 @@ public class ManagementSalesController extends BaseController {
         if (!this.isClientSelected()) return;
 
         // loads client carts
-        try {
-            List<Cart> clientCarts = entityManagerCart.executeQuery(entityManagerCart.getQueryBuilder()
-                    .where().eq("client_id", currentClient.getId())
-                    .prepare()
-            );
+        long clientId = this.currentClient.getId();
+        this.queryExecutor.submit(CLIENT_CARTS_REQUEST, () -> entityManagerCart.executeQuery(entityManagerCart.getQueryBuilder()
+                .where().eq("client_id", clientId)
+                .prepare()
+        ), clientCarts -> {
             clientCarts.forEach(this::addCartToTreeTable);
             this.currentClientsCartTreeTableView.getSelectionModel().clearSelection();
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        });
     }
 
     public void onProductCatalogButtonClick() {
@@ -366,208 +396,93 @@ public class ManagementSalesController extends BaseController {
     /**
      * Creates a bill from the user's cart
      */
-    public void onCreateBillButtonClick() throws IOException, DocumentException {
+    public void onCreateBillButtonClick() {
         if (!this.isCartSelected()) return;
         if (this.currentCart.getClientStocks() == null || this.currentCart.getClientStocks().isEmpty()) return;
 
-        this.currentCart.setClosed(true);
-        this.entityManagerCart.update(currentCart);
-        this.currentClientsCartTreeTableView.getRoot().getChildren().remove(
-                currentClientsCartTreeTableView.getSelectionModel().getSelectedItem()
-        );
-        this.addCartToTreeTable(currentCart);
-
-        this.generateInvoice();
-    }
-
-    /**
-     * Generates the invoice for the current selected cart
-     */
-    private void generateInvoice() throws IOException, DocumentException {
-        // generate document
-
-        String filePath = FileSystemView.getFileSystemView().getHomeDirectory().getAbsolutePath()
-                + File.separator + currentCart.getClient().getId() + "-" + currentCart.getId() + ".pdf";
-        Document document = new Document();
-        PdfWriter pdfWriter = PdfWriter.getInstance(document, new FileOutputStream(filePath));
-        document.open();
-        // header
-        document.addTitle("Facture Ouatelse");
-        document.addHeader("title", "Ouatelse");
-
-        // top section
-        Paragraph headerTitle = PDFUtils.buildH1Title("FACTURE OUATELSE #" + currentCart.getClient().getId() + "-" + currentCart.getId());
-        headerTitle.getFont().setSize(20f);
-        headerTitle.setAlignment(Element.ALIGN_RIGHT);
-        headerTitle.setSpacingAfter(25);
-        document.add(headerTitle);
-
-        // client section
-        Client client = currentCart.getClient();
-        Paragraph id = PDFUtils.buildH2Title("N° Client : " + client.getId());
-        id.setAlignment(Element.ALIGN_LEFT);
-        document.add(id);
-
-        Paragraph date = PDFUtils.buildH2Title("Date : " + new SimpleDateFormat("yyyy/MM/dd").format(new Date()));
-        date.setAlignment(Element.ALIGN_LEFT);
-        date.setSpacingAfter(15);
-        document.add(date);
-
-        Paragraph clientName = PDFUtils.buildH2Title(client.getSurname() + ", " + client.getName());
-        clientName.setAlignment(Element.ALIGN_LEFT);
-        document.add(clientName);
-
-        Paragraph clientEmail = PDFUtils.buildH2Title(client.getEmail());
-        clientEmail.setAlignment(Element.ALIGN_LEFT);
-        document.add(clientEmail);
-
-        Paragraph clientAdress = PDFUtils.buildH2Title(client.getAddress().getStreetNameAndNumber());
-        clientAdress.setAlignment(Element.ALIGN_LEFT);
-        document.add(clientAdress);
-
-        Paragraph clientCity = PDFUtils.buildH2Title(client.getAddress().getZipCode() + ", " + client.getAddress().getCity());
-        clientCity.setAlignment(Element.ALIGN_LEFT);
-        document.add(clientCity);
-
-        // cart section
-        document.add(PDFUtils.buildH1Title("Informations Panier"));
-        document.add(getCartTable());
-
-        // products section
-        document.add(PDFUtils.buildH1Title("Produits"));
-        getProductsTable().forEach(table -> {
-            try {
-                document.add(table);
-            } catch (DocumentException e) {
-                e.printStackTrace();
-            }
+        // the sale runs in the background, the cart is captured in case another one is selected meanwhile
+        Cart cart = this.currentCart;
+        Store store = this.getAuthentificationStore();
+        this.createBillButton.setDisable(true);
+        this.queryExecutor.submit(() -> this.sell(cart, store), error -> {
+            this.createBillButton.setDisable(false);
+            this.errorField.setText(error);
+            if (!error.isEmpty()) return;
+
+            this.currentClientsCartTreeTableView.getRoot().getChildren().stream()
+                    .filter(cartRow -> cartRow.getValue().getId().get() == cart.getId())
+                    .findFirst()
+                    .ifPresent(cartRow -> cartRow.setValue(cart.toCartTree()));
+
+            this.queryExecutor.submit(() -> this.generateInvoice(cart, this.getClientStocks(cart)), generated -> {
+                if (!generated) this.errorField.setText(ERROR_INVOICE_NOT_GENERATED);
+            });
+        }).whenComplete((error, throwable) -> {
+            if (throwable != null) Platform.runLater(() -> this.createBillButton.setDisable(false));
         });
-        document.close();
-        pdfWriter.close();
-
-        Desktop.getDesktop().open(new File(filePath));
     }
 
     /**
-     * Returns the pdf tables for the products in the cart
+     * Sells the products of a cart and closes it, in the background
      *
-     * @return the pdf tables for the products in the cart
+     * @param cart  the cart
+     * @param store the store the products leave
+     * @return the error to display, empty if the cart was sold
      */
-    private List<PdfPTable> getProductsTable() {
-        List<PdfPTable> tables = new ArrayList<>();
-
-        // PRODUCTS IN CART TABLE
-        PdfPTable productsTable = new PdfPTable(6);
-
-        // add headers
-        Stream.of("Référence", "Produit", "Marque", "Quantité", "Prix Unitaire", "Total Prix TTC").forEach(columnTitle -> {
-            PdfPCell header = new PdfPCell();
-            header.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            header.setBorderWidth(2);
-            header.setPhrase(new Phrase(columnTitle));
-            productsTable.addCell(header);
-        });
-
-        AtomicReference<Double> totalCost = new AtomicReference<>((double) 0);
-        AtomicInteger articleCount = new AtomicInteger();
-        // add cells
-        currentCart.getClientStocks().forEach(clientStock -> {
-            PdfPCell cell = new PdfPCell();
-            cell.setPhrase(new Phrase("#" + clientStock.getProduct().getReference()));
-            productsTable.addCell(cell);
-            cell.setPhrase(new Phrase(clientStock.getProduct().getName()));
-            productsTable.addCell(cell);
-            cell.setPhrase(new Phrase(clientStock.getProduct().getBrand()));
-            productsTable.addCell(cell);
-            cell.setPhrase(new Phrase(String.valueOf(clientStock.getQuantity())));
-            productsTable.addCell(cell);
-            cell.setPhrase(new Phrase(clientStock.getProduct().getSellingPrice() + " €"));
-            productsTable.addCell(cell);
-            cell.setPhrase(new Phrase(clientStock.getQuantity() * clientStock.getProduct().getSellingPrice() + " €"));
-            productsTable.addCell(cell);
-
-            totalCost.updateAndGet(v -> v + clientStock.getQuantity() * clientStock.getProduct().getSellingPrice());
-            articleCount.incrementAndGet();
-        });
-        productsTable.setSpacingAfter(50);
-        tables.add(productsTable);
-
-        // TOTAL TABLE
-        PdfPTable totalTable = new PdfPTable(4);
-        Stream.of("Nb. Articles", "", "", "Prix Total").forEach(columnTitle -> {
-            PdfPCell header = new PdfPCell();
-            header.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            header.setBorderWidth(2);
-            header.setPhrase(new Phrase(columnTitle));
-            totalTable.addCell(header);
-        });
-
-        PdfPCell cell = new PdfPCell();
-        cell.setPhrase(new Phrase(String.valueOf(articleCount.get())));
-        totalTable.addCell(cell);
-        cell.setPhrase(new Phrase(""));
-        totalTable.addCell(cell);
-        cell.setPhrase(new Phrase(""));
-        totalTable.addCell(cell);
-        cell.setPhrase(new Phrase(totalCost.get() + " €"));
-        totalTable.addCell(cell);
-        tables.add(totalTable);
-
-        return tables;
+    private String sell(Cart cart, Store store) {
+        try {
+            return this.stockLedger.sell(cart, store, this.getClientStocks(cart)) ? "" : ERROR_CART_NOT_CLOSED;
+        } catch (OversellException exception) {
+            return String.format(ERROR_NOT_ENOUGH_STOCK, exception.getProduct().getName());
+        }
     }
 
     /**
-     * Returns the pdf table for the cart
+     * Generates the invoice of a sold cart and opens it, in the background
      *
-     * @return the pdf table for the cart
+     * @param cart         the sold cart
+     * @param clientStocks the products of the cart
+     * @return true if the invoice was generated, else false
      */
-    private PdfPTable getCartTable() {
-        PdfPTable cartTable = new PdfPTable(3);
-
-        // add headers
-        Stream.of("Identifiant", "Date", "Heure").forEach(columnTitle -> {
-            PdfPCell header = new PdfPCell();
-            header.setBackgroundColor(BaseColor.LIGHT_GRAY);
-            header.setBorderWidth(2);
-            header.setPhrase(new Phrase(columnTitle));
-            cartTable.addCell(header);
-        });
-
-        // add cell
-        Date date = currentCart.getDate();
-        PdfPCell cell = new PdfPCell();
-
-        cell.setPhrase(new Phrase(String.valueOf(currentCart.getId())));
-        cartTable.addCell(cell);
-        cell.setPhrase(new Phrase(date != null ? new SimpleDateFormat("yyyy/MM/dd").format(date) : ""));
-        cartTable.addCell(cell);
-        cell.setPhrase(new Phrase(date != null ? new SimpleDateFormat("hh:mm:ss").format(date) : ""));
-        cartTable.addCell(cell);
+    private boolean generateInvoice(Cart cart, List<ClientStock> clientStocks) {
+        String filePath = FileSystemView.getFileSystemView().getHomeDirectory().getAbsolutePath()
+                + File.separator + InvoiceGenerator.getInvoiceName(cart) + ".pdf";
+        try {
+            try (FileOutputStream outputStream = new FileOutputStream(filePath)) {
+                InvoiceGenerator.write(cart, clientStocks, outputStream);
+            }
 
-        cartTable.setSpacingAfter(50);
-        return cartTable;
+            Desktop.getDesktop().open(new File(filePath));
+            return true;
+        } catch (IOException | DocumentException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return false;
+        }
     }
 
     /**
      * Handles the button click event for the delete sales button
      * <p>
-     * Deletes cart for a selected user
+     * Deletes cart for a selected user, unless it was already billed : its products left the stock with the sale
      */
     public void onCancelSaleButtonClick() {
         if (!this.isClientSelected()) return;
         if (!this.isCartSelected()) return;
-
-        this.currentClient.getCarts().remove(currentCart);
-        this.entityManagerClient.update(currentClient);
-
-        try {
-            this.getClientStocks().forEach(this.entityManagerClientStock::delete);
-        } catch (NullPointerException exception) {
-            this.logger.log(Level.WARNING, exception.getMessage(), exception);
+        // the cart is read again, another till may have billed it since it was selected
+        Cart storedCart = this.entityManagerCart.getIfExists(this.currentCart.getId());
+        if (this.currentCart.isClosed() || (storedCart != null && storedCart.isClosed())) {
+            this.errorField.setText(ERROR_CART_CLOSED);
+            return;
         }
 
-        this.entityManagerCart.delete(currentCart);
+        // the cart and its products are removed together, or not at all
+        UnitOfWork unitOfWork = Main.getDatabaseManager().createUnitOfWork();
+        unitOfWork.deleteAll(this.getClientStocks(this.currentCart))
+                .delete(currentCart);
+        if (!unitOfWork.commit()) return;
 
+        this.errorField.setText("");
+        this.currentClient.getCarts().remove(currentCart);
         this.currentCartProductsTreetableView.getRoot().getChildren().clear();
         this.currentClientsCartTreeTableView.getRoot().getChildren().remove(currentClientsCartTreeTableView.getSelectionModel().getSelectedItem());
         this.currentCart = null;
@@ -576,17 +491,18 @@ public class ManagementSalesController extends BaseController {
     /**
      * Gets the clientStocks from a cart because ORMLite is buggy
      *
+     * @param cart the cart, read by the caller so that a query in the background doesn't see another selected cart
      * @return A List<ClientStocks> of the cart's ClientStock
      */
-    private List<ClientStock> getClientStocks() {
-        if (this.currentCart == null) return new ArrayList<>();
+    private List<ClientStock> getClientStocks(Cart cart) {
+        if (cart == null) return new ArrayList<>();
 
         List<ClientStock> result = new ArrayList<>();
 
         try {
             result = this.entityManagerClientStock.executeQuery(
                     this.entityManagerClientStock.getQueryBuilder()
-                            .where().eq("cart_id", this.currentCart.getId())
+                            .where().eq("cart_id", cart.getId())
                             .prepare()
             );
         } catch (SQLException exception) {
@@ -632,7 +548,7 @@ public class ManagementSalesController extends BaseController {
         this.currentClientStock.setQuantity(this.currentClientStock.getQuantity() - 1);
 
         if (this.currentClientStock.getQuantity() == 0) {
-            this.getClientStocks().remove(this.currentClientStock);
+            this.getClientStocks(this.currentCart).remove(this.currentClientStock);
 
             this.entityManagerCart.update(this.currentCart);
             this.entityManagerClientStock.delete(this.currentClientStock);
@@ -4,17 +4,21 @@ import com.j256.ormlite.stmt.QueryBuilder;
 import com.jfoenix.controls.*;
 import com.jfoenix.controls.datamodels.treetable.RecursiveTreeObject;
 import fr.s4e2.ouatelse.Main;
+import fr.s4e2.ouatelse.exceptions.OversellException;
 import fr.s4e2.ouatelse.managers.EntityManagerProduct;
 import fr.s4e2.ouatelse.managers.EntityManagerProductStock;
 import fr.s4e2.ouatelse.managers.EntityManagerStore;
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import fr.s4e2.ouatelse.managers.StockLedger;
 import fr.s4e2.ouatelse.objects.Product;
 import fr.s4e2.ouatelse.objects.ProductStock;
 import fr.s4e2.ouatelse.objects.ProductStock.ProductStockTree;
+import fr.s4e2.ouatelse.objects.StockMovementType;
 import fr.s4e2.ouatelse.objects.Store;
 import fr.s4e2.ouatelse.screens.ManagementPlannedOrdersScreen;
+import fr.s4e2.ouatelse.utils.PageLoader;
+import fr.s4e2.ouatelse.utils.SearchPipeline;
 import fr.s4e2.ouatelse.utils.Utils;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TreeItem;
@@ -22,10 +26,12 @@ import javafx.scene.input.KeyCode;
 
 import java.net.URL;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Controller for the {@link fr.s4e2.ouatelse.screens.ManagementStockScreen}
@@ -35,11 +41,22 @@ public class ManagementStockController extends BaseController {
     private static final String ERROR_NEGATIVE_OR_ZERO_QUANTITY = "Ajout ou suppression impossible, vérifier la valeur rentrée";
     private static final String ERROR_NONNUMERIC_VALUE = "Caractère non valable";
     private static final String NOT_ENOUGH_QUANTITY = "La quantité demandée n’est pas disponible en quantité suffisante dans le stock";
+    private static final String PRODUCT_STOCK_SEARCH_REQUEST = "stock.search";
 
     private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final QueryExecutor queryExecutor = Main.getDatabaseManager().getQueryExecutor();
     private final EntityManagerStore entityManagerStore = Main.getDatabaseManager().getEntityManagerStore();
     private final EntityManagerProductStock entityManagerProductStock = Main.getDatabaseManager().getEntityManagerProductStock();
     private final EntityManagerProduct entityManagerProduct = Main.getDatabaseManager().getEntityManagerProduct();
+    private final StockLedger stockLedger = Main.getDatabaseManager().getStockLedger();
+    private final PageLoader<ProductStockTree, Long> productStockPageLoader = new PageLoader<>(
+            this::getProductStockTreePage, productStockTree -> productStockTree.getId().get(), PageLoader.DEFAULT_PAGE_SIZE
+    );
+    private final SearchPipeline<ProductStockTree, Long> productStockSearch = new SearchPipeline<>(
+            this.queryExecutor, PRODUCT_STOCK_SEARCH_REQUEST, this::searchProductStocks,
+            (productStockTree, input) -> SearchPipeline.containsIgnoreCase(productStockTree.getArticle().get(), input),
+            productStockTree -> productStockTree.getId().get(), () -> this.stockTreeTableView.getRoot().getChildren()
+    );
 
     @FXML
     private Label errorField;
@@ -73,6 +90,7 @@ public class ManagementStockController extends BaseController {
     public void initialize(URL location, ResourceBundle resources) {
         super.initialize(location, resources);
         this.loadProductStockTreeTable();
+        this.productStockPageLoader.bind(this.stockTreeTableView);
         this.entityManagerStore.getQueryForAll().forEach(store -> stockStoreComboBox.getItems().add(store));
 
         // deselect an item in the stock tree table
@@ -110,6 +128,7 @@ public class ManagementStockController extends BaseController {
             }
 
             this.currentStore = newValue;
+            this.productStockSearch.clear();
             this.loadProductStockTreeTable();
         });
 
@@ -142,13 +161,14 @@ public class ManagementStockController extends BaseController {
             this.errorField.setText(ERROR_NEGATIVE_OR_ZERO_QUANTITY);
             return;
         }
-        if (currentStock.getQuantity() - quantity < 0) {
+
+        try {
+            if (!this.stockLedger.remove(currentStock, quantity, StockMovementType.ADJUSTMENT)) return;
+        } catch (OversellException exception) {
             this.errorField.setText(NOT_ENOUGH_QUANTITY);
+            this.loadInformation();
             return;
         }
-
-        this.currentStock.setQuantity(currentStock.getQuantity() - quantity);
-        this.entityManagerProductStock.update(currentStock);
         this.stockQuantityInput.setText("");
         this.addProductStockToTreeTable(currentStock);
     }
@@ -171,8 +191,7 @@ public class ManagementStockController extends BaseController {
             return;
         }
 
-        this.currentStock.setQuantity(currentStock.getQuantity() + quantity);
-        this.entityManagerProductStock.update(currentStock);
+        if (!this.stockLedger.add(currentStock, quantity, StockMovementType.ADJUSTMENT)) return;
         this.stockQuantityInput.setText("");
         this.addProductStockToTreeTable(currentStock);
     }
@@ -206,28 +225,38 @@ public class ManagementStockController extends BaseController {
     private void searchProductFromText(String input) {
         if (!this.isStoreSelected()) return;
 
-        this.stockTreeTableView.getRoot().getChildren().clear();
-
         if (input.isEmpty()) {
+            this.productStockSearch.clear();
+            this.stockTreeTableView.getRoot().getChildren().clear();
             this.loadProductStockTreeTable();
             return;
         }
 
-        try {
-            QueryBuilder<Product, Long> productQueryBuilder = entityManagerProduct.getQueryBuilder();
-            productQueryBuilder.where().like("name", "%" + input + "%");
-
-            List<ProductStock> searchResults = entityManagerProductStock.executeQuery(
-                    entityManagerProductStock.getQueryBuilder()
-                            .join(productQueryBuilder)
-                            .where()
-                            .eq("store_id", this.currentStore.getId())
-                            .prepare()
-            );
-            searchResults.forEach(this::addProductStockToTreeTable);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        this.productStockPageLoader.cancel();
+        this.productStockSearch.search(input);
+    }
+
+    /**
+     * Searches the product stocks of the selected store whose product name contains an input, run in the background
+     *
+     * @param input the searched product name
+     * @return the rows of the matching product stocks
+     * @throws SQLException if the query fails
+     */
+    private List<ProductStockTree> searchProductStocks(String input) throws SQLException {
+        Store store = this.currentStore;
+        if (store == null) return new ArrayList<>();
+
+        QueryBuilder<Product, Long> productQueryBuilder = this.entityManagerProduct.getQueryBuilder();
+        productQueryBuilder.where().like("name", "%" + input + "%");
+
+        return this.entityManagerProductStock.executeQuery(
+                this.entityManagerProductStock.getQueryBuilder()
+                        .join(productQueryBuilder)
+                        .where()
+                        .eq("store_id", store.getId())
+                        .prepare()
+        ).stream().map(ProductStock::toProductStockTree).collect(Collectors.toList());
     }
 
     /**
@@ -247,24 +276,9 @@ public class ManagementStockController extends BaseController {
         stockQuantity.setCellValueFactory(param -> param.getValue().getValue().getStockQuantity().asObject());
         state.setCellValueFactory(param -> param.getValue().getValue().getProductState());
 
-        ObservableList<ProductStockTree> productStocks = FXCollections.observableArrayList();
+        this.productStockPageLoader.reset();
 
-        if (this.isStoreSelected()) {
-            try {
-                // loads all product stocks for selected store
-                this.entityManagerProductStock.executeQuery(
-                        entityManagerProductStock.getQueryBuilder().where().eq("store_id", currentStore.getId()).prepare()
-                ).forEach(productStock -> {
-                    if (productStock.getProduct() != null) {
-                        productStocks.add(productStock.toProductStockTree());
-                    }
-                });
-            } catch (SQLException exception) {
-                this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            }
-        }
-
-        TreeItem<ProductStockTree> root = new RecursiveTreeItem<>(productStocks, RecursiveTreeObject::getChildren);
+        TreeItem<ProductStockTree> root = new RecursiveTreeItem<>(this.productStockPageLoader.getRows(), RecursiveTreeObject::getChildren);
 
         //noinspection unchecked
         this.stockTreeTableView.getColumns().setAll(reference, product, unitValue, stockQuantity, state);
@@ -273,6 +287,21 @@ public class ManagementStockController extends BaseController {
         this.stockTreeTableView.setShowRoot(false);
     }
 
+    /**
+     * Gets a page of the product stocks of the selected store
+     *
+     * @param afterId  the id of the last product stock of the previous page, null for the first page
+     * @param pageSize the maximum number of product stocks in the page
+     * @return the rows of the page, empty if no store is selected
+     */
+    private List<ProductStockTree> getProductStockTreePage(Long afterId, int pageSize) {
+        if (!this.isStoreSelected()) return new ArrayList<>();
+
+        return this.entityManagerProductStock.getStorePage(this.currentStore, afterId, pageSize).stream()
+                .map(ProductStock::toProductStockTree)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Adds a product stock to the table
      *
@@ -280,6 +309,7 @@ public class ManagementStockController extends BaseController {
      */
     private void addProductStockToTreeTable(ProductStock productStock) {
         TreeItem<ProductStockTree> productStockRow = new TreeItem<>(productStock.toProductStockTree());
+        this.productStockSearch.invalidate();
 
         this.stockTreeTableView.getRoot().getChildren().remove(stockTreeTableView.getSelectionModel().getSelectedItem());
         this.stockTreeTableView.getRoot().getChildren().add(productStockRow);
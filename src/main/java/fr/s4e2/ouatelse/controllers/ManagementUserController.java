@@ -340,7 +340,7 @@ public class ManagementUserController extends BaseController {
         status.setContextMenu(null);
 
         ObservableList<UserTree> users = FXCollections.observableArrayList();
-        this.entityManagerUser.getQueryForAll().forEach(user -> users.add(user.toUserTree()));
+        users.addAll(this.entityManagerUser.getUserTrees());
 
         TreeItem<UserTree> root = new RecursiveTreeItem<>(users, RecursiveTreeObject::getChildren);
         //noinspection unchecked
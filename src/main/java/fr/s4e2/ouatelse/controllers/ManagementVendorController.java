@@ -220,7 +220,7 @@ public class ManagementVendorController extends BaseController {
         contractState.setCellValueFactory(param -> param.getValue().getValue().getContractState());
 
         ObservableList<VendorTree> vendors = FXCollections.observableArrayList();
-        this.entityManagerVendor.getQueryForAll().forEach(vendor -> vendors.add(vendor.toVendorTree()));
+        vendors.addAll(this.entityManagerVendor.getVendorTrees());
 
         TreeItem<VendorTree> root = new RecursiveTreeItem<>(vendors, RecursiveTreeObject::getChildren);
         //noinspection unchecked
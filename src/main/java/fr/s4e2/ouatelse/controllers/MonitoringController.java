@@ -0,0 +1,371 @@
+package fr.s4e2.ouatelse.controllers;
+
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.jfoenix.controls.JFXTreeTableColumn;
+import com.jfoenix.controls.JFXTreeTableView;
+import com.jfoenix.controls.RecursiveTreeItem;
+import com.jfoenix.controls.datamodels.treetable.RecursiveTreeObject;
+import fr.s4e2.ouatelse.Main;
+import fr.s4e2.ouatelse.managers.AbstractEntityManager;
+import fr.s4e2.ouatelse.managers.DatabaseManager;
+import fr.s4e2.ouatelse.managers.EntityCache;
+import fr.s4e2.ouatelse.monitoring.LatencyHistogram;
+import fr.s4e2.ouatelse.monitoring.PerformanceMonitor;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Label;
+import javafx.scene.control.TreeItem;
+import javafx.stage.WindowEvent;
+import javafx.util.Duration;
+import lombok.Getter;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Controller for the {@link fr.s4e2.ouatelse.screens.MonitoringScreen}, refreshing the metrics every second
+ */
+public class MonitoringController extends BaseController {
+    private static final Duration REFRESH_PERIOD = Duration.seconds(1);
+    private static final String ALL_QUERIES = "Toutes les requêtes";
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private final PerformanceMonitor performanceMonitor = PerformanceMonitor.getInstance();
+    private final DatabaseManager databaseManager = Main.getDatabaseManager();
+    private final Timeline refreshTimeline = new Timeline(new KeyFrame(REFRESH_PERIOD, event -> this.refresh()));
+    private final ObservableList<OperationTree> operations = FXCollections.observableArrayList();
+    private final Map<String, OperationTree> operationRows = new HashMap<>();
+    private final ObservableList<CacheTree> caches = FXCollections.observableArrayList();
+    private final Map<String, CacheTree> cacheRows = new HashMap<>();
+    private final XYChart.Series<String, Number> histogramSeries = new XYChart.Series<>();
+
+    @FXML
+    private Label heapLabel;
+    @FXML
+    private Label salesLabel;
+    @FXML
+    private Label queriesLabel;
+    @FXML
+    private Label connectionsLabel;
+    @FXML
+    private Label lockFailuresLabel;
+    @FXML
+    private JFXTreeTableView<OperationTree> operationsTreeTableView;
+    @FXML
+    private JFXTreeTableView<CacheTree> cachesTreeTableView;
+    @FXML
+    private BarChart<String, Number> histogramChart;
+
+    /**
+     * Initializes the controller
+     *
+     * @param location  The location used to resolve relative paths for the root object,
+     *                  or null if the location is not known.
+     * @param resources The resources used to localize the root object,
+     *                  or null if the location is not known.
+     */
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        super.initialize(location, resources);
+
+        this.buildOperationsTreeTableView();
+        this.buildCachesTreeTableView();
+        this.histogramChart.setAnimated(false);
+        this.histogramChart.getData().add(this.histogramSeries);
+
+        // shows the histogram of the selected operation, or of all the queries when none is selected
+        this.operationsTreeTableView.getSelectionModel().selectedItemProperty()
+                .addListener((observable, oldValue, newValue) -> this.refreshHistogram());
+
+        // the metrics are refreshed while the screen is shown
+        this.getBaseBorderPane().sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (newScene == null) return;
+
+            newScene.windowProperty().addListener((windowObservable, oldWindow, newWindow) -> {
+                if (newWindow == null) return;
+
+                newWindow.addEventHandler(WindowEvent.WINDOW_SHOWN, event -> this.refreshTimeline.play());
+                newWindow.addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> this.refreshTimeline.stop());
+            });
+        });
+        this.refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+        this.refresh();
+    }
+
+    /**
+     * Handles the button click event for the reset button
+     * <p>
+     * Forgets the metrics recorded until now
+     */
+    public void onResetButtonClick() {
+        this.performanceMonitor.reset();
+        this.operationsTreeTableView.getSelectionModel().clearSelection();
+        this.operations.clear();
+        this.operationRows.clear();
+        this.refresh();
+    }
+
+    /**
+     * Reads the metrics again
+     */
+    private void refresh() {
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        this.heapLabel.setText(String.format("Mémoire : %d / %d Mo", usedHeap / MEGABYTE, runtime.maxMemory() / MEGABYTE));
+        this.salesLabel.setText(String.format("Ventes : %d / min (%d au total)",
+                this.performanceMonitor.getSalesPerMinute(), this.performanceMonitor.getSales()));
+        this.queriesLabel.setText(String.format("Requêtes : %d", this.performanceMonitor.getQueryCount()));
+        this.lockFailuresLabel.setText(String.format("Échecs sur verrou : %d", this.performanceMonitor.getLockFailures()));
+
+        ConnectionSource connectionSource = this.databaseManager.getConnectionSource();
+        if (connectionSource instanceof JdbcPooledConnectionSource) {
+            JdbcPooledConnectionSource pool = (JdbcPooledConnectionSource) connectionSource;
+            this.connectionsLabel.setText(String.format("Connexions : %d ouvertes, %d libres, %d au plus",
+                    pool.getCurrentConnectionsManaged(), pool.getCurrentConnectionsFree(), pool.getMaxConnectionsEverUsed()));
+        }
+
+        this.performanceMonitor.getQueries().forEach(this::refreshOperation);
+        this.performanceMonitor.getOperations().forEach(this::refreshOperation);
+        for (AbstractEntityManager<?, ?> entityManager : this.databaseManager.getEntityManagers()) {
+            if (entityManager.getCache() != null) this.refreshCache(entityManager);
+        }
+        this.refreshHistogram();
+    }
+
+    /**
+     * Updates the row of an operation, adding it if it is new
+     *
+     * @param name      the name of the operation
+     * @param histogram the latencies of the operation
+     */
+    private void refreshOperation(String name, LatencyHistogram histogram) {
+        OperationTree row = this.operationRows.get(name);
+        if (row == null) {
+            row = new OperationTree(name);
+            this.operationRows.put(name, row);
+            this.operations.add(row);
+        }
+
+        row.update(histogram);
+    }
+
+    /**
+     * Updates the row of the cache of an entity manager, adding it if it is new
+     *
+     * @param entityManager the entity manager
+     */
+    private void refreshCache(AbstractEntityManager<?, ?> entityManager) {
+        String name = entityManager.getClass().getSimpleName().replace("EntityManager", "");
+        CacheTree row = this.cacheRows.get(name);
+        if (row == null) {
+            row = new CacheTree(name);
+            this.cacheRows.put(name, row);
+            this.caches.add(row);
+        }
+
+        row.update(entityManager.getCache());
+    }
+
+    /**
+     * Shows the latencies of the selected operation by bucket, or of all the queries when none is selected
+     */
+    private void refreshHistogram() {
+        TreeItem<OperationTree> selectedItem = this.operationsTreeTableView.getSelectionModel().getSelectedItem();
+        long[] bucketCounts = new long[LatencyHistogram.BUCKET_BOUNDS.length + 1];
+        String title;
+
+        if (selectedItem != null) {
+            title = selectedItem.getValue().getName().get();
+            LatencyHistogram histogram = this.performanceMonitor.getQueries().get(title);
+            if (histogram == null) histogram = this.performanceMonitor.getOperations().get(title);
+            if (histogram != null) bucketCounts = histogram.getBucketCounts();
+        } else {
+            title = ALL_QUERIES;
+            for (LatencyHistogram histogram : this.performanceMonitor.getQueries().values()) {
+                long[] counts = histogram.getBucketCounts();
+                for (int bucket = 0; bucket < counts.length; bucket++) bucketCounts[bucket] += counts[bucket];
+            }
+        }
+
+        List<XYChart.Data<String, Number>> data = new ArrayList<>();
+        for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+            data.add(new XYChart.Data<>(getBucketLabel(bucket), bucketCounts[bucket]));
+        }
+        this.histogramChart.setTitle(title);
+        this.histogramSeries.getData().setAll(data);
+    }
+
+    /**
+     * Gets the label of a bucket of the histograms
+     *
+     * @param bucket the index of the bucket
+     * @return the label of the bucket
+     */
+    private static String getBucketLabel(int bucket) {
+        if (bucket == LatencyHistogram.BUCKET_BOUNDS.length) {
+            return "> " + formatMicros(LatencyHistogram.BUCKET_BOUNDS[bucket - 1]);
+        }
+
+        return "≤ " + formatMicros(LatencyHistogram.BUCKET_BOUNDS[bucket]);
+    }
+
+    /**
+     * Formats a duration in the most readable unit
+     *
+     * @param micros the duration, in microseconds
+     * @return the formatted duration
+     */
+    private static String formatMicros(long micros) {
+        if (micros >= 1000000) return micros / 1000000 + " s";
+        if (micros >= 1000) return micros / 1000.0 + " ms";
+        return micros + " µs";
+    }
+
+    /**
+     * Builds the operations' table
+     */
+    private void buildOperationsTreeTableView() {
+        JFXTreeTableColumn<OperationTree, String> name = new JFXTreeTableColumn<>("Opération");
+        JFXTreeTableColumn<OperationTree, Long> count = new JFXTreeTableColumn<>("Appels");
+        JFXTreeTableColumn<OperationTree, Double> mean = new JFXTreeTableColumn<>("Moyenne (ms)");
+        JFXTreeTableColumn<OperationTree, Double> median = new JFXTreeTableColumn<>("p50 (ms)");
+        JFXTreeTableColumn<OperationTree, Double> p99 = new JFXTreeTableColumn<>("p99 (ms)");
+        JFXTreeTableColumn<OperationTree, Double> max = new JFXTreeTableColumn<>("Max (ms)");
+
+        name.setCellValueFactory(param -> param.getValue().getValue().getName());
+        count.setCellValueFactory(param -> param.getValue().getValue().getCount().asObject());
+        mean.setCellValueFactory(param -> param.getValue().getValue().getMean().asObject());
+        median.setCellValueFactory(param -> param.getValue().getValue().getMedian().asObject());
+        p99.setCellValueFactory(param -> param.getValue().getValue().getP99().asObject());
+        max.setCellValueFactory(param -> param.getValue().getValue().getMax().asObject());
+
+        TreeItem<OperationTree> root = new RecursiveTreeItem<>(this.operations, RecursiveTreeObject::getChildren);
+
+        //noinspection unchecked
+        this.operationsTreeTableView.getColumns().setAll(name, count, mean, median, p99, max);
+        this.operationsTreeTableView.getColumns().forEach(c -> c.setContextMenu(null));
+        this.operationsTreeTableView.setRoot(root);
+        this.operationsTreeTableView.setShowRoot(false);
+    }
+
+    /**
+     * Builds the caches' table
+     */
+    private void buildCachesTreeTableView() {
+        JFXTreeTableColumn<CacheTree, String> name = new JFXTreeTableColumn<>("Cache");
+        JFXTreeTableColumn<CacheTree, String> size = new JFXTreeTableColumn<>("Taille");
+        JFXTreeTableColumn<CacheTree, Long> hits = new JFXTreeTableColumn<>("Succès");
+        JFXTreeTableColumn<CacheTree, Long> misses = new JFXTreeTableColumn<>("Échecs");
+        JFXTreeTableColumn<CacheTree, Double> hitRatio = new JFXTreeTableColumn<>("Taux de succès (%)");
+
+        name.setCellValueFactory(param -> param.getValue().getValue().getName());
+        size.setCellValueFactory(param -> param.getValue().getValue().getSize());
+        hits.setCellValueFactory(param -> param.getValue().getValue().getHits().asObject());
+        misses.setCellValueFactory(param -> param.getValue().getValue().getMisses().asObject());
+        hitRatio.setCellValueFactory(param -> param.getValue().getValue().getHitRatio().asObject());
+
+        TreeItem<CacheTree> root = new RecursiveTreeItem<>(this.caches, RecursiveTreeObject::getChildren);
+
+        //noinspection unchecked
+        this.cachesTreeTableView.getColumns().setAll(name, size, hits, misses, hitRatio);
+        this.cachesTreeTableView.getColumns().forEach(c -> c.setContextMenu(null));
+        this.cachesTreeTableView.setRoot(root);
+        this.cachesTreeTableView.setShowRoot(false);
+    }
+
+    /**
+     * Rounds a latency for display
+     *
+     * @param millis the latency, in milliseconds
+     * @return the latency rounded to the hundredth of millisecond
+     */
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+
+    /**
+     * Recursive Operation Tree
+     */
+    @Getter
+    public static class OperationTree extends RecursiveTreeObject<OperationTree> {
+        private final StringProperty name;
+        private final LongProperty count = new SimpleLongProperty();
+        private final DoubleProperty mean = new SimpleDoubleProperty();
+        private final DoubleProperty median = new SimpleDoubleProperty();
+        private final DoubleProperty p99 = new SimpleDoubleProperty();
+        private final DoubleProperty max = new SimpleDoubleProperty();
+
+        /**
+         * Constructor
+         *
+         * @param name the name of the operation
+         */
+        public OperationTree(String name) {
+            this.name = new SimpleStringProperty(name);
+        }
+
+        /**
+         * Updates the row from the latencies of the operation
+         *
+         * @param histogram the latencies of the operation
+         */
+        public void update(LatencyHistogram histogram) {
+            this.count.set(histogram.getCount());
+            this.mean.set(round(histogram.getMeanMillis()));
+            this.median.set(round(histogram.getPercentileMillis(0.5)));
+            this.p99.set(round(histogram.getPercentileMillis(0.99)));
+            this.max.set(round(histogram.getMaxMillis()));
+        }
+    }
+
+    /**
+     * Recursive Cache Tree
+     */
+    @Getter
+    public static class CacheTree extends RecursiveTreeObject<CacheTree> {
+        private final StringProperty name;
+        private final StringProperty size = new SimpleStringProperty();
+        private final LongProperty hits = new SimpleLongProperty();
+        private final LongProperty misses = new SimpleLongProperty();
+        private final DoubleProperty hitRatio = new SimpleDoubleProperty();
+
+        /**
+         * Constructor
+         *
+         * @param name the name of the cached entity
+         */
+        public CacheTree(String name) {
+            this.name = new SimpleStringProperty(name);
+        }
+
+        /**
+         * Updates the row from the counters of the cache
+         *
+         * @param cache the cache
+         */
+        public void update(EntityCache<?, ?> cache) {
+            long lookups = cache.getHits() + cache.getMisses();
+
+            this.size.set(cache.size() + " / " + cache.getMaximumSize());
+            this.hits.set(cache.getHits());
+            this.misses.set(cache.getMisses());
+            this.hitRatio.set(lookups == 0 ? 0 : Math.round(cache.getHits() * 1000.0 / lookups) / 10.0);
+        }
+    }
+}
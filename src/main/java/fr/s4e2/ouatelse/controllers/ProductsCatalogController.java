@@ -6,18 +6,24 @@ import com.jfoenix.controls.JFXTreeTableView;
 import com.jfoenix.controls.RecursiveTreeItem;
 import com.jfoenix.controls.datamodels.treetable.RecursiveTreeObject;
 import fr.s4e2.ouatelse.Main;
+import fr.s4e2.ouatelse.managers.Checkout;
 import fr.s4e2.ouatelse.managers.EntityManagerCart;
 import fr.s4e2.ouatelse.managers.EntityManagerClientStock;
 import fr.s4e2.ouatelse.managers.EntityManagerProduct;
 import fr.s4e2.ouatelse.managers.EntityManagerProductStock;
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import fr.s4e2.ouatelse.managers.SearchIndex;
 import fr.s4e2.ouatelse.objects.Cart;
 import fr.s4e2.ouatelse.objects.ClientStock;
 import fr.s4e2.ouatelse.objects.Product;
 import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.utils.SearchPipeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeTableView;
 
@@ -26,15 +32,32 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+public class ProductsCatalogController extends BaseController implements Resettable {
+    private static final String NOT_IN_CART_SEARCH_REQUEST = "catalog.not-in-cart-search";
+    private static final String IN_CART_SEARCH_REQUEST = "catalog.in-cart-search";
 
-public class ProductsCatalogController extends BaseController {
     private final EntityManagerProduct entityManagerProduct = Main.getDatabaseManager().getEntityManagerProduct();
     private final EntityManagerProductStock entityManagerProductStock = Main.getDatabaseManager().getEntityManagerProductStock();
     private final EntityManagerCart entityManagerCart = Main.getDatabaseManager().getEntityManagerCart();
     private final EntityManagerClientStock entityManagerClientStock = Main.getDatabaseManager().getEntityManagerClientStock();
+    private final Checkout checkout = Main.getDatabaseManager().getCheckout();
+    private final QueryExecutor queryExecutor = Main.getDatabaseManager().getQueryExecutor();
     private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final SearchPipeline<Product.ProductTree, Long> notInCartSearch = new SearchPipeline<>(
+            this.queryExecutor, NOT_IN_CART_SEARCH_REQUEST, input -> this.searchProducts(input, false),
+            EntityManagerProduct::matches, productTree -> productTree.getReference().get(),
+            () -> this.notInCartTableView.getRoot().getChildren()
+    ).withResultLimit(SearchIndex.DEFAULT_LIMIT);
+    private final SearchPipeline<Product.ProductTree, Long> inCartSearch = new SearchPipeline<>(
+            this.queryExecutor, IN_CART_SEARCH_REQUEST, input -> this.searchProducts(input, true),
+            EntityManagerProduct::matches, productTree -> productTree.getReference().get(),
+            () -> this.inCartTreeTableView.getRoot().getChildren()
+    ).withResultLimit(SearchIndex.DEFAULT_LIMIT);
     @FXML
     private JFXTextField notInCartSearchBar;
     @FXML
@@ -44,6 +67,10 @@ public class ProductsCatalogController extends BaseController {
     @FXML
     private Button removeFromCartButton;
     @FXML
+    private JFXTextField barCodeField;
+    @FXML
+    private Label barCodeErrorLabel;
+    @FXML
     private JFXTextField inCartSearchBar;
     @FXML
     private JFXTreeTableView<Product.ProductTree> inCartTreeTableView;
@@ -70,45 +97,23 @@ public class ProductsCatalogController extends BaseController {
 
         // Manages left search bar
         this.notInCartSearchBar.textProperty().addListener((observable, oldValue, newValue) -> {
-            notInCartTableView.getRoot().getChildren().clear();
-
             if (newValue.trim().isEmpty()) {
+                this.notInCartSearch.clear();
+                notInCartTableView.getRoot().getChildren().clear();
                 loadNotInCartTableView();
             } else {
-                try {
-                    List<Product> searchResults = entityManagerProduct.executeQuery(
-                            entityManagerProduct.getQueryBuilder().where().like("name", "%" + newValue.trim() + "%").prepare()
-                    );
-                    searchResults.forEach(product -> {
-                        if (!isInClientsCart(product)) {
-                            this.addProductToTreeTable(product, this.notInCartTableView);
-                        }
-                    });
-                } catch (SQLException exception) {
-                    this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-                }
+                this.notInCartSearch.search(newValue.trim());
             }
         });
 
         // Manages right search bar
         this.inCartSearchBar.textProperty().addListener((observable, oldValue, newValue) -> {
-            inCartTreeTableView.getRoot().getChildren().clear();
-
             if (newValue.trim().isEmpty()) {
+                this.inCartSearch.clear();
+                inCartTreeTableView.getRoot().getChildren().clear();
                 loadInCartTableView();
             } else {
-                try {
-                    List<Product> searchResults = entityManagerProduct.executeQuery(
-                            entityManagerProduct.getQueryBuilder().where().like("name", "%" + newValue.trim() + "%").prepare()
-                    );
-                    searchResults.forEach(product -> {
-                        if (isInClientsCart(product)) {
-                            this.addProductToTreeTable(product, this.inCartTreeTableView);
-                        }
-                    });
-                } catch (SQLException exception) {
-                    this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-                }
+                this.inCartSearch.search(newValue.trim());
             }
         });
 
@@ -139,19 +144,33 @@ public class ProductsCatalogController extends BaseController {
         });
     }
 
+    /**
+     * Empties the search bars, the bar code field and the tables, which are loaded again along with the next cart
+     */
+    @Override
+    public void reset() {
+        this.currentCart = null;
+        this.currentProduct = null;
+
+        this.notInCartSearchBar.clear();
+        this.inCartSearchBar.clear();
+        this.notInCartSearch.clear();
+        this.inCartSearch.clear();
+        this.barCodeField.clear();
+        this.barCodeErrorLabel.setText("");
+
+        this.notInCartTableView.getSelectionModel().clearSelection();
+        this.notInCartTableView.getRoot().getChildren().clear();
+        this.inCartTreeTableView.getSelectionModel().clearSelection();
+        this.inCartTreeTableView.getRoot().getChildren().clear();
+    }
+
     private void selectProductFromTable(TreeItem<Product.ProductTree> newValue) {
         if (newValue != null) {
-            try {
-                currentProduct = entityManagerProduct.executeQuery(entityManagerProduct.getQueryBuilder()
-                        .where().eq("reference", newValue.getValue().getReference().getValue()).prepare())
-                        .stream().findFirst().orElse(null);
-
-                putInCartButton.setDisable(false);
-                removeFromCartButton.setDisable(false);
-            } catch (SQLException exception) {
-                this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            }
+            currentProduct = entityManagerProduct.getProductIfExists(newValue.getValue().getReference().getValue());
 
+            putInCartButton.setDisable(false);
+            removeFromCartButton.setDisable(false);
         } else {
             currentProduct = null;
             putInCartButton.setDisable(true);
@@ -189,6 +208,8 @@ public class ProductsCatalogController extends BaseController {
      * Loads the items in notInCartTableView
      */
     private void loadNotInCartTableView() {
+        if (this.currentCart == null) return;
+
         try {
             List<ProductStock> productStocks = this.entityManagerProductStock.executeQuery(
                     this.entityManagerProductStock.getQueryBuilder().where()
@@ -229,6 +250,36 @@ public class ProductsCatalogController extends BaseController {
         return false;
     }
 
+    /**
+     * Searches the products by name, brand, reference or bar code, keeping those in the client's cart or those not in it
+     *
+     * @param input  the searched product
+     * @param inCart true to keep the products in the client's cart, false to keep the others
+     * @return the rows of the matching products
+     */
+    private List<Product.ProductTree> searchProducts(String input, boolean inCart) {
+        List<Product.ProductTree> cartProducts = this.getClientStocks().stream()
+                .map(clientStock -> clientStock.getProduct().toProductTree())
+                .collect(Collectors.toList());
+
+        // the cart is small enough to be searched in memory
+        if (inCart) {
+            return cartProducts.stream()
+                    .filter(productTree -> EntityManagerProduct.matches(productTree, input))
+                    .collect(Collectors.toList());
+        }
+
+        Set<Long> cartReferences = cartProducts.stream()
+                .map(productTree -> productTree.getReference().get())
+                .collect(Collectors.toSet());
+
+        // the products of the cart are over-fetched, so that filtering them out of a truncated result keeps it at the limit
+        return this.entityManagerProduct.searchProductTrees(input, SearchIndex.DEFAULT_LIMIT + cartReferences.size()).stream()
+                .filter(productTree -> !cartReferences.contains(productTree.getReference().get()))
+                .limit(SearchIndex.DEFAULT_LIMIT)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Gets the clientStocks from a cart because ORMLite is buggy
      *
@@ -297,6 +348,7 @@ public class ProductsCatalogController extends BaseController {
         this.getClientStocks().remove(clientStockToBeRemoved);
         this.entityManagerCart.update(this.currentCart);
         this.entityManagerClientStock.delete(clientStockToBeRemoved);
+        this.invalidateSearches();
     }
 
     /**
@@ -322,6 +374,53 @@ public class ProductsCatalogController extends BaseController {
         }
 
         this.entityManagerCart.update(this.currentCart);
+        this.invalidateSearches();
+    }
+
+    /**
+     * Adds the product of the scanned bar code to the client's cart, the field being emptied at once for the next scan
+     */
+    public void onBarCodeScanned() {
+        String barCode = this.barCodeField.getText().trim();
+        this.barCodeField.clear();
+        if (barCode.isEmpty() || this.currentCart == null) return;
+
+        // no request key, every scan must be added to the cart
+        Cart cart = this.currentCart;
+        Store store = this.getAuthentificationStore();
+        this.queryExecutor.submit(() -> this.checkout.scan(cart, store, barCode), product -> {
+            if (product == null) {
+                this.barCodeErrorLabel.setText("Produit inconnu ou hors stock : " + barCode);
+                return;
+            }
+
+            this.barCodeErrorLabel.setText("");
+            this.showInCart(product);
+        });
+    }
+
+    /**
+     * Moves the row of a product added to the client's cart to the cart table, if it isn't there yet
+     *
+     * @param product the product in the client's cart
+     */
+    private void showInCart(Product product) {
+        long reference = product.getReference();
+
+        this.notInCartTableView.getRoot().getChildren().removeIf(item -> item.getValue().getReference().get() == reference);
+        boolean isShown = this.inCartTreeTableView.getRoot().getChildren().stream()
+                .anyMatch(item -> item.getValue().getReference().get() == reference);
+        if (!isShown) this.addProductToTreeTable(product, this.inCartTreeTableView);
+
+        this.invalidateSearches();
+    }
+
+    /**
+     * Forgets the last results of both search bars, the products having moved between the tables
+     */
+    private void invalidateSearches() {
+        this.notInCartSearch.invalidate();
+        this.inCartSearch.invalidate();
     }
 
     /**
@@ -0,0 +1,13 @@
+package fr.s4e2.ouatelse.controllers;
+
+/**
+ * A controller whose screen is kept once closed and shown again, see {@link fr.s4e2.ouatelse.screens.ScreenRegistry}
+ */
+public interface Resettable {
+
+    /**
+     * Brings the screen back to the state it has when it is opened for the first time : empties the forms and
+     * the selections, and reloads the shown data. Called on the UI thread before the setters of the screen
+     */
+    void reset();
+}
@@ -1,34 +1,35 @@
 package fr.s4e2.ouatelse.controllers;
 
 import fr.s4e2.ouatelse.Main;
-import fr.s4e2.ouatelse.managers.EntityManagerCart;
-import fr.s4e2.ouatelse.objects.Cart;
-import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.managers.EntityManagerDailySales;
+import fr.s4e2.ouatelse.objects.DailySales;
 import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.statistics.SalesAggregator;
+import fr.s4e2.ouatelse.utils.Utils;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.XYChart;
 
 import java.net.URL;
-import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * Controller for the {@link fr.s4e2.ouatelse.screens.ManagementSalesScreen}
  */
 public class StatisticsSalesController extends BaseController {
+    private static final String[] MONTH_LABELS = {
+            "JAN", "FÉV", "MAR", "AVR", "MAI", "JUN", "JUL", "AOÛ", "SEP", "OCT", "NOV", "DÉC"
+    };
+
     @FXML
     private LineChart<String, Double> lineChart;
 
-    private final EntityManagerCart entityManagerCart = Main.getDatabaseManager().getEntityManagerCart();
-    private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private List<Cart> closedCarts;
+    private final EntityManagerDailySales entityManagerDailySales = Main.getDatabaseManager().getEntityManagerDailySales();
+    private List<DailySales> currentYearSales;
+    private SalesAggregator salesAggregator;
 
     /**
      * Initializes the controller
@@ -43,15 +44,13 @@ public class StatisticsSalesController extends BaseController {
         super.initialize(location, resources);
         this.lineChart.setAnimated(false);
 
-        try {
-            this.closedCarts = this.entityManagerCart.executeQuery(entityManagerCart.getQueryBuilder()
-                    .where().eq("closed", true)
-                    .prepare()
-            );
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            this.closedCarts = new ArrayList<>();
-        }
+        // a single range read on the daily sales rollup for the current year
+        LocalDate firstDayOfYear = LocalDate.now().withDayOfYear(1);
+        this.currentYearSales = this.entityManagerDailySales.getSalesBetween(
+                Utils.localDateToDate(firstDayOfYear),
+                Utils.localDateToDate(firstDayOfYear.plusYears(1))
+        );
+        this.salesAggregator = new SalesAggregator(null).addDailySales(this.currentYearSales);
 
         // default load year chart
         this.loadGlobalYearChart();
@@ -111,238 +110,100 @@ public class StatisticsSalesController extends BaseController {
         this.loadLocalWeekChart();
     }
 
+    /**
+     * Set the store in which the user has logged in, and aggregates its local sales
+     *
+     * @param authentificationStore The store in which the user has logged in
+     */
+    @Override
+    public void setAuthentificationStore(Store authentificationStore) {
+        super.setAuthentificationStore(authentificationStore);
+        this.salesAggregator = new SalesAggregator(authentificationStore).addDailySales(this.currentYearSales);
+    }
+
     /**
      * Loads the global yearly sales chart.
      */
     private void loadGlobalYearChart() {
-        XYChart.Series<String, Double> chart = new XYChart.Series<>();
-
-        chart.getData().add(new XYChart.Data<>("JAN", getGlobalSalesForMonth(0)));
-        chart.getData().add(new XYChart.Data<>("FÉV", getGlobalSalesForMonth(1)));
-        chart.getData().add(new XYChart.Data<>("MAR", getGlobalSalesForMonth(2)));
-        chart.getData().add(new XYChart.Data<>("AVR", getGlobalSalesForMonth(3)));
-        chart.getData().add(new XYChart.Data<>("MAI", getGlobalSalesForMonth(4)));
-        chart.getData().add(new XYChart.Data<>("JUN", getGlobalSalesForMonth(5)));
-        chart.getData().add(new XYChart.Data<>("JUL", getGlobalSalesForMonth(6)));
-        chart.getData().add(new XYChart.Data<>("AOÛ", getGlobalSalesForMonth(7)));
-        chart.getData().add(new XYChart.Data<>("SEP", getGlobalSalesForMonth(8)));
-        chart.getData().add(new XYChart.Data<>("OCT", getGlobalSalesForMonth(9)));
-        chart.getData().add(new XYChart.Data<>("NOV", getGlobalSalesForMonth(10)));
-        chart.getData().add(new XYChart.Data<>("DÉC", getGlobalSalesForMonth(11)));
-        chart.setName("National Ventes/Année");
-        lineChart.getXAxis().setLabel("Cette Année (National)");
-        lineChart.setData(FXCollections.observableArrayList(chart));
+        this.loadChart(MONTH_LABELS, salesAggregator.getGlobalMonthSales(), "National Ventes/Année", "Cette Année (National)");
     }
 
     /**
      * Loads the global monthly sales chart.
      */
     private void loadGlobalMonthChart() {
-        XYChart.Series<String, Double> chart = new XYChart.Series<>();
-        for (int i = 1; i < 32; ++i) {
-            chart.getData().add(new XYChart.Data<>(String.valueOf(i), getGlobalSalesForDay(i)));
-        }
-        chart.setName("National Ventes/Mois");
-        lineChart.getXAxis().setLabel("Ce Mois (National)");
-        lineChart.setData(FXCollections.observableArrayList(chart));
+        this.loadChart(getDayLabels(), salesAggregator.getGlobalDaySales(), "National Ventes/Mois", "Ce Mois (National)");
     }
 
     /**
      * Loads the global weekly sales chart.
      */
     private void loadGlobalWeekChart() {
-        XYChart.Series<String, Double> chart = new XYChart.Series<>();
-        // 0 = Sunday -> 6 = Saturday
-        for (int i = 0; i < 7; ++i) {
-            chart.getData().add(new XYChart.Data<>(String.valueOf(i), getGlobalSalesForDayOfTheWeek(i)));
-        }
-        chart.setName("National Ventes/Semaine");
-        lineChart.getXAxis().setLabel("Cette Semaine (National)");
-        lineChart.setData(FXCollections.observableArrayList(chart));
+        this.loadChart(getDayOfTheWeekLabels(), salesAggregator.getGlobalDayOfTheWeekSales(), "National Ventes/Semaine", "Cette Semaine (National)");
     }
 
     /**
      * Loads the local yearly sales chart.
      */
     private void loadLocalYearChart() {
-        XYChart.Series<String, Double> chart = new XYChart.Series<>();
-
-        chart.getData().add(new XYChart.Data<>("JAN", getLocalSalesForMonth(0)));
-        chart.getData().add(new XYChart.Data<>("FÉV", getLocalSalesForMonth(1)));
-        chart.getData().add(new XYChart.Data<>("MAR", getLocalSalesForMonth(2)));
-        chart.getData().add(new XYChart.Data<>("AVR", getLocalSalesForMonth(3)));
-        chart.getData().add(new XYChart.Data<>("MAI", getLocalSalesForMonth(4)));
-        chart.getData().add(new XYChart.Data<>("JUN", getLocalSalesForMonth(5)));
-        chart.getData().add(new XYChart.Data<>("JUL", getLocalSalesForMonth(6)));
-        chart.getData().add(new XYChart.Data<>("AOÛ", getLocalSalesForMonth(7)));
-        chart.getData().add(new XYChart.Data<>("SEP", getLocalSalesForMonth(8)));
-        chart.getData().add(new XYChart.Data<>("OCT", getLocalSalesForMonth(9)));
-        chart.getData().add(new XYChart.Data<>("NOV", getLocalSalesForMonth(10)));
-        chart.getData().add(new XYChart.Data<>("DÉC", getLocalSalesForMonth(11)));
-        chart.setName("Magasin Ventes/Année");
-        lineChart.getXAxis().setLabel("Cette Année (Magasin)");
-        lineChart.setData(FXCollections.observableArrayList(chart));
+        this.loadChart(MONTH_LABELS, salesAggregator.getLocalMonthSales(), "Magasin Ventes/Année", "Cette Année (Magasin)");
     }
 
     /**
      * Loads the local monthly sales chart.
      */
     private void loadLocalMonthChart() {
-        XYChart.Series<String, Double> chart = new XYChart.Series<>();
-        for (int i = 1; i < 32; ++i) {
-            chart.getData().add(new XYChart.Data<>(String.valueOf(i), getLocalSalesForDay(i)));
-        }
-        chart.setName("Magasin Ventes/Mois");
-        lineChart.getXAxis().setLabel("Ce Mois (Magasin)");
-        lineChart.setData(FXCollections.observableArrayList(chart));
+        this.loadChart(getDayLabels(), salesAggregator.getLocalDaySales(), "Magasin Ventes/Mois", "Ce Mois (Magasin)");
     }
 
     /**
      * Loads the local weekly sales chart.
      */
     private void loadLocalWeekChart() {
-        XYChart.Series<String, Double> chart = new XYChart.Series<>();
-        // 0 = Sunday -> 6 = Saturday
-        for (int i = 0; i < 7; ++i) {
-            chart.getData().add(new XYChart.Data<>(String.valueOf(i), getLocalSalesForDayOfTheWeek(i)));
-        }
-        chart.setName("Magasin Ventes/Semaine");
-        lineChart.getXAxis().setLabel("Cette Semaine (Magasin)");
-        lineChart.setData(FXCollections.observableArrayList(chart));
-    }
-
-    /**
-     * Returns the global sales value for the selected month
-     *
-     * @param i the month (0 to 11)
-     * @return the global sales value for the selected month
-     */
-    @SuppressWarnings("deprecation")
-    private double getGlobalSalesForMonth(int i) {
-        int currentYear = new Date().getYear();
-        double sales = 0;
-        for (Cart cart : closedCarts) {
-            if (cart.getDate().getYear() == currentYear && cart.getDate().getMonth() == i
-                    && cart.getClientStocks() != null && !cart.getClientStocks().isEmpty()) {
-                for (ClientStock clientStock : cart.getClientStocks()) {
-                    sales += clientStock.getProduct().getSellingPrice() * clientStock.getQuantity();
-                }
-            }
-        }
-        return sales;
+        this.loadChart(getDayOfTheWeekLabels(), salesAggregator.getLocalDayOfTheWeekSales(), "Magasin Ventes/Semaine", "Cette Semaine (Magasin)");
     }
 
     /**
-     * Returns the global sales value for the selected day
+     * Loads a sales chart from already aggregated buckets
      *
-     * @param i the day (1 to 31)
-     * @return the global sales value for the selected day
+     * @param labels    the label of each bucket
+     * @param sales     the sales value of each bucket
+     * @param name      the name of the series
+     * @param axisLabel the label of the X axis
      */
-    @SuppressWarnings("deprecation")
-    private double getGlobalSalesForDay(int i) {
-        int currentYear = new Date().getYear();
-        double sales = 0;
-        for (Cart cart : closedCarts) {
-            if (cart.getDate().getYear() == currentYear && cart.getDate().getDate() == i
-                    && cart.getClientStocks() != null && !cart.getClientStocks().isEmpty()) {
-                for (ClientStock clientStock : cart.getClientStocks()) {
-                    sales += clientStock.getProduct().getSellingPrice() * clientStock.getQuantity();
-                }
-            }
-        }
-        return sales;
-    }
-
-    /**
-     * Returns the global sales value for the selected day of the week
-     *
-     * @param i the day of the week (0 to 6)
-     * @return the global sales value for the selected day of the week
-     */
-    @SuppressWarnings("deprecation")
-    private double getGlobalSalesForDayOfTheWeek(int i) {
-        int currentYear = new Date().getYear();
-        double sales = 0;
-        for (Cart cart : closedCarts) {
-            if (currentYear == cart.getDate().getYear() && cart.getDate().getDay() == i
-                    && cart.getClientStocks() != null && !cart.getClientStocks().isEmpty()) {
-                for (ClientStock clientStock : cart.getClientStocks()) {
-                    sales += clientStock.getProduct().getSellingPrice() * clientStock.getQuantity();
-                }
-            }
-        }
-        return sales;
-    }
-
-    /**
-     * Returns the local sales value for the selected month
-     *
-     * @param i the month (0 to 11)
-     * @return the local sales value for the selected month
-     */
-    @SuppressWarnings("deprecation")
-    private double getLocalSalesForMonth(int i) {
-        int currentYear = new Date().getYear();
-        Store currentStore = this.getAuthentificationStore();
-        double sales = 0;
-        for (Cart cart : closedCarts) {
-            if (cart.getDate().getYear() == currentYear && cart.getDate().getMonth() == i
-                    && cart.getClientStocks() != null && !cart.getClientStocks().isEmpty()) {
-                for (ClientStock clientStock : cart.getClientStocks()) {
-                    if (clientStock.getProduct().getStore().getId().equals(currentStore.getId())) {
-                        sales += clientStock.getProduct().getSellingPrice() * clientStock.getQuantity();
-                    }
-                }
-            }
+    private void loadChart(String[] labels, double[] sales, String name, String axisLabel) {
+        XYChart.Series<String, Double> chart = new XYChart.Series<>();
+        for (int i = 0; i < labels.length; ++i) {
+            chart.getData().add(new XYChart.Data<>(labels[i], sales[i]));
         }
-        return sales;
+        chart.setName(name);
+        lineChart.getXAxis().setLabel(axisLabel);
+        lineChart.setData(FXCollections.observableArrayList(chart));
     }
 
     /**
-     * Returns the local sales value for the selected day
+     * Returns the labels of the days of a month (1 to 31)
      *
-     * @param i the day (1 to 31)
-     * @return the local sales value for the selected day
+     * @return the labels of the days of a month
      */
-    @SuppressWarnings("deprecation")
-    private double getLocalSalesForDay(int i) {
-        int currentYear = new Date().getYear();
-        Store currentStore = this.getAuthentificationStore();
-        double sales = 0;
-        for (Cart cart : closedCarts) {
-            if (cart.getDate().getYear() == currentYear && cart.getDate().getDate() == i
-                    && cart.getClientStocks() != null && !cart.getClientStocks().isEmpty()) {
-                for (ClientStock clientStock : cart.getClientStocks()) {
-                    if (clientStock.getProduct().getStore().getId().equals(currentStore.getId())) {
-                        sales += clientStock.getProduct().getSellingPrice() * clientStock.getQuantity();
-                    }
-                }
-            }
+    private static String[] getDayLabels() {
+        String[] labels = new String[SalesAggregator.DAYS_OF_MONTH];
+        for (int i = 0; i < labels.length; ++i) {
+            labels[i] = String.valueOf(i + 1);
         }
-        return sales;
+        return labels;
     }
 
     /**
-     * Returns the local sales value for the selected day of the week
+     * Returns the labels of the days of the week (0 = Sunday -> 6 = Saturday)
      *
-     * @param i the day of the week (0 to 6)
-     * @return the local sales value for the selected day of the week
+     * @return the labels of the days of the week
      */
-    @SuppressWarnings("deprecation")
-    private double getLocalSalesForDayOfTheWeek(int i) {
-        int currentYear = new Date().getYear();
-        Store currentStore = this.getAuthentificationStore();
-        double sales = 0;
-        for (Cart cart : closedCarts) {
-            if (currentYear == cart.getDate().getYear() && cart.getDate().getDay() == i
-                    && cart.getClientStocks() != null && !cart.getClientStocks().isEmpty()) {
-                for (ClientStock clientStock : cart.getClientStocks()) {
-                    if (clientStock.getProduct().getStore().getId().equals(currentStore.getId())) {
-                        sales += clientStock.getProduct().getSellingPrice() * clientStock.getQuantity();
-                    }
-                }
-            }
+    private static String[] getDayOfTheWeekLabels() {
+        String[] labels = new String[SalesAggregator.DAYS_OF_WEEK];
+        for (int i = 0; i < labels.length; ++i) {
+            labels[i] = String.valueOf(i);
         }
-        return sales;
+        return labels;
     }
 }
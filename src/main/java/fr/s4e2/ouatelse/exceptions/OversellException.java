@@ -0,0 +1,24 @@
+package fr.s4e2.ouatelse.exceptions;
+
+import fr.s4e2.ouatelse.objects.Product;
+import lombok.Getter;
+
+/**
+ * Thrown when a product is sold or removed from a stock in a greater quantity than the stock holds
+ */
+@Getter
+public class OversellException extends Exception {
+    private final transient Product product;
+
+    /**
+     * Constructs a new exception for a product whose stock is insufficient
+     *
+     * @param message the detail message. The detail message is saved for
+     *                later retrieval by the {@link #getMessage()} method.
+     * @param product the product whose stock is insufficient
+     */
+    public OversellException(String message, Product product) {
+        super(message);
+        this.product = product;
+    }
+}
@@ -0,0 +1,624 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.dao.BaseDaoImpl;
+import com.j256.ormlite.dao.CloseableIterator;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.dao.RawRowMapper;
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.support.ConnectionSource;
+import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
+import fr.s4e2.ouatelse.monitoring.InstrumentedDao;
+import fr.s4e2.ouatelse.monitoring.PerformanceMonitor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Base of the entity managers, wraps the DAO of an entity with an optional read-through cache.
+ * The database calls of the DAOs are measured by the {@link PerformanceMonitor}
+ *
+ * @param <T>  the type of the managed entities
+ * @param <ID> the type of the id of the managed entities
+ */
+public abstract class AbstractEntityManager<T, ID> {
+    private static final String MANAGER_NOT_INITIALIZED = "%s could not be initialized";
+
+    protected final ConnectionSource connectionSource;
+    protected final Logger logger = Logger.getLogger(this.getClass().getName());
+    protected final Dao<T, ID> instance;
+    private final Map<FetchProfile<T>, Dao<T, ID>> profileInstances = new HashMap<>();
+
+    /**
+     * The cache used by the lookups by id and by natural key, null to disable it
+     */
+    @Getter
+    @Setter
+    private EntityCache<T, ID> cache;
+
+    /**
+     * The full-text index used by the searches, null to disable it
+     */
+    @Getter
+    private SearchIndex<T, ID> searchIndex;
+    private FetchProfile<T> searchIndexProfile;
+
+    /**
+     * Tells if the search index holds all the entities, the searches query the table until it is rebuilt
+     */
+    @Getter
+    private volatile boolean searchIndexReady = false;
+    private final Object searchIndexLock = new Object();
+    // the ids of the entities written while the search index is rebuilt, null when it isn't
+    private Set<ID> searchIndexWrites;
+
+    /**
+     * Instantiates a new entity manager
+     *
+     * @param connectionSource the connection source
+     * @param entityClass      the class of the managed entities
+     */
+    protected AbstractEntityManager(ConnectionSource connectionSource, Class<T> entityClass) {
+        this.connectionSource = connectionSource;
+        try {
+            this.instance = InstrumentedDao.wrap(DaoManager.createDao(this.connectionSource, entityClass),
+                    entityClass.getSimpleName(), PerformanceMonitor.getInstance());
+        } catch (SQLException exception) {
+            String message = String.format(MANAGER_NOT_INITIALIZED, this.getClass().getSimpleName());
+            this.logger.log(Level.SEVERE, message);
+            throw new DatabaseInitialisationException(message);
+        }
+    }
+
+    /**
+     * Inserts an entity in the database
+     *
+     * @param entity the entity to be inserted
+     */
+    public void create(T entity) {
+        try {
+            this.instance.create(entity);
+            this.afterCommit(entity, false);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Deletes an entity from the database
+     *
+     * @param entity the entity to be deleted
+     */
+    public void delete(T entity) {
+        try {
+            this.instance.delete(entity);
+            this.afterCommit(entity, true);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Updates an entity in the database
+     *
+     * @param entity the entity to be updated
+     */
+    public void update(T entity) {
+        try {
+            this.instance.update(entity);
+            this.afterCommit(entity, false);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Inserts several entities in the database, in a single transaction
+     *
+     * @param entities the entities to be inserted
+     */
+    public void createAll(Collection<T> entities) {
+        if (entities == null || entities.isEmpty()) return;
+
+        try {
+            TransactionManager.callInTransaction(this.connectionSource, () -> this.instance.create(entities));
+            for (T entity : entities) this.afterCommit(entity, false);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Deletes several entities from the database, in a single transaction
+     *
+     * @param entities the entities to be deleted
+     */
+    public void deleteAll(Collection<T> entities) {
+        if (entities == null || entities.isEmpty()) return;
+
+        try {
+            TransactionManager.callInTransaction(this.connectionSource, () -> this.instance.callBatchTasks(() -> {
+                for (T entity : entities) this.instance.delete(entity);
+                return null;
+            }));
+            for (T entity : entities) this.afterCommit(entity, true);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Updates several entities in the database, in a single transaction
+     *
+     * @param entities the entities to be updated
+     */
+    public void updateAll(Collection<T> entities) {
+        if (entities == null || entities.isEmpty()) return;
+
+        try {
+            TransactionManager.callInTransaction(this.connectionSource, () -> this.instance.callBatchTasks(() -> {
+                for (T entity : entities) this.instance.update(entity);
+                return null;
+            }));
+            for (T entity : entities) this.afterCommit(entity, false);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Gets all the entities in the database
+     *
+     * @return an iterator over all the entities in the database
+     */
+    public CloseableIterator<T> getAll() {
+        return this.instance.iterator();
+    }
+
+    /**
+     * Execute a prepared query
+     *
+     * @param query the prepared query
+     * @return the list of results
+     */
+    public List<T> executeQuery(PreparedQuery<T> query) {
+        List<T> results = null;
+
+        try {
+            results = this.instance.query(query);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+        return results;
+    }
+
+    /**
+     * Gets all the entities
+     *
+     * @return all the entities that are in the database
+     */
+    public List<T> getQueryForAll() {
+        List<T> results = null;
+
+        try {
+            results = this.instance.queryForAll();
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets a query builder
+     *
+     * @return the query builder for the entities
+     */
+    public QueryBuilder<T, ID> getQueryBuilder() {
+        return this.instance.queryBuilder();
+    }
+
+    /**
+     * Gets a query builder loading the foreign fields as described by a fetch profile
+     *
+     * @param profile the fetch profile
+     * @return the query builder for the entities
+     */
+    public QueryBuilder<T, ID> getQueryBuilder(FetchProfile<T> profile) {
+        return this.getProfileInstance(profile).queryBuilder();
+    }
+
+    /**
+     * Gets all the entities, loading the foreign fields as described by a fetch profile
+     *
+     * @param profile the fetch profile
+     * @return all the entities that are in the database
+     */
+    public List<T> getQueryForAll(FetchProfile<T> profile) {
+        List<T> results = null;
+
+        try {
+            results = this.getProfileInstance(profile).queryForAll();
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets a page of entities sorted on a unique column, starting after a key rather than at an offset
+     * so that deep pages cost as much as the first one
+     *
+     * @param profile   the fetch profile, null to load the foreign fields as declared by the entity
+     * @param keyColumn the unique column the entities are sorted on
+     * @param afterKey  the key of the last entity of the previous page, null for the first page
+     * @param pageSize  the maximum number of entities in the page
+     * @return the entities of the page, empty if the query failed
+     */
+    public List<T> getPage(FetchProfile<T> profile, String keyColumn, Object afterKey, long pageSize) {
+        try {
+            Dao<T, ID> dao = this.getProfileInstance(profile);
+            QueryBuilder<T, ID> queryBuilder = dao.queryBuilder()
+                    .orderBy(keyColumn, true)
+                    .limit(pageSize);
+            if (afterKey != null) queryBuilder.where().gt(keyColumn, afterKey);
+
+            return dao.query(queryBuilder.prepare());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Searches the entities having an indexed field containing an input
+     *
+     * @param input the input
+     * @param limit the maximum number of ids
+     * @return the ids of the matching entities, the best matches first, empty if the search index is disabled
+     */
+    public List<ID> search(String input, int limit) {
+        if (this.searchIndex == null) return new ArrayList<>();
+
+        return this.searchIndexReady ? this.searchIndex.search(input, limit) : this.searchTable(input, limit);
+    }
+
+    /**
+     * Searches the entities with LIKE queries on the indexed columns, until the search index is rebuilt.
+     * The first matching rows are ranked as the index would rank them
+     *
+     * @param input the input
+     * @param limit the maximum number of ids
+     * @return the ids of the matching entities, the best matches first, empty if the query failed
+     */
+    private List<ID> searchTable(String input, int limit) {
+        String normalizedInput = SearchIndex.normalize(input);
+        if (normalizedInput.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        try {
+            Dao<T, ID> dao = this.getProfileInstance(this.searchIndexProfile);
+            QueryBuilder<T, ID> queryBuilder = dao.queryBuilder().limit((long) limit);
+            List<String> fieldNames = this.searchIndex.getFieldNames();
+            Where<T, ID> where = queryBuilder.where();
+            for (String fieldName : fieldNames) {
+                // compared as text, like the index does with the numeric fields
+                where.like(fieldName, new SelectArg(SqlType.STRING, "%" + normalizedInput + "%"));
+            }
+            where.or(fieldNames.size());
+
+            Map<ID, T> entities = new LinkedHashMap<>();
+            for (T entity : dao.query(queryBuilder.prepare())) entities.put(dao.extractId(entity), entity);
+
+            return this.searchIndex.rank(entities, input, limit);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Searches the entities having an indexed field containing an input, and loads them in a single query
+     *
+     * @param profile the fetch profile, null to load the foreign fields as declared by the entity
+     * @param input   the input
+     * @param limit   the maximum number of entities
+     * @return the matching entities, the best matches first, empty if the search index is disabled or the query failed
+     */
+    public List<T> getSearchResults(FetchProfile<T> profile, String input, int limit) {
+        List<ID> ids = this.search(input, limit);
+        if (ids.isEmpty()) return new ArrayList<>();
+
+        try {
+            Dao<T, ID> dao = this.getProfileInstance(profile);
+            Map<ID, T> entities = new HashMap<>();
+            for (T entity : dao.query(dao.queryBuilder().where().in(dao.getTableInfo().getIdField().getColumnName(), ids).prepare())) {
+                entities.put(dao.extractId(entity), entity);
+            }
+
+            return ids.stream().map(entities::get).filter(Objects::nonNull).collect(Collectors.toList());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Indexes all the entities of the table again, to be called once the database is opened.
+     * The searches query the table until it is done
+     */
+    public void rebuildSearchIndex() {
+        if (this.searchIndex == null) return;
+
+        synchronized (this.searchIndexLock) {
+            this.searchIndexReady = false;
+            this.searchIndexWrites = new HashSet<>();
+        }
+
+        Dao<T, ID> dao = this.getProfileInstance(this.searchIndexProfile);
+        this.searchIndex.clear();
+        CloseableIterator<T> iterator = dao.iterator();
+        try {
+            while (iterator.hasNext()) this.index(iterator.next());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        } finally {
+            iterator.closeQuietly();
+        }
+
+        // the iterator may have read an entity as it was before a write made meanwhile, it is read again
+        for (Set<ID> writes = this.takeSearchIndexWrites(); !writes.isEmpty(); writes = this.takeSearchIndexWrites()) {
+            for (ID id : writes) {
+                try {
+                    T entity = dao.queryForId(id);
+                    if (entity != null) {
+                        this.index(entity);
+                    } else {
+                        this.searchIndex.remove(id);
+                    }
+                } catch (SQLException exception) {
+                    this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the ids of the entities written since the last call during a rebuild of the search index,
+     * and marks the index as ready when there are none
+     *
+     * @return the ids of the written entities
+     */
+    private Set<ID> takeSearchIndexWrites() {
+        synchronized (this.searchIndexLock) {
+            Set<ID> writes = this.searchIndexWrites;
+            if (writes.isEmpty()) {
+                this.searchIndexWrites = null;
+                this.searchIndexReady = true;
+            } else {
+                this.searchIndexWrites = new HashSet<>();
+            }
+
+            return writes;
+        }
+    }
+
+    /**
+     * Gets an entity by its id, from the cache if enabled
+     *
+     * @param id the id of the entity
+     * @return the entity if exists, else null
+     */
+    public T getIfExists(ID id) {
+        if (id == null) return null;
+
+        T entity = this.cache != null ? this.cache.get(id) : null;
+        if (entity != null) return entity;
+
+        try {
+            entity = this.instance.queryForId(id);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+
+        if (this.cache != null) this.cache.put(id, entity);
+        return entity;
+    }
+
+    /**
+     * Check if an entity exists in the database
+     *
+     * @param entity the entity to be checked
+     * @return true if it exists, else false
+     */
+    public boolean exists(T entity) {
+        if (entity == null) return false;
+
+        try {
+            return this.instance.queryForId(this.instance.extractId(entity)) != null;
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the first entity having a value in a column, from the cache if the column is a natural key
+     *
+     * @param columnName the name of the column
+     * @param value      the value of the column
+     * @return the first matching entity if exists, else null
+     */
+    protected T getFirstIfExists(String columnName, Object value) {
+        boolean isCached = this.cache != null && this.cache.hasNaturalKey(columnName);
+
+        T entity = isCached ? this.cache.getByNaturalKey(columnName, value) : null;
+        if (entity != null) return entity;
+
+        try {
+            entity = this.instance.query(this.instance.queryBuilder().where().eq(columnName, value).prepare())
+                    .stream().findFirst().orElse(null);
+
+            if (isCached && entity != null) this.cache.put(this.instance.extractId(entity), entity);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+
+        return entity;
+    }
+
+    /**
+     * Runs a narrow query and maps its rows directly, without hydrating the entities nor their foreign fields
+     *
+     * @param query     the raw SQL query
+     * @param rowMapper maps a row of the results
+     * @param arguments the arguments of the query
+     * @param <R>       the type of the mapped rows
+     * @return the mapped rows, empty if the query failed
+     */
+    protected <R> List<R> getProjection(String query, RawRowMapper<R> rowMapper, String... arguments) {
+        try (GenericRawResults<R> results = this.instance.queryRaw(query, rowMapper, arguments)) {
+            return results.getResults();
+        } catch (SQLException | IOException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Gets the DAO of a fetch profile, built on its first use
+     *
+     * @param profile the fetch profile, null for the default DAO
+     * @return the DAO of the fetch profile
+     */
+    protected synchronized Dao<T, ID> getProfileInstance(FetchProfile<T> profile) {
+        if (profile == null) return this.instance;
+
+        Dao<T, ID> profileInstance = this.profileInstances.get(profile);
+        if (profileInstance != null) return profileInstance;
+
+        try {
+            // not registered in the DaoManager, which would hand it out for every query of the entity
+            profileInstance = InstrumentedDao.wrap(
+                    new BaseDaoImpl<T, ID>(this.connectionSource, profile.toTableConfig(this.connectionSource)) {
+                    }, this.instance.getDataClass().getSimpleName(), PerformanceMonitor.getInstance()
+            );
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return this.instance;
+        }
+
+        this.profileInstances.put(profile, profileInstance);
+        return profileInstance;
+    }
+
+    /**
+     * Enables the full-text index used by the searches, filled once {@link #rebuildSearchIndex()} is called
+     *
+     * @param searchIndex the index, null to disable it
+     * @param profile     the fetch profile the entities are read with when the index is rebuilt,
+     *                    which should leave the foreign fields which aren't indexed lazy
+     */
+    protected void setSearchIndex(SearchIndex<T, ID> searchIndex, FetchProfile<T> profile) {
+        this.searchIndex = searchIndex;
+        this.searchIndexProfile = profile;
+    }
+
+    /**
+     * Adds an entity to the search index, replacing its previous version
+     *
+     * @param entity the entity
+     * @throws SQLException if the id of the entity can't be read
+     */
+    protected void index(T entity) throws SQLException {
+        if (this.searchIndex == null || entity == null) return;
+
+        this.searchIndex.put(this.instance.extractId(entity), entity);
+    }
+
+    /**
+     * Removes an entity from the search index
+     *
+     * @param entity the entity
+     * @throws SQLException if the id of the entity can't be read
+     */
+    protected void unindex(T entity) throws SQLException {
+        if (this.searchIndex == null || entity == null) return;
+
+        this.searchIndex.remove(this.instance.extractId(entity));
+    }
+
+    /**
+     * Gets the class of the managed entities
+     *
+     * @return the class of the managed entities
+     */
+    Class<T> getEntityClass() {
+        return this.instance.getDataClass();
+    }
+
+    /**
+     * Gets the DAO of the manager, for the units of work writing the entities in their own transaction
+     *
+     * @return the DAO of the manager
+     */
+    Dao<T, ID> getDao() {
+        return this.instance;
+    }
+
+    /**
+     * Brings the cache and the search index up to date with an entity written by this manager or by a unit of work, once committed.
+     * The cache isn't invalidated before the write, a lookup made meanwhile would otherwise cache the entity again as it was
+     *
+     * @param entity  the entity
+     * @param deleted true if the entity was deleted, false if it was inserted or updated
+     * @throws SQLException if the id of the entity can't be read
+     */
+    void afterCommit(T entity, boolean deleted) throws SQLException {
+        this.invalidate(entity);
+        if (this.searchIndex != null && entity != null) {
+            // recorded before the index is updated, so that a rebuild reads the entity again after this write
+            synchronized (this.searchIndexLock) {
+                if (this.searchIndexWrites != null) this.searchIndexWrites.add(this.instance.extractId(entity));
+            }
+        }
+
+        if (deleted) {
+            this.unindex(entity);
+        } else {
+            this.index(entity);
+        }
+    }
+
+    /**
+     * Removes an entity from the cache, so that the next lookup reads it from the database
+     *
+     * @param entity the entity
+     * @throws SQLException if the id of the entity can't be read
+     */
+    protected void invalidate(T entity) throws SQLException {
+        if (this.cache == null || entity == null) return;
+
+        this.cache.invalidate(this.instance.extractId(entity));
+    }
+}
@@ -0,0 +1,48 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
+
+/**
+ * Puts the scanned products in the carts of the clients, resolving a bar code from memory and writing the cart line
+ * in a single statement most of the time, so that a cashier can scan items as fast as the scanner reads them
+ */
+public class Checkout {
+    private final EntityManagerProduct entityManagerProduct;
+    private final EntityManagerProductStock entityManagerProductStock;
+    private final EntityManagerClientStock entityManagerClientStock;
+
+    /**
+     * Instantiates a new Checkout
+     *
+     * @param entityManagerProduct      the manager of the products
+     * @param entityManagerProductStock the manager of the stocks of the stores
+     * @param entityManagerClientStock  the manager of the lines of the carts
+     */
+    public Checkout(EntityManagerProduct entityManagerProduct, EntityManagerProductStock entityManagerProductStock,
+                    EntityManagerClientStock entityManagerClientStock) {
+        this.entityManagerProduct = entityManagerProduct;
+        this.entityManagerProductStock = entityManagerProductStock;
+        this.entityManagerClientStock = entityManagerClientStock;
+    }
+
+    /**
+     * Adds one unit of the product having a bar code to a cart
+     *
+     * @param cart    the open cart of the client
+     * @param store   the store the product is sold in
+     * @param barCode the scanned bar code
+     * @return the added product, null if the bar code is unknown, the product isn't in stock in the store,
+     * the cart is closed or the cart couldn't be updated
+     */
+    public Product scan(Cart cart, Store store, String barCode) {
+        if (cart == null || cart.isClosed() || store == null) return null;
+
+        Product product = this.entityManagerProduct.getProductByBarCode(barCode);
+        if (product == null) return null;
+        if (this.entityManagerProductStock.getQuantity(product, store) <= 0) return null;
+
+        return this.entityManagerClientStock.addToCart(cart, product, 1) ? product : null;
+    }
+}
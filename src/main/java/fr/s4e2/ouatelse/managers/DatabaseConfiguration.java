@@ -0,0 +1,128 @@
+package fr.s4e2.ouatelse.managers;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds the SQLite database settings, loaded from a properties file
+ */
+@Getter
+@Setter
+public class DatabaseConfiguration {
+    public static final String DEFAULT_DATABASE_NAME = "sqlite.db";
+
+    private static final String DATABASE_NAME_PROPERTY = "database.name";
+    private static final String JOURNAL_MODE_PROPERTY = "database.journal_mode";
+    private static final String SYNCHRONOUS_PROPERTY = "database.synchronous";
+    private static final String CACHE_SIZE_PROPERTY = "database.cache_size";
+    private static final String MMAP_SIZE_PROPERTY = "database.mmap_size";
+    private static final String BUSY_TIMEOUT_PROPERTY = "database.busy_timeout";
+    private static final String MAX_CONNECTIONS_FREE_PROPERTY = "database.pool.max_connections_free";
+    private static final String MAX_CONNECTION_AGE_PROPERTY = "database.pool.max_connection_age";
+    private static final String QUERY_THREADS_PROPERTY = "database.query_threads";
+
+    private String databaseName;
+    private String journalMode = "WAL";
+    private String synchronous = "NORMAL";
+    // negative values are in KiB, positive values are in pages
+    private long cacheSize = -8000;
+    private long mmapSize = 64L * 1024 * 1024;
+    private long busyTimeout = 5000;
+    private int maxConnectionsFree = 5;
+    private long maxConnectionAge = 60L * 60 * 1000;
+    private int queryThreads = 2;
+
+    /**
+     * Constructs a configuration with the default settings
+     *
+     * @param databaseName the name of the database file
+     */
+    public DatabaseConfiguration(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * Loads a configuration from a properties file, missing or invalid settings keep their default value
+     *
+     * @param propertiesFile the properties file
+     * @return the loaded configuration, or the default one if the file doesn't exist
+     */
+    public static DatabaseConfiguration load(Path propertiesFile) {
+        final Logger logger = Logger.getLogger(DatabaseConfiguration.class.getName());
+
+        Properties properties = new Properties();
+        if (propertiesFile != null && Files.exists(propertiesFile)) {
+            try (InputStream inputStream = Files.newInputStream(propertiesFile)) {
+                properties.load(inputStream);
+            } catch (IOException exception) {
+                logger.log(Level.SEVERE, exception.getMessage(), exception);
+            }
+        }
+
+        return load(properties);
+    }
+
+    /**
+     * Loads a configuration from properties, missing or invalid settings keep their default value
+     *
+     * @param properties the properties
+     * @return the loaded configuration
+     */
+    public static DatabaseConfiguration load(Properties properties) {
+        DatabaseConfiguration configuration = new DatabaseConfiguration(
+                properties.getProperty(DATABASE_NAME_PROPERTY, DEFAULT_DATABASE_NAME).trim()
+        );
+
+        configuration.setJournalMode(properties.getProperty(JOURNAL_MODE_PROPERTY, configuration.getJournalMode()).trim());
+        configuration.setSynchronous(properties.getProperty(SYNCHRONOUS_PROPERTY, configuration.getSynchronous()).trim());
+        configuration.setCacheSize(getLong(properties, CACHE_SIZE_PROPERTY, configuration.getCacheSize()));
+        configuration.setMmapSize(getLong(properties, MMAP_SIZE_PROPERTY, configuration.getMmapSize()));
+        configuration.setBusyTimeout(getLong(properties, BUSY_TIMEOUT_PROPERTY, configuration.getBusyTimeout()));
+        configuration.setMaxConnectionsFree((int) getLong(properties, MAX_CONNECTIONS_FREE_PROPERTY, configuration.getMaxConnectionsFree()));
+        configuration.setMaxConnectionAge(getLong(properties, MAX_CONNECTION_AGE_PROPERTY, configuration.getMaxConnectionAge()));
+        configuration.setQueryThreads((int) getLong(properties, QUERY_THREADS_PROPERTY, configuration.getQueryThreads()));
+
+        return configuration;
+    }
+
+    /**
+     * Builds the JDBC URL, the SQLite driver applies the pragmas to every opened connection
+     *
+     * @return the JDBC URL of the database
+     */
+    public String getUrl() {
+        return "jdbc:sqlite:" + this.databaseName
+                + "?journal_mode=" + this.journalMode
+                + "&synchronous=" + this.synchronous
+                + "&cache_size=" + this.cacheSize
+                + "&mmap_size=" + this.mmapSize
+                + "&busy_timeout=" + this.busyTimeout;
+    }
+
+    /**
+     * Reads a numeric property
+     *
+     * @param properties   the properties
+     * @param key          the key of the property
+     * @param defaultValue the value returned if the property is missing or invalid
+     * @return the value of the property
+     */
+    private static long getLong(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException exception) {
+            return defaultValue;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package fr.s4e2.ouatelse.managers;
 
-import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
 import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.table.DatabaseTableConfig;
 import com.j256.ormlite.table.TableUtils;
 import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
+import fr.s4e2.ouatelse.migrations.MigrationManager;
+import fr.s4e2.ouatelse.migrations.Migrations;
 import fr.s4e2.ouatelse.objects.*;
 import lombok.Getter;
 
@@ -12,6 +16,9 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,9 +28,17 @@ import java.util.logging.Logger;
 @Getter
 public class DatabaseManager {
     private static final String DATABASE_NOT_INITIALIZED_EXCEPTION = "Could not setup the database";
+    private static final List<Class<?>> TABLES = Arrays.asList(
+            Address.class, Availability.class, Cart.class, Client.class, Order.class, OrderLine.class, Product.class,
+            ProductStock.class, Role.class, Salary.class, Store.class, User.class, Vendor.class, ScheduledOrder.class,
+            ClientStock.class, DailySales.class, StockMovement.class, StockSnapshot.class
+    );
 
     private final Logger logger = Logger.getLogger(this.getClass().getName());
     private final ConnectionSource connectionSource;
+    private final QueryExecutor queryExecutor;
+    private final CompletableFuture<Void> deferredSetup;
+    private MigrationManager migrationManager;
 
     /**
      * Constructs the DatabaseManager
@@ -40,6 +55,14 @@ public class DatabaseManager {
     private EntityManagerCart entityManagerCart;
     private EntityManagerClientStock entityManagerClientStock;
     private EntityManagerSalary entityManagerSalary;
+    private EntityManagerDailySales entityManagerDailySales;
+    private EntityManagerStockMovement entityManagerStockMovement;
+    private EntityManagerOrder entityManagerOrder;
+    private EntityManagerOrderLine entityManagerOrderLine;
+    private Checkout checkout;
+    private StockLedger stockLedger;
+    private OrderScheduler orderScheduler;
+    private ReorderEngine reorderEngine;
 
     private static final String DEFAULT_CLIENT_PHONE_NUMBER = "123456789";
     private static final String DEFAULT_USER_PHONE_NUMBER = "00 00 00 00 00";
@@ -48,22 +71,52 @@ public class DatabaseManager {
     private static final String DEFAULT_PASSWORD = "password";
 
     /**
-     * Constructs the DatabaseManager
+     * Constructs the DatabaseManager with the default configuration
+     *
+     * @param databaseName the name of the database file
      */
     public DatabaseManager(String databaseName) {
+        this(new DatabaseConfiguration(databaseName));
+    }
+
+    /**
+     * Constructs the DatabaseManager, finishing its setup before returning
+     *
+     * @param configuration the database configuration
+     */
+    public DatabaseManager(DatabaseConfiguration configuration) {
+        this(configuration, Runnable::run);
+    }
+
+    /**
+     * Constructs the DatabaseManager. The tables, the migrations, the default data and the daily sales rollup are set up before returning,
+     * the search indexes and the stock snapshots are set up by the given executor
+     *
+     * @param configuration         the database configuration
+     * @param deferredSetupExecutor the executor finishing the setup, see {@link #getDeferredSetup()}
+     */
+    public DatabaseManager(DatabaseConfiguration configuration, Executor deferredSetupExecutor) {
         try {
-            this.connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseName);
+            JdbcPooledConnectionSource pooledConnectionSource = new JdbcPooledConnectionSource(configuration.getUrl());
+            pooledConnectionSource.setMaxConnectionsFree(configuration.getMaxConnectionsFree());
+            pooledConnectionSource.setMaxConnectionAgeMillis(configuration.getMaxConnectionAge());
+            this.connectionSource = pooledConnectionSource;
+            this.queryExecutor = new QueryExecutor(configuration.getQueryThreads());
+
             this.setupTables();
+            this.setupMigrations();
             this.setupDao();
-            this.fillDatabase();
+            this.setupDefaultData();
+            this.setupDailySales();
         } catch (SQLException exception) {
             this.logger.log(Level.SEVERE, DATABASE_NOT_INITIALIZED_EXCEPTION, exception);
             throw new DatabaseInitialisationException(DATABASE_NOT_INITIALIZED_EXCEPTION);
         }
+        this.deferredSetup = CompletableFuture.runAsync(this::setupDeferred, deferredSetupExecutor);
     }
 
     /**
-     * Deletes a database by its name
+     * Deletes a database by its name, along with its write-ahead log files
      *
      * @param databaseName database name to delete
      */
@@ -72,6 +125,8 @@ public class DatabaseManager {
 
         if (databaseName == null || databaseName.trim().isEmpty()) return;
         try {
+            Files.deleteIfExists(Paths.get(databaseName + "-wal"));
+            Files.deleteIfExists(Paths.get(databaseName + "-shm"));
             Files.delete(Paths.get(databaseName));
         } catch (IOException exception) {
             logger.log(Level.SEVERE, exception.getMessage(), exception);
@@ -79,11 +134,13 @@ public class DatabaseManager {
     }
 
     /**
-     * Closes the connection source
+     * Stops the background queries and deliveries, and closes the connection source
      *
      * @throws IOException Signals that an I/O exception of some sort has occurred. This class is the general class of exceptions produced by failed or interrupted I/O operations.
      */
     public void close() throws IOException {
+        if (orderScheduler != null) orderScheduler.stop();
+        queryExecutor.close();
         connectionSource.close();
     }
 
@@ -93,20 +150,40 @@ public class DatabaseManager {
      * @throws SQLException occurs when there is a connection that can't be made
      */
     public void setupTables() throws SQLException {
-        TableUtils.createTableIfNotExists(connectionSource, Address.class);
-        TableUtils.createTableIfNotExists(connectionSource, Availability.class);
-        TableUtils.createTableIfNotExists(connectionSource, Cart.class);
-        TableUtils.createTableIfNotExists(connectionSource, Client.class);
-        TableUtils.createTableIfNotExists(connectionSource, Order.class);
-        TableUtils.createTableIfNotExists(connectionSource, Product.class);
-        TableUtils.createTableIfNotExists(connectionSource, ProductStock.class);
-        TableUtils.createTableIfNotExists(connectionSource, Role.class);
-        TableUtils.createTableIfNotExists(connectionSource, Salary.class);
-        TableUtils.createTableIfNotExists(connectionSource, Store.class);
-        TableUtils.createTableIfNotExists(connectionSource, User.class);
-        TableUtils.createTableIfNotExists(connectionSource, Vendor.class);
-        TableUtils.createTableIfNotExists(connectionSource, ScheduledOrder.class);
-        TableUtils.createTableIfNotExists(connectionSource, ClientStock.class);
+        if (this.countExistingTables() == TABLES.size()) return;
+
+        for (Class<?> table : TABLES) {
+            TableUtils.createTableIfNotExists(connectionSource, table);
+        }
+    }
+
+    /**
+     * Counts the tables of the entities which already exist, in a single query
+     *
+     * @return the number of existing tables
+     * @throws SQLException occurs when there is a connection that can't be established
+     */
+    private long countExistingTables() throws SQLException {
+        String tableNames = TABLES.stream()
+                .map(table -> "'" + DatabaseTableConfig.extractTableName(connectionSource.getDatabaseType(), table) + "'")
+                .collect(Collectors.joining(", "));
+
+        DatabaseConnection connection = connectionSource.getReadOnlyConnection(null);
+        try {
+            return connection.queryForLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name IN (" + tableNames + ")");
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Applies the schema migrations which haven't been applied yet
+     *
+     * @throws SQLException occurs when a migration fails
+     */
+    public void setupMigrations() throws SQLException {
+        this.migrationManager = new MigrationManager(connectionSource, Migrations.getMigrations());
+        this.migrationManager.migrate();
     }
 
     /**
@@ -125,6 +202,83 @@ public class DatabaseManager {
         this.entityManagerCart = new EntityManagerCart(connectionSource);
         this.entityManagerClientStock = new EntityManagerClientStock(connectionSource);
         this.entityManagerSalary = new EntityManagerSalary(connectionSource);
+        this.entityManagerDailySales = new EntityManagerDailySales(connectionSource);
+        this.entityManagerStockMovement = new EntityManagerStockMovement(connectionSource);
+        this.entityManagerOrder = new EntityManagerOrder(connectionSource);
+        this.entityManagerOrderLine = new EntityManagerOrderLine(connectionSource);
+        this.checkout = new Checkout(entityManagerProduct, entityManagerProductStock, entityManagerClientStock);
+        this.stockLedger = new StockLedger(connectionSource, entityManagerProductStock, entityManagerCart, entityManagerStockMovement,
+                entityManagerScheduledOrder, entityManagerDailySales);
+        this.orderScheduler = new OrderScheduler(entityManagerScheduledOrder, stockLedger);
+        this.reorderEngine = new ReorderEngine(entityManagerProduct, entityManagerProductStock, entityManagerScheduledOrder,
+                entityManagerStockMovement, orderScheduler);
+    }
+
+    /**
+     * Fills the database with the default data on its first launch only, so that the established databases skip it
+     *
+     * @throws SQLException occurs when there is a connection that can't be established
+     */
+    private void setupDefaultData() throws SQLException {
+        if (this.migrationManager.isSeeded()) return;
+
+        this.fillDatabase();
+        this.migrationManager.recordSeed();
+    }
+
+    /**
+     * Sets up what isn't needed to log in : the search indexes and the stock snapshots
+     */
+    private void setupDeferred() {
+        this.setupSearchIndexes();
+        this.setupStockSnapshots();
+    }
+
+    /**
+     * Gets all the entity managers, to look over their caches
+     *
+     * @return the entity managers
+     */
+    public List<AbstractEntityManager<?, ?>> getEntityManagers() {
+        return Arrays.asList(entityManagerAddress, entityManagerRole, entityManagerStore, entityManagerUser, entityManagerProduct,
+                entityManagerVendor, entityManagerProductStock, entityManagerScheduledOrder, entityManagerClient, entityManagerCart,
+                entityManagerClientStock, entityManagerSalary, entityManagerDailySales, entityManagerStockMovement,
+                entityManagerOrder, entityManagerOrderLine);
+    }
+
+    /**
+     * Creates a unit of work writing the entities with the entity managers
+     *
+     * @return a new unit of work
+     */
+    public UnitOfWork createUnitOfWork() {
+        return new UnitOfWork(connectionSource, this.getEntityManagers());
+    }
+
+    /**
+     * Builds the daily sales rollup from the already closed carts when it has never been built.
+     * It runs before the login screen, while no till can sell
+     */
+    private void setupDailySales() {
+        this.entityManagerDailySales.buildIfEmpty();
+    }
+
+    /**
+     * Indexes the searched entities, the entity managers then keep their index up to date
+     */
+    private void setupSearchIndexes() {
+        this.entityManagerProduct.rebuildSearchIndex();
+        this.entityManagerClient.rebuildSearchIndex();
+        this.entityManagerUser.rebuildSearchIndex();
+        this.entityManagerVendor.rebuildSearchIndex();
+    }
+
+    /**
+     * Snapshots the stocks which moved since the last launch, so that their quantities are computed from a short journal
+     */
+    private void setupStockSnapshots() {
+        this.entityManagerStockMovement.seedSnapshots();
+        this.entityManagerStore.getQueryForAll().forEach(this.entityManagerStockMovement::takeSnapshots);
     }
 
     /**
@@ -0,0 +1,96 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.utils.Utils;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Properties;
+
+/**
+ * Holds the size and the seed of a generated dataset, loaded from properties
+ */
+@Getter
+@Setter
+public class DatasetConfiguration {
+    private static final String SEED_PROPERTY = "dataset.seed";
+    private static final String STORES_PROPERTY = "dataset.stores";
+    private static final String CLIENTS_PROPERTY = "dataset.clients";
+    private static final String VENDORS_PROPERTY = "dataset.vendors";
+    private static final String PRODUCTS_PROPERTY = "dataset.products";
+    private static final String CARTS_PER_DAY_PROPERTY = "dataset.carts_per_day";
+    private static final String HISTORY_DAYS_PROPERTY = "dataset.history_days";
+    private static final String MAX_LINES_PER_CART_PROPERTY = "dataset.max_lines_per_cart";
+    private static final String POPULARITY_SKEW_PROPERTY = "dataset.popularity_skew";
+    private static final String MIN_STOCK_QUANTITY_PROPERTY = "dataset.min_stock_quantity";
+    private static final String MAX_STOCK_QUANTITY_PROPERTY = "dataset.max_stock_quantity";
+
+    private long seed = 42;
+    private int stores = 5;
+    private int clients = 10000;
+    private int vendors = 50;
+    private int products = 5000;
+    // carts closed every day in each store, on average
+    private int cartsPerDay = 200;
+    private int historyDays = 365;
+    private int maxLinesPerCart = 5;
+    // exponent of the Zipf law the products are picked with, 0 makes every product as popular
+    private double popularitySkew = 1.0;
+    // bounds of the quantity of every product left in stock in every store at the end of the history
+    private int minStockQuantity = 0;
+    private int maxStockQuantity = 50;
+    // the history ends the day before this date, so that two datasets generated the same day are identical
+    private Date endDate = Utils.localDateToDate(LocalDate.now());
+
+    /**
+     * Loads a configuration from properties, missing or invalid settings keep their default value
+     *
+     * @param properties the properties
+     * @return the loaded configuration
+     */
+    public static DatasetConfiguration load(Properties properties) {
+        DatasetConfiguration configuration = new DatasetConfiguration();
+
+        configuration.setSeed(getLong(properties, SEED_PROPERTY, configuration.getSeed()));
+        configuration.setStores((int) getLong(properties, STORES_PROPERTY, configuration.getStores()));
+        configuration.setClients((int) getLong(properties, CLIENTS_PROPERTY, configuration.getClients()));
+        configuration.setVendors((int) getLong(properties, VENDORS_PROPERTY, configuration.getVendors()));
+        configuration.setProducts((int) getLong(properties, PRODUCTS_PROPERTY, configuration.getProducts()));
+        configuration.setCartsPerDay((int) getLong(properties, CARTS_PER_DAY_PROPERTY, configuration.getCartsPerDay()));
+        configuration.setHistoryDays((int) getLong(properties, HISTORY_DAYS_PROPERTY, configuration.getHistoryDays()));
+        configuration.setMaxLinesPerCart((int) getLong(properties, MAX_LINES_PER_CART_PROPERTY, configuration.getMaxLinesPerCart()));
+        configuration.setMinStockQuantity((int) getLong(properties, MIN_STOCK_QUANTITY_PROPERTY, configuration.getMinStockQuantity()));
+        configuration.setMaxStockQuantity((int) getLong(properties, MAX_STOCK_QUANTITY_PROPERTY, configuration.getMaxStockQuantity()));
+
+        String popularitySkew = properties.getProperty(POPULARITY_SKEW_PROPERTY);
+        if (popularitySkew != null) {
+            try {
+                configuration.setPopularitySkew(Double.parseDouble(popularitySkew.trim()));
+            } catch (NumberFormatException ignored) {
+                // the default value is kept
+            }
+        }
+
+        return configuration;
+    }
+
+    /**
+     * Reads a numeric property
+     *
+     * @param properties   the properties
+     * @param key          the key of the property
+     * @param defaultValue the value returned if the property is missing or invalid
+     * @return the value of the property
+     */
+    private static long getLong(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) return defaultValue;
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException exception) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Address;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.Civility;
+import fr.s4e2.ouatelse.objects.Client;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.DailySales;
+import fr.s4e2.ouatelse.objects.PersonState;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.StockMovement;
+import fr.s4e2.ouatelse.objects.StockMovementType;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.objects.Vendor;
+import fr.s4e2.ouatelse.utils.Utils;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fills a database with a synthetic but realistic dataset : stores, vendors, clients, a catalogue whose products
+ * follow a Zipf popularity law, and the closed carts of a history of several years along with their stock journal
+ * and their daily sales rollup. The dataset only depends on its configuration, so that two datasets generated
+ * with the same seed hold the same rows, and it is written through the entity managers in transactions
+ * of a bounded size
+ */
+public class DatasetGenerator {
+    public static final String STORE_PASSWORD = "password";
+    public static final long FIRST_REFERENCE = 1000000000L;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    private static final int OPENING_HOUR = 9;
+    private static final int OPENING_HOURS = 11;
+    private static final int BATCH_SIZE = 10000;
+    private static final int LOGGED_DAYS = 30;
+    private static final int MAX_QUANTITY = 3;
+    private static final String EMAIL_DOMAIN = "@dataset.ouatelse.fr";
+
+    private static final String[] CITIES = {"Bordeaux", "Paris", "Lyon", "Marseille", "Lille", "Nantes", "Toulouse", "Rennes"};
+    private static final String[] STREETS = {"rue de la Paix", "avenue Pasteur", "cours Victor Hugo", "place de la Mairie", "allée des Tilleuls"};
+    private static final String[] SURNAMES = {"Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand", "Leroy", "Moreau"};
+    private static final String[] NAMES = {"Camille", "Louis", "Emma", "Hugo", "Chloe", "Lucas", "Lea", "Jules", "Manon", "Arthur"};
+    private static final String[] CATEGORIES = {"Jardin", "Cuisine", "Salon", "Chambre", "Bureau", "Salle de bain", "Machine à Café"};
+    private static final String[] ARTICLES = {"Chaise", "Table", "Lampe", "Tapis", "Etagere", "Miroir", "Coussin", "Bouilloire", "Cafetiere", "Parasol"};
+    private static final String[] FINISHES = {"chene", "noyer", "blanc", "noir", "rotin", "inox", "lin", "velours"};
+
+    private final DatabaseManager databaseManager;
+    private final DatasetConfiguration configuration;
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+
+    @Getter
+    private final List<Store> stores = new ArrayList<>();
+    @Getter
+    private final List<Vendor> vendors = new ArrayList<>();
+    @Getter
+    private final List<Product> products = new ArrayList<>();
+    @Getter
+    private final List<Client> clients = new ArrayList<>();
+
+    // the products sorted from the most popular, and the cumulated weights of their ranks
+    private int[] popularProducts;
+    private double[] popularityWeights;
+    // the quantities sold of every product in every store, totalled before the carts are written
+    private long[][] soldQuantities;
+    private long rows;
+
+    /**
+     * Instantiates a new DatasetGenerator
+     *
+     * @param databaseManager the manager of the filled database
+     * @param configuration   the size and the seed of the dataset
+     */
+    public DatasetGenerator(DatabaseManager databaseManager, DatasetConfiguration configuration) {
+        this.databaseManager = databaseManager;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Generates a dataset into the database given by a properties file, the database must not exist yet
+     *
+     * @param args the path of the properties file holding the database and dataset settings, ouatelse.properties by default
+     */
+    public static void main(String[] args) {
+        final Logger logger = Logger.getLogger(DatasetGenerator.class.getName());
+        Path propertiesFile = Paths.get(args.length > 0 ? args[0] : "ouatelse.properties");
+
+        Properties properties = new Properties();
+        if (Files.exists(propertiesFile)) {
+            try (InputStream inputStream = Files.newInputStream(propertiesFile)) {
+                properties.load(inputStream);
+            } catch (IOException exception) {
+                logger.log(Level.SEVERE, exception.getMessage(), exception);
+                return;
+            }
+        }
+
+        DatabaseConfiguration databaseConfiguration = DatabaseConfiguration.load(properties);
+        if (Files.exists(Paths.get(databaseConfiguration.getDatabaseName()))) {
+            logger.log(Level.SEVERE, "The database {0} already exists, a dataset is only generated into a new database",
+                    databaseConfiguration.getDatabaseName());
+            return;
+        }
+
+        DatabaseManager databaseManager = new DatabaseManager(databaseConfiguration);
+        long startTime = System.currentTimeMillis();
+        long rows = new DatasetGenerator(databaseManager, DatasetConfiguration.load(properties)).generate();
+        logger.log(Level.INFO, "{0} rows generated into {1} in {2} s",
+                new Object[]{rows, databaseConfiguration.getDatabaseName(), (System.currentTimeMillis() - startTime) / 1000});
+
+        try {
+            databaseManager.close();
+        } catch (IOException exception) {
+            logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Generates the dataset
+     *
+     * @return the number of inserted rows
+     */
+    public long generate() {
+        Random random = new Random(this.configuration.getSeed());
+        this.rows = 0;
+
+        this.createStores(random);
+        this.createVendors(random);
+        this.createProducts(random);
+        this.createClients(random);
+        this.createPopularity(random);
+
+        // the carts are drawn twice from the same seed : first to total the sold quantities, so that the stocks
+        // received at the start of the history are journaled before the sales they are sold by
+        long cartsSeed = random.nextLong();
+        this.soldQuantities = new long[this.stores.size()][this.products.size()];
+        this.createCarts(new Random(cartsSeed), false);
+        this.createStocks(random);
+        this.createCarts(new Random(cartsSeed), true);
+
+        return this.rows;
+    }
+
+    /**
+     * Creates the stores along with their address
+     *
+     * @param random the random generator
+     */
+    private void createStores(Random random) {
+        List<Address> addresses = new ArrayList<>();
+        for (int i = 0; i < this.configuration.getStores(); i++) {
+            Address address = this.createAddress(random);
+            addresses.add(address);
+
+            Store store = new Store("Ouatelse " + address.getCity() + " " + (i + 1));
+            store.setPassword(STORE_PASSWORD);
+            store.setAddress(address);
+            this.stores.add(store);
+        }
+
+        this.createInBatches(addresses, this.databaseManager.getEntityManagerAddress()::createAll);
+        this.createInBatches(this.stores, this.databaseManager.getEntityManagerStore()::createAll);
+    }
+
+    /**
+     * Creates the vendors
+     *
+     * @param random the random generator
+     */
+    private void createVendors(Random random) {
+        for (int i = 0; i < this.configuration.getVendors(); i++) {
+            Vendor vendor = new Vendor();
+            vendor.setName("Fournisseur " + (i + 1));
+            vendor.setEmail("fournisseur" + (i + 1) + EMAIL_DOMAIN);
+            vendor.setPhoneNumber(this.createPhoneNumber(random, "05"));
+            vendor.setContractState(random.nextInt(10) > 0);
+            this.vendors.add(vendor);
+        }
+
+        this.createInBatches(this.vendors, this.databaseManager.getEntityManagerVendor()::createAll);
+    }
+
+    /**
+     * Creates the catalogue, every product being sold by a vendor and owned by a store
+     *
+     * @param random the random generator
+     */
+    private void createProducts(Random random) {
+        for (int i = 0; i < this.configuration.getProducts(); i++) {
+            Product product = new Product();
+            product.setReference(FIRST_REFERENCE + i);
+            product.setBarCode(String.valueOf(3700000000000L + i));
+            product.setName(ARTICLES[random.nextInt(ARTICLES.length)] + " " + FINISHES[random.nextInt(FINISHES.length)] + " " + (i + 1));
+            product.setBrand("Marque " + (1 + random.nextInt(100)));
+            product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            product.setPurchasePrice(Math.round((1 + random.nextDouble() * 300) * 100) / 100.0);
+            product.setMargin(0.2 + random.nextInt(4) * 0.1);
+            product.setTaxes(0.2);
+            product.setState(ProductState.IN_STOCK);
+            if (!this.vendors.isEmpty()) product.setSoldBy(this.vendors.get(random.nextInt(this.vendors.size())));
+            if (!this.stores.isEmpty()) product.setStore(this.stores.get(i % this.stores.size()));
+            this.products.add(product);
+        }
+
+        this.createInBatches(this.products, this.databaseManager.getEntityManagerProduct()::createAll);
+    }
+
+    /**
+     * Creates the clients along with their address
+     *
+     * @param random the random generator
+     */
+    private void createClients(Random random) {
+        List<Address> addresses = new ArrayList<>();
+        long endTime = this.configuration.getEndDate().getTime();
+
+        for (int i = 0; i < this.configuration.getClients(); i++) {
+            Address address = this.createAddress(random);
+            addresses.add(address);
+
+            Client client = new Client();
+            client.setName(NAMES[random.nextInt(NAMES.length)]);
+            client.setSurname(SURNAMES[random.nextInt(SURNAMES.length)]);
+            client.setEmail((client.getName() + "." + client.getSurname() + "." + (i + 1)).toLowerCase() + EMAIL_DOMAIN);
+            client.setMobilePhoneNumber(this.createPhoneNumber(random, "06"));
+            client.setBirthDate(new Date(endTime - (18 + random.nextInt(62)) * 365 * DAY_MILLIS - random.nextInt(365) * DAY_MILLIS));
+            client.setCivility(Civility.values()[random.nextInt(Civility.values().length)]);
+            client.setStatus(random.nextInt(4) > 0 ? PersonState.EMPLOYED : PersonState.UNEMPLOYED);
+            client.setAddress(address);
+            this.clients.add(client);
+        }
+
+        this.createInBatches(addresses, this.databaseManager.getEntityManagerAddress()::createAll);
+        this.createInBatches(this.clients, this.databaseManager.getEntityManagerClient()::createAll);
+    }
+
+    /**
+     * Ranks the products in a random order, the product of rank r being picked with a weight of 1 / r ^ skew
+     *
+     * @param random the random generator
+     */
+    private void createPopularity(Random random) {
+        int productCount = this.products.size();
+        this.popularProducts = new int[productCount];
+        this.popularityWeights = new double[productCount];
+
+        for (int i = 0; i < productCount; i++) {
+            int j = random.nextInt(i + 1);
+            this.popularProducts[i] = this.popularProducts[j];
+            this.popularProducts[j] = i;
+        }
+
+        double cumulatedWeight = 0;
+        for (int rank = 0; rank < productCount; rank++) {
+            cumulatedWeight += 1 / Math.pow(rank + 1, this.configuration.getPopularitySkew());
+            this.popularityWeights[rank] = cumulatedWeight;
+        }
+    }
+
+    /**
+     * Creates the stock of every product in every store, and the receipt of the stock which was sold
+     * during the history or is still held at its end
+     *
+     * @param random the random generator
+     */
+    private void createStocks(Random random) {
+        Date historyStart = new Date(this.getHistoryStart().getTime() + (OPENING_HOUR - 1) * HOUR_MILLIS);
+        int minQuantity = this.configuration.getMinStockQuantity();
+        int quantityRange = Math.max(0, this.configuration.getMaxStockQuantity() - minQuantity) + 1;
+        List<ProductStock> productStocks = new ArrayList<>();
+        List<StockMovement> receipts = new ArrayList<>();
+
+        for (int storeIndex = 0; storeIndex < this.stores.size(); storeIndex++) {
+            Store store = this.stores.get(storeIndex);
+
+            for (int productIndex = 0; productIndex < this.products.size(); productIndex++) {
+                Product product = this.products.get(productIndex);
+                int quantity = minQuantity + random.nextInt(quantityRange);
+
+                ProductStock productStock = new ProductStock();
+                productStock.setProduct(product);
+                productStock.setStore(store);
+                productStock.setQuantity(quantity);
+                productStocks.add(productStock);
+
+                long receivedQuantity = quantity + this.soldQuantities[storeIndex][productIndex];
+                if (receivedQuantity > 0) {
+                    StockMovement receipt = new StockMovement(store, product, (int) receivedQuantity, StockMovementType.RECEIPT);
+                    receipt.setDate(historyStart);
+                    receipts.add(receipt);
+                }
+            }
+        }
+
+        this.createInBatches(productStocks, this.databaseManager.getEntityManagerProductStock()::createAll);
+        this.createInBatches(receipts, this.databaseManager.getEntityManagerStockMovement()::createAll);
+    }
+
+    /**
+     * Creates the closed carts of every day of the history, with their lines, their sales in the stock journal
+     * and their daily sales rollup. The carts are written in batches, in the order they were closed in
+     *
+     * @param random the random generator
+     * @param write  true to write the carts, false to only total the quantities they sell
+     */
+    private void createCarts(Random random, boolean write) {
+        List<Cart> carts = new ArrayList<>();
+        List<ClientStock> clientStocks = new ArrayList<>();
+        List<StockMovement> sales = new ArrayList<>();
+        List<DailySales> dailySales = new ArrayList<>();
+        int[] cartProducts = new int[Math.max(1, this.configuration.getMaxLinesPerCart())];
+
+        LocalDate day = Utils.dateToLocalDate(this.getHistoryStart());
+        for (int dayIndex = 0; dayIndex < this.configuration.getHistoryDays(); dayIndex++, day = day.plusDays(1)) {
+            long dayStart = Utils.localDateToDate(day).getTime();
+            Map<String, DailySales> daySales = new HashMap<>();
+
+            for (long cartKey : this.createCartKeys(random, day, dayStart)) {
+                int storeIndex = (int) (cartKey % this.stores.size());
+                Store store = this.stores.get(storeIndex);
+
+                Cart cart = new Cart();
+                cart.setDate(new Date(cartKey / this.stores.size()));
+                cart.setClosed(true);
+                if (!this.clients.isEmpty()) cart.setClient(this.clients.get(random.nextInt(this.clients.size())));
+                if (write) carts.add(cart);
+
+                int lineCount = this.pickProducts(random, cartProducts);
+                for (int line = 0; line < lineCount; line++) {
+                    Product product = this.products.get(cartProducts[line]);
+                    int quantity = 1 + random.nextInt(MAX_QUANTITY);
+                    if (!write) {
+                        this.soldQuantities[storeIndex][cartProducts[line]] += quantity;
+                        continue;
+                    }
+
+                    ClientStock clientStock = new ClientStock();
+                    clientStock.setCart(cart);
+                    clientStock.setClient(cart.getClient());
+                    clientStock.setProduct(product);
+                    clientStock.setQuantity(quantity);
+                    clientStocks.add(clientStock);
+
+                    StockMovement sale = new StockMovement(store, product, -quantity, StockMovementType.SALE);
+                    sale.setDate(cart.getDate());
+                    sales.add(sale);
+
+                    Date salesDay = new Date(dayStart);
+                    DailySales productSales = daySales.computeIfAbsent(product.getStore().getId() + "|" + product.getCategory(),
+                            key -> new DailySales(salesDay, product.getStore(), product.getCategory()));
+                    productSales.setAmount(productSales.getAmount() + product.getSellingPrice() * quantity);
+                    productSales.setQuantity(productSales.getQuantity() + quantity);
+                }
+            }
+
+            if (!write) continue;
+
+            dailySales.addAll(daySales.values());
+            if (clientStocks.size() >= BATCH_SIZE) this.flushCarts(carts, clientStocks, sales, dailySales);
+            if ((dayIndex + 1) % LOGGED_DAYS == 0) {
+                this.logger.log(Level.INFO, "{0} days of {1} generated", new Object[]{dayIndex + 1, this.configuration.getHistoryDays()});
+            }
+        }
+
+        if (write) this.flushCarts(carts, clientStocks, sales, dailySales);
+    }
+
+    /**
+     * Draws the carts closed during a day in every store, busier on saturdays and quieter on sundays
+     *
+     * @param random   the random generator
+     * @param day      the day
+     * @param dayStart the first instant of the day, in milliseconds since the epoch
+     * @return the closing instant of every cart multiplied by the number of stores, plus the index of its store,
+     * sorted so that the carts are created in the order they were closed in
+     */
+    private long[] createCartKeys(Random random, LocalDate day, long dayStart) {
+        double dayFactor = day.getDayOfWeek() == DayOfWeek.SATURDAY ? 1.5 : day.getDayOfWeek() == DayOfWeek.SUNDAY ? 0.5 : 1;
+        int[] cartCounts = new int[this.stores.size()];
+        int cartCount = 0;
+
+        for (int storeIndex = 0; storeIndex < cartCounts.length; storeIndex++) {
+            cartCounts[storeIndex] = (int) Math.round(this.configuration.getCartsPerDay() * dayFactor * (0.8 + 0.4 * random.nextDouble()));
+            cartCount += cartCounts[storeIndex];
+        }
+
+        long[] cartKeys = new long[cartCount];
+        int cartIndex = 0;
+        for (int storeIndex = 0; storeIndex < cartCounts.length; storeIndex++) {
+            for (int i = 0; i < cartCounts[storeIndex]; i++) {
+                long time = dayStart + OPENING_HOUR * HOUR_MILLIS + (long) (random.nextDouble() * OPENING_HOURS * HOUR_MILLIS);
+                cartKeys[cartIndex++] = time * this.stores.size() + storeIndex;
+            }
+        }
+
+        Arrays.sort(cartKeys);
+        return cartKeys;
+    }
+
+    /**
+     * Picks the distinct products of a cart following their popularity
+     *
+     * @param random       the random generator
+     * @param cartProducts the array filled with the indexes of the picked products
+     * @return the number of picked products
+     */
+    private int pickProducts(Random random, int[] cartProducts) {
+        if (this.products.isEmpty()) return 0;
+
+        int lineCount = Math.min(1 + random.nextInt(cartProducts.length), this.products.size());
+        int pickedCount = 0;
+
+        while (pickedCount < lineCount) {
+            double weight = random.nextDouble() * this.popularityWeights[this.popularityWeights.length - 1];
+            int rank = Arrays.binarySearch(this.popularityWeights, weight);
+            int productIndex = this.popularProducts[Math.min(rank < 0 ? -rank - 1 : rank, this.popularProducts.length - 1)];
+
+            boolean isPicked = false;
+            for (int i = 0; i < pickedCount && !isPicked; i++) isPicked = cartProducts[i] == productIndex;
+            if (!isPicked) cartProducts[pickedCount++] = productIndex;
+        }
+
+        return pickedCount;
+    }
+
+    /**
+     * Writes the pending carts and the rows depending on them, then empties the lists
+     *
+     * @param carts        the carts
+     * @param clientStocks the lines of the carts
+     * @param sales        the sales of the lines
+     * @param dailySales   the daily sales rollup of the lines
+     */
+    private void flushCarts(List<Cart> carts, List<ClientStock> clientStocks, List<StockMovement> sales, List<DailySales> dailySales) {
+        // the carts get their ids before their lines reference them
+        this.createInBatches(carts, this.databaseManager.getEntityManagerCart()::createAll);
+        this.createInBatches(clientStocks, this.databaseManager.getEntityManagerClientStock()::createAll);
+        this.createInBatches(sales, this.databaseManager.getEntityManagerStockMovement()::createAll);
+        this.createInBatches(dailySales, this.databaseManager.getEntityManagerDailySales()::createAll);
+
+        carts.clear();
+        clientStocks.clear();
+        sales.clear();
+        dailySales.clear();
+    }
+
+    /**
+     * Gets the first day of the history
+     *
+     * @return the first instant of the first day
+     */
+    private Date getHistoryStart() {
+        LocalDate endDay = Utils.dateToLocalDate(this.configuration.getEndDate());
+        return Utils.localDateToDate(endDay.minusDays(this.configuration.getHistoryDays()));
+    }
+
+    /**
+     * Draws an address
+     *
+     * @param random the random generator
+     * @return the address
+     */
+    private Address createAddress(Random random) {
+        Address address = new Address();
+        address.setStreetNameAndNumber((1 + random.nextInt(200)) + " " + STREETS[random.nextInt(STREETS.length)]);
+        address.setCity(CITIES[random.nextInt(CITIES.length)]);
+        address.setZipCode(10000 + random.nextInt(85000));
+
+        return address;
+    }
+
+    /**
+     * Draws a phone number
+     *
+     * @param random the random generator
+     * @param prefix the first two digits
+     * @return the phone number
+     */
+    private String createPhoneNumber(Random random, String prefix) {
+        return prefix + String.format("%08d", random.nextInt(100000000));
+    }
+
+    /**
+     * Inserts entities in transactions of a bounded size
+     *
+     * @param entities  the entities
+     * @param createAll the batch insertion of the entity manager
+     * @param <T>       the type of the entities
+     */
+    private <T> void createInBatches(List<T> entities, Consumer<Collection<T>> createAll) {
+        for (int from = 0; from < entities.size(); from += BATCH_SIZE) {
+            createAll.accept(entities.subList(from, Math.min(from + BATCH_SIZE, entities.size())));
+        }
+        this.rows += entities.size();
+    }
+}
@@ -0,0 +1,174 @@
+package fr.s4e2.ouatelse.managers;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of entities, keyed by id and by natural keys.
+ * The least recently used entity is evicted once the maximum size is reached
+ *
+ * @param <T>  the type of the cached entities
+ * @param <ID> the type of the id of the cached entities
+ */
+public class EntityCache<T, ID> {
+    @Getter
+    private final int maximumSize;
+    private final LinkedHashMap<ID, T> entities;
+    private final Map<String, Function<T, ?>> naturalKeys = new HashMap<>();
+    private final Map<String, Map<Object, ID>> naturalKeyIndexes = new HashMap<>();
+
+    @Getter
+    private long hits = 0;
+    @Getter
+    private long misses = 0;
+
+    /**
+     * Constructor
+     *
+     * @param maximumSize the maximum number of cached entities
+     */
+    public EntityCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.entities = new LinkedHashMap<ID, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ID, T> eldest) {
+                if (this.size() <= EntityCache.this.maximumSize) return false;
+
+                EntityCache.this.unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Declares a natural key, an unique column entities can also be looked up by
+     *
+     * @param columnName the name of the column
+     * @param key        the function reading the column value of an entity
+     * @return this cache
+     */
+    public synchronized EntityCache<T, ID> withNaturalKey(String columnName, Function<T, ?> key) {
+        this.naturalKeys.put(columnName, key);
+        this.naturalKeyIndexes.put(columnName, new HashMap<>());
+        return this;
+    }
+
+    /**
+     * Checks if a column is a declared natural key
+     *
+     * @param columnName the name of the column
+     * @return true if entities can be looked up by this column, else false
+     */
+    public synchronized boolean hasNaturalKey(String columnName) {
+        return this.naturalKeys.containsKey(columnName);
+    }
+
+    /**
+     * Gets a cached entity by its id
+     *
+     * @param id the id of the entity
+     * @return the cached entity, null if not cached
+     */
+    public synchronized T get(ID id) {
+        T entity = id != null ? this.entities.get(id) : null;
+        this.count(entity);
+        return entity;
+    }
+
+    /**
+     * Gets a cached entity by a natural key
+     *
+     * @param columnName the name of the natural key column
+     * @param value      the value of the natural key
+     * @return the cached entity, null if not cached
+     */
+    public synchronized T getByNaturalKey(String columnName, Object value) {
+        Map<Object, ID> index = this.naturalKeyIndexes.get(columnName);
+        ID id = index != null && value != null ? index.get(value) : null;
+        T entity = id != null ? this.entities.get(id) : null;
+
+        // the cached instance may have been modified since it has been indexed
+        if (entity != null && !value.equals(this.naturalKeys.get(columnName).apply(entity))) {
+            index.remove(value, id);
+            entity = null;
+        }
+        this.count(entity);
+        return entity;
+    }
+
+    /**
+     * Caches an entity, replacing the previously cached entity with the same id
+     *
+     * @param id     the id of the entity
+     * @param entity the entity
+     */
+    public synchronized void put(ID id, T entity) {
+        if (id == null || entity == null) return;
+
+        this.invalidate(id);
+        this.entities.put(id, entity);
+        this.naturalKeys.forEach((columnName, key) -> {
+            Object value = key.apply(entity);
+            if (value != null) this.naturalKeyIndexes.get(columnName).put(value, id);
+        });
+    }
+
+    /**
+     * Removes an entity from the cache
+     *
+     * @param id the id of the entity
+     */
+    public synchronized void invalidate(ID id) {
+        if (id == null) return;
+
+        T entity = this.entities.remove(id);
+        if (entity != null) this.unindex(id, entity);
+    }
+
+    /**
+     * Removes all the entities from the cache
+     */
+    public synchronized void clear() {
+        this.entities.clear();
+        this.naturalKeyIndexes.values().forEach(Map::clear);
+    }
+
+    /**
+     * Gets the number of cached entities
+     *
+     * @return the number of cached entities
+     */
+    public synchronized int size() {
+        return this.entities.size();
+    }
+
+    /**
+     * Removes the natural keys of an entity from the indexes
+     *
+     * @param id     the id of the entity
+     * @param entity the entity
+     */
+    private void unindex(ID id, T entity) {
+        this.naturalKeys.forEach((columnName, key) -> {
+            Object value = key.apply(entity);
+            if (value != null) this.naturalKeyIndexes.get(columnName).remove(value, id);
+        });
+    }
+
+    /**
+     * Counts a lookup as a hit or a miss
+     *
+     * @param entity the found entity, null if not found
+     */
+    private void count(T entity) {
+        if (entity != null) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+    }
+}
@@ -1,25 +1,18 @@
 package fr.s4e2.ouatelse.managers;
 
-import com.j256.ormlite.dao.CloseableIterator;
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.stmt.PreparedQuery;
-import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.misc.TransactionManager;
 import com.j256.ormlite.support.ConnectionSource;
-import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
+import fr.s4e2.ouatelse.objects.Cart;
 import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.Product;
 
 import java.sql.SQLException;
-import java.util.List;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
-public class EntityManagerClientStock {
-    private static final String CLIENT_STOCK_MANAGER_NOT_INITIALIZED = "EntityManagerClientStock could not be initialized";
-
-    private final ConnectionSource connectionSource;
-    private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private final Dao<ClientStock, Long> instance;
+public class EntityManagerClientStock extends AbstractEntityManager<ClientStock, Long> {
+    private static final String ADD_QUANTITY_QUERY = "UPDATE client_stock SET quantity = quantity + ? WHERE cart_id = ? AND product_id = ? "
+            + "AND cart_id IN (SELECT id FROM cart WHERE closed = 0)";
+    private static final String OPEN_CART_QUERY = "SELECT COUNT(*) FROM cart WHERE id = ? AND closed = 0";
 
     /**
      * Instantiates a new EntityManagerClientStock
@@ -27,117 +20,38 @@ public class EntityManagerClientStock {
      * @param connectionSource the connection source
      */
     public EntityManagerClientStock(ConnectionSource connectionSource) {
-        this.connectionSource = connectionSource;
-        try {
-            this.instance = DaoManager.createDao(this.connectionSource, ClientStock.class);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, CLIENT_STOCK_MANAGER_NOT_INITIALIZED);
-            throw new DatabaseInitialisationException(CLIENT_STOCK_MANAGER_NOT_INITIALIZED);
-        }
-    }
-
-    /**
-     * Inserts a client stock in the database
-     *
-     * @param clientStock the client stock to be inserted
-     */
-    public void create(ClientStock clientStock) {
-        try {
-            this.instance.create(clientStock);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Deletes a client stock from the database
-     *
-     * @param clientStock the client stock to be deleted
-     */
-    public void delete(ClientStock clientStock) {
-        try {
-            this.instance.delete(clientStock);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Updates a client stock in the database
-     *
-     * @param clientStock the client stock to be updated
-     */
-    public void update(ClientStock clientStock) {
-        try {
-            this.instance.update(clientStock);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Gets all the client stocks in the database
-     *
-     * @return an iterator over all the client stocks in the database
-     */
-    public CloseableIterator<ClientStock> getAll() {
-        return this.instance.iterator();
-    }
-
-    /**
-     * Execute a prepared query
-     *
-     * @param query the prepared query
-     * @return the list of results
-     */
-    public List<ClientStock> executeQuery(PreparedQuery<ClientStock> query) {
-        List<ClientStock> results = null;
-
-        try {
-            results = this.instance.query(query);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-        return results;
-    }
-
-    /**
-     * Gets all the client stocks
-     *
-     * @return all the client stocks that are in the database
-     */
-    public List<ClientStock> getQueryForAll() {
-        List<ClientStock> results = null;
-
-        try {
-            results = this.instance.queryForAll();
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
-    }
-
-    /**
-     * Gets a query builder
-     *
-     * @return the query builder for the clients
-     */
-    public QueryBuilder<ClientStock, Long> getQueryBuilder() {
-        return this.instance.queryBuilder();
+        super(connectionSource, ClientStock.class);
     }
 
     /**
-     * Check if a client stock exists in the database
+     * Adds a quantity of a product to a cart, incrementing its line if the product is already in the cart
+     * rather than reading the lines of the cart first. The cart is checked to be open in the same transaction,
+     * so that a line can't be added to a cart another till has just sold
      *
-     * @param clientStock the client stock to be checked
-     * @return true if it exists, else false
+     * @param cart     the cart
+     * @param product  the product
+     * @param quantity the quantity to add
+     * @return true if the product was added, false if the cart is closed or the query failed
      */
-    public boolean exists(ClientStock clientStock) {
-        if (clientStock == null) return false;
+    public synchronized boolean addToCart(Cart cart, Product product, int quantity) {
+        if (cart == null || product == null) return false;
 
         try {
-            return this.instance.queryForId(clientStock.getId()) != null;
+            return TransactionManager.callInTransaction(this.connectionSource, () -> {
+                int updatedRows = this.instance.updateRaw(ADD_QUANTITY_QUERY,
+                        String.valueOf(quantity), String.valueOf(cart.getId()), String.valueOf(product.getId()));
+                if (updatedRows > 0) return true;
+                // the update took the write lock, the cart can't be closed until the line is inserted
+                if (this.instance.queryRawValue(OPEN_CART_QUERY, String.valueOf(cart.getId())) == 0) return false;
+
+                ClientStock clientStock = new ClientStock();
+                clientStock.setProduct(product);
+                clientStock.setQuantity(quantity);
+                clientStock.setClient(cart.getClient());
+                clientStock.setCart(cart);
+
+                return this.instance.create(clientStock) == 1;
+            });
         } catch (SQLException exception) {
             this.logger.log(Level.SEVERE, exception.getMessage(), exception);
             return false;
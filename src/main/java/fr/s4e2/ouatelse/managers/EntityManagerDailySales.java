@@ -0,0 +1,193 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.stmt.UpdateBuilder;
+import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.support.ConnectionSource;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.DailySales;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.utils.Utils;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Maintains the daily sales rollup, one row per day, store and product category
+ */
+public class EntityManagerDailySales extends AbstractEntityManager<DailySales, Long> {
+    // a write which changes nothing, but takes the write lock of the database until the end of the transaction
+    private static final String WRITE_LOCK_STATEMENT = "DELETE FROM daily_sales WHERE 0";
+    // the selling price is computed as Product.getSellingPrice does, one row per cart, store and category
+    private static final String CLOSED_SALES_QUERY = "SELECT c.date, p.store_id, p.category, "
+            + "SUM(((p.purchasePrice + p.margin * p.purchasePrice) + p.taxes * (p.purchasePrice + p.margin * p.purchasePrice)) * cs.quantity), "
+            + "SUM(cs.quantity) "
+            + "FROM cart c JOIN client_stock cs ON cs.cart_id = c.id JOIN product p ON p.id = cs.product_id "
+            + "WHERE c.closed = 1 AND p.category IS NOT NULL "
+            + "GROUP BY c.id, p.store_id, p.category";
+    private static final DataType[] CLOSED_SALES_TYPES = {DataType.LONG, DataType.STRING, DataType.STRING, DataType.DOUBLE, DataType.LONG};
+
+    /**
+     * Instantiates a new EntityManagerDailySales
+     *
+     * @param connectionSource the connection source
+     */
+    public EntityManagerDailySales(ConnectionSource connectionSource) {
+        super(connectionSource, DailySales.class);
+    }
+
+    /**
+     * Checks if the rollup doesn't contain any row
+     *
+     * @return true if the rollup is empty, else false
+     */
+    public boolean isEmpty() {
+        try {
+            return this.instance.countOf() == 0;
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the daily sales rows of the days included in a range, using the day index
+     *
+     * @param from the first instant of the range, included
+     * @param to   the last instant of the range, excluded
+     * @return the daily sales rows of the range
+     */
+    public List<DailySales> getSalesBetween(Date from, Date to) {
+        List<DailySales> results = new ArrayList<>();
+
+        try {
+            results = this.instance.query(this.instance.queryBuilder().where()
+                    .ge("day", from)
+                    .and().lt("day", to)
+                    .prepare());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+
+        return results;
+    }
+
+    /**
+     * Adds the products of a closed cart to the rollup. It runs in the transaction which closes the cart,
+     * so that the rollup is written along with the sale or not at all
+     *
+     * @param cart         the closed cart
+     * @param clientStocks the products of the cart
+     * @throws SQLException if a query fails, the sale is then rolled back
+     */
+    void record(Cart cart, Collection<ClientStock> clientStocks) throws SQLException {
+        if (cart == null || clientStocks == null || clientStocks.isEmpty()) return;
+
+        Map<String, DailySales> cartSales = new HashMap<>();
+        this.aggregate(cart, clientStocks, cartSales);
+
+        for (DailySales sales : cartSales.values()) {
+            if (!this.addToSales(sales)) this.instance.create(sales);
+        }
+    }
+
+    /**
+     * Builds the rollup from the closed carts if it is still empty, reading the sales in a single query.
+     * The write lock is taken before the emptiness check, so that a sale recorded meanwhile is neither lost nor counted twice
+     *
+     * @return true if the rollup was built, false if it wasn't empty or the transaction failed
+     */
+    public boolean buildIfEmpty() {
+        // an established rollup is recognised without taking the write lock
+        if (!this.isEmpty()) return false;
+
+        try {
+            return TransactionManager.callInTransaction(this.connectionSource, () -> {
+                this.instance.executeRaw(WRITE_LOCK_STATEMENT);
+                if (this.instance.countOf() > 0) return false;
+
+                Map<String, DailySales> allSales = new HashMap<>();
+                try (GenericRawResults<Object[]> results = this.instance.queryRaw(CLOSED_SALES_QUERY, CLOSED_SALES_TYPES)) {
+                    for (Object[] cartSales : results) {
+                        Date day = Utils.localDateToDate(Utils.dateToLocalDate(new Date((Long) cartSales[0])));
+                        String storeId = (String) cartSales[1];
+                        String category = (String) cartSales[2];
+
+                        DailySales row = allSales.computeIfAbsent(day.getTime() + "|" + storeId + "|" + category,
+                                key -> new DailySales(day, storeId != null ? new Store(storeId) : null, category));
+                        row.setAmount(row.getAmount() + (Double) cartSales[3]);
+                        row.setQuantity(row.getQuantity() + ((Long) cartSales[4]).intValue());
+                    }
+                } catch (IOException exception) {
+                    throw new SQLException(exception);
+                }
+
+                for (DailySales sales : allSales.values()) {
+                    this.instance.create(sales);
+                }
+                return !allSales.isEmpty();
+            });
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return false;
+        }
+    }
+
+    /**
+     * Aggregates the products of a cart into rollup rows keyed by day, store and category
+     *
+     * @param cart         the cart
+     * @param clientStocks the products of the cart
+     * @param sales        the rollup rows to fill
+     */
+    private void aggregate(Cart cart, Collection<ClientStock> clientStocks, Map<String, DailySales> sales) {
+        if (cart == null || cart.getDate() == null || clientStocks == null) return;
+
+        Date day = Utils.localDateToDate(Utils.dateToLocalDate(cart.getDate()));
+
+        for (ClientStock clientStock : clientStocks) {
+            Product product = clientStock.getProduct();
+            if (product == null) continue;
+
+            String storeId = product.getStore() != null ? product.getStore().getId() : null;
+            String key = day.getTime() + "|" + storeId + "|" + product.getCategory();
+
+            DailySales row = sales.computeIfAbsent(key, k -> new DailySales(day, product.getStore(), product.getCategory()));
+            row.setAmount(row.getAmount() + product.getSellingPrice() * clientStock.getQuantity());
+            row.setQuantity(row.getQuantity() + clientStock.getQuantity());
+        }
+    }
+
+    /**
+     * Adds the amount and the quantity of a rollup row to the persisted row having the same day, store and category.
+     * The sums are computed by the database, so that two tills recording the same row can't lose an update
+     *
+     * @param sales the rollup row to add
+     * @return true if a persisted row was updated, false if there is none yet
+     * @throws SQLException if the query fails
+     */
+    private boolean addToSales(DailySales sales) throws SQLException {
+        UpdateBuilder<DailySales, Long> updateBuilder = this.instance.updateBuilder();
+        updateBuilder.updateColumnExpression("amount", updateBuilder.escapeColumnName("amount") + " + " + sales.getAmount());
+        updateBuilder.updateColumnExpression("quantity", updateBuilder.escapeColumnName("quantity") + " + " + sales.getQuantity());
+
+        Where<DailySales, Long> where = updateBuilder.where()
+                .eq("day", sales.getDay())
+                .and().eq("category", sales.getCategory())
+                .and();
+
+        if (sales.getStore() == null || sales.getStore().getId() == null) {
+            where.isNull("store_id");
+        } else {
+            where.eq("store_id", sales.getStore().getId());
+        }
+
+        return this.instance.update(updateBuilder.prepare()) > 0;
+    }
+}
@@ -0,0 +1,110 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
+import fr.s4e2.ouatelse.objects.Order;
+import fr.s4e2.ouatelse.objects.OrderLine;
+import fr.s4e2.ouatelse.objects.Product;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Manages the orders to the vendors, an order and its lines being always written together
+ */
+public class EntityManagerOrder extends AbstractEntityManager<Order, Long> {
+    private static final String LINES_NOT_INITIALIZED = "The order lines could not be initialized";
+    private static final String CLOSE_QUERY = "UPDATE \"order\" SET closed = 1 WHERE id = ? AND closed = 0";
+
+    private final Dao<OrderLine, Long> orderLines;
+
+    /**
+     * Instantiates a new EntityManagerOrder
+     *
+     * @param connectionSource the connection source
+     */
+    public EntityManagerOrder(ConnectionSource connectionSource) {
+        super(connectionSource, Order.class);
+        try {
+            this.orderLines = DaoManager.createDao(this.connectionSource, OrderLine.class);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, LINES_NOT_INITIALIZED);
+            throw new DatabaseInitialisationException(LINES_NOT_INITIALIZED);
+        }
+    }
+
+    /**
+     * Inserts an order and its lines in the database, in a single transaction
+     *
+     * @param order      the order
+     * @param orderLines the lines of the order, inserted in a batch
+     * @return true if the order was inserted, false if the transaction failed
+     */
+    public boolean create(Order order, Collection<OrderLine> orderLines) {
+        if (order == null || orderLines == null) return false;
+
+        try {
+            TransactionManager.callInTransaction(this.connectionSource, () -> {
+                this.instance.create(order);
+                for (OrderLine orderLine : orderLines) orderLine.setOrder(order);
+
+                return this.orderLines.create(orderLines);
+            });
+            this.index(order);
+            return true;
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the orders which aren't closed yet and order a product
+     *
+     * @param product the product
+     * @return the open orders, oldest first, empty if the query failed
+     */
+    public List<Order> getOpenOrders(Product product) {
+        if (product == null) return new ArrayList<>();
+
+        try {
+            return this.instance.query(this.instance.queryBuilder()
+                    .orderBy("id", true)
+                    .where().eq("closed", false)
+                    .and().in("id", this.orderLines.queryBuilder()
+                            .selectColumns("order_id")
+                            .where().eq("product_id", product.getId())
+                            .queryBuilder())
+                    .prepare());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Closes an order unless it was already closed
+     *
+     * @param order the order
+     * @return true if the order was closed, false if it was already closed or the query failed
+     */
+    public boolean close(Order order) {
+        if (order == null) return false;
+
+        try {
+            boolean isClosed = this.instance.updateRaw(CLOSE_QUERY, String.valueOf(order.getId())) > 0;
+            if (isClosed) order.setClosed(true);
+
+            return isClosed;
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.support.ConnectionSource;
+import fr.s4e2.ouatelse.objects.Order;
+import fr.s4e2.ouatelse.objects.OrderLine;
+import fr.s4e2.ouatelse.objects.Vendor;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Manages the lines of the orders, read without their orders
+ */
+public class EntityManagerOrderLine extends AbstractEntityManager<OrderLine, Long> {
+    private static final String OPEN_QUANTITIES_QUERY = "SELECT order_line.product_id, SUM(order_line.quantity) FROM order_line "
+            + "JOIN \"order\" ON \"order\".id = order_line.order_id "
+            + "WHERE \"order\".vendor_id = ? AND \"order\".closed = 0 GROUP BY order_line.product_id";
+
+    /**
+     * Instantiates a new EntityManagerOrderLine
+     *
+     * @param connectionSource the connection source
+     */
+    public EntityManagerOrderLine(ConnectionSource connectionSource) {
+        super(connectionSource, OrderLine.class);
+    }
+
+    /**
+     * Gets the lines of an order
+     *
+     * @param order the order
+     * @return the lines of the order, empty if the query failed
+     */
+    public List<OrderLine> getOrderLines(Order order) {
+        if (order == null) return new ArrayList<>();
+
+        try {
+            return this.instance.query(this.instance.queryBuilder()
+                    .orderBy("id", true)
+                    .where().eq("order_id", order.getId())
+                    .prepare());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Gets the quantities of the products ordered from a vendor in the orders which aren't closed yet, in a single query
+     *
+     * @param vendor the vendor
+     * @return the ordered quantities by product id, empty if the query failed
+     */
+    public Map<Long, Long> getOpenQuantities(Vendor vendor) {
+        Map<Long, Long> quantities = new HashMap<>();
+        if (vendor == null) return quantities;
+
+        try (GenericRawResults<String[]> results = this.instance.queryRaw(OPEN_QUANTITIES_QUERY, String.valueOf(vendor.getId()))) {
+            for (String[] row : results) quantities.put(Long.parseLong(row[0]), Long.parseLong(row[1]));
+        } catch (SQLException | IOException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+        return quantities;
+    }
+}
@@ -1,25 +1,50 @@
 package fr.s4e2.ouatelse.managers;
 
-import com.j256.ormlite.dao.CloseableIterator;
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.stmt.PreparedQuery;
-import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.dao.RawRowMapper;
 import com.j256.ormlite.support.ConnectionSource;
-import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
 import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
 
 import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-public class EntityManagerProduct {
-    private static final String PRODUCT_MANAGER_NOT_INITIALIZED = "EntityManagerProduct could not be initialized";
-
-    private final ConnectionSource connectionSource;
-    private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private final Dao<Product, Long> instance;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EntityManagerProduct extends AbstractEntityManager<Product, Long> {
+    private static final int PRODUCT_CACHE_SIZE = 1000;
+    private static final String PRODUCT_TREE_COLUMNS = "p.reference, p.name, p.margin, p.purchasePrice, p.brand, "
+            + "p.state, p.category, v.name, p.taxes, p.barCode";
+    private static final String PRODUCT_TREE_TABLES = " FROM `product` p LEFT JOIN `vendor` v ON v.id = p.soldBy_id";
+    private static final String PRODUCT_TREE_QUERY = "SELECT " + PRODUCT_TREE_COLUMNS + PRODUCT_TREE_TABLES;
+    private static final String PRODUCT_TREE_BY_ID_QUERY = "SELECT p.id, " + PRODUCT_TREE_COLUMNS + PRODUCT_TREE_TABLES + " WHERE p.id IN (%s)";
+    private static final String PRODUCT_TREE_PAGE_QUERY = PRODUCT_TREE_QUERY + " WHERE p.reference > ? ORDER BY p.reference LIMIT %d";
+    private static final RawRowMapper<Product.ProductTree> PRODUCT_TREE_MAPPER = (columnNames, columns) -> new Product.ProductTree(
+            Long.valueOf(columns[0]),
+            columns[1],
+            Double.valueOf(columns[2]),
+            Double.valueOf(columns[3]),
+            columns[4],
+            ProductState.valueOf(columns[5]).toString(),
+            columns[6],
+            columns[7],
+            Double.valueOf(columns[8]),
+            columns[9]
+    );
+    // maps the rows starting with the id of the product
+    private static final RawRowMapper<Map.Entry<Long, Product.ProductTree>> PRODUCT_TREE_BY_ID_MAPPER = (columnNames, columns) ->
+            new AbstractMap.SimpleEntry<>(Long.valueOf(columns[0]),
+                    PRODUCT_TREE_MAPPER.mapRow(columnNames, Arrays.copyOfRange(columns, 1, columns.length)));
+    private static final FetchProfile<Product> SEARCH_INDEX_PROFILE = FetchProfile.of(Product.class)
+            .lazy("soldBy").lazy("store").lazy("cart");
+
+    // the ids of the products by bar code, kept up to date with the search index so that a scan never scans the table
+    private final Map<String, Long> barCodes = new ConcurrentHashMap<>();
 
     /**
      * Instantiates a new EntityManagerProduct
@@ -27,142 +52,129 @@ public class EntityManagerProduct {
      * @param connectionSource the connection source
      */
     public EntityManagerProduct(ConnectionSource connectionSource) {
-        this.connectionSource = connectionSource;
-        try {
-            this.instance = DaoManager.createDao(this.connectionSource, Product.class);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, PRODUCT_MANAGER_NOT_INITIALIZED);
-            throw new DatabaseInitialisationException(PRODUCT_MANAGER_NOT_INITIALIZED);
-        }
+        super(connectionSource, Product.class);
+        this.setCache(new EntityCache<Product, Long>(PRODUCT_CACHE_SIZE).withNaturalKey("reference", Product::getReference));
+        this.setSearchIndex(new SearchIndex<Product, Long>()
+                .withField("name", Product::getName)
+                .withField("brand", Product::getBrand)
+                .withField("reference", Product::getReference)
+                .withField("barCode", Product::getBarCode), SEARCH_INDEX_PROFILE);
     }
 
     /**
-     * Inserts a product in the database
+     * Gets a corresponding product if exists, else null
      *
-     * @param product the product
+     * @param reference the reference of the product
+     * @return the product if exists, else null
      */
-    public void create(Product product) {
-        try {
-            this.instance.create(product);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+    public Product getProductIfExists(long reference) {
+        return this.getFirstIfExists("reference", reference);
     }
 
     /**
-     * Deletes a product from the database
+     * Gets the product having a bar code, looked up in memory before querying the database
      *
-     * @param product the product to be deleted
+     * @param barCode the bar code of the product
+     * @return the product if exists, else null
      */
-    public void delete(Product product) {
-        try {
-            this.instance.delete(product);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+    public Product getProductByBarCode(String barCode) {
+        if (barCode == null || barCode.trim().isEmpty()) return null;
+        String key = barCode.trim();
+
+        Long id = this.barCodes.get(key);
+        Product product = id != null ? this.getIfExists(id) : null;
+        if (product != null && key.equals(product.getBarCode())) return product;
+
+        // the bar code is unknown or was changed since it was indexed
+        product = this.getFirstIfExists("barCode", key);
+        if (product != null) this.barCodes.put(key, product.getId());
+        return product;
     }
 
     /**
-     * Updates a product in the database
+     * Gets the rows of the products table, with the name of their vendor, in a single query
      *
-     * @param product the product to be updated
+     * @return the rows of all the products
      */
-    public void update(Product product) {
-        try {
-            this.instance.update(product);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+    public List<Product.ProductTree> getProductTrees() {
+        return this.getProjection(PRODUCT_TREE_QUERY, PRODUCT_TREE_MAPPER);
     }
 
     /**
-     * Gets all the products in the database
+     * Tells if a row of the products table has a field containing an input, as {@link #searchProductTrees(String, int)} would
      *
-     * @return the all the products in the database
+     * @param productTree the row
+     * @param input       the input
+     * @return true if the row matches the input
      */
-    public CloseableIterator<Product> getAll() {
-        return this.instance.iterator();
+    public static boolean matches(Product.ProductTree productTree, String input) {
+        String normalizedInput = SearchIndex.normalize(input);
+
+        return Stream.of(productTree.getName().get(), productTree.getBrand().get(),
+                String.valueOf(productTree.getReference().get()), productTree.getBarCode().get())
+                .anyMatch(text -> SearchIndex.normalize(text).contains(normalizedInput));
     }
 
     /**
-     * Executes a prepared query
+     * Searches the rows of the products table whose name, brand, reference or bar code contains an input
      *
-     * @param query the prepared query
-     * @return the list of results
+     * @param input the input
+     * @param limit the maximum number of rows
+     * @return the rows of the matching products, the best matches first
      */
-    public List<Product> executeQuery(PreparedQuery<Product> query) {
-        List<Product> results = null;
+    public List<Product.ProductTree> searchProductTrees(String input, int limit) {
+        List<Long> ids = this.search(input, limit);
+        if (ids.isEmpty()) return new ArrayList<>();
 
-        try {
-            results = this.instance.query(query);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(", "));
+        Map<Long, Product.ProductTree> productTrees = this.getProjection(String.format(PRODUCT_TREE_BY_ID_QUERY, idList), PRODUCT_TREE_BY_ID_MAPPER)
+                .stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
-        return results;
+        return ids.stream().map(productTrees::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     /**
-     * Gets all the products
-     *
-     * @return all the products that are in the database
+     * Indexes all the products of the table again, along with their bar codes
      */
-    public List<Product> getQueryForAll() {
-        List<Product> results = null;
-
-        try {
-            results = this.instance.queryForAll();
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
+    @Override
+    public void rebuildSearchIndex() {
+        this.barCodes.clear();
+        super.rebuildSearchIndex();
     }
 
     /**
-     * Gets a query builder
+     * Adds a product to the search index and to the bar codes
      *
-     * @return the query builder for the roles
+     * @param product the product
+     * @throws SQLException if the id of the product can't be read
      */
-    public QueryBuilder<Product, Long> getQueryBuilder() {
-        return this.instance.queryBuilder();
+    @Override
+    protected void index(Product product) throws SQLException {
+        super.index(product);
+        if (product != null && product.getBarCode() != null) this.barCodes.put(product.getBarCode().trim(), product.getId());
     }
 
     /**
-     * Gets a corresponding product if exists, else null
+     * Removes a product from the search index and from the bar codes
      *
-     * @param reference the reference of the product
-     * @return the product if exists, else null
+     * @param product the product
+     * @throws SQLException if the id of the product can't be read
      */
-    public Product getProductIfExists(long reference) {
-        Product product = null;
-
-        try {
-            product = this.instance.query(this.instance.queryBuilder().where().eq("reference", reference).prepare())
-                    .stream().findFirst().orElse(null);
-
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-        return product;
+    @Override
+    protected void unindex(Product product) throws SQLException {
+        super.unindex(product);
+        if (product != null && product.getBarCode() != null) this.barCodes.remove(product.getBarCode().trim(), product.getId());
     }
 
     /**
-     * Check if a product exists in the database
+     * Gets a page of the rows of the products table, sorted by reference
      *
-     * @param product the product to be checked
-     * @return true if it exists, else false
+     * @param afterReference the reference of the last product of the previous page, null for the first page
+     * @param pageSize       the maximum number of rows in the page
+     * @return the rows of the page
      */
-    public boolean exists(Product product) {
-        if (product == null) return false;
-
-        try {
-            return this.instance.queryForId(product.getId()) != null;
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            return false;
-        }
+    public List<Product.ProductTree> getProductTreePage(Long afterReference, int pageSize) {
+        return this.getProjection(String.format(PRODUCT_TREE_PAGE_QUERY, pageSize), PRODUCT_TREE_MAPPER,
+                String.valueOf(afterReference != null ? afterReference : Long.MIN_VALUE));
     }
 }
-
-
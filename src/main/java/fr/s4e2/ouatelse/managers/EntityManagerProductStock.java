@@ -1,25 +1,33 @@
 package fr.s4e2.ouatelse.managers;
 
-import com.j256.ormlite.dao.CloseableIterator;
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.Where;
 import com.j256.ormlite.support.ConnectionSource;
-import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
+import fr.s4e2.ouatelse.objects.Product;
 import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.Store;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
-public class EntityManagerProductStock {
-    private static final String PRODUCT_STOCK_MANAGER_NOT_INITIALIZED = "EntityManagerProductStock could not be initialized";
-
-    private final ConnectionSource connectionSource;
-    private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private final Dao<ProductStock, Long> instance;
+public class EntityManagerProductStock extends AbstractEntityManager<ProductStock, Long> {
+    private static final String ADD_QUANTITY_QUERY = "UPDATE product_stock SET quantity = quantity + ? WHERE id = ?";
+    // adds the quantity to the first stock of the product in the store
+    private static final String ADD_STORE_QUANTITY_QUERY = "UPDATE product_stock SET quantity = quantity + ? WHERE id = "
+            + "(SELECT id FROM product_stock WHERE product_id = ? AND store_id = ? ORDER BY id LIMIT 1)";
+    private static final String REMOVE_QUANTITY_QUERY = "UPDATE product_stock SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+    // takes the quantity from the first stock of the product in the store holding enough of it
+    private static final String REMOVE_STORE_QUANTITY_QUERY = "UPDATE product_stock SET quantity = quantity - ? WHERE id = "
+            + "(SELECT id FROM product_stock WHERE product_id = ? AND store_id = ? AND quantity >= ? ORDER BY id LIMIT 1)";
+    private static final String STORE_QUANTITY_QUERY = "SELECT COALESCE(SUM(quantity), 0) FROM product_stock WHERE product_id = ? AND store_id = ?";
+    private static final String STORE_QUANTITIES_QUERY = "SELECT product_id, SUM(quantity) FROM product_stock "
+            + "WHERE store_id = ? AND product_id IS NOT NULL GROUP BY product_id";
 
     /**
      * Instantiates a new EntityManagerProductStock
@@ -27,121 +35,129 @@ public class EntityManagerProductStock {
      * @param connectionSource the connection source
      */
     public EntityManagerProductStock(ConnectionSource connectionSource) {
-        this.connectionSource = connectionSource;
-        try {
-            this.instance = DaoManager.createDao(this.connectionSource, ProductStock.class);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, PRODUCT_STOCK_MANAGER_NOT_INITIALIZED);
-            throw new DatabaseInitialisationException(PRODUCT_STOCK_MANAGER_NOT_INITIALIZED);
-        }
+        super(connectionSource, ProductStock.class);
     }
 
     /**
-     * Inserts a stock in the database
+     * Gets a page of the product stocks of a store having a product, sorted by id
      *
-     * @param productStock the stock object
+     * @param store    the store
+     * @param afterId  the id of the last product stock of the previous page, null for the first page
+     * @param pageSize the maximum number of product stocks in the page
+     * @return the product stocks of the page, empty if the query failed
      */
-    public void create(ProductStock productStock) {
+    public List<ProductStock> getStorePage(Store store, Long afterId, int pageSize) {
         try {
-            this.instance.create(productStock);
+            QueryBuilder<ProductStock, Long> queryBuilder = this.instance.queryBuilder()
+                    .orderBy("id", true)
+                    .limit((long) pageSize);
+            Where<ProductStock, Long> where = queryBuilder.where().eq("store_id", store.getId()).and().isNotNull("product_id");
+            if (afterId != null) where.and().gt("id", afterId);
+
+            return this.instance.query(queryBuilder.prepare());
         } catch (SQLException exception) {
             this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
         }
     }
 
     /**
-     * Deletes a stock from the database
+     * Gets the quantity of a product in stock in a store, without loading its product stocks
      *
-     * @param productStock the stock to be deleted
+     * @param product the product
+     * @param store   the store
+     * @return the quantity in stock, 0 if the query failed
      */
-    public void delete(ProductStock productStock) {
+    public long getQuantity(Product product, Store store) {
+        if (product == null || store == null) return 0;
+
         try {
-            this.instance.delete(productStock);
+            return this.instance.queryRawValue(STORE_QUANTITY_QUERY, String.valueOf(product.getId()), store.getId());
         } catch (SQLException exception) {
             this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return 0;
         }
     }
 
     /**
-     * Updates a stock in the database
+     * Gets the quantities of all the products in stock in a store, in a single query
      *
-     * @param productStock the stock to be updated
+     * @param store the store
+     * @return the quantities in stock by product id, empty if the query failed
      */
-    public void update(ProductStock productStock) {
-        try {
-            this.instance.update(productStock);
-        } catch (SQLException exception) {
+    public Map<Long, Long> getQuantities(Store store) {
+        Map<Long, Long> quantities = new HashMap<>();
+        if (store == null) return quantities;
+
+        try (GenericRawResults<String[]> results = this.instance.queryRaw(STORE_QUANTITIES_QUERY, store.getId())) {
+            for (String[] row : results) quantities.put(Long.parseLong(row[0]), Long.parseLong(row[1]));
+        } catch (SQLException | IOException exception) {
             this.logger.log(Level.SEVERE, exception.getMessage(), exception);
         }
+        return quantities;
     }
 
     /**
-     * Gets all the stocks in the database
+     * Adds a quantity to a product stock, reading the quantity again once added
      *
-     * @return the all the stocks in the database
+     * @param productStock the product stock
+     * @param quantity     the quantity to add
+     * @throws SQLException if the query fails
      */
-    public CloseableIterator<ProductStock> getAll() {
-        return this.instance.iterator();
+    void addQuantity(ProductStock productStock, int quantity) throws SQLException {
+        this.instance.updateRaw(ADD_QUANTITY_QUERY, String.valueOf(quantity), String.valueOf(productStock.getId()));
+        this.instance.refresh(productStock);
     }
 
     /**
-     * Executes a prepared query
+     * Adds a quantity of a product to the stock of a store, creating the stock if the store has none
      *
-     * @param query the prepared query
-     * @return the list of results
+     * @param product  the product
+     * @param store    the store
+     * @param quantity the quantity to add
+     * @throws SQLException if the query fails
      */
-    public List<ProductStock> executeQuery(PreparedQuery<ProductStock> query) {
-        List<ProductStock> results = null;
-
-        try {
-            results = this.instance.query(query);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
+    void addQuantity(Product product, Store store, int quantity) throws SQLException {
+        int updatedRows = this.instance.updateRaw(ADD_STORE_QUANTITY_QUERY,
+                String.valueOf(quantity), String.valueOf(product.getId()), store.getId());
+        if (updatedRows > 0) return;
+
+        ProductStock productStock = new ProductStock();
+        productStock.setProduct(product);
+        productStock.setStore(store);
+        productStock.setQuantity(quantity);
+        this.instance.create(productStock);
     }
 
     /**
-     * Gets all the stocks
+     * Removes a quantity from a product stock if it holds enough of it, reading the quantity again
      *
-     * @return all the stocks that are in the database
+     * @param productStock the product stock
+     * @param quantity     the quantity to remove
+     * @return true if the quantity was removed, false if the stock doesn't hold enough of it
+     * @throws SQLException if the query fails
      */
-    public List<ProductStock> getQueryForAll() {
-        List<ProductStock> results = null;
+    boolean removeQuantity(ProductStock productStock, int quantity) throws SQLException {
+        String quantityArgument = String.valueOf(quantity);
+        int updatedRows = this.instance.updateRaw(REMOVE_QUANTITY_QUERY, quantityArgument, String.valueOf(productStock.getId()), quantityArgument);
+        this.instance.refresh(productStock);
 
-        try {
-            results = this.instance.queryForAll();
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
-    }
-
-    /**
-     * Gets a query builder
-     *
-     * @return the query builder for the stocks
-     */
-    public QueryBuilder<ProductStock, Long> getQueryBuilder() {
-        return this.instance.queryBuilder();
+        return updatedRows > 0;
     }
 
     /**
-     * Check if a stock exists in the database
+     * Removes a quantity of a product from the stock of a store if it holds enough of it
      *
-     * @param productStock the stock to be checked
-     * @return true if it exists, else false
+     * @param product  the product
+     * @param store    the store
+     * @param quantity the quantity to remove
+     * @return true if the quantity was removed, false if no stock of the product in the store holds enough of it
+     * @throws SQLException if the query fails
      */
-    public boolean exists(ProductStock productStock) {
-        if (productStock == null) return false;
+    boolean removeQuantity(Product product, Store store, int quantity) throws SQLException {
+        String quantityArgument = String.valueOf(quantity);
 
-        try {
-            return this.instance.queryForId(productStock.getId()) != null;
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            return false;
-        }
+        return this.instance.updateRaw(REMOVE_STORE_QUANTITY_QUERY,
+                quantityArgument, String.valueOf(product.getId()), store.getId(), quantityArgument) > 0;
     }
 }
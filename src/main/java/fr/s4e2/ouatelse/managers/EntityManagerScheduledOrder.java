@@ -1,25 +1,22 @@
 package fr.s4e2.ouatelse.managers;
 
-import com.j256.ormlite.dao.CloseableIterator;
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.stmt.PreparedQuery;
-import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.dao.GenericRawResults;
 import com.j256.ormlite.support.ConnectionSource;
-import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
 import fr.s4e2.ouatelse.objects.ScheduledOrder;
+import fr.s4e2.ouatelse.objects.Store;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
-public class EntityManagerScheduledOrder {
-    private static final String SCHEDULED_ORDER_MANAGER_NOT_INITIALIZED = "EntityManagerScheduledOrder could not be initialized";
-
-    private final ConnectionSource connectionSource;
-    private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private final Dao<ScheduledOrder, Long> instance;
+public class EntityManagerScheduledOrder extends AbstractEntityManager<ScheduledOrder, Long> {
+    private static final String PENDING_QUANTITIES_QUERY = "SELECT product_id, SUM(quantity) FROM scheduled_orders "
+            + "WHERE store_id = ? GROUP BY product_id";
 
     /**
      * Instantiates a new EntityManagerStore
@@ -27,120 +24,62 @@ public class EntityManagerScheduledOrder {
      * @param connectionSource the connection source
      */
     public EntityManagerScheduledOrder(ConnectionSource connectionSource) {
-        this.connectionSource = connectionSource;
-        try {
-            this.instance = DaoManager.createDao(this.connectionSource, ScheduledOrder.class);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, SCHEDULED_ORDER_MANAGER_NOT_INITIALIZED);
-            throw new DatabaseInitialisationException(SCHEDULED_ORDER_MANAGER_NOT_INITIALIZED);
-        }
-    }
-
-    /**
-     * Inserts an order in the database
-     *
-     * @param scheduledOrder the order to insert
-     */
-    public void create(ScheduledOrder scheduledOrder) {
-        try {
-            this.instance.create(scheduledOrder);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Deletes an order from the database
-     *
-     * @param scheduledOrder the order to delete
-     */
-    public void delete(ScheduledOrder scheduledOrder) {
-        try {
-            this.instance.delete(scheduledOrder);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        super(connectionSource, ScheduledOrder.class);
     }
 
     /**
-     * Update an order from the database
+     * Gets the ids and the dates of all the scheduled orders, without loading their products nor their stores
      *
-     * @param scheduledOrder the order to update
+     * @return the scheduled orders, holding only their id and their date
      */
-    public void update(ScheduledOrder scheduledOrder) {
+    public List<ScheduledOrder> getScheduledDates() {
         try {
-            this.instance.update(scheduledOrder);
+            return this.instance.query(this.instance.queryBuilder().selectColumns("id", "scheduledOrderDate").prepare());
         } catch (SQLException exception) {
             this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
         }
     }
 
     /**
-     * Gets all orders in the database
+     * Gets scheduled orders by their ids, in a single query
      *
-     * @return an iterator over all the orders in the database
+     * @param ids the ids of the scheduled orders
+     * @return the scheduled orders which still exist
+     * @throws SQLException if the query fails
      */
-    public CloseableIterator<ScheduledOrder> getAll() {
-        return this.instance.iterator();
-    }
-
-    /**
-     * Executes a prepared query
-     *
-     * @param query the prepared query
-     * @return the list of results
-     */
-    public List<ScheduledOrder> executeQuery(PreparedQuery<ScheduledOrder> query) {
-        List<ScheduledOrder> results = null;
+    List<ScheduledOrder> getScheduledOrders(Collection<Long> ids) throws SQLException {
+        if (ids == null || ids.isEmpty()) return new ArrayList<>();
 
-        try {
-            results = this.instance.query(query);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
+        return this.instance.query(this.instance.queryBuilder().where().in("id", ids).prepare());
     }
 
     /**
-     * Gets all the orders
+     * Gets the quantities of all the products ordered for a store and not delivered yet, in a single query
      *
-     * @return all the orders that are in the database
+     * @param store the store
+     * @return the ordered quantities by product id, empty if the query failed
      */
-    public List<ScheduledOrder> getQueryForAll() {
-        List<ScheduledOrder> results = null;
+    public Map<Long, Long> getPendingQuantities(Store store) {
+        Map<Long, Long> quantities = new HashMap<>();
+        if (store == null) return quantities;
 
-        try {
-            results = this.instance.queryForAll();
-        } catch (SQLException exception) {
+        try (GenericRawResults<String[]> results = this.instance.queryRaw(PENDING_QUANTITIES_QUERY, store.getId())) {
+            for (String[] row : results) quantities.put(Long.parseLong(row[0]), Long.parseLong(row[1]));
+        } catch (SQLException | IOException exception) {
             this.logger.log(Level.SEVERE, exception.getMessage(), exception);
         }
-
-        return results;
+        return quantities;
     }
 
     /**
-     * Gets a query builder
+     * Deletes a delivered scheduled order
      *
-     * @return the query builder for the stores
+     * @param scheduledOrder the scheduled order
+     * @return true if the scheduled order was deleted, false if it was already delivered
+     * @throws SQLException if the query fails
      */
-    public QueryBuilder<ScheduledOrder, Long> getQueryBuilder() {
-        return this.instance.queryBuilder();
-    }
-
-    /**
-     * Check if an orders exists in the database
-     *
-     * @param scheduledOrder the order to check
-     * @return true if it exists, false if not
-     */
-    public boolean exists(ScheduledOrder scheduledOrder) {
-        if (scheduledOrder == null) return false;
-        try {
-            return this.instance.queryForId(scheduledOrder.getId()) != null;
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            return false;
-        }
+    boolean deleteDelivered(ScheduledOrder scheduledOrder) throws SQLException {
+        return this.instance.deleteById(scheduledOrder.getId()) > 0;
     }
 }
@@ -0,0 +1,248 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.StockMovement;
+import fr.s4e2.ouatelse.objects.StockMovementType;
+import fr.s4e2.ouatelse.objects.StockSnapshot;
+import fr.s4e2.ouatelse.objects.Store;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Maintains the journal of the stock movements and its snapshots : the quantity of a product in stock in a store
+ * at any date is its last snapshot taken before that date plus the movements which followed it
+ */
+public class EntityManagerStockMovement extends AbstractEntityManager<StockMovement, Long> {
+    private static final String SNAPSHOTS_NOT_INITIALIZED = "The stock snapshots could not be initialized";
+    private static final String LAST_SNAPSHOT_QUERY = "SELECT quantity, lastMovement FROM stock_snapshot "
+            + "WHERE store_id = ? AND product_id = ? AND date <= ? ORDER BY lastMovement DESC, id DESC LIMIT 1";
+    private static final String TAIL_QUANTITY_QUERY = "SELECT COALESCE(SUM(quantity), 0) FROM stock_movement "
+            + "WHERE store_id = ? AND product_id = ? AND id > ? AND date <= ?";
+    private static final String TAIL_QUANTITIES_QUERY = "SELECT product_id, SUM(quantity) FROM stock_movement "
+            + "WHERE store_id = ? AND id > ? AND id <= ? GROUP BY product_id";
+    private static final String LAST_MOVEMENT_QUERY = "SELECT COALESCE(MAX(id), 0) FROM stock_movement";
+    private static final String LAST_STORE_MOVEMENT_QUERY = "SELECT COALESCE(MAX(id), 0) FROM stock_movement WHERE store_id = ?";
+    private static final String LAST_SNAPSHOT_MOVEMENT_QUERY = "SELECT COALESCE(MAX(lastMovement), 0) FROM stock_snapshot WHERE store_id = ?";
+    private static final String STOCK_QUANTITIES_QUERY = "SELECT store_id, product_id, SUM(quantity) FROM product_stock "
+            + "WHERE store_id IS NOT NULL AND product_id IS NOT NULL GROUP BY store_id, product_id HAVING SUM(quantity) <> 0";
+
+    private final Dao<StockSnapshot, Long> snapshots;
+
+    /**
+     * Instantiates a new EntityManagerStockMovement
+     *
+     * @param connectionSource the connection source
+     */
+    public EntityManagerStockMovement(ConnectionSource connectionSource) {
+        super(connectionSource, StockMovement.class);
+        try {
+            this.snapshots = DaoManager.createDao(this.connectionSource, StockSnapshot.class);
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, SNAPSHOTS_NOT_INITIALIZED);
+            throw new DatabaseInitialisationException(SNAPSHOTS_NOT_INITIALIZED);
+        }
+    }
+
+    /**
+     * Gets the quantity of a product in stock in a store, from the journal
+     *
+     * @param product the product
+     * @param store   the store
+     * @return the quantity in stock, 0 if the query failed
+     */
+    public long getQuantity(Product product, Store store) {
+        return this.getQuantityAt(product, store, Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets the quantity of a product which was in stock in a store at a date, from the journal
+     *
+     * @param product the product
+     * @param store   the store
+     * @param date    the date
+     * @return the quantity in stock at the date, 0 if the query failed
+     */
+    public long getQuantityAt(Product product, Store store, Date date) {
+        return date != null ? this.getQuantityAt(product, store, date.getTime()) : 0;
+    }
+
+    /**
+     * Gets the movements of a product in stock in a store between two dates
+     *
+     * @param product the product
+     * @param store   the store
+     * @param from    the first instant, included
+     * @param to      the last instant, excluded
+     * @return the movements, oldest first
+     */
+    public List<StockMovement> getMovements(Product product, Store store, Date from, Date to) {
+        if (product == null || store == null) return new ArrayList<>();
+
+        try {
+            return this.instance.query(this.instance.queryBuilder()
+                    .orderBy("id", true)
+                    .where().eq("store_id", store.getId())
+                    .and().eq("product_id", product.getId())
+                    .and().ge("date", from)
+                    .and().lt("date", to)
+                    .prepare());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Gets a page of the sales journaled after a movement, sorted by id, without loading their products nor their stores
+     *
+     * @param afterId  the id of the last movement of the previous page, 0 for the first page
+     * @param since    the date of the oldest sale to get
+     * @param pageSize the maximum number of sales in the page
+     * @return the sales of the page, their quantities being negative, empty if the query failed
+     */
+    public List<StockMovement> getSalesPage(long afterId, Date since, long pageSize) {
+        try {
+            return this.instance.query(this.instance.queryBuilder()
+                    .selectColumns("id", "store_id", "product_id", "quantity", "date")
+                    .orderBy("id", true)
+                    .limit(pageSize)
+                    .where().gt("id", afterId)
+                    .and().eq("type", StockMovementType.SALE)
+                    .and().ge("date", since)
+                    .prepare());
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Snapshots the stocks of a store which moved since its last snapshots, adding their movements to the last snapshots
+     *
+     * @param store the store
+     * @return the number of snapshots taken
+     */
+    public int takeSnapshots(Store store) {
+        if (store == null) return 0;
+
+        try {
+            return TransactionManager.callInTransaction(this.connectionSource, () -> {
+                long lastMovement = this.instance.queryRawValue(LAST_STORE_MOVEMENT_QUERY, store.getId());
+                long lastSnapshotMovement = this.snapshots.queryRawValue(LAST_SNAPSHOT_MOVEMENT_QUERY, store.getId());
+                if (lastMovement <= lastSnapshotMovement) return 0;
+
+                List<String[]> tailQuantities = this.queryRows(TAIL_QUANTITIES_QUERY,
+                        store.getId(), String.valueOf(lastSnapshotMovement), String.valueOf(lastMovement));
+                for (String[] tailQuantity : tailQuantities) {
+                    Product product = new Product();
+                    product.setId(Long.parseLong(tailQuantity[0]));
+
+                    long quantity = this.getSnapshot(product, store, Long.MAX_VALUE)[0] + Long.parseLong(tailQuantity[1]);
+                    this.snapshots.create(new StockSnapshot(store, product, quantity, lastMovement));
+                }
+                return tailQuantities.size();
+            });
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return 0;
+        }
+    }
+
+    /**
+     * Snapshots the quantities of the product stocks when no snapshot was ever taken,
+     * so that the quantities held before the journal was started are kept
+     */
+    public void seedSnapshots() {
+        try {
+            TransactionManager.callInTransaction(this.connectionSource, () -> {
+                if (this.snapshots.countOf() > 0) return null;
+
+                long lastMovement = this.instance.queryRawValue(LAST_MOVEMENT_QUERY);
+                for (String[] stockQuantity : this.queryRows(STOCK_QUANTITIES_QUERY)) {
+                    Product product = new Product();
+                    product.setId(Long.parseLong(stockQuantity[1]));
+
+                    this.snapshots.create(new StockSnapshot(new Store(stockQuantity[0]), product,
+                            Long.parseLong(stockQuantity[2]), lastMovement));
+                }
+                return null;
+            });
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Appends a movement to the journal, to be called in the transaction changing the product stock
+     *
+     * @param movement the movement
+     * @throws SQLException if the query fails
+     */
+    void append(StockMovement movement) throws SQLException {
+        this.instance.create(movement);
+    }
+
+    /**
+     * Gets the quantity of a product which was in stock in a store at an instant
+     *
+     * @param product the product
+     * @param store   the store
+     * @param time    the instant, in milliseconds since the epoch
+     * @return the quantity in stock at the instant, 0 if the query failed
+     */
+    private long getQuantityAt(Product product, Store store, long time) {
+        if (product == null || store == null) return 0;
+
+        try {
+            long[] snapshot = this.getSnapshot(product, store, time);
+            return snapshot[0] + this.instance.queryRawValue(TAIL_QUANTITY_QUERY, store.getId(),
+                    String.valueOf(product.getId()), String.valueOf(snapshot[1]), String.valueOf(time));
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the last snapshot of a product in stock in a store taken at an instant
+     *
+     * @param product the product
+     * @param store   the store
+     * @param time    the instant, in milliseconds since the epoch
+     * @return the quantity of the snapshot and the id of its last movement, zeros if there is no snapshot
+     * @throws SQLException if the query fails
+     */
+    private long[] getSnapshot(Product product, Store store, long time) throws SQLException {
+        List<String[]> rows = this.queryRows(LAST_SNAPSHOT_QUERY, store.getId(), String.valueOf(product.getId()), String.valueOf(time));
+        if (rows.isEmpty()) return new long[]{0, 0};
+
+        return new long[]{Long.parseLong(rows.get(0)[0]), Long.parseLong(rows.get(0)[1])};
+    }
+
+    /**
+     * Runs a raw query
+     *
+     * @param query     the raw SQL query
+     * @param arguments the arguments of the query
+     * @return the rows of the results
+     * @throws SQLException if the query fails
+     */
+    private List<String[]> queryRows(String query, String... arguments) throws SQLException {
+        try (GenericRawResults<String[]> results = this.instance.queryRaw(query, arguments)) {
+            return results.getResults();
+        } catch (IOException exception) {
+            throw new SQLException(exception);
+        }
+    }
+}
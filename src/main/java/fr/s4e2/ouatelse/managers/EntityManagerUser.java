@@ -1,30 +1,38 @@
 package fr.s4e2.ouatelse.managers;
 
 import com.google.common.hash.Hashing;
-import com.j256.ormlite.dao.CloseableIterator;
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.stmt.PreparedQuery;
-import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.dao.RawRowMapper;
 import com.j256.ormlite.support.ConnectionSource;
-import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
+import fr.s4e2.ouatelse.objects.PersonState;
 import fr.s4e2.ouatelse.objects.User;
 
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * The type EntityManagerUser
  */
-public class EntityManagerUser {
-    private static final String USER_MANAGER_NOT_INITIALIZED = "EntityManagerUser could not be initialized";
-
-    private final ConnectionSource connectionSource;
-    private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private final Dao<User, Long> instance;
+public class EntityManagerUser extends AbstractEntityManager<User, Long> {
+    /**
+     * Loads the salary sheets along with the user
+     */
+    public static final FetchProfile<User> SALARY_SHEETS_PROFILE = FetchProfile.of(User.class).eager("salarySheets");
+
+    private static final FetchProfile<User> SEARCH_INDEX_PROFILE = FetchProfile.of(User.class)
+            .lazy("address").lazy("role").lazy("workingStore");
+
+    private static final String USER_TREE_QUERY = "SELECT u.credentials, u.surname, u.name, r.name, u.workingStore_id, u.status "
+            + "FROM `user` u LEFT JOIN `role` r ON r.id = u.role_id";
+    private static final RawRowMapper<User.UserTree> USER_TREE_MAPPER = (columnNames, columns) -> new User.UserTree(
+            columns[0],
+            columns[1],
+            columns[2],
+            columns[3],
+            columns[4],
+            columns[5] != null ? PersonState.values()[Integer.parseInt(columns[5])] : null
+    );
 
     /**
      * Instantiates a new EntityManagerUser
@@ -32,105 +40,12 @@ public class EntityManagerUser {
      * @param connectionSource the connection source
      */
     public EntityManagerUser(ConnectionSource connectionSource) {
-        this.connectionSource = connectionSource;
-        try {
-            this.instance = DaoManager.createDao(this.connectionSource, User.class);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, USER_MANAGER_NOT_INITIALIZED);
-            throw new DatabaseInitialisationException(USER_MANAGER_NOT_INITIALIZED);
-        }
-    }
-
-    /**
-     * Inserts a user in the database
-     *
-     * @param user the user to be inserted
-     */
-    public void create(User user) {
-        try {
-            this.instance.create(user);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Deletes a user from the database
-     *
-     * @param user the user to be deleted
-     */
-    public void delete(User user) {
-        try {
-            this.instance.delete(user);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Updates a user in the database
-     *
-     * @param user the user to be updated
-     */
-    public void update(User user) {
-        try {
-            this.instance.update(user);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Gets all the users in the database
-     *
-     * @return na iterator over all the users in the database
-     */
-    public CloseableIterator<User> getAll() {
-        return this.instance.iterator();
-    }
-
-    /**
-     * Execute a prepared query
-     *
-     * @param query the prepared query
-     * @return the list of results
-     */
-    public List<User> executeQuery(PreparedQuery<User> query) {
-        List<User> results = null;
-
-        try {
-            results = this.instance.query(query);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
-    }
-
-    /**
-     * Gets all the users
-     *
-     * @return all the users that are in the database
-     */
-    public List<User> getQueryForAll() {
-        List<User> results = null;
-
-        try {
-            results = this.instance.queryForAll();
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
-    }
-
-    /**
-     * Gets a query builder
-     *
-     * @return the query builder for the users
-     */
-    public QueryBuilder<User, Long> getQueryBuilder() {
-        return this.instance.queryBuilder();
+        super(connectionSource, User.class);
+        this.setSearchIndex(new SearchIndex<User, Long>()
+                .withField("surname", User::getSurname)
+                .withField("name", User::getName)
+                .withField("credentials", User::getCredentials)
+                .withField("email", User::getEmail), SEARCH_INDEX_PROFILE);
     }
 
     /**
@@ -156,19 +71,11 @@ public class EntityManagerUser {
     }
 
     /**
-     * Check if an user exists in the database
+     * Gets the rows of the users table, with the name of their role, in a single query
      *
-     * @param user the user to be checked
-     * @return true if it exists, else false
+     * @return the rows of all the users
      */
-    public boolean exists(User user) {
-        if (user == null) return false;
-
-        try {
-            return this.instance.queryForId(user.getId()) != null;
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            return false;
-        }
+    public List<User.UserTree> getUserTrees() {
+        return this.getProjection(USER_TREE_QUERY, USER_TREE_MAPPER);
     }
 }
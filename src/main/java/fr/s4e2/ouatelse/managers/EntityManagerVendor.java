@@ -1,28 +1,26 @@
 package fr.s4e2.ouatelse.managers;
 
-import com.j256.ormlite.dao.CloseableIterator;
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
-import com.j256.ormlite.stmt.PreparedQuery;
-import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.dao.RawRowMapper;
 import com.j256.ormlite.support.ConnectionSource;
-import fr.s4e2.ouatelse.exceptions.DatabaseInitialisationException;
 import fr.s4e2.ouatelse.objects.Vendor;
 
 import java.sql.SQLException;
 import java.util.List;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * The type EntityManagerVendor
  */
-public class EntityManagerVendor {
-    private static final String VENDOR_MANAGER_NOT_INITIALIZED = "EntityManagerVendor could not be initialized";
-
-    private final ConnectionSource connectionSource;
-    private final Logger logger = Logger.getLogger(this.getClass().getName());
-    private final Dao<Vendor, Long> instance;
+public class EntityManagerVendor extends AbstractEntityManager<Vendor, Long> {
+    private static final FetchProfile<Vendor> SEARCH_INDEX_PROFILE = FetchProfile.of(Vendor.class).lazy("address");
+    private static final String VENDOR_TREE_QUERY = "SELECT v.name, a.city, v.email, v.contractState "
+            + "FROM `vendor` v LEFT JOIN `address` a ON a.id = v.address_id";
+    private static final RawRowMapper<Vendor.VendorTree> VENDOR_TREE_MAPPER = (columnNames, columns) -> new Vendor.VendorTree(
+            columns[0],
+            columns[1],
+            columns[2],
+            "1".equals(columns[3])
+    );
 
     /**
      * Instantiates a new EntityManagerVendor
@@ -30,105 +28,10 @@ public class EntityManagerVendor {
      * @param connectionSource the connection source
      */
     public EntityManagerVendor(ConnectionSource connectionSource) {
-        this.connectionSource = connectionSource;
-        try {
-            this.instance = DaoManager.createDao(this.connectionSource, Vendor.class);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, VENDOR_MANAGER_NOT_INITIALIZED);
-            throw new DatabaseInitialisationException(VENDOR_MANAGER_NOT_INITIALIZED);
-        }
-    }
-
-    /**
-     * Inserts a vendor in the database
-     *
-     * @param vendor the vendor to be inserted
-     */
-    public void create(Vendor vendor) {
-        try {
-            this.instance.create(vendor);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Deletes a vendor from the database
-     *
-     * @param vendor the vendor to be deleted
-     */
-    public void delete(Vendor vendor) {
-        try {
-            this.instance.delete(vendor);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Updates a vendor in the database
-     *
-     * @param vendor the vendor to be updated
-     */
-    public void update(Vendor vendor) {
-        try {
-            this.instance.update(vendor);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-    }
-
-    /**
-     * Gets all the vendors in the database
-     *
-     * @return na iterator over all the vendors in the database
-     */
-    public CloseableIterator<Vendor> getAll() {
-        return this.instance.iterator();
-    }
-
-    /**
-     * Execute a prepared query
-     *
-     * @param query the prepared query
-     * @return the list of results
-     */
-    public List<Vendor> executeQuery(PreparedQuery<Vendor> query) {
-        List<Vendor> results = null;
-
-        try {
-            results = this.instance.query(query);
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
-    }
-
-    /**
-     * Gets all the vendors
-     *
-     * @return all the vendors that are in the database
-     */
-    public List<Vendor> getQueryForAll() {
-        List<Vendor> results = null;
-
-        try {
-            results = this.instance.queryForAll();
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
-
-        return results;
-    }
-
-    /**
-     * Gets a query builder
-     *
-     * @return the query builder for the vendors
-     */
-    public QueryBuilder<Vendor, Long> getQueryBuilder() {
-        return this.instance.queryBuilder();
+        super(connectionSource, Vendor.class);
+        this.setSearchIndex(new SearchIndex<Vendor, Long>()
+                .withField("name", Vendor::getName)
+                .withField("email", Vendor::getEmail), SEARCH_INDEX_PROFILE);
     }
 
     /**
@@ -151,19 +54,11 @@ public class EntityManagerVendor {
     }
 
     /**
-     * Check if an vendor exists in the database
+     * Gets the rows of the vendors table, with the city of their address, in a single query
      *
-     * @param vendor the vendor to be checked
-     * @return true if it exists, else false
+     * @return the rows of all the vendors
      */
-    public boolean exists(Vendor vendor) {
-        if (vendor == null) return false;
-
-        try {
-            return this.instance.queryForId(vendor.getId()) != null;
-        } catch (SQLException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-            return false;
-        }
+    public List<Vendor.VendorTree> getVendorTrees() {
+        return this.getProjection(VENDOR_TREE_QUERY, VENDOR_TREE_MAPPER);
     }
 }
@@ -0,0 +1,118 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.DatabaseFieldConfig;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import lombok.Getter;
+
+import java.lang.reflect.Field;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Overrides how the foreign fields of an entity are loaded, for the queries of a single screen.
+ * A lazy foreign field only holds the id of the foreign entity, a lazy foreign collection is queried when iterated.
+ * An eager foreign field is refreshed with the entity, an eager foreign collection is loaded with the entity.
+ * Profiles are meant to be declared once as constants, the entity managers keep one DAO per profile
+ *
+ * @param <T> the type of the entity
+ */
+public class FetchProfile<T> {
+    @Getter
+    private final Class<T> entityClass;
+    private final Map<String, Boolean> eagerFields = new LinkedHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param entityClass the class of the entity
+     */
+    private FetchProfile(Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Creates a profile loading the foreign fields as declared by the entity
+     *
+     * @param entityClass the class of the entity
+     * @param <T>         the type of the entity
+     * @return the new profile
+     */
+    public static <T> FetchProfile<T> of(Class<T> entityClass) {
+        return new FetchProfile<>(entityClass);
+    }
+
+    /**
+     * Loads a foreign field or a foreign collection with the entity
+     *
+     * @param fieldName the name of the field
+     * @return this profile
+     */
+    public FetchProfile<T> eager(String fieldName) {
+        this.eagerFields.put(fieldName, true);
+        return this;
+    }
+
+    /**
+     * Doesn't load a foreign field or a foreign collection with the entity
+     *
+     * @param fieldName the name of the field
+     * @return this profile
+     */
+    public FetchProfile<T> lazy(String fieldName) {
+        this.eagerFields.put(fieldName, false);
+        return this;
+    }
+
+    /**
+     * Gets the overridden fields
+     *
+     * @return true for each eager field, false for each lazy field
+     */
+    public Map<String, Boolean> getEagerFields() {
+        return Collections.unmodifiableMap(this.eagerFields);
+    }
+
+    /**
+     * Builds the table configuration of the entity with this profile applied
+     *
+     * @param connectionSource the connection source
+     * @return the table configuration
+     * @throws SQLException if the entity can't be configured, or if a field is not a foreign field or collection
+     */
+    DatabaseTableConfig<T> toTableConfig(ConnectionSource connectionSource) throws SQLException {
+        DatabaseType databaseType = connectionSource.getDatabaseType();
+        String tableName = DatabaseTableConfig.extractTableName(databaseType, this.entityClass);
+        List<DatabaseFieldConfig> fieldConfigs = new ArrayList<>();
+
+        for (Class<?> currentClass = this.entityClass; currentClass != null; currentClass = currentClass.getSuperclass()) {
+            for (Field field : currentClass.getDeclaredFields()) {
+                DatabaseFieldConfig fieldConfig = DatabaseFieldConfig.fromField(databaseType, tableName, field);
+                if (fieldConfig != null) fieldConfigs.add(fieldConfig);
+            }
+        }
+
+        for (Map.Entry<String, Boolean> eagerField : this.eagerFields.entrySet()) {
+            DatabaseFieldConfig fieldConfig = fieldConfigs.stream()
+                    .filter(config -> config.getFieldName().equals(eagerField.getKey()))
+                    .findFirst().orElse(null);
+
+            if (fieldConfig != null && fieldConfig.isForeignCollection()) {
+                fieldConfig.setForeignCollectionEager(eagerField.getValue());
+            } else if (fieldConfig != null && fieldConfig.isForeign()) {
+                fieldConfig.setForeignAutoRefresh(eagerField.getValue());
+            } else {
+                throw new SQLException(eagerField.getKey() + " is not a foreign field of " + this.entityClass.getSimpleName());
+            }
+        }
+
+        DatabaseTableConfig<T> tableConfig = new DatabaseTableConfig<>(databaseType, this.entityClass, fieldConfigs);
+        tableConfig.setTableName(tableName);
+        return tableConfig;
+    }
+}
@@ -0,0 +1,272 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.ScheduledOrder;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers the scheduled orders into the stocks once their date is reached.
+ * The dates of the pending orders are kept in memory, sorted, and a single background thread sleeps until the next one
+ * instead of polling the table : the orders which fell due while the software was closed are all delivered on start.
+ * The due orders are delivered in one transaction per store and vendor, the orders of a failed transaction
+ * being queued again with a delay doubled on every failure
+ */
+public class OrderScheduler {
+    private static final int BATCH_SIZE = 500;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 30 * 1000L;
+    private static final long MAXIMUM_RETRY_DELAY_MILLIS = 60 * 60 * 1000L;
+
+    private final EntityManagerScheduledOrder entityManagerScheduledOrder;
+    private final StockLedger stockLedger;
+    private final long retryDelayMillis;
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final PriorityQueue<PendingOrder> pendingOrders = new PriorityQueue<>(
+            Comparator.comparingLong((PendingOrder pendingOrder) -> pendingOrder.time).thenComparingLong(pendingOrder -> pendingOrder.id)
+    );
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpTime = Long.MAX_VALUE;
+
+    /**
+     * Instantiates a new OrderScheduler
+     *
+     * @param entityManagerScheduledOrder the manager of the scheduled orders
+     * @param stockLedger                 the ledger the orders are delivered with
+     */
+    public OrderScheduler(EntityManagerScheduledOrder entityManagerScheduledOrder, StockLedger stockLedger) {
+        this(entityManagerScheduledOrder, stockLedger, DEFAULT_RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * Instantiates a new OrderScheduler
+     *
+     * @param entityManagerScheduledOrder the manager of the scheduled orders
+     * @param stockLedger                 the ledger the orders are delivered with
+     * @param retryDelayMillis            the delay before the first retry of an order which failed to be delivered
+     */
+    OrderScheduler(EntityManagerScheduledOrder entityManagerScheduledOrder, StockLedger stockLedger, long retryDelayMillis) {
+        this.entityManagerScheduledOrder = entityManagerScheduledOrder;
+        this.stockLedger = stockLedger;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Loads the dates of the pending orders and starts delivering them, the orders already due being delivered at once
+     */
+    public synchronized void start() {
+        if (this.executor != null) return;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.pendingOrders.clear();
+        this.entityManagerScheduledOrder.getScheduledDates().forEach(this::enqueue);
+        this.reschedule();
+    }
+
+    /**
+     * Stops delivering the orders, the pending ones will be delivered on the next start
+     */
+    public synchronized void stop() {
+        if (this.executor == null) return;
+
+        this.executor.shutdownNow();
+        this.executor = null;
+        this.wakeUp = null;
+        this.wakeUpTime = Long.MAX_VALUE;
+    }
+
+    /**
+     * Schedules the delivery of a newly created order
+     *
+     * @param scheduledOrder the scheduled order
+     */
+    public synchronized void schedule(ScheduledOrder scheduledOrder) {
+        if (scheduledOrder == null || scheduledOrder.getScheduledOrderDate() == null) return;
+
+        this.enqueue(scheduledOrder);
+        if (this.executor != null) this.reschedule();
+    }
+
+    /**
+     * Gets the number of orders waiting for their date
+     *
+     * @return the number of pending orders
+     */
+    public synchronized int getPendingOrders() {
+        return this.pendingOrders.size();
+    }
+
+    /**
+     * Delivers the orders whose date is reached, then sleeps until the date of the next one.
+     * The orders which couldn't be delivered, the database being locked for instance, are retried later
+     *
+     * @return the number of delivered orders
+     */
+    int deliverDueOrders() {
+        List<PendingOrder> dueOrders = new ArrayList<>();
+        List<PendingOrder> failedOrders = new ArrayList<>();
+        int deliveredOrders = 0;
+        try {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                while (!this.pendingOrders.isEmpty() && this.pendingOrders.peek().time <= now) {
+                    dueOrders.add(this.pendingOrders.poll());
+                }
+            }
+
+            for (int from = 0; from < dueOrders.size(); from += BATCH_SIZE) {
+                Map<Long, PendingOrder> batch = dueOrders.subList(from, Math.min(from + BATCH_SIZE, dueOrders.size())).stream()
+                        .collect(Collectors.toMap(pendingOrder -> pendingOrder.id, pendingOrder -> pendingOrder,
+                                (first, second) -> first, LinkedHashMap::new));
+                deliveredOrders += this.deliver(batch, failedOrders);
+            }
+        } finally {
+            // a thrown exception would otherwise leave the wake up set, and no order would be delivered anymore
+            synchronized (this) {
+                if (!failedOrders.isEmpty()) {
+                    long now = System.currentTimeMillis();
+                    failedOrders.forEach(failedOrder -> this.pendingOrders.add(failedOrder.retry(now, this.retryDelayMillis)));
+                    this.logger.log(Level.WARNING, "{0} of the {1} due orders were not delivered and will be retried",
+                            new Object[]{failedOrders.size(), dueOrders.size()});
+                }
+
+                this.wakeUp = null;
+                this.wakeUpTime = Long.MAX_VALUE;
+                if (this.executor != null) this.reschedule();
+            }
+        }
+        return deliveredOrders;
+    }
+
+    /**
+     * Delivers a batch of due orders, in one transaction per store and vendor
+     *
+     * @param batch        the due orders by id
+     * @param failedOrders receives the orders which couldn't be delivered
+     * @return the number of delivered orders
+     */
+    private int deliver(Map<Long, PendingOrder> batch, List<PendingOrder> failedOrders) {
+        int deliveredOrders = 0;
+        List<PendingOrder> batchFailures = new ArrayList<>();
+        try {
+            Map<String, List<ScheduledOrder>> ordersBySupply = this.entityManagerScheduledOrder.getScheduledOrders(batch.keySet()).stream()
+                    .collect(Collectors.groupingBy(this::getSupply, LinkedHashMap::new, Collectors.toList()));
+
+            for (List<ScheduledOrder> orders : ordersBySupply.values()) {
+                int suppliedOrders = this.stockLedger.deliver(orders);
+                if (suppliedOrders >= 0) {
+                    deliveredOrders += suppliedOrders;
+                } else {
+                    orders.forEach(order -> batchFailures.add(batch.get(order.getId())));
+                }
+            }
+        } catch (SQLException | RuntimeException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            // the orders of the batch which were delivered are deleted, they won't be found on the retry
+            failedOrders.addAll(batch.values());
+            return deliveredOrders;
+        }
+
+        failedOrders.addAll(batchFailures);
+        return deliveredOrders;
+    }
+
+    /**
+     * Adds an order to the pending orders
+     *
+     * @param scheduledOrder the scheduled order, with its id and its date
+     */
+    private void enqueue(ScheduledOrder scheduledOrder) {
+        this.pendingOrders.add(new PendingOrder(scheduledOrder.getId(), scheduledOrder.getScheduledOrderDate().getTime()));
+    }
+
+    /**
+     * Wakes the background thread up at the date of the next pending order, unless it already wakes up before
+     */
+    private void reschedule() {
+        PendingOrder nextOrder = this.pendingOrders.peek();
+        if (nextOrder == null) return;
+        if (this.wakeUp != null && this.wakeUpTime <= nextOrder.time) return;
+
+        if (this.wakeUp != null) this.wakeUp.cancel(false);
+        this.wakeUpTime = nextOrder.time;
+        this.wakeUp = this.executor.schedule(this::deliverDueOrders,
+                Math.max(0, nextOrder.time - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the store and the vendor an order is supplied to and by, the orders of a supply being delivered together
+     *
+     * @param scheduledOrder the scheduled order
+     * @return the key of the supply
+     */
+    private String getSupply(ScheduledOrder scheduledOrder) {
+        String storeId = scheduledOrder.getStore() != null ? scheduledOrder.getStore().getId() : "";
+        String vendorId = scheduledOrder.getProduct() != null && scheduledOrder.getProduct().getSoldBy() != null
+                ? String.valueOf(scheduledOrder.getProduct().getSoldBy().getId()) : "";
+
+        return storeId + "/" + vendorId;
+    }
+
+    /**
+     * The id and the date of an order waiting for its date, or for its next delivery attempt
+     */
+    private static class PendingOrder {
+        private final long id;
+        private final long time;
+        private final int failures;
+
+        /**
+         * Constructor
+         *
+         * @param id   the id of the scheduled order
+         * @param time the date of the scheduled order, in milliseconds since the epoch
+         */
+        private PendingOrder(long id, long time) {
+            this(id, time, 0);
+        }
+
+        /**
+         * Constructor
+         *
+         * @param id       the id of the scheduled order
+         * @param time     the date of the next delivery attempt, in milliseconds since the epoch
+         * @param failures the number of failed delivery attempts
+         */
+        private PendingOrder(long id, long time, int failures) {
+            this.id = id;
+            this.time = time;
+            this.failures = failures;
+        }
+
+        /**
+         * Gets the next delivery attempt of this order after a failed one, the delay doubling on every failure
+         *
+         * @param now              the time of the failure, in milliseconds since the epoch
+         * @param retryDelayMillis the delay before the first retry
+         * @return the order, with the date of its next delivery attempt
+         */
+        private PendingOrder retry(long now, long retryDelayMillis) {
+            long delay = Math.min(retryDelayMillis << Math.min(this.failures, 16), MAXIMUM_RETRY_DELAY_MILLIS);
+            return new PendingOrder(this.id, now + delay, this.failures + 1);
+        }
+    }
+}
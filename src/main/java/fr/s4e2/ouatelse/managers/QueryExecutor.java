@@ -0,0 +1,150 @@
+package fr.s4e2.ouatelse.managers;
+
+import javafx.application.Platform;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the database queries of the screens on a bounded pool of background threads and hands their results back
+ * to the JavaFX application thread, so that a slow query never freezes the window.
+ * A request can be submitted with a key : submitting a new request with the same key cancels the previous one,
+ * whose result is then never delivered, which is what a search bar or a selection listener needs
+ */
+public class QueryExecutor {
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final ThreadPoolExecutor executor;
+    private final Executor uiExecutor;
+    private final Map<String, CompletableFuture<?>> pendingRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new QueryExecutor delivering the results on the JavaFX application thread
+     *
+     * @param threads the number of background threads
+     */
+    public QueryExecutor(int threads) {
+        this(threads, Platform::runLater);
+    }
+
+    /**
+     * Instantiates a new QueryExecutor
+     *
+     * @param threads    the number of background threads
+     * @param uiExecutor runs the result handlers on the UI thread, or on the calling thread when there is no UI
+     */
+    public QueryExecutor(int threads, Executor uiExecutor) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.uiExecutor = uiExecutor;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "query-executor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a query in the background
+     *
+     * @param query    the query
+     * @param onResult handles the result on the UI thread
+     * @param <R>      the type of the result
+     * @return the result of the query, cancelling it interrupts the query and drops its result
+     */
+    public <R> CompletableFuture<R> submit(Callable<R> query, Consumer<R> onResult) {
+        return this.submit(null, query, onResult);
+    }
+
+    /**
+     * Runs a query in the background, cancelling the pending request submitted with the same key
+     *
+     * @param key      the key of the request, null if it can't be superseded
+     * @param query    the query
+     * @param onResult handles the result on the UI thread, only if no newer request was submitted with the same key
+     * @param <R>      the type of the result
+     * @return the result of the query, cancelling it interrupts the query and drops its result
+     */
+    public <R> CompletableFuture<R> submit(String key, Callable<R> query, Consumer<R> onResult) {
+        CompletableFuture<R> request = new CompletableFuture<>();
+
+        if (key != null) {
+            CompletableFuture<?> previousRequest = this.pendingRequests.put(key, request);
+            if (previousRequest != null) previousRequest.cancel(true);
+        }
+
+        try {
+            Future<?> task = this.executor.submit(() -> {
+                if (request.isDone()) return;
+
+                try {
+                    request.complete(query.call());
+                } catch (Exception exception) {
+                    request.completeExceptionally(exception);
+                }
+            });
+            request.whenComplete((result, throwable) -> {
+                if (request.isCancelled()) task.cancel(true);
+            });
+        } catch (RejectedExecutionException exception) {
+            request.completeExceptionally(exception);
+        }
+
+        request.whenCompleteAsync((result, throwable) -> {
+            if (key != null && !this.pendingRequests.remove(key, request)) return;
+
+            if (throwable == null) {
+                onResult.accept(result);
+            } else if (!(throwable instanceof CancellationException)) {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                this.logger.log(Level.SEVERE, cause.getMessage(), cause);
+            }
+        }, this.uiExecutor);
+
+        return request;
+    }
+
+    /**
+     * Cancels the pending request submitted with a key, its result won't be delivered
+     *
+     * @param key the key of the request
+     */
+    public void cancel(String key) {
+        CompletableFuture<?> request = this.pendingRequests.remove(key);
+        if (request != null) request.cancel(true);
+    }
+
+    /**
+     * Gets the number of requests waiting for a background thread
+     *
+     * @return the number of queued requests
+     */
+    public int getQueuedRequests() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Stops the background threads, the pending requests are interrupted
+     */
+    public void close() {
+        this.executor.shutdownNow();
+        this.pendingRequests.values().forEach(request -> request.cancel(true));
+        this.pendingRequests.clear();
+    }
+}
@@ -0,0 +1,259 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ScheduledOrder;
+import fr.s4e2.ouatelse.objects.StockMovement;
+import fr.s4e2.ouatelse.objects.Store;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Orders the products of a store before they run out, from the speed they are sold at.
+ * The sales velocity of every product in every store is an exponentially weighted moving average of its sales,
+ * updated from the sales journaled since the last update only. A product is ordered once its stock and its pending
+ * orders fall under what is sold during the delivery lead time plus some safety days, enough of it being ordered
+ * to last the covered days, and the orders of a vendor are created together
+ */
+public class ReorderEngine {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    // time constant of the moving averages, the sales older than 8 of them weigh less than a 3000th
+    private static final double SMOOTHING_DAYS = 14;
+    private static final long HISTORY_MILLIS = (long) (8 * SMOOTHING_DAYS * DAY_MILLIS);
+    private static final int LEAD_TIME_DAYS = 7;
+    private static final int SAFETY_DAYS = 3;
+    private static final int COVER_DAYS = 14;
+    // a product is only ordered if at least one of it is sold during the covered days
+    private static final double MINIMUM_VELOCITY = 1.0 / COVER_DAYS;
+    private static final int PAGE_SIZE = 10000;
+
+    private final EntityManagerProduct entityManagerProduct;
+    private final EntityManagerProductStock entityManagerProductStock;
+    private final EntityManagerScheduledOrder entityManagerScheduledOrder;
+    private final EntityManagerStockMovement entityManagerStockMovement;
+    private final OrderScheduler orderScheduler;
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final Map<String, Velocities> velocities = new HashMap<>();
+
+    private long lastSale;
+
+    /**
+     * Instantiates a new ReorderEngine
+     *
+     * @param entityManagerProduct        the manager of the products
+     * @param entityManagerProductStock   the manager of the stocks of the stores
+     * @param entityManagerScheduledOrder the manager of the scheduled orders
+     * @param entityManagerStockMovement  the manager of the stock journal
+     * @param orderScheduler              the scheduler delivering the created orders
+     */
+    public ReorderEngine(EntityManagerProduct entityManagerProduct, EntityManagerProductStock entityManagerProductStock,
+                         EntityManagerScheduledOrder entityManagerScheduledOrder, EntityManagerStockMovement entityManagerStockMovement,
+                         OrderScheduler orderScheduler) {
+        this.entityManagerProduct = entityManagerProduct;
+        this.entityManagerProductStock = entityManagerProductStock;
+        this.entityManagerScheduledOrder = entityManagerScheduledOrder;
+        this.entityManagerStockMovement = entityManagerStockMovement;
+        this.orderScheduler = orderScheduler;
+    }
+
+    /**
+     * Orders the products of a store whose stock falls under their reorder point, grouped by vendor.
+     * The products without vendor can't be ordered and are left aside
+     *
+     * @param store the store
+     * @return the created orders
+     */
+    public synchronized List<ScheduledOrder> reorder(Store store) {
+        List<ScheduledOrder> createdOrders = new ArrayList<>();
+        if (store == null) return createdOrders;
+
+        this.update();
+        Velocities storeVelocities = this.velocities.get(store.getId());
+        if (storeVelocities == null) return createdOrders;
+
+        long now = System.currentTimeMillis();
+        Map<Long, Long> quantities = this.entityManagerProductStock.getQuantities(store);
+        Map<Long, Long> pendingQuantities = this.entityManagerScheduledOrder.getPendingQuantities(store);
+        Date deliveryDate = new Date(now + LEAD_TIME_DAYS * DAY_MILLIS);
+
+        Map<Long, List<ScheduledOrder>> ordersByVendor = new LinkedHashMap<>();
+        for (int slot = 0; slot < storeVelocities.products.length; slot++) {
+            long productId = storeVelocities.products[slot];
+            if (productId == 0) continue;
+
+            double velocity = storeVelocities.getVelocity(slot, now);
+            if (velocity < MINIMUM_VELOCITY) continue;
+
+            long projectedQuantity = quantities.getOrDefault(productId, 0L) + pendingQuantities.getOrDefault(productId, 0L);
+            double reorderPoint = velocity * (LEAD_TIME_DAYS + SAFETY_DAYS);
+            if (projectedQuantity > reorderPoint) continue;
+
+            Product product = this.entityManagerProduct.getIfExists(productId);
+            if (product == null || product.getSoldBy() == null) continue;
+
+            int quantity = (int) Math.ceil(reorderPoint + velocity * COVER_DAYS - projectedQuantity);
+            ordersByVendor.computeIfAbsent(product.getSoldBy().getId(), vendorId -> new ArrayList<>())
+                    .add(new ScheduledOrder(product, store, deliveryDate, quantity));
+        }
+
+        for (List<ScheduledOrder> orders : ordersByVendor.values()) {
+            this.entityManagerScheduledOrder.createAll(orders);
+            for (ScheduledOrder order : orders) {
+                // the orders of a vendor weren't created if their transaction failed
+                if (order.getId() == 0) continue;
+
+                this.orderScheduler.schedule(order);
+                createdOrders.add(order);
+            }
+        }
+
+        if (!createdOrders.isEmpty()) {
+            this.logger.log(Level.INFO, "{0} products of the store {1} were ordered", new Object[]{createdOrders.size(), store.getId()});
+        }
+        return createdOrders;
+    }
+
+    /**
+     * Gets the speed a product is sold at in a store
+     *
+     * @param product the product
+     * @param store   the store
+     * @return the average quantity sold per day
+     */
+    public synchronized double getVelocity(Product product, Store store) {
+        if (product == null || store == null) return 0;
+
+        this.update();
+        Velocities storeVelocities = this.velocities.get(store.getId());
+        if (storeVelocities == null) return 0;
+
+        int slot = storeVelocities.getSlot(product.getId());
+        return storeVelocities.products[slot] != 0 ? storeVelocities.getVelocity(slot, System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * Adds the sales journaled since the last update to the moving averages
+     *
+     * @return the number of sales added
+     */
+    synchronized int update() {
+        Date since = new Date(System.currentTimeMillis() - HISTORY_MILLIS);
+        int addedSales = 0;
+
+        List<StockMovement> sales;
+        do {
+            sales = this.entityManagerStockMovement.getSalesPage(this.lastSale, since, PAGE_SIZE);
+            for (StockMovement sale : sales) {
+                this.lastSale = sale.getId();
+                if (sale.getStore() == null || sale.getProduct() == null) continue;
+
+                this.velocities.computeIfAbsent(sale.getStore().getId(), storeId -> new Velocities())
+                        .add(sale.getProduct().getId(), sale.getDate().getTime(), -sale.getQuantity());
+                addedSales++;
+            }
+        } while (sales.size() == PAGE_SIZE);
+
+        return addedSales;
+    }
+
+    /**
+     * The moving averages of the sales of the products of a store, in an open addressing table keyed by product id
+     * so that a whole catalogue holds in a few primitive arrays
+     */
+    private static class Velocities {
+        private static final long SMOOTHING_MILLIS = (long) (SMOOTHING_DAYS * DAY_MILLIS);
+
+        // the generated ids start at 1, 0 marks the free slots
+        private long[] products = new long[16];
+        private double[] rates = new double[16];
+        private long[] times = new long[16];
+        private int size;
+
+        /**
+         * Adds a sale to the moving average of a product
+         *
+         * @param productId the id of the product
+         * @param time      the date of the sale, in milliseconds since the epoch
+         * @param quantity  the quantity sold
+         */
+        private void add(long productId, long time, double quantity) {
+            int slot = this.getSlot(productId);
+            double rate = quantity / SMOOTHING_DAYS;
+
+            if (this.products[slot] == 0) {
+                this.products[slot] = productId;
+                this.rates[slot] = rate;
+                this.times[slot] = time;
+                if (++this.size * 4 > this.products.length * 3) this.grow();
+            } else if (time >= this.times[slot]) {
+                this.rates[slot] = this.rates[slot] * decay(time - this.times[slot]) + rate;
+                this.times[slot] = time;
+            } else {
+                // a sale journaled late weighs as much as if it had been journaled on time
+                this.rates[slot] += rate * decay(this.times[slot] - time);
+            }
+        }
+
+        /**
+         * Gets the moving average of the product of a slot
+         *
+         * @param slot the slot of the product
+         * @param now  the current date, in milliseconds since the epoch
+         * @return the average quantity sold per day
+         */
+        private double getVelocity(int slot, long now) {
+            return this.rates[slot] * decay(Math.max(0, now - this.times[slot]));
+        }
+
+        /**
+         * Gets the slot of a product, or the free slot it would be put in
+         *
+         * @param productId the id of the product
+         * @return the slot
+         */
+        private int getSlot(long productId) {
+            int mask = this.products.length - 1;
+            int slot = Long.hashCode(productId * 0x9E3779B97F4A7C15L) & mask;
+            while (this.products[slot] != 0 && this.products[slot] != productId) slot = (slot + 1) & mask;
+
+            return slot;
+        }
+
+        /**
+         * Doubles the capacity of the table
+         */
+        private void grow() {
+            long[] oldProducts = this.products;
+            double[] oldRates = this.rates;
+            long[] oldTimes = this.times;
+
+            this.products = new long[oldProducts.length * 2];
+            this.rates = new double[oldProducts.length * 2];
+            this.times = new long[oldProducts.length * 2];
+            for (int oldSlot = 0; oldSlot < oldProducts.length; oldSlot++) {
+                if (oldProducts[oldSlot] == 0) continue;
+
+                int slot = this.getSlot(oldProducts[oldSlot]);
+                this.products[slot] = oldProducts[oldSlot];
+                this.rates[slot] = oldRates[oldSlot];
+                this.times[slot] = oldTimes[oldSlot];
+            }
+        }
+
+        /**
+         * Gets the weight of a sale once some time elapsed
+         *
+         * @param elapsedMillis the elapsed time, in milliseconds
+         * @return the weight
+         */
+        private static double decay(long elapsedMillis) {
+            return Math.exp(-(double) elapsedMillis / SMOOTHING_MILLIS);
+        }
+    }
+}
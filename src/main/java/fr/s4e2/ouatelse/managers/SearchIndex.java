@@ -0,0 +1,350 @@
+package fr.s4e2.ouatelse.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory full-text index of entities, finding the entities having a field containing an input, like the LIKE operator would,
+ * without scanning the table.
+ * Inputs of three characters or more are looked up in an inverted index of the trigrams of the fields,
+ * shorter inputs in the distinct words of the fields. The matching ids are ranked : a field equal to the input first,
+ * then a field starting with it, a word starting with it, and a field only containing it, earlier declared fields first
+ *
+ * @param <T>  the type of the indexed entities
+ * @param <ID> the type of the id of the indexed entities
+ */
+public class SearchIndex<T, ID> {
+    public static final int DEFAULT_LIMIT = 500;
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int EQUAL = 4;
+    private static final int STARTS_WITH = 3;
+    private static final int WORD_STARTS_WITH = 2;
+    private static final int CONTAINS = 1;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Function<T, ?>> fields = new LinkedHashMap<>();
+    // entities are numbered in the order they are indexed, so that the postings stay sorted
+    private final Map<ID, Integer> documents = new HashMap<>();
+    private final List<ID> documentIds = new ArrayList<>();
+    private final List<String[]> documentTexts = new ArrayList<>();
+    private final Map<String, Postings> grams = new HashMap<>();
+    private final Map<String, Postings> words = new HashMap<>();
+    private int removedDocuments = 0;
+
+    /**
+     * Normalizes a text the way it is indexed
+     *
+     * @param text the text, can be null
+     * @return the lower case text, empty if null
+     */
+    public static String normalize(String text) {
+        return text != null ? text.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Declares an indexed field
+     *
+     * @param fieldName the name of the field
+     * @param field     the function reading the field of an entity
+     * @return this index
+     */
+    public synchronized SearchIndex<T, ID> withField(String fieldName, Function<T, ?> field) {
+        this.fields.put(fieldName, field);
+        return this;
+    }
+
+    /**
+     * Gets the names of the indexed fields
+     *
+     * @return the names of the fields, in the order they are declared
+     */
+    public synchronized List<String> getFieldNames() {
+        return new ArrayList<>(this.fields.keySet());
+    }
+
+    /**
+     * Ranks entities found without the index, as a search would
+     *
+     * @param entities the entities by id
+     * @param input    the input
+     * @param limit    the maximum number of ids
+     * @return the ids of the entities matching the input, the best matches first
+     */
+    public synchronized List<ID> rank(Map<ID, T> entities, String input, int limit) {
+        SearchIndex<T, ID> ranking = new SearchIndex<>();
+        ranking.fields.putAll(this.fields);
+        entities.forEach(ranking::put);
+
+        return ranking.search(input, limit);
+    }
+
+    /**
+     * Tells if an entity has a field containing an input, as a search would
+     *
+     * @param entity the entity
+     * @param input  the input
+     * @return true if the entity matches the input
+     */
+    public synchronized boolean matches(T entity, String input) {
+        String normalizedInput = normalize(input);
+        return Arrays.stream(this.read(entity)).anyMatch(text -> text.contains(normalizedInput));
+    }
+
+    /**
+     * Indexes an entity, replacing the previously indexed entity with the same id
+     *
+     * @param id     the id of the entity
+     * @param entity the entity
+     */
+    public synchronized void put(ID id, T entity) {
+        if (id == null || entity == null) return;
+
+        this.remove(id);
+        this.index(id, this.read(entity));
+    }
+
+    /**
+     * Removes an entity from the index
+     *
+     * @param id the id of the entity
+     */
+    public synchronized void remove(ID id) {
+        Integer document = id != null ? this.documents.remove(id) : null;
+        if (document == null) return;
+
+        // the postings still hold the document, they are skipped until the index is compacted
+        this.documentIds.set(document, null);
+        this.documentTexts.set(document, null);
+        this.removedDocuments++;
+
+        if (this.removedDocuments > this.documents.size()) this.compact();
+    }
+
+    /**
+     * Removes all the entities from the index
+     */
+    public synchronized void clear() {
+        this.documents.clear();
+        this.documentIds.clear();
+        this.documentTexts.clear();
+        this.grams.clear();
+        this.words.clear();
+        this.removedDocuments = 0;
+    }
+
+    /**
+     * Gets the number of indexed entities
+     *
+     * @return the number of indexed entities
+     */
+    public synchronized int size() {
+        return this.documents.size();
+    }
+
+    /**
+     * Searches the entities having a field containing an input, ignoring the case
+     *
+     * @param input the input
+     * @param limit the maximum number of ids
+     * @return the ids of the matching entities, the best matches first
+     */
+    public synchronized List<ID> search(String input, int limit) {
+        String normalizedInput = normalize(input);
+        if (normalizedInput.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        List<Match> matches = new ArrayList<>();
+        this.getCandidates(normalizedInput).stream().forEach(document -> {
+            Match match = this.score(document, normalizedInput);
+            if (match != null) matches.add(match);
+        });
+
+        return matches.stream()
+                .sorted(Comparator.comparingInt((Match match) -> match.score).reversed().thenComparingInt(match -> match.length))
+                .limit(limit)
+                .map(match -> this.documentIds.get(match.document))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the documents which may match an input, to be checked against their texts
+     *
+     * @param input the normalized input
+     * @return the candidate documents
+     */
+    private BitSet getCandidates(String input) {
+        BitSet candidates = new BitSet();
+
+        if (input.length() >= GRAM_LENGTH) {
+            List<Postings> inputPostings = new ArrayList<>();
+            for (int i = 0; i + GRAM_LENGTH <= input.length(); i++) {
+                Postings postings = this.grams.get(input.substring(i, i + GRAM_LENGTH));
+                if (postings == null) return candidates;
+                inputPostings.add(postings);
+            }
+            inputPostings.sort(Comparator.comparingInt(postings -> postings.size));
+
+            // every trigram of the input must be in the document, starting with the rarest one
+            inputPostings.get(0).forEach(candidates::set);
+            for (Postings postings : inputPostings.subList(1, inputPostings.size())) {
+                BitSet documents = new BitSet();
+                postings.forEach(documents::set);
+                candidates.and(documents);
+            }
+        } else if (input.chars().allMatch(Character::isLetterOrDigit)) {
+            this.words.keySet().stream()
+                    .filter(word -> word.contains(input))
+                    .forEach(word -> this.words.get(word).forEach(candidates::set));
+        } else {
+            // an input with separators can't be found among the words
+            candidates.set(0, this.documentTexts.size());
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Scores how well a document matches an input
+     *
+     * @param document the document
+     * @param input    the normalized input
+     * @return the match, null if the document doesn't match the input
+     */
+    private Match score(int document, String input) {
+        String[] texts = this.documentTexts.get(document);
+        if (texts == null) return null;
+
+        Match bestMatch = null;
+        for (int field = 0; field < texts.length; field++) {
+            String text = texts[field];
+            int index = text.indexOf(input);
+            if (index < 0) continue;
+
+            int quality;
+            if (text.length() == input.length()) {
+                quality = EQUAL;
+            } else if (index == 0) {
+                quality = STARTS_WITH;
+            } else if (!Character.isLetterOrDigit(text.charAt(index - 1))) {
+                quality = WORD_STARTS_WITH;
+            } else {
+                quality = CONTAINS;
+            }
+
+            int score = quality * (texts.length + 1) + texts.length - field;
+            if (bestMatch == null || score > bestMatch.score) bestMatch = new Match(document, score, text.length());
+        }
+
+        return bestMatch;
+    }
+
+    /**
+     * Reads the normalized texts of the indexed fields of an entity
+     *
+     * @param entity the entity
+     * @return the texts, in the order the fields are declared
+     */
+    private String[] read(T entity) {
+        return this.fields.values().stream()
+                .map(field -> field.apply(entity))
+                .map(value -> normalize(value != null ? value.toString() : null))
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Rebuilds the postings without the removed documents
+     */
+    private void compact() {
+        Map<ID, String[]> liveDocuments = new LinkedHashMap<>();
+        for (int document = 0; document < this.documentIds.size(); document++) {
+            if (this.documentIds.get(document) != null) liveDocuments.put(this.documentIds.get(document), this.documentTexts.get(document));
+        }
+
+        this.clear();
+        liveDocuments.forEach(this::index);
+    }
+
+    /**
+     * Adds a document for an entity and adds it to the postings of its trigrams and words
+     *
+     * @param id    the id of the entity
+     * @param texts the normalized texts of the indexed fields of the entity
+     */
+    private void index(ID id, String[] texts) {
+        int document = this.documentIds.size();
+        this.documents.put(id, document);
+        this.documentIds.add(id);
+        this.documentTexts.add(texts);
+
+        Set<String> documentGrams = new HashSet<>();
+        Set<String> documentWords = new HashSet<>();
+        for (String text : texts) {
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) documentGrams.add(text.substring(i, i + GRAM_LENGTH));
+            for (String word : WORD_SEPARATOR.split(text)) if (!word.isEmpty()) documentWords.add(word);
+        }
+        documentGrams.forEach(gram -> this.grams.computeIfAbsent(gram, key -> new Postings()).add(document));
+        documentWords.forEach(word -> this.words.computeIfAbsent(word, key -> new Postings()).add(document));
+    }
+
+    /**
+     * Sorted list of the documents containing a trigram or a word
+     */
+    private static class Postings {
+        private int[] documents = new int[4];
+        private int size = 0;
+
+        /**
+         * Appends a document, greater than the documents already added
+         *
+         * @param document the document
+         */
+        private void add(int document) {
+            if (this.size == this.documents.length) this.documents = Arrays.copyOf(this.documents, this.size * 2);
+            this.documents[this.size++] = document;
+        }
+
+        /**
+         * Runs an action on each document
+         *
+         * @param action the action
+         */
+        private void forEach(IntConsumer action) {
+            for (int i = 0; i < this.size; i++) action.accept(this.documents[i]);
+        }
+    }
+
+    /**
+     * A document matching an input
+     */
+    private static class Match {
+        private final int document;
+        private final int score;
+        private final int length;
+
+        /**
+         * Constructor
+         *
+         * @param document the document
+         * @param score    the score, higher for better matches
+         * @param length   the length of the matching text, shorter texts being closer matches
+         */
+        private Match(int document, int score, int length) {
+            this.document = document;
+            this.score = score;
+            this.length = length;
+        }
+    }
+}
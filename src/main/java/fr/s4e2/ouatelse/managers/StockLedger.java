@@ -0,0 +1,231 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import fr.s4e2.ouatelse.exceptions.OversellException;
+import fr.s4e2.ouatelse.monitoring.PerformanceMonitor;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.ScheduledOrder;
+import fr.s4e2.ouatelse.objects.StockMovement;
+import fr.s4e2.ouatelse.objects.StockMovementType;
+import fr.s4e2.ouatelse.objects.Store;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves the quantities of the product stocks with conditional updates computed by the database,
+ * so that two tills selling the same product can neither lose an update nor take a stock below zero.
+ * Every move is appended to the stock journal in the same transaction, and every sale is added to the daily sales rollup
+ */
+public class StockLedger {
+    private static final String OVERSELL_MESSAGE = "Not enough stock of the product %d in the store %s";
+    private static final String STOCK_OVERSELL_MESSAGE = "Not enough stock of the product stock %d";
+    private static final String SELL_OPERATION = "StockLedger.sell";
+
+    private final ConnectionSource connectionSource;
+    private final EntityManagerProductStock entityManagerProductStock;
+    private final EntityManagerCart entityManagerCart;
+    private final EntityManagerStockMovement entityManagerStockMovement;
+    private final EntityManagerScheduledOrder entityManagerScheduledOrder;
+    private final EntityManagerDailySales entityManagerDailySales;
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+
+    /**
+     * Instantiates a new StockLedger
+     *
+     * @param connectionSource            the connection source
+     * @param entityManagerProductStock   the manager of the stocks of the stores
+     * @param entityManagerCart           the manager of the carts
+     * @param entityManagerStockMovement  the manager of the stock journal
+     * @param entityManagerScheduledOrder the manager of the scheduled orders
+     * @param entityManagerDailySales     the manager of the daily sales rollup
+     */
+    public StockLedger(ConnectionSource connectionSource, EntityManagerProductStock entityManagerProductStock,
+                       EntityManagerCart entityManagerCart, EntityManagerStockMovement entityManagerStockMovement,
+                       EntityManagerScheduledOrder entityManagerScheduledOrder, EntityManagerDailySales entityManagerDailySales) {
+        this.connectionSource = connectionSource;
+        this.entityManagerProductStock = entityManagerProductStock;
+        this.entityManagerCart = entityManagerCart;
+        this.entityManagerStockMovement = entityManagerStockMovement;
+        this.entityManagerScheduledOrder = entityManagerScheduledOrder;
+        this.entityManagerDailySales = entityManagerDailySales;
+    }
+
+    /**
+     * Closes a cart, removes its products from the stock of a store and adds them to the daily sales rollup,
+     * in a single transaction : nothing is written if a product isn't in stock in a sufficient quantity
+     *
+     * @param cart         the cart
+     * @param store        the store the products are sold in
+     * @param clientStocks the lines of the cart
+     * @return true if the cart was closed, false if it was already closed or the transaction failed
+     * @throws OversellException if a product isn't in stock in a sufficient quantity, the cart is then left open
+     */
+    public boolean sell(Cart cart, Store store, Collection<ClientStock> clientStocks) throws OversellException {
+        if (cart == null || store == null || clientStocks == null) return false;
+
+        // a product may be on several lines of the cart
+        Map<Long, Product> products = new LinkedHashMap<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (ClientStock clientStock : clientStocks) {
+            if (clientStock.getProduct() == null || clientStock.getQuantity() <= 0) continue;
+
+            products.putIfAbsent(clientStock.getProduct().getId(), clientStock.getProduct());
+            quantities.merge(clientStock.getProduct().getId(), clientStock.getQuantity(), Integer::sum);
+        }
+
+        long start = System.nanoTime();
+        boolean isClosed = this.inTransaction(() -> {
+            if (!this.entityManagerCart.close(cart)) return false;
+
+            for (Map.Entry<Long, Integer> quantity : quantities.entrySet()) {
+                Product product = products.get(quantity.getKey());
+                if (!this.entityManagerProductStock.removeQuantity(product, store, quantity.getValue())) {
+                    throw new OversellException(String.format(OVERSELL_MESSAGE, product.getReference(), store.getId()), product);
+                }
+                this.entityManagerStockMovement.append(new StockMovement(store, product, -quantity.getValue(), StockMovementType.SALE));
+            }
+            this.entityManagerDailySales.record(cart, clientStocks);
+            return true;
+        });
+
+        PerformanceMonitor.getInstance().record(SELL_OPERATION, System.nanoTime() - start);
+        if (isClosed) {
+            cart.setClosed(true);
+            PerformanceMonitor.getInstance().recordSale();
+        }
+        return isClosed;
+    }
+
+    /**
+     * Delivers scheduled orders into the stocks of their stores and deletes them, in a single transaction.
+     * An order already delivered, by another instance of the software for instance, isn't delivered again
+     *
+     * @param scheduledOrders the scheduled orders
+     * @return the number of delivered orders, -1 if the transaction failed and none of them was delivered
+     */
+    public int deliver(Collection<ScheduledOrder> scheduledOrders) {
+        if (scheduledOrders == null || scheduledOrders.isEmpty()) return 0;
+
+        try {
+            int[] deliveredOrders = {0};
+            boolean isDelivered = this.inTransaction(() -> {
+                for (ScheduledOrder scheduledOrder : scheduledOrders) {
+                    if (scheduledOrder.getProduct() == null || scheduledOrder.getStore() == null) continue;
+                    if (!this.entityManagerScheduledOrder.deleteDelivered(scheduledOrder)) continue;
+
+                    this.entityManagerProductStock.addQuantity(scheduledOrder.getProduct(), scheduledOrder.getStore(), scheduledOrder.getQuantity());
+                    this.entityManagerStockMovement.append(new StockMovement(scheduledOrder.getStore(), scheduledOrder.getProduct(),
+                            scheduledOrder.getQuantity(), StockMovementType.DELIVERY));
+                    deliveredOrders[0]++;
+                }
+                return true;
+            });
+            return isDelivered ? deliveredOrders[0] : -1;
+        } catch (OversellException exception) {
+            // a delivery can't oversell
+            return -1;
+        }
+    }
+
+    /**
+     * Adds a quantity to a product stock, the quantity of the product stock being read again
+     *
+     * @param productStock the product stock
+     * @param quantity     the quantity to add, greater than 0
+     * @param type         the reason of the addition
+     * @return true if the quantity was added, false if the transaction failed
+     */
+    public boolean add(ProductStock productStock, int quantity, StockMovementType type) {
+        if (productStock == null || quantity <= 0) return false;
+
+        try {
+            return this.inTransaction(() -> {
+                this.entityManagerProductStock.addQuantity(productStock, quantity);
+                this.record(productStock, quantity, type);
+                return true;
+            });
+        } catch (OversellException exception) {
+            // an addition can't oversell
+            return false;
+        }
+    }
+
+    /**
+     * Removes a quantity from a product stock, the quantity of the product stock being read again
+     *
+     * @param productStock the product stock
+     * @param quantity     the quantity to remove, greater than 0
+     * @param type         the reason of the removal
+     * @return true if the quantity was removed, false if the transaction failed
+     * @throws OversellException if the product stock doesn't hold the quantity
+     */
+    public boolean remove(ProductStock productStock, int quantity, StockMovementType type) throws OversellException {
+        if (productStock == null || quantity <= 0) return false;
+
+        return this.inTransaction(() -> {
+            if (!this.entityManagerProductStock.removeQuantity(productStock, quantity)) {
+                throw new OversellException(String.format(STOCK_OVERSELL_MESSAGE, productStock.getId()), productStock.getProduct());
+            }
+            this.record(productStock, -quantity, type);
+            return true;
+        });
+    }
+
+    /**
+     * Appends the movement of a product stock to the journal, unless the product stock has no product or no store
+     *
+     * @param productStock the product stock
+     * @param quantity     the quantity the product stock changed by
+     * @param type         the reason of the change
+     * @throws SQLException if the query fails
+     */
+    private void record(ProductStock productStock, int quantity, StockMovementType type) throws SQLException {
+        if (productStock.getProduct() == null || productStock.getStore() == null) return;
+
+        this.entityManagerStockMovement.append(new StockMovement(productStock.getStore(), productStock.getProduct(), quantity, type));
+    }
+
+    /**
+     * Runs statements in a transaction, rolled back if they fail
+     *
+     * @param statements the statements
+     * @return the result of the statements, false if the transaction failed
+     * @throws OversellException if the statements found a stock insufficient
+     */
+    private boolean inTransaction(LedgerStatements statements) throws OversellException {
+        try {
+            return TransactionManager.callInTransaction(this.connectionSource, statements::run);
+        } catch (SQLException exception) {
+            // the transaction manager wraps the exceptions which aren't SQL exceptions
+            if (exception.getCause() instanceof OversellException) throw (OversellException) exception.getCause();
+
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return false;
+        }
+    }
+
+    /**
+     * Statements run in a transaction of the ledger
+     */
+    @FunctionalInterface
+    private interface LedgerStatements {
+
+        /**
+         * Runs the statements
+         *
+         * @return true if the statements were applied
+         * @throws SQLException      if a query fails
+         * @throws OversellException if a stock is insufficient
+         */
+        boolean run() throws SQLException, OversellException;
+    }
+}
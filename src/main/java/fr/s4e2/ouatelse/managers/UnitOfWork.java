@@ -0,0 +1,221 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects inserts, updates and deletes of any entities and writes them all in a single transaction.
+ * The entities are written with the DAOs of their entity managers, whose caches and search indexes
+ * are brought up to date once the transaction is committed
+ */
+public class UnitOfWork {
+    private final ConnectionSource connectionSource;
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final Map<Class<?>, AbstractEntityManager<?, ?>> entityManagers = new HashMap<>();
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Instantiates a new UnitOfWork
+     *
+     * @param connectionSource the connection source
+     * @param entityManagers   the entity managers writing the entities
+     */
+    public UnitOfWork(ConnectionSource connectionSource, Collection<? extends AbstractEntityManager<?, ?>> entityManagers) {
+        this.connectionSource = connectionSource;
+        if (entityManagers != null) {
+            entityManagers.forEach(entityManager -> this.entityManagers.put(entityManager.getEntityClass(), entityManager));
+        }
+    }
+
+    /**
+     * Registers an entity to be inserted
+     *
+     * @param entity the entity to be inserted
+     * @return this unit of work
+     */
+    public UnitOfWork create(Object entity) {
+        return this.register(OperationType.CREATE, entity);
+    }
+
+    /**
+     * Registers an entity to be updated
+     *
+     * @param entity the entity to be updated
+     * @return this unit of work
+     */
+    public UnitOfWork update(Object entity) {
+        return this.register(OperationType.UPDATE, entity);
+    }
+
+    /**
+     * Registers an entity to be deleted
+     *
+     * @param entity the entity to be deleted
+     * @return this unit of work
+     */
+    public UnitOfWork delete(Object entity) {
+        return this.register(OperationType.DELETE, entity);
+    }
+
+    /**
+     * Registers several entities to be inserted
+     *
+     * @param entities the entities to be inserted
+     * @return this unit of work
+     */
+    public UnitOfWork createAll(Collection<?> entities) {
+        if (entities != null) entities.forEach(this::create);
+        return this;
+    }
+
+    /**
+     * Registers several entities to be updated
+     *
+     * @param entities the entities to be updated
+     * @return this unit of work
+     */
+    public UnitOfWork updateAll(Collection<?> entities) {
+        if (entities != null) entities.forEach(this::update);
+        return this;
+    }
+
+    /**
+     * Registers several entities to be deleted
+     *
+     * @param entities the entities to be deleted
+     * @return this unit of work
+     */
+    public UnitOfWork deleteAll(Collection<?> entities) {
+        if (entities != null) entities.forEach(this::delete);
+        return this;
+    }
+
+    /**
+     * Gets the number of registered operations
+     *
+     * @return the number of operations waiting to be committed
+     */
+    public int size() {
+        return this.operations.size();
+    }
+
+    /**
+     * Writes all the registered operations, in their registration order, in a single transaction.
+     * If one of them fails, none of them is written
+     *
+     * @return true if the operations have been written, else false
+     */
+    public boolean commit() {
+        if (this.operations.isEmpty()) return true;
+
+        try {
+            TransactionManager.callInTransaction(this.connectionSource, () -> {
+                for (Operation operation : this.operations) {
+                    operation.execute();
+                }
+                return null;
+            });
+        } catch (SQLException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            this.operations.clear();
+            return false;
+        }
+
+        try {
+            for (Operation operation : this.operations) {
+                operation.afterCommit();
+            }
+        } catch (SQLException exception) {
+            // the operations are written, only the caches or the search indexes may be stale
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+        } finally {
+            this.operations.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Registers an operation
+     *
+     * @param type   the type of the operation
+     * @param entity the entity of the operation
+     * @return this unit of work
+     */
+    private UnitOfWork register(OperationType type, Object entity) {
+        if (entity != null) this.operations.add(new Operation(type, entity));
+        return this;
+    }
+
+    private enum OperationType {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private class Operation {
+        private final OperationType type;
+        private final Object entity;
+
+        Operation(OperationType type, Object entity) {
+            this.type = type;
+            this.entity = entity;
+        }
+
+        /**
+         * Executes the operation with the DAO of the entity manager of the entity,
+         * or with the DAO of the entity if it has no entity manager
+         *
+         * @throws SQLException if the operation fails
+         */
+        @SuppressWarnings("unchecked")
+        void execute() throws SQLException {
+            AbstractEntityManager<Object, ?> entityManager = this.getEntityManager();
+            Dao<Object, ?> dao = entityManager != null
+                    ? entityManager.getDao()
+                    : (Dao<Object, ?>) DaoManager.createDao(connectionSource, this.entity.getClass());
+
+            switch (this.type) {
+                case CREATE:
+                    dao.create(this.entity);
+                    break;
+                case UPDATE:
+                    dao.update(this.entity);
+                    break;
+                case DELETE:
+                    dao.delete(this.entity);
+                    break;
+            }
+        }
+
+        /**
+         * Brings the cache and the search index of the entity manager of the entity up to date, once the operation is committed
+         *
+         * @throws SQLException if the id of the entity can't be read
+         */
+        void afterCommit() throws SQLException {
+            AbstractEntityManager<Object, ?> entityManager = this.getEntityManager();
+            if (entityManager != null) entityManager.afterCommit(this.entity, this.type == OperationType.DELETE);
+        }
+
+        /**
+         * Gets the entity manager of the entity
+         *
+         * @return the entity manager of the entity, null if it has none
+         */
+        @SuppressWarnings("unchecked")
+        private AbstractEntityManager<Object, ?> getEntityManager() {
+            return (AbstractEntityManager<Object, ?>) entityManagers.get(this.entity.getClass());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package fr.s4e2.ouatelse.migrations;
+
+import com.j256.ormlite.support.ConnectionSource;
+
+import java.sql.SQLException;
+
+/**
+ * A step of the database schema evolution, applied once and in version order
+ */
+public interface Migration {
+
+    /**
+     * Gets the version reached once this migration is applied, versions start at 1
+     *
+     * @return the version of the migration
+     */
+    int getVersion();
+
+    /**
+     * Gets a short description of the migration
+     *
+     * @return the description of the migration
+     */
+    String getDescription();
+
+    /**
+     * Applies the migration, inside the transaction opened by the {@link MigrationManager}
+     *
+     * @param connectionSource the connection source
+     * @throws SQLException if the migration fails, the whole migration is then rolled back
+     */
+    void migrate(ConnectionSource connectionSource) throws SQLException;
+}
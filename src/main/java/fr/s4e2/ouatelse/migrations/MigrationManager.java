@@ -0,0 +1,108 @@
+package fr.s4e2.ouatelse.migrations;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+import fr.s4e2.ouatelse.objects.SchemaVersion;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Brings the database schema to its latest version, applying the missing migrations in version order.
+ * Each migration runs in its own transaction along with its schema_version row, so a failed migration
+ * leaves the database at the previous version
+ */
+public class MigrationManager {
+    // the default data is recorded below the first migration, so that it never counts as the schema version
+    public static final int SEED_VERSION = 0;
+    private static final String SEED_DESCRIPTION = "Fill the database with the default data";
+
+    private final ConnectionSource connectionSource;
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final Dao<SchemaVersion, Integer> instance;
+    private final List<Migration> migrations;
+
+    /**
+     * Instantiates a new MigrationManager
+     *
+     * @param connectionSource the connection source
+     * @param migrations       the known migrations, in any order
+     * @throws SQLException if the schema_version table can't be created
+     */
+    public MigrationManager(ConnectionSource connectionSource, List<Migration> migrations) throws SQLException {
+        this.connectionSource = connectionSource;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+
+        TableUtils.createTableIfNotExists(this.connectionSource, SchemaVersion.class);
+        this.instance = DaoManager.createDao(this.connectionSource, SchemaVersion.class);
+    }
+
+    /**
+     * Gets the current version of the schema
+     *
+     * @return the version of the last applied migration, 0 if none has been applied
+     * @throws SQLException if the schema_version table can't be read
+     */
+    public int getCurrentVersion() throws SQLException {
+        SchemaVersion lastVersion = this.instance.queryBuilder()
+                .orderBy("version", false)
+                .queryForFirst();
+
+        return lastVersion != null ? lastVersion.getVersion() : 0;
+    }
+
+    /**
+     * Checks if the database was already filled with the default data
+     *
+     * @return true if the seeding was recorded
+     * @throws SQLException if the schema_version table can't be read
+     */
+    public boolean isSeeded() throws SQLException {
+        return this.instance.idExists(SEED_VERSION);
+    }
+
+    /**
+     * Records that the database was filled with the default data, so that it isn't filled again on the next launches
+     *
+     * @throws SQLException if the schema_version table can't be written
+     */
+    public void recordSeed() throws SQLException {
+        this.instance.createIfNotExists(new SchemaVersion(SEED_VERSION, SEED_DESCRIPTION));
+    }
+
+    /**
+     * Applies the migrations newer than the current version of the schema
+     *
+     * @return the number of applied migrations
+     * @throws SQLException if a migration fails, the previous ones stay applied
+     */
+    public int migrate() throws SQLException {
+        int currentVersion = this.getCurrentVersion();
+        int appliedMigrations = 0;
+
+        for (Migration migration : this.migrations) {
+            if (migration.getVersion() <= currentVersion) continue;
+
+            TransactionManager.callInTransaction(this.connectionSource, () -> {
+                migration.migrate(this.connectionSource);
+                this.instance.create(new SchemaVersion(migration.getVersion(), migration.getDescription()));
+                return null;
+            });
+
+            this.logger.log(Level.INFO, "Database migrated to version {0} : {1}",
+                    new Object[]{migration.getVersion(), migration.getDescription()});
+            currentVersion = migration.getVersion();
+            appliedMigrations++;
+        }
+
+        return appliedMigrations;
+    }
+}
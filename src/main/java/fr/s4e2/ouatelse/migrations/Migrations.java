@@ -0,0 +1,55 @@
+package fr.s4e2.ouatelse.migrations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lists all the migrations of the database schema, new migrations are appended with the next version
+ */
+public class Migrations {
+
+    /**
+     * Empty Constructor
+     */
+    private Migrations() {
+    }
+
+    /**
+     * Gets all the migrations of the database schema
+     *
+     * @return the migrations, in version order
+     */
+    public static List<Migration> getMigrations() {
+        return Collections.unmodifiableList(Arrays.asList(
+                new SqlMigration(1, "Index the lookup columns of stocks, carts, orders and salaries",
+                        "CREATE INDEX IF NOT EXISTS product_stock_store_quantity_idx ON product_stock (store_id, quantity)",
+                        "CREATE INDEX IF NOT EXISTS product_stock_product_idx ON product_stock (product_id)",
+                        "CREATE INDEX IF NOT EXISTS client_stock_cart_product_idx ON client_stock (cart_id, product_id)",
+                        "CREATE INDEX IF NOT EXISTS client_stock_product_idx ON client_stock (product_id)",
+                        "CREATE INDEX IF NOT EXISTS cart_client_closed_idx ON cart (client_id, closed)",
+                        "CREATE INDEX IF NOT EXISTS cart_closed_date_idx ON cart (closed, date)",
+                        "CREATE INDEX IF NOT EXISTS scheduled_orders_store_date_idx ON scheduled_orders (store_id, scheduledOrderDate)",
+                        "CREATE INDEX IF NOT EXISTS salary_user_date_idx ON salary (user_id, date)"
+                ),
+                new SqlMigration(2, "Index the bar codes of the products and the stocks of a product in a store",
+                        "CREATE INDEX IF NOT EXISTS product_bar_code_idx ON product (barCode)",
+                        "CREATE INDEX IF NOT EXISTS product_stock_product_store_idx ON product_stock (product_id, store_id)"
+                ),
+                new OrderLinesMigration(3),
+                new RolePermissionsMigration(4),
+                new SqlMigration(5, "Merge the duplicated daily sales rows and keep a single row per day, store and category",
+                        "UPDATE daily_sales SET "
+                                + "amount = (SELECT SUM(d.amount) FROM daily_sales d WHERE d.day = daily_sales.day "
+                                + "AND IFNULL(d.store_id, '') = IFNULL(daily_sales.store_id, '') AND d.category = daily_sales.category), "
+                                + "quantity = (SELECT SUM(d.quantity) FROM daily_sales d WHERE d.day = daily_sales.day "
+                                + "AND IFNULL(d.store_id, '') = IFNULL(daily_sales.store_id, '') AND d.category = daily_sales.category)",
+                        "DELETE FROM daily_sales WHERE id NOT IN "
+                                + "(SELECT MIN(id) FROM daily_sales GROUP BY day, IFNULL(store_id, ''), category)",
+                        // the rows without a store are compared too, NULL values being distinct in a plain unique index
+                        "CREATE UNIQUE INDEX IF NOT EXISTS daily_sales_day_store_category_idx "
+                                + "ON daily_sales (day, IFNULL(store_id, ''), category)"
+                )
+        ));
+    }
+}
@@ -0,0 +1,95 @@
+package fr.s4e2.ouatelse.migrations;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+import fr.s4e2.ouatelse.objects.Order;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.objects.Vendor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Replaces the products serialized in the orders by the order_line table.
+ * The products were never serializable, so the legacy orders can't hold any and only their store and vendor are kept,
+ * the orders of a database created since then already having the new schema
+ */
+@Getter
+public class OrderLinesMigration implements Migration {
+    private static final String ORDER_COLUMNS_QUERY = "PRAGMA table_info(\"order\")";
+    private static final String LEGACY_ORDERS_QUERY = "SELECT store_id, vendor_id FROM order_legacy";
+
+    private final int version;
+    private final String description = "Move the products of the orders to the order_line table";
+
+    /**
+     * Constructor
+     *
+     * @param version the version of the migration
+     */
+    public OrderLinesMigration(int version) {
+        this.version = version;
+    }
+
+    @Override
+    public void migrate(ConnectionSource connectionSource) throws SQLException {
+        Dao<Order, Long> orders = DaoManager.createDao(connectionSource, Order.class);
+        if (this.hasIdColumn(orders)) return;
+
+        orders.executeRaw("ALTER TABLE \"order\" RENAME TO order_legacy");
+        TableUtils.createTable(connectionSource, Order.class);
+
+        List<String[]> legacyOrders;
+        try (GenericRawResults<String[]> results = orders.queryRaw(LEGACY_ORDERS_QUERY)) {
+            legacyOrders = results.getResults();
+        } catch (IOException exception) {
+            throw new SQLException(exception);
+        }
+
+        for (String[] legacyOrder : legacyOrders) {
+            Order order = new Order(
+                    legacyOrder[0] != null ? new Store(legacyOrder[0]) : null,
+                    legacyOrder[1] != null ? this.getVendor(Long.parseLong(legacyOrder[1])) : null
+            );
+            orders.create(order);
+        }
+        orders.executeRaw("DROP TABLE order_legacy");
+    }
+
+    /**
+     * Checks whether the order table already has the schema of the order lines
+     *
+     * @param orders the dao of the orders
+     * @return true if the order table has an id column
+     * @throws SQLException if the query fails
+     */
+    private boolean hasIdColumn(Dao<Order, Long> orders) throws SQLException {
+        try (GenericRawResults<String[]> results = orders.queryRaw(ORDER_COLUMNS_QUERY)) {
+            // the name of the column is the second column of table_info
+            for (String[] column : results) {
+                if ("id".equals(column[1])) return true;
+            }
+            return false;
+        } catch (IOException exception) {
+            throw new SQLException(exception);
+        }
+    }
+
+    /**
+     * Gets a vendor holding only its id
+     *
+     * @param id the id of the vendor
+     * @return the vendor
+     */
+    private Vendor getVendor(long id) {
+        Vendor vendor = new Vendor();
+        vendor.setId(id);
+
+        return vendor;
+    }
+}
@@ -0,0 +1,138 @@
+package fr.s4e2.ouatelse.migrations;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.support.ConnectionSource;
+import fr.s4e2.ouatelse.objects.Permission;
+import fr.s4e2.ouatelse.objects.Role;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts the permissions serialized in the roles into their permission mask.
+ * The serialized column can't be dropped by SQLite, it is emptied instead and isn't mapped anymore
+ */
+@Getter
+public class RolePermissionsMigration implements Migration {
+    private static final String ADD_MASK_STATEMENT = "ALTER TABLE role ADD COLUMN permissionMask BIGINT NOT NULL DEFAULT 0";
+    private static final String SERIALIZED_PERMISSIONS_QUERY = "SELECT id, permissions FROM role WHERE permissions IS NOT NULL";
+    private static final String UPDATE_MASK_STATEMENT = "UPDATE role SET permissionMask = ?, permissions = NULL WHERE id = ?";
+
+    private final int version;
+    private final String description = "Store the permissions of the roles as a mask";
+
+    /**
+     * Constructor
+     *
+     * @param version the version of the migration
+     */
+    public RolePermissionsMigration(int version) {
+        this.version = version;
+    }
+
+    @Override
+    public void migrate(ConnectionSource connectionSource) throws SQLException {
+        Dao<Role, Long> roles = DaoManager.createDao(connectionSource, Role.class);
+        Set<String> columns = this.getColumns(roles);
+        if (!columns.contains("permissions")) return;
+        if (!columns.contains("permissionMask")) roles.executeRaw(ADD_MASK_STATEMENT);
+
+        List<Object[]> serializedRoles;
+        try (GenericRawResults<Object[]> results = roles.queryRaw(SERIALIZED_PERMISSIONS_QUERY,
+                new DataType[]{DataType.LONG, DataType.BYTE_ARRAY})) {
+            serializedRoles = results.getResults();
+        } catch (IOException exception) {
+            throw new SQLException(exception);
+        }
+
+        for (Object[] serializedRole : serializedRoles) {
+            long permissionMask = 0;
+            for (Permission permission : deserialize((byte[]) serializedRole[1])) permissionMask |= Role.getMask(permission);
+
+            roles.updateRaw(UPDATE_MASK_STATEMENT, String.valueOf(permissionMask), String.valueOf(serializedRole[0]));
+        }
+    }
+
+    /**
+     * Gets the names of the columns of the role table
+     *
+     * @param roles the dao of the roles
+     * @return the names of the columns
+     * @throws SQLException if the query fails
+     */
+    private Set<String> getColumns(Dao<Role, Long> roles) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (GenericRawResults<String[]> results = roles.queryRaw("PRAGMA table_info(role)")) {
+            // the name of the column is the second column of table_info
+            for (String[] column : results) columns.add(column[1]);
+        } catch (IOException exception) {
+            throw new SQLException(exception);
+        }
+        return columns;
+    }
+
+    /**
+     * Reads the permissions serialized in a role
+     *
+     * @param serializedPermissions the serialized list of permissions
+     * @return the permissions
+     * @throws SQLException if the permissions can't be read, the migration is then rolled back
+     */
+    static List<Permission> deserialize(byte[] serializedPermissions) throws SQLException {
+        List<Permission> permissions = new ArrayList<>();
+
+        try (ObjectInputStream inputStream = new PermissionsInputStream(new ByteArrayInputStream(serializedPermissions))) {
+            Object serializedObject = inputStream.readObject();
+            if (!(serializedObject instanceof Collection)) throw new SQLException("The serialized permissions aren't a list");
+
+            for (Object permission : (Collection<?>) serializedObject) {
+                if (permission instanceof Permission) permissions.add((Permission) permission);
+            }
+        } catch (IOException | ClassNotFoundException exception) {
+            throw new SQLException(exception);
+        }
+        return permissions;
+    }
+
+    /**
+     * An object input stream which only reads lists of permissions
+     */
+    private static class PermissionsInputStream extends ObjectInputStream {
+        private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+                ArrayList.class.getName(), Permission.class.getName(), Enum.class.getName()
+        ));
+
+        /**
+         * Constructor
+         *
+         * @param inputStream the serialized permissions
+         * @throws IOException if the stream header can't be read
+         */
+        private PermissionsInputStream(InputStream inputStream) throws IOException {
+            super(inputStream);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass streamClass) throws IOException, ClassNotFoundException {
+            if (!ALLOWED_CLASSES.contains(streamClass.getName())) {
+                throw new InvalidClassException(streamClass.getName(), "Not a list of permissions");
+            }
+            return super.resolveClass(streamClass);
+        }
+    }
+}
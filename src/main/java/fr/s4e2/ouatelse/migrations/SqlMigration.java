@@ -0,0 +1,46 @@
+package fr.s4e2.ouatelse.migrations;
+
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import lombok.Getter;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A migration made of plain SQL statements, executed in order
+ */
+@Getter
+public class SqlMigration implements Migration {
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+
+    /**
+     * Constructor
+     *
+     * @param version     the version of the migration
+     * @param description the description of the migration
+     * @param statements  the SQL statements of the migration
+     */
+    public SqlMigration(int version, String description, String... statements) {
+        this.version = version;
+        this.description = description;
+        this.statements = Collections.unmodifiableList(Arrays.asList(statements));
+    }
+
+    @Override
+    public void migrate(ConnectionSource connectionSource) throws SQLException {
+        DatabaseConnection connection = connectionSource.getReadWriteConnection(null);
+
+        try {
+            for (String statement : this.statements) {
+                connection.executeStatement(statement, DatabaseConnection.DEFAULT_RESULT_FLAGS);
+            }
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package fr.s4e2.ouatelse.monitoring;
+
+import com.j256.ormlite.dao.Dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Wraps the DAOs so that the latency of each of their database calls is recorded by a {@link PerformanceMonitor},
+ * under the name of the entity and of the called method
+ */
+public class InstrumentedDao {
+    // these methods throw SQLException without querying the database
+    private static final Set<String> UNMEASURED_METHODS = new HashSet<>(Arrays.asList(
+            "extractId", "createObjectInstance", "mapSelectStarRow", "getSelectStarRowMapper", "assignEmptyForeignCollection",
+            "getEmptyForeignCollection", "setAutoCommit", "isAutoCommit", "startThreadConnection", "endThreadConnection"
+    ));
+
+    /**
+     * Empty Constructor
+     */
+    private InstrumentedDao() {
+    }
+
+    /**
+     * Wraps a DAO, the query builders it creates still run their queries unmeasured through the wrapped DAO
+     *
+     * @param dao        the wrapped DAO
+     * @param entityName the name the operations are recorded under
+     * @param monitor    the monitor recording the latencies
+     * @param <T>        the type of the entities of the DAO
+     * @param <ID>       the type of the id of the entities of the DAO
+     * @return the instrumented DAO
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, ID> Dao<T, ID> wrap(Dao<T, ID> dao, String entityName, PerformanceMonitor monitor) {
+        return (Dao<T, ID>) Proxy.newProxyInstance(Dao.class.getClassLoader(), new Class<?>[]{Dao.class}, (proxy, method, arguments) -> {
+            if (!isMeasured(method)) return invoke(dao, method, arguments);
+
+            long start = System.nanoTime();
+            try {
+                return invoke(dao, method, arguments);
+            } finally {
+                monitor.recordQuery(entityName + "." + method.getName(), System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * Checks if a method of the DAO queries the database
+     *
+     * @param method the method
+     * @return true if its latency is recorded
+     */
+    private static boolean isMeasured(Method method) {
+        return Arrays.asList(method.getExceptionTypes()).contains(SQLException.class)
+                && !UNMEASURED_METHODS.contains(method.getName());
+    }
+
+    /**
+     * Calls a method of the wrapped DAO, throwing its exceptions as is
+     *
+     * @param dao       the wrapped DAO
+     * @param method    the method
+     * @param arguments the arguments of the call
+     * @return the result of the call
+     * @throws Throwable the exception thrown by the method
+     */
+    private static Object invoke(Object dao, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(dao, arguments);
+        } catch (InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+}
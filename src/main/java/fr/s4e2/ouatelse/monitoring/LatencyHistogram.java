@@ -0,0 +1,103 @@
+package fr.s4e2.ouatelse.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the latencies of an operation in buckets of growing bounds, so that recording a latency takes the same
+ * time and memory however many were recorded. The percentiles are approximated by the upper bound of their bucket
+ */
+public class LatencyHistogram {
+    /**
+     * The upper bounds of the buckets in microseconds, the last bucket holding the longer latencies
+     */
+    public static final long[] BUCKET_BOUNDS = {
+            50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000
+    };
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a latency
+     *
+     * @param nanos the latency, in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && micros > BUCKET_BOUNDS[bucket]) bucket++;
+
+        this.bucketCounts.incrementAndGet(bucket);
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Gets the number of recorded latencies
+     *
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded latencies
+     *
+     * @return the mean latency in milliseconds, 0 if none was recorded
+     */
+    public double getMeanMillis() {
+        long currentCount = this.getCount();
+        return currentCount == 0 ? 0 : this.totalNanos.sum() / 1e6 / currentCount;
+    }
+
+    /**
+     * Gets the longest recorded latency
+     *
+     * @return the longest latency in milliseconds, 0 if none was recorded
+     */
+    public double getMaxMillis() {
+        return this.maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies, approximated by the upper bound of its bucket
+     * and never above the longest latency
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the percentile in milliseconds, 0 if no latency was recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] counts = this.getBucketCounts();
+        long total = 0;
+        for (long bucketCount : counts) total += bucketCount;
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_BOUNDS.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) return Math.min(BUCKET_BOUNDS[bucket] / 1e3, this.getMaxMillis());
+        }
+
+        return this.getMaxMillis();
+    }
+
+    /**
+     * Gets the number of latencies of each bucket
+     *
+     * @return the counts, the last one being the latencies above the last bound
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[this.bucketCounts.length()];
+        for (int bucket = 0; bucket < counts.length; bucket++) counts[bucket] = this.bucketCounts.get(bucket);
+
+        return counts;
+    }
+}
@@ -0,0 +1,196 @@
+package fr.s4e2.ouatelse.monitoring;
+
+import org.sqlite.SQLiteException;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Collects the performance metrics of the software : the latencies of the database calls and of the screen openings,
+ * the sales, and the queries which failed because the database was locked by another connection
+ */
+public class PerformanceMonitor {
+    private static final PerformanceMonitor INSTANCE = new PerformanceMonitor();
+    private static final long SALES_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, LatencyHistogram> queries = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+    // the instants of the sales of the last minute, in nanoseconds
+    private final Deque<Long> recentSales = new ConcurrentLinkedDeque<>();
+    private final AtomicLong sales = new AtomicLong();
+    private final AtomicLong lockFailures = new AtomicLong();
+    // kept referenced so that the handler isn't collected along with the logger
+    private final Logger applicationLogger = Logger.getLogger("fr.s4e2.ouatelse");
+
+    /**
+     * Counts the lock failures logged by the entity managers, which log the failed queries instead of throwing
+     */
+    private PerformanceMonitor() {
+        this.applicationLogger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (isLockFailure(record.getThrown())) PerformanceMonitor.this.recordLockFailure();
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    /**
+     * Gets the monitor of the application
+     *
+     * @return the monitor
+     */
+    public static PerformanceMonitor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if a query failed because the database was locked by another connection
+     *
+     * @param throwable the thrown exception, may be null
+     * @return true if the exception or one of its causes is a busy or locked SQLite error
+     */
+    public static boolean isLockFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (!(cause instanceof SQLiteException)) continue;
+
+            String resultCode = ((SQLiteException) cause).getResultCode().name();
+            if (resultCode.startsWith("SQLITE_BUSY") || resultCode.startsWith("SQLITE_LOCKED")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the latency of a database call
+     *
+     * @param query the name of the call, such as Product.queryForId
+     * @param nanos the latency, in nanoseconds
+     */
+    public void recordQuery(String query, long nanos) {
+        this.queries.computeIfAbsent(query, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Gets the latencies of the database calls
+     *
+     * @return the latencies by call, sorted by name
+     */
+    public Map<String, LatencyHistogram> getQueries() {
+        return Collections.unmodifiableMap(new TreeMap<>(this.queries));
+    }
+
+    /**
+     * Gets the number of database calls
+     *
+     * @return the number of database calls
+     */
+    public long getQueryCount() {
+        return this.queries.values().stream().mapToLong(LatencyHistogram::getCount).sum();
+    }
+
+    /**
+     * Records the latency of an operation of the software, such as the opening of a screen or a sale
+     *
+     * @param operation the name of the operation
+     * @param nanos     the latency, in nanoseconds
+     */
+    public void record(String operation, long nanos) {
+        this.operations.computeIfAbsent(operation, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Gets the latencies of the operations of the software
+     *
+     * @return the latencies by operation, sorted by name
+     */
+    public Map<String, LatencyHistogram> getOperations() {
+        return Collections.unmodifiableMap(new TreeMap<>(this.operations));
+    }
+
+    /**
+     * Records a closed cart
+     */
+    public void recordSale() {
+        long now = System.nanoTime();
+        this.sales.incrementAndGet();
+        this.recentSales.addLast(now);
+        // pruned here too, the sales would otherwise pile up while no one reads the sales per minute
+        this.pruneRecentSales(now);
+    }
+
+    /**
+     * Gets the number of recorded sales
+     *
+     * @return the number of sales
+     */
+    public long getSales() {
+        return this.sales.get();
+    }
+
+    /**
+     * Gets the number of sales of the last minute
+     *
+     * @return the number of sales
+     */
+    public int getSalesPerMinute() {
+        this.pruneRecentSales(System.nanoTime());
+
+        return this.recentSales.size();
+    }
+
+    /**
+     * Forgets the sales older than a minute
+     *
+     * @param now the current time, in nanoseconds
+     */
+    private void pruneRecentSales(long now) {
+        long windowStart = now - SALES_WINDOW_NANOS;
+        Long oldestSale;
+        while ((oldestSale = this.recentSales.peekFirst()) != null && oldestSale - windowStart < 0) {
+            this.recentSales.pollFirst();
+        }
+    }
+
+    /**
+     * Records a query which failed because the database was locked
+     */
+    public void recordLockFailure() {
+        this.lockFailures.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of queries which failed because the database was locked
+     *
+     * @return the number of lock failures
+     */
+    public long getLockFailures() {
+        return this.lockFailures.get();
+    }
+
+    /**
+     * Forgets all the recorded metrics
+     */
+    public void reset() {
+        this.queries.clear();
+        this.operations.clear();
+        this.recentSales.clear();
+        this.sales.set(0);
+        this.lockFailures.set(0);
+    }
+}
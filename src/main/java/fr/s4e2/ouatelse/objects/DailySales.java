@@ -0,0 +1,50 @@
+package fr.s4e2.ouatelse.objects;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * The DailySales table contains the sales rollup of a day, for a store and a product category
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@DatabaseTable(tableName = "daily_sales")
+public class DailySales {
+
+    @DatabaseField(generatedId = true)
+    private long id;
+
+    @DatabaseField(canBeNull = false, uniqueCombo = true, indexName = "daily_sales_day_store_idx")
+    private Date day;
+
+    @DatabaseField(foreign = true, uniqueCombo = true, indexName = "daily_sales_day_store_idx")
+    private Store store;
+
+    @DatabaseField(canBeNull = false, uniqueCombo = true)
+    private String category;
+
+    @DatabaseField(canBeNull = false)
+    private double amount = 0;
+
+    @DatabaseField(canBeNull = false)
+    private int quantity = 0;
+
+    /**
+     * Constructor
+     *
+     * @param day      the first instant of the day
+     * @param store    the Store which owns the sold products
+     * @param category the Category of the sold products
+     */
+    public DailySales(Date day, Store store, String category) {
+        this.day = day;
+        this.store = store;
+        this.category = category;
+    }
+}
@@ -1,16 +1,17 @@
 package fr.s4e2.ouatelse.objects;
 
-import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.dao.ForeignCollection;
 import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.field.ForeignCollectionField;
 import com.j256.ormlite.table.DatabaseTable;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.HashMap;
+import java.util.Date;
 
 /**
- * The Order table contains a list of products, a store and a vendor
+ * The Order table contains an identifier, a date, a store, a vendor and the lines of the ordered products
  */
 @Getter
 @Setter
@@ -18,12 +19,32 @@ import java.util.HashMap;
 @DatabaseTable(tableName = "order")
 public class Order {
 
-    @DatabaseField(dataType = DataType.SERIALIZABLE)
-    private HashMap<Product, Integer> products;
+    @DatabaseField(generatedId = true)
+    private long id;
+
+    @DatabaseField(canBeNull = false)
+    private Date date = new Date();
+
+    @ForeignCollectionField(eager = false)
+    private ForeignCollection<OrderLine> orderLines;
 
     @DatabaseField(foreign = true, foreignAutoRefresh = true)
     private Store store;
 
     @DatabaseField(foreign = true, foreignAutoRefresh = true)
     private Vendor vendor;
+
+    @DatabaseField(canBeNull = false)
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * @param store  the Store the products are ordered for
+     * @param vendor the Vendor the products are ordered from
+     */
+    public Order(Store store, Vendor vendor) {
+        this.store = store;
+        this.vendor = vendor;
+    }
 }
@@ -0,0 +1,40 @@
+package fr.s4e2.ouatelse.objects;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The OrderLine table contains an identifier, an order, a product and its ordered quantity
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@DatabaseTable(tableName = "order_line")
+public class OrderLine {
+
+    @DatabaseField(generatedId = true)
+    private long id;
+
+    @DatabaseField(foreign = true, canBeNull = false, index = true)
+    private Order order;
+
+    @DatabaseField(foreign = true, foreignAutoRefresh = true, canBeNull = false, index = true)
+    private Product product;
+
+    @DatabaseField(canBeNull = false)
+    private int quantity;
+
+    /**
+     * Constructor
+     *
+     * @param product  the ordered Product
+     * @param quantity the ordered quantity
+     */
+    public OrderLine(Product product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+    }
+}
@@ -5,7 +5,8 @@ import com.j256.ormlite.field.DatabaseField;
 import org.apache.commons.lang3.text.WordUtils;
 
 /**
- * The Permission enumeration lists all possible permissions that can be granted to a user
+ * The Permission enumeration lists all possible permissions that can be granted to a user.
+ * The roles store the ordinals of their permissions in a 64 bits mask : new permissions are appended, never inserted
  */
 public enum Permission {
     @DatabaseField(dataType = DataType.ENUM_STRING)
@@ -94,6 +94,7 @@ public class Product {
         private final StringProperty soldByName;
         private final DoubleProperty margin;
         private final DoubleProperty taxes;
+        private final StringProperty barCode;
 
         /**
          * Constructor
@@ -107,8 +108,9 @@ public class Product {
          * @param category      the Category
          * @param soldByName    the Name
          * @param taxes         the Taxes
+         * @param barCode       the Bar Code
          */
-        public ProductTree(Long reference, String name, Double margin, Double purchasePrice, String brand, String state, String category, String soldByName, Double taxes) {
+        public ProductTree(Long reference, String name, Double margin, Double purchasePrice, String brand, String state, String category, String soldByName, Double taxes, String barCode) {
             this.reference = new SimpleLongProperty(reference);
             this.name = new SimpleStringProperty(name);
             this.margin = new SimpleDoubleProperty(margin);
@@ -118,6 +120,7 @@ public class Product {
             this.category = new SimpleStringProperty(category);
             this.soldByName = new SimpleStringProperty(soldByName != null ? soldByName : "");
             this.taxes = new SimpleDoubleProperty(taxes);
+            this.barCode = new SimpleStringProperty(barCode);
 
             this.sellingPrice = new SimpleDoubleProperty();
 
@@ -143,7 +146,8 @@ public class Product {
                 this.getState().toString(),
                 this.getCategory(),
                 (this.getSoldBy() != null) ? this.getSoldBy().getName() : "",
-                this.getTaxes()
+                this.getTaxes(),
+                this.getBarCode()
         );
     }
 
@@ -1,16 +1,17 @@
 package fr.s4e2.ouatelse.objects;
 
-import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.field.DatabaseField;
 import com.j256.ormlite.table.DatabaseTable;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 
 /**
- * The Role table contains an identifier, a role name and a list of permissions
+ * The Role table contains an identifier, a role name and its permissions,
+ * stored as a mask holding the bit of the ordinal of each granted permission
  */
 @Getter
 @Setter
@@ -24,8 +25,8 @@ public class Role {
     @DatabaseField(canBeNull = false)
     private String name;
 
-    @DatabaseField(dataType = DataType.SERIALIZABLE)
-    private ArrayList<Permission> permissions;
+    @DatabaseField(canBeNull = false)
+    private long permissionMask;
 
     /**
      * Constructor
@@ -34,7 +35,67 @@ public class Role {
      */
     public Role(String name) {
         this.name = name;
-        this.permissions = new ArrayList<>();
+    }
+
+    /**
+     * Gets the mask of a permission
+     *
+     * @param permission the Permission
+     * @return the mask holding only the bit of the permission
+     */
+    public static long getMask(Permission permission) {
+        return 1L << permission.ordinal();
+    }
+
+    /**
+     * Gets the permissions granted to this role
+     *
+     * @return a copy of the permissions, in declaration order
+     */
+    public EnumSet<Permission> getPermissions() {
+        EnumSet<Permission> permissions = EnumSet.noneOf(Permission.class);
+        for (Permission permission : Permission.values()) {
+            if (this.hasPermission(permission)) permissions.add(permission);
+        }
+        return permissions;
+    }
+
+    /**
+     * Grants exactly some permissions to this role
+     *
+     * @param permissions the Permissions
+     */
+    public void setPermissions(Collection<Permission> permissions) {
+        this.permissionMask = 0;
+        permissions.forEach(this::addPermission);
+    }
+
+    /**
+     * Grants a permission to this role
+     *
+     * @param permission the Permission
+     */
+    public void addPermission(Permission permission) {
+        this.permissionMask |= getMask(permission);
+    }
+
+    /**
+     * Revokes a permission from this role
+     *
+     * @param permission the Permission
+     */
+    public void removePermission(Permission permission) {
+        this.permissionMask &= ~getMask(permission);
+    }
+
+    /**
+     * Checks whether a permission is granted to this role
+     *
+     * @param permission the Permission
+     * @return true if the permission is granted
+     */
+    public boolean hasPermission(Permission permission) {
+        return permission != null && (this.permissionMask & getMask(permission)) != 0;
     }
 
     /**
@@ -0,0 +1,39 @@
+package fr.s4e2.ouatelse.objects;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * The SchemaVersion table contains the applied schema migrations, with their version, description and date
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@DatabaseTable(tableName = "schema_version")
+public class SchemaVersion {
+
+    @DatabaseField(id = true)
+    private int version;
+
+    @DatabaseField(canBeNull = false)
+    private String description;
+
+    @DatabaseField(canBeNull = false)
+    private Date appliedOn = new Date();
+
+    /**
+     * Constructor
+     *
+     * @param version     the version of the applied migration
+     * @param description the description of the applied migration
+     */
+    public SchemaVersion(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+}
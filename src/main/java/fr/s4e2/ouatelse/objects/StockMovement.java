@@ -0,0 +1,54 @@
+package fr.s4e2.ouatelse.objects;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * The StockMovement table is the journal of the stocks : each row holds the signed quantity a product stock
+ * of a store changed by, the reason of the change and its date. Rows are only ever appended
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@DatabaseTable(tableName = "stock_movement")
+public class StockMovement {
+
+    @DatabaseField(generatedId = true)
+    private long id;
+
+    @DatabaseField(foreign = true, canBeNull = false, indexName = "stock_movement_store_product_idx")
+    private Store store;
+
+    @DatabaseField(foreign = true, canBeNull = false, indexName = "stock_movement_store_product_idx")
+    private Product product;
+
+    @DatabaseField(canBeNull = false)
+    private int quantity;
+
+    @DatabaseField(canBeNull = false, dataType = DataType.ENUM_STRING)
+    private StockMovementType type;
+
+    @DatabaseField(canBeNull = false, dataType = DataType.DATE_LONG)
+    private Date date = new Date();
+
+    /**
+     * Constructor
+     *
+     * @param store    the Store owning the stock
+     * @param product  the Product of the stock
+     * @param quantity the quantity the stock changed by, negative when products left the stock
+     * @param type     the reason of the change
+     */
+    public StockMovement(Store store, Product product, int quantity, StockMovementType type) {
+        this.store = store;
+        this.product = product;
+        this.quantity = quantity;
+        this.type = type;
+    }
+}
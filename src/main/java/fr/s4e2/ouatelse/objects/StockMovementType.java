@@ -0,0 +1,12 @@
+package fr.s4e2.ouatelse.objects;
+
+/**
+ * The StockMovementType enumeration lists the reasons a stock can change for
+ */
+public enum StockMovementType {
+    SALE,
+    RETURN,
+    RECEIPT,
+    ADJUSTMENT,
+    DELIVERY
+}
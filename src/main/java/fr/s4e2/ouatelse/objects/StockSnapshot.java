@@ -0,0 +1,54 @@
+package fr.s4e2.ouatelse.objects;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * The StockSnapshot table contains the quantity of a product in stock in a store once the movements
+ * of the journal up to a movement were applied, so that a quantity is computed from the movements which followed only
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@DatabaseTable(tableName = "stock_snapshot")
+public class StockSnapshot {
+
+    @DatabaseField(generatedId = true)
+    private long id;
+
+    @DatabaseField(foreign = true, canBeNull = false, indexName = "stock_snapshot_store_product_idx")
+    private Store store;
+
+    @DatabaseField(foreign = true, canBeNull = false, indexName = "stock_snapshot_store_product_idx")
+    private Product product;
+
+    @DatabaseField(canBeNull = false)
+    private long quantity;
+
+    @DatabaseField(canBeNull = false)
+    private long lastMovement;
+
+    @DatabaseField(canBeNull = false, dataType = DataType.DATE_LONG)
+    private Date date = new Date();
+
+    /**
+     * Constructor
+     *
+     * @param store        the Store owning the stock
+     * @param product      the Product of the stock
+     * @param quantity     the quantity in stock
+     * @param lastMovement the id of the last movement of the journal included in the quantity
+     */
+    public StockSnapshot(Store store, Product product, long quantity, long lastMovement) {
+        this.store = store;
+        this.product = product;
+        this.quantity = quantity;
+        this.lastMovement = lastMovement;
+    }
+}
@@ -51,7 +51,7 @@ public class Store {
     @DatabaseField(foreign = true, foreignAutoRefresh = true, canBeNull = true)
     private User manager;
 
-    @ForeignCollectionField(eager = true)
+    @ForeignCollectionField(eager = false)
     private ForeignCollection<Product> products;
 
     /**
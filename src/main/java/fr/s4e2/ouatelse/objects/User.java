@@ -41,7 +41,7 @@ public class User extends Person {
     @DatabaseField(canBeNull = false)
     private int hoursPerWeek = 0;
 
-    @ForeignCollectionField(eager = true)
+    @ForeignCollectionField(eager = false)
     private ForeignCollection<Salary> salarySheets;
 
     @DatabaseField(foreign = true, foreignAutoRefresh = true)
@@ -66,6 +66,16 @@ public class User extends Person {
         return this.password.equals(Hashing.sha256().hashString(password, StandardCharsets.UTF_8).toString());
     }
 
+    /**
+     * Checks whether a permission is granted to this user, from the role loaded along with the user
+     *
+     * @param permission the Permission
+     * @return true if the role of the user grants the permission
+     */
+    public boolean hasPermission(Permission permission) {
+        return this.role != null && this.role.hasPermission(permission);
+    }
+
     /**
      * Converts this object into a tree table object representing it's information
      *
@@ -119,11 +129,25 @@ public class User extends Person {
          * @param status    the User Status
          */
         public UserTree(String id, String lastName, String firstName, Role role, Store storeName, PersonState status) {
+            this(id, lastName, firstName, role != null ? role.getName() : null, storeName != null ? storeName.getId() : null, status);
+        }
+
+        /**
+         * Constructor
+         *
+         * @param id        the ID
+         * @param lastName  the Last Name
+         * @param firstName the First Name
+         * @param roleName  the Name of the Role
+         * @param storeName the Name of the Store
+         * @param status    the User Status
+         */
+        public UserTree(String id, String lastName, String firstName, String roleName, String storeName, PersonState status) {
             this.id = new SimpleStringProperty(id);
             this.lastName = new SimpleStringProperty(lastName);
             this.firstName = new SimpleStringProperty(firstName);
-            this.role = new SimpleStringProperty(role != null ? role.getName() : "");
-            this.storeName = new SimpleStringProperty(storeName != null ? storeName.getId() : "");
+            this.role = new SimpleStringProperty(roleName != null ? roleName : "");
+            this.storeName = new SimpleStringProperty(storeName != null ? storeName : "");
             this.status = new SimpleStringProperty(status != null ? status.toString() : "");
         }
     }
@@ -38,7 +38,7 @@ public class Vendor {
     @DatabaseField(canBeNull = false)
     private String phoneNumber;
 
-    @ForeignCollectionField(eager = true)
+    @ForeignCollectionField(eager = false)
     private ForeignCollection<Product> products;
 
     /**
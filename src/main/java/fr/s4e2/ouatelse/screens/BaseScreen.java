@@ -5,15 +5,15 @@ import fr.s4e2.ouatelse.controllers.AuthStoreController;
 import fr.s4e2.ouatelse.controllers.BaseController;
 import fr.s4e2.ouatelse.controllers.HomeController;
 import fr.s4e2.ouatelse.controllers.ProductsCatalogController;
+import fr.s4e2.ouatelse.monitoring.PerformanceMonitor;
 import fr.s4e2.ouatelse.objects.Cart;
 import fr.s4e2.ouatelse.objects.Store;
 import fr.s4e2.ouatelse.objects.User;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -30,12 +30,15 @@ import java.util.logging.Logger;
 public abstract class BaseScreen {
 
     public static final Image OUATELSE_ICON = new Image(Objects.requireNonNull(Main.class.getClassLoader().getResource("images/ouatelse_icon.png")).toExternalForm());
-    private static final String FXML_PATH = "fxml/";
     private static final String PREFIX = "Ouatelse - ";
 
     protected final Logger logger = Logger.getLogger(this.getClass().getName());
 
     private Stage stage;
+    private String fxml;
+    // the opening of the screen is measured from its creation until it is shown
+    @Getter(AccessLevel.NONE)
+    private final long creationTime = System.nanoTime();
 
     /**
      * Creates a Base Screen
@@ -44,28 +47,10 @@ public abstract class BaseScreen {
      * @param title the title of the window (the title suffixes the set prefix)
      */
     protected BaseScreen(String fxml, String title, Store authentificationStore) {
-        this.stage = new Stage();
+        BaseController controller = this.setupStage(fxml, title, true);
+        if (controller == null) return;
 
-        FXMLLoader loader = new FXMLLoader();
-        loader.setLocation(Main.class.getClassLoader().getResource(FXML_PATH + fxml));
-        stage.getIcons().add(OUATELSE_ICON);
-        stage.initModality(Modality.APPLICATION_MODAL);
-        stage.setMinHeight(650);
-        stage.setMinWidth(825);
-        stage.setTitle(PREFIX + title);
-
-        try {
-            Parent parent = loader.load();
-
-            BaseController controller = loader.getController();
-            controller.setAuthentificationStore(authentificationStore);
-
-            Scene scene = new Scene(parent);
-            scene.getStylesheets().add("css/base.css");
-            stage.setScene(scene);
-        } catch (IOException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        controller.setAuthentificationStore(authentificationStore);
     }
 
     /**
@@ -75,29 +60,11 @@ public abstract class BaseScreen {
      * @param title the title of the window (the title suffixes the set prefix)
      */
     protected BaseScreen(String fxml, String title, Store authentificationStore, Cart currentCart) {
-        this.stage = new Stage();
-
-        FXMLLoader loader = new FXMLLoader();
-        loader.setLocation(Main.class.getClassLoader().getResource(FXML_PATH + fxml));
-        stage.getIcons().add(OUATELSE_ICON);
-        stage.initModality(Modality.APPLICATION_MODAL);
-        stage.setMinHeight(650);
-        stage.setMinWidth(825);
-        stage.setTitle(PREFIX + title);
-
-        try {
-            Parent parent = loader.load();
-
-            ProductsCatalogController controller = loader.getController();
-            controller.setAuthentificationStore(authentificationStore);
-            controller.setCurrentCart(currentCart);
+        ProductsCatalogController controller = (ProductsCatalogController) this.setupStage(fxml, title, true);
+        if (controller == null) return;
 
-            Scene scene = new Scene(parent);
-            scene.getStylesheets().add("css/base.css");
-            stage.setScene(scene);
-        } catch (IOException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        controller.setAuthentificationStore(authentificationStore);
+        controller.setCurrentCart(currentCart);
     }
 
     /**
@@ -107,23 +74,7 @@ public abstract class BaseScreen {
      * @param title the title of the window (the title suffixes the set prefix)
      */
     protected BaseScreen(String fxml, String title) {
-        this.stage = new Stage();
-
-        FXMLLoader loader = new FXMLLoader();
-        loader.setLocation(Main.class.getClassLoader().getResource(FXML_PATH + fxml));
-        stage.getIcons().add(OUATELSE_ICON);
-        stage.initModality(Modality.APPLICATION_MODAL);
-        stage.setMinHeight(650);
-        stage.setMinWidth(825);
-        stage.setTitle(PREFIX + title);
-
-        try {
-            Scene scene = new Scene(loader.load());
-            scene.getStylesheets().add("css/base.css");
-            stage.setScene(scene);
-        } catch (IOException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        this.setupStage(fxml, title, true);
     }
 
     /**
@@ -135,28 +86,11 @@ public abstract class BaseScreen {
      * @param store the authentified store
      */
     protected BaseScreen(String fxml, String title, Store store, User user) {
-        this.stage = new Stage();
-
-        FXMLLoader loader = new FXMLLoader();
-        loader.setLocation(Main.class.getClassLoader().getResource(FXML_PATH + fxml));
-        stage.getIcons().add(OUATELSE_ICON);
-        stage.initModality(Modality.APPLICATION_MODAL);
-        stage.setMinHeight(650);
-        stage.setMinWidth(825);
-        stage.setTitle(PREFIX + title);
+        HomeController homeController = (HomeController) this.setupStage(fxml, title, false);
+        if (homeController == null) return;
 
-        try {
-            Parent parent = loader.load();
-
-            HomeController homeController = loader.getController();
-            homeController.setAuthentificationStore(store);
-            homeController.setAuthentificationUser(user);
-
-            Scene scene = new Scene(parent);
-            stage.setScene(scene);
-        } catch (IOException exception) {
-            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
-        }
+        homeController.setAuthentificationStore(store);
+        homeController.setAuthentificationUser(user);
     }
 
     /**
@@ -167,35 +101,68 @@ public abstract class BaseScreen {
      * @param user  the authentified user
      */
     protected BaseScreen(String fxml, String title, User user) {
-        this.stage = new Stage();
+        AuthStoreController authStoreController = (AuthStoreController) this.setupStage(fxml, title, false);
+        if (authStoreController == null) return;
 
-        FXMLLoader loader = new FXMLLoader();
-        loader.setLocation(Main.class.getClassLoader().getResource(FXML_PATH + fxml));
-        stage.getIcons().add(OUATELSE_ICON);
-        stage.initModality(Modality.APPLICATION_MODAL);
-        stage.setMinHeight(650);
-        stage.setMinWidth(825);
-        stage.setTitle(PREFIX + title);
+        authStoreController.setCurrentUser(user);
+    }
 
+    /**
+     * Sets up the stage of the screen, reusing the stage kept by the {@link ScreenRegistry} when there is one
+     *
+     * @param fxml           name of the fxml file to load from (must be in the fxml folder in resources)
+     * @param title          the title of the window (the title suffixes the set prefix)
+     * @param baseStylesheet true if the base stylesheet is added to the scene
+     * @return the controller of the screen, null if its FXML can't be loaded
+     */
+    private BaseController setupStage(String fxml, String title, boolean baseStylesheet) {
+        this.fxml = fxml;
+        ScreenRegistry screenRegistry = ScreenRegistry.getInstance();
+        ScreenRegistry.View view;
         try {
-            Parent parent = loader.load();
-
-            AuthStoreController authStoreController = loader.getController();
-            authStoreController.setCurrentUser(user);
-
-            Scene scene = new Scene(parent);
-            stage.setScene(scene);
+            view = screenRegistry.acquire(fxml);
         } catch (IOException exception) {
             this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            this.stage = this.buildStage(title);
+            return null;
         }
+
+        if (view.getStage() == null) {
+            Scene scene = new Scene(view.getRoot());
+            if (baseStylesheet) scene.getStylesheets().add("css/base.css");
+
+            view.setStage(this.buildStage(title));
+            view.getStage().setScene(scene);
+            view.getStage().setOnHidden(event -> screenRegistry.release(view));
+        }
+
+        this.stage = view.getStage();
+        return view.getController();
     }
 
+    /**
+     * Builds an empty window
+     *
+     * @param title the title of the window (the title suffixes the set prefix)
+     * @return the window
+     */
+    private Stage buildStage(String title) {
+        Stage newStage = new Stage();
+        newStage.getIcons().add(OUATELSE_ICON);
+        newStage.initModality(Modality.APPLICATION_MODAL);
+        newStage.setMinHeight(650);
+        newStage.setMinWidth(825);
+        newStage.setTitle(PREFIX + title);
+
+        return newStage;
+    }
 
     /**
      * Allows to open the Stage
      */
     public void open() {
         stage.show();
+        PerformanceMonitor.getInstance().record("Screen." + this.fxml, System.nanoTime() - this.creationTime);
     }
 
     /**
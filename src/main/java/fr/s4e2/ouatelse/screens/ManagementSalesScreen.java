@@ -6,8 +6,9 @@ import fr.s4e2.ouatelse.objects.Store;
  * Sales Management Screen
  */
 public class ManagementSalesScreen extends BaseScreen {
+    public static final String FXML = "management_sales.fxml";
 
     public ManagementSalesScreen(Store authentificationStore) {
-        super("management_sales.fxml", "Menu Gestion des Ventes", authentificationStore);
+        super(FXML, "Menu Gestion des Ventes", authentificationStore);
     }
 }
@@ -0,0 +1,13 @@
+package fr.s4e2.ouatelse.screens;
+
+import fr.s4e2.ouatelse.objects.Store;
+
+/**
+ * Monitoring Screen
+ */
+public class MonitoringScreen extends BaseScreen {
+
+    public MonitoringScreen(Store authentificationStore) {
+        super("monitoring.fxml", "Monitoring", authentificationStore);
+    }
+}
@@ -4,7 +4,9 @@ import fr.s4e2.ouatelse.objects.Cart;
 import fr.s4e2.ouatelse.objects.Store;
 
 public class ProductsCatalogScreen extends BaseScreen {
+    public static final String FXML = "products_catalog.fxml";
+
     public ProductsCatalogScreen(Store authentificationStore, Cart currentCart) {
-        super("products_catalog.fxml", "Catalogue des produits", authentificationStore, currentCart);
+        super(FXML, "Catalogue des produits", authentificationStore, currentCart);
     }
 }
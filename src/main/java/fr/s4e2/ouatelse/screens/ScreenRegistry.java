@@ -0,0 +1,154 @@
+package fr.s4e2.ouatelse.screens;
+
+import fr.s4e2.ouatelse.Main;
+import fr.s4e2.ouatelse.controllers.BaseController;
+import fr.s4e2.ouatelse.controllers.Resettable;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.stage.Stage;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the views of the screens whose controller is {@link Resettable}, so that opening them again skips the parsing
+ * of their FXML, the creation of their controller and the layout of their stage. The views of the screens a user may
+ * open are loaded in the background after the login, the other screens are loaded when they are opened
+ */
+public class ScreenRegistry {
+    private static final String FXML_PATH = "fxml/";
+    private static final ScreenRegistry INSTANCE = new ScreenRegistry();
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    private final ExecutorService preloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "screen-preload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // one view per FXML file, taken out while its screen is shown
+    private final Map<String, CompletableFuture<View>> views = new ConcurrentHashMap<>();
+
+    /**
+     * Empty Constructor
+     */
+    private ScreenRegistry() {
+    }
+
+    /**
+     * Gets the registry of the application
+     *
+     * @return the registry
+     */
+    public static ScreenRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Loads the view of a screen in the background, if it isn't loaded yet. Its controller should be {@link Resettable},
+     * so that the data loaded in the background is reloaded when the screen is opened
+     *
+     * @param fxml name of the fxml file to load from (must be in the fxml folder in resources)
+     */
+    public void preload(String fxml) {
+        this.views.computeIfAbsent(fxml, key -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(key);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }, this.preloadExecutor));
+    }
+
+    /**
+     * Takes the view of a screen about to be shown. The kept or preloaded view is reset, waiting for its preloading if
+     * needed, otherwise a new view is loaded
+     *
+     * @param fxml name of the fxml file to load from (must be in the fxml folder in resources)
+     * @return the view, to be given back with {@link #release(View)} once its screen is closed
+     * @throws IOException if the view can't be loaded
+     */
+    public View acquire(String fxml) throws IOException {
+        CompletableFuture<View> keptView = this.views.remove(fxml);
+
+        if (keptView != null) {
+            try {
+                View view = keptView.join();
+                if (view.getController() instanceof Resettable) ((Resettable) view.getController()).reset();
+                return view;
+            } catch (CompletionException exception) {
+                this.logger.log(Level.WARNING, "Could not preload " + fxml, exception);
+            }
+        }
+
+        return load(fxml);
+    }
+
+    /**
+     * Keeps the view of a closed screen to show it again, if its controller can be reset
+     *
+     * @param view the view of the closed screen
+     */
+    public void release(View view) {
+        if (!(view.getController() instanceof Resettable)) return;
+
+        this.views.putIfAbsent(view.getFxml(), CompletableFuture.completedFuture(view));
+    }
+
+    /**
+     * Forgets the kept views, so that the screens are loaded again for the next user
+     */
+    public void clear() {
+        this.views.clear();
+    }
+
+    /**
+     * Parses the FXML of a screen and creates its controller
+     *
+     * @param fxml name of the fxml file to load from (must be in the fxml folder in resources)
+     * @return the view
+     * @throws IOException if the FXML can't be loaded
+     */
+    private static View load(String fxml) throws IOException {
+        FXMLLoader loader = new FXMLLoader();
+        loader.setLocation(Main.class.getClassLoader().getResource(FXML_PATH + fxml));
+
+        Parent root = loader.load();
+        return new View(fxml, root, loader.getController());
+    }
+
+    /**
+     * The loaded FXML of a screen with its controller, and its stage once it has been shown
+     */
+    @Getter
+    public static class View {
+        private final String fxml;
+        private final Parent root;
+        private final BaseController controller;
+        // created on the UI thread when the view is shown for the first time
+        @Setter
+        private Stage stage;
+
+        /**
+         * Constructor
+         *
+         * @param fxml       name of the loaded fxml file
+         * @param root       the root of the loaded scene graph
+         * @param controller the controller of the scene graph
+         */
+        View(String fxml, Parent root, BaseController controller) {
+            this.fxml = fxml;
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+}
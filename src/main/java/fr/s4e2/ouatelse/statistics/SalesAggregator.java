@@ -0,0 +1,159 @@
+package fr.s4e2.ouatelse.statistics;
+
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.DailySales;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Aggregates sales in a single pass into month, day and day of the week buckets,
+ * for all the stores (global) and for a single store (local) at the same time
+ */
+@Getter
+public class SalesAggregator {
+    public static final int MONTHS = 12;
+    public static final int DAYS_OF_MONTH = 31;
+    public static final int DAYS_OF_WEEK = 7;
+
+    private final double[] globalMonthSales = new double[MONTHS];
+    private final double[] globalDaySales = new double[DAYS_OF_MONTH];
+    private final double[] globalDayOfTheWeekSales = new double[DAYS_OF_WEEK];
+
+    private final double[] localMonthSales = new double[MONTHS];
+    private final double[] localDaySales = new double[DAYS_OF_MONTH];
+    private final double[] localDayOfTheWeekSales = new double[DAYS_OF_WEEK];
+
+    private final String localStoreId;
+    private double globalTotal = 0;
+    private double localTotal = 0;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, Double> sellingPrices = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Calendar calendar = Calendar.getInstance();
+
+    /**
+     * Constructor
+     *
+     * @param localStore the store used for the local buckets, null to only fill the global buckets
+     */
+    public SalesAggregator(Store localStore) {
+        this.localStoreId = localStore != null ? localStore.getId() : null;
+    }
+
+    /**
+     * Adds daily sales rollup rows to the buckets
+     *
+     * @param dailySales the rollup rows
+     * @return this aggregator
+     */
+    public SalesAggregator addDailySales(Collection<DailySales> dailySales) {
+        if (dailySales == null) return this;
+
+        for (DailySales sales : dailySales) {
+            if (sales.getDay() == null) continue;
+            String storeId = sales.getStore() != null ? sales.getStore().getId() : null;
+            this.add(sales.getDay(), storeId, sales.getAmount());
+        }
+        return this;
+    }
+
+    /**
+     * Groups daily sales rollup rows by any key, for example by store, category or month, in a single pass
+     *
+     * @param dailySales the rollup rows
+     * @param key        the function computing the group of a row
+     * @param <K>        the type of the group
+     * @return the sales value of each group, in the order the groups are met
+     */
+    public <K> Map<K, Double> groupBy(Collection<DailySales> dailySales, Function<DailySales, K> key) {
+        Map<K, double[]> groups = new LinkedHashMap<>();
+        if (dailySales != null) {
+            for (DailySales sales : dailySales) groups.computeIfAbsent(key.apply(sales), group -> new double[1])[0] += sales.getAmount();
+        }
+
+        return toSales(groups);
+    }
+
+    /**
+     * Groups sold lines by any key the rollup can't tell, for example by vendor or by hour, in a single pass
+     *
+     * @param clientStocks the sold lines, with their products
+     * @param key          the function computing the group of a line
+     * @param <K>          the type of the group
+     * @return the sales value of each group, in the order the groups are met
+     */
+    public <K> Map<K, Double> groupLinesBy(Collection<ClientStock> clientStocks, Function<ClientStock, K> key) {
+        Map<K, double[]> groups = new LinkedHashMap<>();
+        if (clientStocks != null) {
+            for (ClientStock clientStock : clientStocks) {
+                if (clientStock.getProduct() == null) continue;
+
+                double sales = this.getSellingPrice(clientStock.getProduct()) * clientStock.getQuantity();
+                groups.computeIfAbsent(key.apply(clientStock), group -> new double[1])[0] += sales;
+            }
+        }
+
+        return toSales(groups);
+    }
+
+    /**
+     * Gets the selling price of a product, computed once per product
+     *
+     * @param product the product
+     * @return the selling price of the product
+     */
+    public double getSellingPrice(Product product) {
+        return this.sellingPrices.computeIfAbsent(product.getId(), id -> product.getSellingPrice());
+    }
+
+    /**
+     * Reads the sales values of groups, summed in single-cell arrays rather than in boxed values
+     *
+     * @param groups the sums of the groups
+     * @param <K>    the type of the group
+     * @return the sales value of each group
+     */
+    private static <K> Map<K, Double> toSales(Map<K, double[]> groups) {
+        Map<K, Double> sales = new LinkedHashMap<>();
+        groups.forEach((group, sum) -> sales.put(group, sum[0]));
+        return sales;
+    }
+
+    /**
+     * Adds a sales value to all the buckets matching its date and store
+     *
+     * @param date    the date of the sale
+     * @param storeId the id of the store of the sale, may be null
+     * @param amount  the sales value
+     */
+    private void add(Date date, String storeId, double amount) {
+        this.calendar.setTime(date);
+        int month = this.calendar.get(Calendar.MONTH);
+        int day = this.calendar.get(Calendar.DAY_OF_MONTH) - 1;
+        // 0 = Sunday -> 6 = Saturday
+        int dayOfTheWeek = this.calendar.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY;
+
+        this.globalTotal += amount;
+        this.globalMonthSales[month] += amount;
+        this.globalDaySales[day] += amount;
+        this.globalDayOfTheWeekSales[dayOfTheWeek] += amount;
+
+        if (this.localStoreId == null || !this.localStoreId.equals(storeId)) return;
+
+        this.localTotal += amount;
+        this.localMonthSales[month] += amount;
+        this.localDaySales[day] += amount;
+        this.localDayOfTheWeekSales[dayOfTheWeek] += amount;
+    }
+}
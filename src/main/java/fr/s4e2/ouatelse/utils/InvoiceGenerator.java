@@ -0,0 +1,210 @@
+package fr.s4e2.ouatelse.utils;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.Client;
+import fr.s4e2.ouatelse.objects.ClientStock;
+
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the PDF invoices of the closed carts
+ */
+public class InvoiceGenerator {
+
+    /**
+     * Empty Constructor
+     */
+    private InvoiceGenerator() {
+    }
+
+    /**
+     * Gets the title of the invoice of a cart, also used as its file name
+     *
+     * @param cart the cart
+     * @return the title of the invoice
+     */
+    public static String getInvoiceName(Cart cart) {
+        return cart.getClient().getId() + "-" + cart.getId();
+    }
+
+    /**
+     * Writes the invoice of a cart
+     *
+     * @param cart         the closed cart, with its client
+     * @param clientStocks the products of the cart
+     * @param outputStream the stream the PDF document is written to, left open
+     * @throws DocumentException if the document can't be written
+     */
+    public static void write(Cart cart, Collection<ClientStock> clientStocks, OutputStream outputStream) throws DocumentException {
+        Document document = new Document();
+        PdfWriter pdfWriter = PdfWriter.getInstance(document, outputStream);
+        pdfWriter.setCloseStream(false);
+        document.open();
+        // header
+        document.addTitle("Facture Ouatelse");
+        document.addHeader("title", "Ouatelse");
+
+        // top section
+        Paragraph headerTitle = PDFUtils.buildH1Title("FACTURE OUATELSE #" + getInvoiceName(cart));
+        headerTitle.getFont().setSize(20f);
+        headerTitle.setAlignment(Element.ALIGN_RIGHT);
+        headerTitle.setSpacingAfter(25);
+        document.add(headerTitle);
+
+        // client section
+        Client client = cart.getClient();
+        Paragraph id = PDFUtils.buildH2Title("N° Client : " + client.getId());
+        id.setAlignment(Element.ALIGN_LEFT);
+        document.add(id);
+
+        Paragraph date = PDFUtils.buildH2Title("Date : " + new SimpleDateFormat("yyyy/MM/dd").format(new Date()));
+        date.setAlignment(Element.ALIGN_LEFT);
+        date.setSpacingAfter(15);
+        document.add(date);
+
+        Paragraph clientName = PDFUtils.buildH2Title(client.getSurname() + ", " + client.getName());
+        clientName.setAlignment(Element.ALIGN_LEFT);
+        document.add(clientName);
+
+        Paragraph clientEmail = PDFUtils.buildH2Title(client.getEmail());
+        clientEmail.setAlignment(Element.ALIGN_LEFT);
+        document.add(clientEmail);
+
+        Paragraph clientAdress = PDFUtils.buildH2Title(client.getAddress().getStreetNameAndNumber());
+        clientAdress.setAlignment(Element.ALIGN_LEFT);
+        document.add(clientAdress);
+
+        Paragraph clientCity = PDFUtils.buildH2Title(client.getAddress().getZipCode() + ", " + client.getAddress().getCity());
+        clientCity.setAlignment(Element.ALIGN_LEFT);
+        document.add(clientCity);
+
+        // cart section
+        document.add(PDFUtils.buildH1Title("Informations Panier"));
+        document.add(getCartTable(cart));
+
+        // products section
+        document.add(PDFUtils.buildH1Title("Produits"));
+        for (PdfPTable table : getProductsTables(clientStocks)) {
+            document.add(table);
+        }
+        document.close();
+        pdfWriter.close();
+    }
+
+    /**
+     * Returns the pdf tables for the products in the cart
+     *
+     * @param clientStocks the products of the cart
+     * @return the pdf tables for the products in the cart
+     */
+    private static List<PdfPTable> getProductsTables(Collection<ClientStock> clientStocks) {
+        List<PdfPTable> tables = new ArrayList<>();
+
+        // PRODUCTS IN CART TABLE
+        PdfPTable productsTable = new PdfPTable(6);
+
+        // add headers
+        Stream.of("Référence", "Produit", "Marque", "Quantité", "Prix Unitaire", "Total Prix TTC").forEach(columnTitle -> {
+            PdfPCell header = new PdfPCell();
+            header.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            header.setBorderWidth(2);
+            header.setPhrase(new Phrase(columnTitle));
+            productsTable.addCell(header);
+        });
+
+        double totalCost = 0;
+        int articleCount = 0;
+        // add cells
+        for (ClientStock clientStock : clientStocks) {
+            PdfPCell cell = new PdfPCell();
+            cell.setPhrase(new Phrase("#" + clientStock.getProduct().getReference()));
+            productsTable.addCell(cell);
+            cell.setPhrase(new Phrase(clientStock.getProduct().getName()));
+            productsTable.addCell(cell);
+            cell.setPhrase(new Phrase(clientStock.getProduct().getBrand()));
+            productsTable.addCell(cell);
+            cell.setPhrase(new Phrase(String.valueOf(clientStock.getQuantity())));
+            productsTable.addCell(cell);
+            cell.setPhrase(new Phrase(clientStock.getProduct().getSellingPrice() + " €"));
+            productsTable.addCell(cell);
+            cell.setPhrase(new Phrase(clientStock.getQuantity() * clientStock.getProduct().getSellingPrice() + " €"));
+            productsTable.addCell(cell);
+
+            totalCost += clientStock.getQuantity() * clientStock.getProduct().getSellingPrice();
+            articleCount++;
+        }
+        productsTable.setSpacingAfter(50);
+        tables.add(productsTable);
+
+        // TOTAL TABLE
+        PdfPTable totalTable = new PdfPTable(4);
+        Stream.of("Nb. Articles", "", "", "Prix Total").forEach(columnTitle -> {
+            PdfPCell header = new PdfPCell();
+            header.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            header.setBorderWidth(2);
+            header.setPhrase(new Phrase(columnTitle));
+            totalTable.addCell(header);
+        });
+
+        PdfPCell cell = new PdfPCell();
+        cell.setPhrase(new Phrase(String.valueOf(articleCount)));
+        totalTable.addCell(cell);
+        cell.setPhrase(new Phrase(""));
+        totalTable.addCell(cell);
+        cell.setPhrase(new Phrase(""));
+        totalTable.addCell(cell);
+        cell.setPhrase(new Phrase(totalCost + " €"));
+        totalTable.addCell(cell);
+        tables.add(totalTable);
+
+        return tables;
+    }
+
+    /**
+     * Returns the pdf table for the cart
+     *
+     * @param cart the cart
+     * @return the pdf table for the cart
+     */
+    private static PdfPTable getCartTable(Cart cart) {
+        PdfPTable cartTable = new PdfPTable(3);
+
+        // add headers
+        Stream.of("Identifiant", "Date", "Heure").forEach(columnTitle -> {
+            PdfPCell header = new PdfPCell();
+            header.setBackgroundColor(BaseColor.LIGHT_GRAY);
+            header.setBorderWidth(2);
+            header.setPhrase(new Phrase(columnTitle));
+            cartTable.addCell(header);
+        });
+
+        // add cell
+        Date date = cart.getDate();
+        PdfPCell cell = new PdfPCell();
+
+        cell.setPhrase(new Phrase(String.valueOf(cart.getId())));
+        cartTable.addCell(cell);
+        cell.setPhrase(new Phrase(date != null ? new SimpleDateFormat("yyyy/MM/dd").format(date) : ""));
+        cartTable.addCell(cell);
+        cell.setPhrase(new Phrase(date != null ? new SimpleDateFormat("hh:mm:ss").format(date) : ""));
+        cartTable.addCell(cell);
+
+        cartTable.setSpacingAfter(50);
+        return cartTable;
+    }
+}
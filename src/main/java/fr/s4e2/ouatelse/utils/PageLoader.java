@@ -0,0 +1,190 @@
+package fr.s4e2.ouatelse.utils;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TreeTableView;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Feeds the rows of a tree table page by page, using keyset pagination : each page starts after the key of the last loaded row.
+ * The pages are loaded in the background : the first one is appended once loaded, the next one is prefetched
+ * and appended when the user scrolls near the end of the table
+ *
+ * @param <S> the type of the rows
+ * @param <K> the type of the key the rows are sorted on
+ */
+public class PageLoader<S, K> {
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    // part of the scroll bar after which the next page is appended
+    private static final double SCROLL_THRESHOLD = 0.9;
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "page-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = Logger.getLogger(this.getClass().getName());
+    @Getter
+    private final ObservableList<S> rows = FXCollections.observableArrayList();
+    private final BiFunction<K, Integer, List<S>> pageSource;
+    private final Function<S, K> keyExtractor;
+    @Getter
+    private final int pageSize;
+    private final Executor uiExecutor;
+
+    private K lastKey;
+    @Getter
+    private boolean exhausted;
+    private boolean appending;
+    private CompletableFuture<List<S>> nextPage;
+    // incremented on reset and cancel, so that pages loaded before are dropped
+    private int generation;
+
+    /**
+     * Constructor
+     *
+     * @param pageSource   gets the page of rows following a key, or the first page if the key is null
+     * @param keyExtractor gets the key of a row
+     * @param pageSize     the number of rows per page
+     */
+    public PageLoader(BiFunction<K, Integer, List<S>> pageSource, Function<S, K> keyExtractor, int pageSize) {
+        this(pageSource, keyExtractor, pageSize, Platform::runLater);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pageSource   gets the page of rows following a key, or the first page if the key is null
+     * @param keyExtractor gets the key of a row
+     * @param pageSize     the number of rows per page
+     * @param uiExecutor   runs the updates of the rows on the UI thread
+     */
+    PageLoader(BiFunction<K, Integer, List<S>> pageSource, Function<S, K> keyExtractor, int pageSize, Executor uiExecutor) {
+        this.pageSource = pageSource;
+        this.keyExtractor = keyExtractor;
+        this.pageSize = pageSize;
+        this.uiExecutor = uiExecutor;
+    }
+
+    /**
+     * Clears the rows and loads the first page in the background, then prefetches the next one
+     */
+    public void reset() {
+        this.cancel();
+        this.rows.clear();
+        this.lastKey = null;
+        this.exhausted = false;
+
+        this.loadNextPage();
+    }
+
+    /**
+     * Stops loading pages until the next reset, used while the table shows something else such as search results
+     */
+    public void cancel() {
+        this.generation++;
+        this.exhausted = true;
+        this.appending = false;
+        this.nextPage = null;
+    }
+
+    /**
+     * Appends the next page to the rows once it is loaded, does nothing if all the rows are loaded or a page is being appended
+     */
+    public void loadNextPage() {
+        if (this.exhausted || this.appending) return;
+        if (this.nextPage == null) this.prefetch();
+
+        int currentGeneration = this.generation;
+        this.appending = true;
+        this.nextPage.thenAcceptAsync(page -> this.append(page, currentGeneration), this.uiExecutor);
+    }
+
+    /**
+     * Loads the next page when the vertical scroll bar of a table gets near its end
+     *
+     * @param treeTableView the table showing the rows
+     */
+    public void bind(TreeTableView<?> treeTableView) {
+        if (treeTableView.getSkin() != null) {
+            this.bindScrollBar(treeTableView);
+        } else {
+            treeTableView.skinProperty().addListener((observable, oldSkin, newSkin) -> this.bindScrollBar(treeTableView));
+        }
+    }
+
+    /**
+     * Listens to the vertical scroll bar of a table, created along with its skin
+     *
+     * @param treeTableView the table showing the rows
+     */
+    private void bindScrollBar(TreeTableView<?> treeTableView) {
+        treeTableView.lookupAll(".scroll-bar").stream()
+                .filter(node -> node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL)
+                .map(node -> (ScrollBar) node)
+                .forEach(scrollBar -> scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * SCROLL_THRESHOLD) this.loadNextPage();
+                }));
+    }
+
+    /**
+     * Starts loading the page following the last loaded row in the background
+     */
+    private void prefetch() {
+        K afterKey = this.lastKey;
+        this.nextPage = CompletableFuture.supplyAsync(() -> this.fetch(afterKey), PREFETCH_EXECUTOR);
+    }
+
+    /**
+     * Gets a page from the source
+     *
+     * @param afterKey the key of the last loaded row, null for the first page
+     * @return the page, empty if it couldn't be loaded
+     */
+    private List<S> fetch(K afterKey) {
+        try {
+            List<S> page = this.pageSource.apply(afterKey, this.pageSize);
+            return page != null ? page : Collections.emptyList();
+        } catch (RuntimeException exception) {
+            this.logger.log(Level.SEVERE, exception.getMessage(), exception);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Appends a page to the rows and prefetches the next one, unless it was the last page
+     *
+     * @param page       the page
+     * @param generation the generation the page was requested in
+     */
+    private void append(List<S> page, int generation) {
+        if (generation != this.generation) return;
+
+        this.appending = false;
+        this.nextPage = null;
+        this.rows.addAll(page);
+
+        if (page.size() < this.pageSize) {
+            this.exhausted = true;
+            return;
+        }
+
+        this.lastKey = this.keyExtractor.apply(page.get(page.size() - 1));
+        this.prefetch();
+    }
+}
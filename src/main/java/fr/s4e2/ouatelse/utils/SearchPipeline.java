@@ -0,0 +1,199 @@
+package fr.s4e2.ouatelse.utils;
+
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import javafx.scene.control.TreeItem;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the searches typed in a search bar and shows their results in a tree table.
+ * The query waits for the user to stop typing, and a newer input cancels the query in flight.
+ * An input containing the input of the last results is refined in memory without querying the database,
+ * and the table is updated with the rows that changed instead of being cleared and refilled
+ *
+ * @param <T> the type of the rows
+ * @param <K> the type of the key identifying a row
+ */
+public class SearchPipeline<T, K> {
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 250;
+
+    private static final ScheduledExecutorService DEBOUNCE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-debounce");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final QueryExecutor queryExecutor;
+    private final String requestKey;
+    private final SearchQuery<T> query;
+    private final BiPredicate<T, String> matcher;
+    private final Function<T, K> keyExtractor;
+    private final Supplier<List<TreeItem<T>>> items;
+    private final long debounceMillis;
+    // incremented on every input, so that the results of older inputs are dropped
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private int resultLimit = Integer.MAX_VALUE;
+    private ScheduledFuture<?> scheduledSearch;
+    private String resultsInput;
+    private List<T> results;
+
+    /**
+     * Constructor
+     *
+     * @param queryExecutor the executor running the queries
+     * @param requestKey    the key of the search requests, unique to the search bar
+     * @param query         searches the rows matching an input
+     * @param matcher       tells if a row matches an input, as the query would
+     * @param keyExtractor  gets the key identifying a row
+     * @param items         gets the items of the table showing the results
+     */
+    public SearchPipeline(QueryExecutor queryExecutor, String requestKey, SearchQuery<T> query, BiPredicate<T, String> matcher,
+                          Function<T, K> keyExtractor, Supplier<List<TreeItem<T>>> items) {
+        this(queryExecutor, requestKey, query, matcher, keyExtractor, items, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param queryExecutor  the executor running the queries
+     * @param requestKey     the key of the search requests, unique to the search bar
+     * @param query          searches the rows matching an input
+     * @param matcher        tells if a row matches an input, as the query would
+     * @param keyExtractor   gets the key identifying a row
+     * @param items          gets the items of the table showing the results
+     * @param debounceMillis the milliseconds without input before querying
+     */
+    public SearchPipeline(QueryExecutor queryExecutor, String requestKey, SearchQuery<T> query, BiPredicate<T, String> matcher,
+                          Function<T, K> keyExtractor, Supplier<List<TreeItem<T>>> items, long debounceMillis) {
+        this.queryExecutor = queryExecutor;
+        this.requestKey = requestKey;
+        this.query = query;
+        this.matcher = matcher;
+        this.keyExtractor = keyExtractor;
+        this.items = items;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Declares the maximum number of rows the query returns, results reaching it may be truncated and are never refined in memory
+     *
+     * @param resultLimit the maximum number of rows of the query
+     * @return this pipeline
+     */
+    public SearchPipeline<T, K> withResultLimit(int resultLimit) {
+        this.resultLimit = resultLimit;
+        return this;
+    }
+
+    /**
+     * Tells if a text contains an input, ignoring the case like the LIKE operator of SQLite
+     *
+     * @param text  the text, can be null
+     * @param input the input
+     * @return true if the text contains the input
+     */
+    public static boolean containsIgnoreCase(String text, String input) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(input.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Searches the rows matching an input, to be called on the UI thread
+     *
+     * @param input the input, not empty
+     */
+    public void search(String input) {
+        int currentGeneration = this.generation.incrementAndGet();
+        this.cancelScheduledSearch();
+
+        if (this.results != null && this.results.size() < this.resultLimit && containsIgnoreCase(input, this.resultsInput)) {
+            // the rows matching the input are among the last results
+            this.queryExecutor.cancel(this.requestKey);
+            this.update(this.results.stream().filter(row -> this.matcher.test(row, input)).collect(Collectors.toList()));
+            return;
+        }
+
+        this.scheduledSearch = DEBOUNCE_EXECUTOR.schedule(() -> {
+            if (currentGeneration != this.generation.get()) return;
+
+            this.queryExecutor.submit(this.requestKey, () -> this.query.search(input), searchResults -> {
+                if (currentGeneration != this.generation.get()) return;
+
+                this.resultsInput = input;
+                this.results = searchResults;
+                this.update(searchResults);
+            });
+        }, this.debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the pending search and forgets the last results, to be called when the search bar is emptied
+     */
+    public void clear() {
+        this.generation.incrementAndGet();
+        this.cancelScheduledSearch();
+        this.queryExecutor.cancel(this.requestKey);
+        this.invalidate();
+    }
+
+    /**
+     * Forgets the last results, so that the next input is queried, to be called when the searched rows change
+     */
+    public void invalidate() {
+        this.resultsInput = null;
+        this.results = null;
+    }
+
+    /**
+     * Cancels the search waiting for the user to stop typing
+     */
+    private void cancelScheduledSearch() {
+        if (this.scheduledSearch != null) this.scheduledSearch.cancel(false);
+        this.scheduledSearch = null;
+    }
+
+    /**
+     * Updates the items of the table, removing the rows no longer found and adding the new ones
+     *
+     * @param rows the rows to show
+     */
+    private void update(List<T> rows) {
+        Map<K, T> newRows = new LinkedHashMap<>();
+        rows.forEach(row -> newRows.putIfAbsent(this.keyExtractor.apply(row), row));
+
+        List<TreeItem<T>> currentItems = this.items.get();
+        currentItems.removeIf(item -> newRows.remove(this.keyExtractor.apply(item.getValue())) == null);
+        currentItems.addAll(newRows.values().stream().map(TreeItem::new).collect(Collectors.toList()));
+    }
+
+    /**
+     * Searches the rows matching an input, run in the background
+     *
+     * @param <T> the type of the rows
+     */
+    @FunctionalInterface
+    public interface SearchQuery<T> {
+
+        /**
+         * Searches the rows matching an input
+         *
+         * @param input the input
+         * @return the matching rows
+         * @throws SQLException if the query fails
+         */
+        List<T> search(String input) throws SQLException;
+    }
+}
@@ -0,0 +1,158 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+    private final String BAR_CODE = "3760000000017";
+
+    private DatabaseManager databaseManager;
+    private EntityManagerProduct entityManagerProduct;
+    private EntityManagerClientStock entityManagerClientStock;
+    private Checkout checkout;
+    private Store store;
+    private Cart cart;
+
+    private Product createCompliantProduct(long reference, String barCode) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode(barCode);
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+
+        this.entityManagerProduct.create(compliantProduct);
+        return compliantProduct;
+    }
+
+    private void createProductStock(Product product, int quantity) {
+        ProductStock productStock = new ProductStock();
+        productStock.setProduct(product);
+        productStock.setStore(this.store);
+        productStock.setQuantity(quantity);
+
+        this.databaseManager.getEntityManagerProductStock().create(productStock);
+    }
+
+    private List<ClientStock> getCartLines() throws SQLException {
+        return this.entityManagerClientStock.executeQuery(
+                this.entityManagerClientStock.getQueryBuilder().where().eq("cart_id", this.cart.getId()).prepare()
+        );
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerProduct = databaseManager.getEntityManagerProduct();
+        this.entityManagerClientStock = databaseManager.getEntityManagerClientStock();
+        this.checkout = databaseManager.getCheckout();
+
+        this.store = new Store("checkout-store");
+        this.store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(this.store);
+
+        this.cart = new Cart();
+        this.databaseManager.getEntityManagerCart().create(this.cart);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - The first scan of a product adds a line to the cart
+            - The next scans of the product increment its line
+            - A bar code changed after the product was indexed is found by its new value
+     */
+    @Test
+    void scan() throws SQLException {
+        Product product = this.createCompliantProduct(900001, BAR_CODE);
+        this.createProductStock(product, 5);
+
+        assertEquals(product.getId(), this.checkout.scan(this.cart, this.store, BAR_CODE).getId());
+        assertEquals(product.getId(), this.checkout.scan(this.cart, this.store, " " + BAR_CODE + " ").getId());
+        this.checkout.scan(this.cart, this.store, BAR_CODE);
+
+        List<ClientStock> cartLines = this.getCartLines();
+        assertEquals(1, cartLines.size());
+        assertEquals(3, cartLines.get(0).getQuantity());
+        assertEquals(product.getId(), cartLines.get(0).getProduct().getId());
+
+        product.setBarCode("3760000000024");
+        this.entityManagerProduct.update(product);
+        assertNull(this.checkout.scan(this.cart, this.store, BAR_CODE));
+        assertNotNull(this.checkout.scan(this.cart, this.store, "3760000000024"));
+        assertEquals(4, this.getCartLines().get(0).getQuantity());
+    }
+
+    /*
+        Use cases :
+            - The bar code is unknown
+            - The product isn't in stock in the store
+            - The cart is closed
+     */
+    @Test
+    void scanRejected() throws SQLException {
+        assertNull(this.checkout.scan(this.cart, this.store, "0000000000000"));
+        assertNull(this.checkout.scan(this.cart, this.store, ""));
+
+        Product outOfStockProduct = this.createCompliantProduct(900002, BAR_CODE);
+        this.createProductStock(outOfStockProduct, 0);
+        assertNull(this.checkout.scan(this.cart, this.store, BAR_CODE));
+
+        this.createProductStock(outOfStockProduct, 1);
+        this.cart.setClosed(true);
+        assertNull(this.checkout.scan(this.cart, this.store, BAR_CODE));
+        assertTrue(this.getCartLines().isEmpty());
+    }
+
+    /*
+        Use cases :
+            - The cart was sold by another till after it was read, no line is added nor incremented
+     */
+    @Test
+    void scanSoldCart() throws SQLException {
+        Product product = this.createCompliantProduct(900003, BAR_CODE);
+        this.createProductStock(product, 5);
+        assertNotNull(this.checkout.scan(this.cart, this.store, BAR_CODE));
+
+        Cart soldCart = this.databaseManager.getEntityManagerCart().getIfExists(this.cart.getId());
+        soldCart.setClosed(true);
+        this.databaseManager.getEntityManagerCart().update(soldCart);
+
+        assertNull(this.checkout.scan(this.cart, this.store, BAR_CODE));
+        assertFalse(this.entityManagerClientStock.addToCart(this.cart, this.createCompliantProduct(900004, "3760000000031"), 1));
+        assertEquals(1, this.getCartLines().size());
+        assertEquals(1, this.getCartLines().get(0).getQuantity());
+    }
+}
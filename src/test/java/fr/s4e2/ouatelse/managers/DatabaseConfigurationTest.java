@@ -0,0 +1,64 @@
+package fr.s4e2.ouatelse.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseConfigurationTest {
+
+    /*
+        Use cases :
+            - The properties file doesn't exist, the default configuration is used
+            - The properties file is null, the default configuration is used
+     */
+    @Test
+    void loadFile() {
+        DatabaseConfiguration configuration = DatabaseConfiguration.load(Paths.get("not-existing.properties"));
+        assertEquals(DatabaseConfiguration.DEFAULT_DATABASE_NAME, configuration.getDatabaseName());
+        assertEquals("WAL", configuration.getJournalMode());
+
+        assertDoesNotThrow(() -> DatabaseConfiguration.load((Path) null));
+    }
+
+    /*
+        Use cases :
+            - Valid settings are loaded
+            - Invalid numeric settings keep their default value
+     */
+    @Test
+    void loadProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("database.name", "other.db");
+        properties.setProperty("database.synchronous", "FULL");
+        properties.setProperty("database.busy_timeout", "1000");
+        properties.setProperty("database.cache_size", "not a number");
+
+        DatabaseConfiguration configuration = DatabaseConfiguration.load(properties);
+        assertEquals("other.db", configuration.getDatabaseName());
+        assertEquals("FULL", configuration.getSynchronous());
+        assertEquals(1000, configuration.getBusyTimeout());
+        assertEquals(new DatabaseConfiguration("other.db").getCacheSize(), configuration.getCacheSize());
+    }
+
+    /*
+        Use cases :
+            - The URL holds the database name and all the pragmas
+     */
+    @Test
+    void getUrl() {
+        DatabaseConfiguration configuration = new DatabaseConfiguration("sqlite-test.db");
+        configuration.setSynchronous("FULL");
+
+        String url = configuration.getUrl();
+        assertTrue(url.startsWith("jdbc:sqlite:sqlite-test.db?"));
+        assertTrue(url.contains("journal_mode=WAL"));
+        assertTrue(url.contains("synchronous=FULL"));
+        assertTrue(url.contains("cache_size="));
+        assertTrue(url.contains("mmap_size="));
+        assertTrue(url.contains("busy_timeout="));
+    }
+}
@@ -1,9 +1,14 @@
 package fr.s4e2.ouatelse.managers;
 
+import fr.s4e2.ouatelse.objects.Vendor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,4 +42,52 @@ class DatabaseManagerTest {
         System.out.println("[INFO] Non-testable method due to ORMLite's API.");
         assertTrue(true);
     }
-}
\ No newline at end of file
+
+    /*
+        Use cases :
+            - A new database is filled with the default data and the seeding is recorded
+            - An established database isn't filled again, a deleted default entity stays deleted
+     */
+    @Test
+    void setupDefaultData() throws IOException, SQLException {
+        DatabaseManager databaseManager = new DatabaseManager(DATABASE_NAME);
+        assertTrue(databaseManager.getMigrationManager().isSeeded());
+
+        Vendor vendor = databaseManager.getEntityManagerVendor().getVendorIfExists("Senseo");
+        assertNotNull(vendor);
+        databaseManager.getEntityManagerVendor().delete(vendor);
+        databaseManager.close();
+
+        databaseManager = new DatabaseManager(DATABASE_NAME);
+        assertNull(databaseManager.getEntityManagerVendor().getVendorIfExists("Senseo"));
+        assertNotNull(databaseManager.getEntityManagerVendor().getVendorIfExists("Nestlé Nespresso S.A."));
+        databaseManager.close();
+    }
+
+    /*
+        Use cases :
+            - The default constructor finishes the setup before returning
+            - The search indexes of an established database are only built once the deferred setup is run by its executor,
+              the searches query the tables until then
+     */
+    @Test
+    void deferredSetup() throws IOException {
+        DatabaseManager databaseManager = new DatabaseManager(DATABASE_NAME);
+        assertTrue(databaseManager.getDeferredSetup().isDone());
+        databaseManager.close();
+
+        List<Runnable> deferredTasks = new ArrayList<>();
+        databaseManager = new DatabaseManager(new DatabaseConfiguration(DATABASE_NAME), deferredTasks::add);
+
+        assertFalse(databaseManager.getDeferredSetup().isDone());
+        assertFalse(databaseManager.getEntityManagerVendor().isSearchIndexReady());
+        assertTrue(databaseManager.getEntityManagerVendor().getSearchIndex().search("Senseo", 10).isEmpty());
+        assertFalse(databaseManager.getEntityManagerVendor().search("Senseo", 10).isEmpty());
+
+        deferredTasks.forEach(Runnable::run);
+        assertTrue(databaseManager.getDeferredSetup().isDone());
+        assertTrue(databaseManager.getEntityManagerVendor().isSearchIndexReady());
+        assertFalse(databaseManager.getEntityManagerVendor().search("Senseo", 10).isEmpty());
+        databaseManager.close();
+    }
+}
@@ -0,0 +1,149 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.DailySales;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.utils.Utils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetGeneratorTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+
+    private DatasetConfiguration createConfiguration() {
+        DatasetConfiguration configuration = new DatasetConfiguration();
+        configuration.setStores(2);
+        configuration.setClients(20);
+        configuration.setVendors(3);
+        configuration.setProducts(40);
+        configuration.setCartsPerDay(10);
+        configuration.setHistoryDays(14);
+        configuration.setEndDate(Utils.localDateToDate(LocalDate.of(2020, 6, 1)));
+
+        return configuration;
+    }
+
+    private DatasetGenerator generate(DatasetConfiguration configuration) throws IOException {
+        if (this.databaseManager != null) this.databaseManager.close();
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+
+        DatasetGenerator datasetGenerator = new DatasetGenerator(this.databaseManager, configuration);
+        assertTrue(datasetGenerator.generate() > 0);
+        return datasetGenerator;
+    }
+
+    private List<ClientStock> getGeneratedLines() {
+        return this.databaseManager.getEntityManagerClientStock().getQueryForAll().stream()
+                .filter(clientStock -> clientStock.getProduct().getReference() >= DatasetGenerator.FIRST_REFERENCE)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> getGeneratedLineKeys() {
+        return this.getGeneratedLines().stream()
+                .map(clientStock -> clientStock.getCart().getDate().getTime() + "|" + clientStock.getProduct().getReference() + "|" + clientStock.getQuantity())
+                .collect(Collectors.toList());
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - The configured stores, clients, vendors and products are created, with a stock of every product in every store
+            - The carts are closed, dated within the history, and their lines are in the daily sales rollup
+            - The stock journal of every product ends at the quantity of its product stock
+     */
+    @Test
+    void generate() throws IOException {
+        DatasetConfiguration configuration = this.createConfiguration();
+        DatasetGenerator datasetGenerator = this.generate(configuration);
+
+        assertEquals(2, datasetGenerator.getStores().size());
+        assertEquals(20, datasetGenerator.getClients().size());
+        assertEquals(3, datasetGenerator.getVendors().size());
+        assertEquals(40, datasetGenerator.getProducts().size());
+        datasetGenerator.getClients().forEach(client -> assertTrue(client.getId() > 0));
+
+        List<Cart> carts = this.databaseManager.getEntityManagerCart().getQueryForAll();
+        assertFalse(carts.isEmpty());
+        long historyStart = configuration.getEndDate().getTime() - 15L * 24 * 60 * 60 * 1000;
+        for (Cart cart : carts) {
+            assertTrue(cart.isClosed());
+            assertNotNull(cart.getClient());
+            assertTrue(cart.getDate().getTime() > historyStart);
+            assertTrue(cart.getDate().before(configuration.getEndDate()));
+        }
+
+        int soldQuantity = this.getGeneratedLines().stream().mapToInt(ClientStock::getQuantity).sum();
+        int rolledUpQuantity = this.databaseManager.getEntityManagerDailySales().getQueryForAll().stream()
+                .mapToInt(DailySales::getQuantity).sum();
+        assertEquals(soldQuantity, rolledUpQuantity);
+
+        List<ProductStock> productStocks = this.databaseManager.getEntityManagerProductStock().getQueryForAll().stream()
+                .filter(productStock -> productStock.getProduct().getReference() >= DatasetGenerator.FIRST_REFERENCE)
+                .collect(Collectors.toList());
+        assertEquals(2 * 40, productStocks.size());
+        for (ProductStock productStock : productStocks) {
+            Product product = productStock.getProduct();
+            Store store = productStock.getStore();
+
+            assertEquals(productStock.getQuantity(), this.databaseManager.getEntityManagerStockMovement().getQuantity(product, store));
+        }
+    }
+
+    /*
+        Use cases :
+            - Two datasets generated from the same seed hold the same rows
+            - Another seed gives another dataset
+            - The most popular products are sold far more than the least popular ones
+     */
+    @Test
+    void generateFromSeed() throws IOException {
+        this.generate(this.createConfiguration());
+        List<String> lines = this.getGeneratedLineKeys();
+
+        this.generate(this.createConfiguration());
+        assertEquals(lines, this.getGeneratedLineKeys());
+
+        DatasetConfiguration otherConfiguration = this.createConfiguration();
+        otherConfiguration.setSeed(7);
+        this.generate(otherConfiguration);
+        assertNotEquals(lines, this.getGeneratedLineKeys());
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        this.getGeneratedLines().forEach(clientStock -> quantities.merge(clientStock.getProduct().getReference(), clientStock.getQuantity(), Integer::sum));
+        List<Integer> sortedQuantities = quantities.values().stream().sorted().collect(Collectors.toList());
+        assertTrue(sortedQuantities.get(sortedQuantities.size() - 1) > 5 * sortedQuantities.get(sortedQuantities.size() / 2));
+    }
+}
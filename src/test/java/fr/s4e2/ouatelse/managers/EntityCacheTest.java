@@ -0,0 +1,85 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+
+    private EntityCache<Product, Long> entityCache;
+
+    private Product createProduct(long id, long reference) {
+        Product product = new Product();
+        product.setId(id);
+        product.setReference(reference);
+        return product;
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.entityCache = new EntityCache<Product, Long>(2).withNaturalKey("reference", Product::getReference);
+    }
+
+    /*
+        Use cases :
+            - A cached entity is found by its id and by its natural key
+            - A not cached entity is not found
+            - Lookups are counted as hits or misses
+     */
+    @Test
+    void get() {
+        Product product = createProduct(1, 100);
+        this.entityCache.put(product.getId(), product);
+
+        assertSame(product, this.entityCache.get(1L));
+        assertSame(product, this.entityCache.getByNaturalKey("reference", 100L));
+        assertNull(this.entityCache.get(2L));
+        assertNull(this.entityCache.getByNaturalKey("reference", 200L));
+        assertNull(this.entityCache.getByNaturalKey("name", "Some name"));
+
+        assertEquals(2, this.entityCache.getHits());
+        assertEquals(3, this.entityCache.getMisses());
+    }
+
+    /*
+        Use cases :
+            - The least recently used entity is evicted when the maximum size is reached
+            - Its natural key is evicted too
+     */
+    @Test
+    void eviction() {
+        this.entityCache.put(1L, createProduct(1, 100));
+        this.entityCache.put(2L, createProduct(2, 200));
+        this.entityCache.get(1L);
+        this.entityCache.put(3L, createProduct(3, 300));
+
+        assertEquals(2, this.entityCache.size());
+        assertNotNull(this.entityCache.get(1L));
+        assertNull(this.entityCache.get(2L));
+        assertNull(this.entityCache.getByNaturalKey("reference", 200L));
+    }
+
+    /*
+        Use cases :
+            - An invalidated entity is not found anymore
+            - A cached entity whose natural key changed is not found by its old natural key
+            - A cleared cache is empty
+     */
+    @Test
+    void invalidate() {
+        Product product = createProduct(1, 100);
+        this.entityCache.put(product.getId(), product);
+        this.entityCache.invalidate(1L);
+        assertNull(this.entityCache.get(1L));
+        assertNull(this.entityCache.getByNaturalKey("reference", 100L));
+
+        this.entityCache.put(product.getId(), product);
+        product.setReference(101);
+        assertNull(this.entityCache.getByNaturalKey("reference", 100L));
+
+        this.entityCache.clear();
+        assertEquals(0, this.entityCache.size());
+    }
+}
@@ -241,4 +241,25 @@ class EntityManagerClientTest {
         // Client is null
         assertFalse(this.entityManagerClient.exists(null));
     }
-}
\ No newline at end of file
+
+    /*
+        Use cases :
+            - Pages follow each other without gaps nor duplicates
+            - The page after the last client is empty
+     */
+    @Test
+    void getClientTreePage() {
+        for (int i = 0; i < 5; i++) this.entityManagerClient.create(createCompliantClient());
+
+        List<Client.ClientTree> firstPage = this.entityManagerClient.getClientTreePage(null, 3);
+        assertEquals(3, firstPage.size());
+
+        Long lastId = firstPage.get(firstPage.size() - 1).getId().get();
+        List<Client.ClientTree> secondPage = this.entityManagerClient.getClientTreePage(lastId, 3);
+        assertEquals(2, secondPage.size());
+        assertTrue(secondPage.stream().allMatch(clientTree -> clientTree.getId().get() > lastId));
+
+        Long lastPageId = secondPage.get(secondPage.size() - 1).getId().get();
+        assertTrue(this.entityManagerClient.getClientTreePage(lastPageId, 3).isEmpty());
+    }
+}
@@ -0,0 +1,268 @@
+package fr.s4e2.ouatelse.managers;
+
+import com.j256.ormlite.dao.CloseableIterator;
+import fr.s4e2.ouatelse.objects.*;
+import fr.s4e2.ouatelse.utils.Utils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityManagerDailySalesTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+    private EntityManagerDailySales entityManagerDailySales;
+
+    private DailySales createCompliantDailySales() {
+        return new DailySales(Utils.localDateToDate(LocalDate.now()), new Store("Some store"), "Category");
+    }
+
+    private ClientStock createClientStock(String storeId, String category, double purchasePrice, int quantity) {
+        Product product = new Product();
+        product.setPurchasePrice(purchasePrice);
+        product.setMargin(0);
+        product.setTaxes(0);
+        product.setCategory(category);
+        product.setStore(new Store(storeId));
+
+        ClientStock clientStock = new ClientStock();
+        clientStock.setProduct(product);
+        clientStock.setQuantity(quantity);
+
+        return clientStock;
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerDailySales = databaseManager.getEntityManagerDailySales();
+
+        CloseableIterator<DailySales> iterator = this.entityManagerDailySales.getAll();
+        iterator.forEachRemaining(dailySales -> this.entityManagerDailySales.delete(dailySales));
+    }
+
+    @AfterEach
+    void tearDown() {
+        CloseableIterator<DailySales> iterator = this.entityManagerDailySales.getAll();
+        iterator.forEachRemaining(dailySales -> this.entityManagerDailySales.delete(dailySales));
+
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - Daily sales row is not compliant with database scheme
+            - Daily sales row is compliant with database scheme
+     */
+    @Test
+    void create() {
+        // Daily sales row is not compliant
+        DailySales notCompliantDailySales = new DailySales();
+        assertDoesNotThrow(() -> this.entityManagerDailySales.create(notCompliantDailySales));
+        assertFalse(this.entityManagerDailySales.exists(notCompliantDailySales));
+
+        // Daily sales row is compliant
+        DailySales compliantDailySales = createCompliantDailySales();
+        assertDoesNotThrow(() -> this.entityManagerDailySales.create(compliantDailySales));
+        assertTrue(this.entityManagerDailySales.exists(compliantDailySales));
+    }
+
+    /*
+        Use cases :
+            - Daily sales row exists and is deleted
+            - Daily sales row does not exist
+     */
+    @Test
+    void delete() {
+        DailySales notExistingDailySales = createCompliantDailySales();
+        assertDoesNotThrow(() -> this.entityManagerDailySales.delete(notExistingDailySales));
+        assertFalse(this.entityManagerDailySales.exists(notExistingDailySales));
+
+        DailySales existingDailySales = createCompliantDailySales();
+        this.entityManagerDailySales.create(existingDailySales);
+        assertTrue(this.entityManagerDailySales.exists(existingDailySales));
+        assertDoesNotThrow(() -> this.entityManagerDailySales.delete(existingDailySales));
+        assertFalse(this.entityManagerDailySales.exists(existingDailySales));
+    }
+
+    /*
+        Use cases :
+            - Daily sales row exists, its amount should change
+     */
+    @Test
+    void update() {
+        DailySales existingDailySales = createCompliantDailySales();
+        this.entityManagerDailySales.create(existingDailySales);
+        existingDailySales.setAmount(42);
+        this.entityManagerDailySales.update(existingDailySales);
+
+        List<DailySales> results = this.entityManagerDailySales.getQueryForAll();
+        assertEquals(1, results.size());
+        assertEquals(42, results.get(0).getAmount());
+    }
+
+    /*
+        Use cases :
+            - There are no rows in the database, so the rollup is empty
+            - There are rows in the database, so the rollup is not empty
+     */
+    @Test
+    void isEmpty() {
+        assertTrue(this.entityManagerDailySales.isEmpty());
+
+        this.entityManagerDailySales.create(createCompliantDailySales());
+        assertFalse(this.entityManagerDailySales.isEmpty());
+    }
+
+    /*
+        Use cases :
+            - Rows inside the range are returned
+            - Rows outside the range are not returned
+     */
+    @Test
+    void getSalesBetween() {
+        LocalDate today = LocalDate.now();
+
+        DailySales todaySales = createCompliantDailySales();
+        DailySales lastYearSales = createCompliantDailySales();
+        lastYearSales.setDay(Utils.localDateToDate(today.minusYears(1)));
+        this.entityManagerDailySales.create(todaySales);
+        this.entityManagerDailySales.create(lastYearSales);
+
+        List<DailySales> results = this.entityManagerDailySales.getSalesBetween(
+                Utils.localDateToDate(today), Utils.localDateToDate(today.plusDays(1))
+        );
+        assertEquals(1, results.size());
+        assertEquals(todaySales.getId(), results.get(0).getId());
+    }
+
+    /*
+        Use cases :
+            - A cart is recorded, one row is created per store and category
+            - A second cart of the same day is recorded, existing rows are incremented
+            - A null cart is ignored
+     */
+    @Test
+    void record() throws SQLException {
+        Cart cart = new Cart();
+        List<ClientStock> clientStocks = Arrays.asList(
+                createClientStock("Store A", "Coffee", 10, 2),
+                createClientStock("Store A", "Coffee", 5, 1),
+                createClientStock("Store B", "Tea", 3, 1)
+        );
+
+        this.entityManagerDailySales.record(cart, clientStocks);
+        List<DailySales> results = this.entityManagerDailySales.getQueryForAll();
+        assertEquals(2, results.size());
+
+        this.entityManagerDailySales.record(cart, clientStocks);
+        results = this.entityManagerDailySales.getQueryForAll();
+        assertEquals(2, results.size());
+
+        DailySales coffeeSales = results.stream()
+                .filter(dailySales -> dailySales.getCategory().equals("Coffee"))
+                .findFirst().orElse(null);
+        assertNotNull(coffeeSales);
+        assertEquals("Store A", coffeeSales.getStore().getId());
+        assertEquals(50, coffeeSales.getAmount(), 0.0001);
+        assertEquals(6, coffeeSales.getQuantity());
+
+        assertDoesNotThrow(() -> this.entityManagerDailySales.record(null, clientStocks));
+    }
+
+    /*
+        Use cases :
+            - A second row of the same day, store and category is refused
+     */
+    @Test
+    void uniqueSales() {
+        DailySales firstSales = createCompliantDailySales();
+        DailySales secondSales = createCompliantDailySales();
+        secondSales.setStore(null);
+        DailySales thirdSales = createCompliantDailySales();
+        thirdSales.setStore(null);
+
+        this.entityManagerDailySales.create(firstSales);
+        this.entityManagerDailySales.create(secondSales);
+        this.entityManagerDailySales.create(thirdSales);
+
+        assertEquals(2, this.entityManagerDailySales.getQueryForAll().size());
+    }
+
+    /*
+        Use cases :
+            - An empty rollup is built from the lines of the closed carts, the open carts being left aside
+            - A rollup which isn't empty is left untouched
+     */
+    @Test
+    void buildIfEmpty() {
+        Store store = new Store("Rollup store");
+        store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(store);
+
+        Product product = new Product();
+        product.setName("Some name");
+        product.setReference(900501);
+        product.setBarCode("Barcode");
+        product.setBrand("Some brand");
+        product.setPurchasePrice(10);
+        product.setMargin(0.5);
+        product.setTaxes(0.2);
+        product.setState(ProductState.IN_STOCK);
+        product.setCategory("Rollup category");
+        product.setStore(store);
+        this.databaseManager.getEntityManagerProduct().create(product);
+
+        Cart closedCart = new Cart();
+        closedCart.setClosed(true);
+        Cart openCart = new Cart();
+        this.databaseManager.getEntityManagerCart().create(closedCart);
+        this.databaseManager.getEntityManagerCart().create(openCart);
+
+        for (Cart cart : Arrays.asList(closedCart, closedCart, openCart)) {
+            ClientStock clientStock = new ClientStock();
+            clientStock.setProduct(product);
+            clientStock.setQuantity(2);
+            clientStock.setCart(cart);
+            this.databaseManager.getEntityManagerClientStock().create(clientStock);
+        }
+
+        assertTrue(this.entityManagerDailySales.buildIfEmpty());
+        List<DailySales> results = this.entityManagerDailySales.getQueryForAll().stream()
+                .filter(dailySales -> dailySales.getCategory().equals("Rollup category"))
+                .collect(Collectors.toList());
+        assertEquals(1, results.size());
+        assertEquals(store.getId(), results.get(0).getStore().getId());
+        assertEquals(Utils.localDateToDate(Utils.dateToLocalDate(closedCart.getDate())), results.get(0).getDay());
+        assertEquals(4 * product.getSellingPrice(), results.get(0).getAmount(), 0.0001);
+        assertEquals(4, results.get(0).getQuantity());
+
+        assertFalse(this.entityManagerDailySales.buildIfEmpty());
+        assertEquals(1, this.entityManagerDailySales.getQueryForAll().size());
+    }
+
+    /*
+        Simple wrapper, nothing should have to be tested
+    */
+    @Test
+    void getQueryBuilder() {
+        assertNotNull(this.entityManagerDailySales.getQueryBuilder());
+    }
+}
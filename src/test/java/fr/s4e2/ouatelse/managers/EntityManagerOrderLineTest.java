@@ -0,0 +1,127 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Order;
+import fr.s4e2.ouatelse.objects.OrderLine;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.objects.Vendor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityManagerOrderLineTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+    private EntityManagerOrder entityManagerOrder;
+    private EntityManagerOrderLine entityManagerOrderLine;
+    private Store store;
+
+    private Product createCompliantProduct(long reference) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode("Barcode");
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+
+        this.databaseManager.getEntityManagerProduct().create(compliantProduct);
+        return compliantProduct;
+    }
+
+    private Vendor createVendor(String name) {
+        Vendor vendor = new Vendor();
+        vendor.setName(name);
+        vendor.setEmail(name + "@vendor.fr");
+        vendor.setPhoneNumber("0600000000");
+        vendor.setContractState(true);
+
+        this.databaseManager.getEntityManagerVendor().create(vendor);
+        return vendor;
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerOrder = databaseManager.getEntityManagerOrder();
+        this.entityManagerOrderLine = databaseManager.getEntityManagerOrderLine();
+
+        this.store = new Store("order-line-store");
+        this.store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(this.store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - The lines of an order are read with their products, in insertion order
+            - An order without lines has no lines
+     */
+    @Test
+    void getOrderLines() {
+        Product firstProduct = this.createCompliantProduct(901401);
+        Product secondProduct = this.createCompliantProduct(901402);
+        Order order = new Order(this.store, this.createVendor("lines"));
+        Order emptyOrder = new Order(this.store, null);
+        this.entityManagerOrder.create(order, Arrays.asList(new OrderLine(firstProduct, 3), new OrderLine(secondProduct, 2)));
+        this.entityManagerOrder.create(emptyOrder, Collections.emptyList());
+
+        assertEquals(2, this.entityManagerOrderLine.getOrderLines(order).size());
+        assertEquals(firstProduct.getReference(), this.entityManagerOrderLine.getOrderLines(order).get(0).getProduct().getReference());
+        assertEquals(3, this.entityManagerOrderLine.getOrderLines(order).get(0).getQuantity());
+        assertTrue(this.entityManagerOrderLine.getOrderLines(emptyOrder).isEmpty());
+    }
+
+    /*
+        Use cases :
+            - The quantities ordered from a vendor are summed by product over its open orders only
+            - The orders of another vendor aren't counted
+     */
+    @Test
+    void getOpenQuantities() {
+        Product firstProduct = this.createCompliantProduct(901501);
+        Product secondProduct = this.createCompliantProduct(901502);
+        Vendor vendor = this.createVendor("open");
+        Vendor otherVendor = this.createVendor("other");
+
+        Order firstOrder = new Order(this.store, vendor);
+        Order secondOrder = new Order(this.store, vendor);
+        Order closedOrder = new Order(this.store, vendor);
+        this.entityManagerOrder.create(firstOrder, Arrays.asList(new OrderLine(firstProduct, 3), new OrderLine(secondProduct, 1)));
+        this.entityManagerOrder.create(secondOrder, Collections.singletonList(new OrderLine(firstProduct, 4)));
+        this.entityManagerOrder.create(closedOrder, Collections.singletonList(new OrderLine(firstProduct, 10)));
+        this.entityManagerOrder.create(new Order(this.store, otherVendor), Collections.singletonList(new OrderLine(firstProduct, 20)));
+        this.entityManagerOrder.close(closedOrder);
+
+        Map<Long, Long> openQuantities = this.entityManagerOrderLine.getOpenQuantities(vendor);
+        assertEquals(2, openQuantities.size());
+        assertEquals(7, openQuantities.get(firstProduct.getId()));
+        assertEquals(1, openQuantities.get(secondProduct.getId()));
+    }
+}
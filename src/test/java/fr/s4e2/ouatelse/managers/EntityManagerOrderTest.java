@@ -0,0 +1,119 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Order;
+import fr.s4e2.ouatelse.objects.OrderLine;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.objects.Vendor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityManagerOrderTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+    private EntityManagerOrder entityManagerOrder;
+    private Store store;
+    private Vendor vendor;
+
+    private Product createCompliantProduct(long reference) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode("Barcode");
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+
+        this.databaseManager.getEntityManagerProduct().create(compliantProduct);
+        return compliantProduct;
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerOrder = databaseManager.getEntityManagerOrder();
+
+        this.store = new Store("order-store");
+        this.store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(this.store);
+
+        this.vendor = new Vendor();
+        this.vendor.setName("Order vendor");
+        this.vendor.setEmail("order@vendor.fr");
+        this.vendor.setPhoneNumber("0600000000");
+        this.vendor.setContractState(true);
+        this.databaseManager.getEntityManagerVendor().create(this.vendor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - An order is inserted along with its lines
+            - An order whose lines aren't compliant isn't inserted at all
+     */
+    @Test
+    void create() {
+        Product product = this.createCompliantProduct(901201);
+        Order order = new Order(this.store, this.vendor);
+
+        assertTrue(this.entityManagerOrder.create(order, Arrays.asList(new OrderLine(product, 3), new OrderLine(product, 2))));
+        assertTrue(this.entityManagerOrder.exists(order));
+        assertEquals(2, this.databaseManager.getEntityManagerOrderLine().getOrderLines(order).size());
+
+        Order notCompliantOrder = new Order(this.store, this.vendor);
+        assertFalse(this.entityManagerOrder.create(notCompliantOrder, Collections.singletonList(new OrderLine(null, 1))));
+        assertFalse(this.entityManagerOrder.exists(notCompliantOrder));
+    }
+
+    /*
+        Use cases :
+            - The open orders of a product are found from their lines
+            - A closed order isn't open anymore and can't be closed twice
+     */
+    @Test
+    void getOpenOrders() {
+        Product orderedProduct = this.createCompliantProduct(901301);
+        Product otherProduct = this.createCompliantProduct(901302);
+        Order firstOrder = new Order(this.store, this.vendor);
+        Order secondOrder = new Order(this.store, this.vendor);
+        this.entityManagerOrder.create(firstOrder, Collections.singletonList(new OrderLine(orderedProduct, 3)));
+        this.entityManagerOrder.create(secondOrder, Arrays.asList(new OrderLine(otherProduct, 1), new OrderLine(orderedProduct, 4)));
+
+        List<Order> openOrders = this.entityManagerOrder.getOpenOrders(orderedProduct);
+        assertEquals(2, openOrders.size());
+        assertEquals(firstOrder.getId(), openOrders.get(0).getId());
+        assertEquals(1, this.entityManagerOrder.getOpenOrders(otherProduct).size());
+
+        assertTrue(this.entityManagerOrder.close(firstOrder));
+        assertFalse(this.entityManagerOrder.close(firstOrder));
+        assertTrue(firstOrder.isClosed());
+        assertEquals(1, this.entityManagerOrder.getOpenOrders(orderedProduct).size());
+    }
+}
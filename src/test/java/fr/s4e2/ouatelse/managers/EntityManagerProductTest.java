@@ -9,8 +9,11 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,6 +44,10 @@ class EntityManagerProductTest {
         return compliantProduct;
     }
 
+    private List<Long> getReferences(List<Product.ProductTree> productTrees) {
+        return productTrees.stream().map(productTree -> productTree.getReference().get()).collect(Collectors.toList());
+    }
+
     @BeforeEach
     void setUp() {
         DatabaseManager.deleteDatabase(DATABASE_NAME);
@@ -143,6 +150,73 @@ class EntityManagerProductTest {
         assertNotEquals(existingProduct.getName(), PRODUCT_NAME_BEFORE_MODIFICATION);
     }
 
+    /*
+        Use cases :
+            - All the products are compliant, they are all inserted
+            - One product is not compliant, none of them is inserted
+            - The collection is null or empty, nothing is thrown
+     */
+    @Test
+    void createAll() {
+        // All the products are compliant
+        Product firstProduct = createCompliantProduct();
+        Product secondProduct = createCompliantProduct();
+        firstProduct.setReference(1);
+        secondProduct.setReference(2);
+        this.entityManagerProduct.createAll(Arrays.asList(firstProduct, secondProduct));
+        assertEquals(2, this.entityManagerProduct.getQueryForAll().size());
+
+        // One product has a duplicated reference
+        Product thirdProduct = createCompliantProduct();
+        Product duplicatedProduct = createCompliantProduct();
+        thirdProduct.setReference(3);
+        duplicatedProduct.setReference(1);
+        assertDoesNotThrow(() -> this.entityManagerProduct.createAll(Arrays.asList(thirdProduct, duplicatedProduct)));
+        assertEquals(2, this.entityManagerProduct.getQueryForAll().size());
+
+        // The collection is null or empty
+        assertDoesNotThrow(() -> this.entityManagerProduct.createAll(null));
+        assertDoesNotThrow(() -> this.entityManagerProduct.createAll(new ArrayList<>()));
+    }
+
+    /*
+        Use cases :
+            - Existing products are all deleted
+     */
+    @Test
+    void deleteAll() {
+        Product firstProduct = createCompliantProduct();
+        Product secondProduct = createCompliantProduct();
+        firstProduct.setReference(1);
+        secondProduct.setReference(2);
+        this.entityManagerProduct.createAll(Arrays.asList(firstProduct, secondProduct));
+
+        assertDoesNotThrow(() -> this.entityManagerProduct.deleteAll(Arrays.asList(firstProduct, secondProduct)));
+        assertTrue(this.entityManagerProduct.getQueryForAll().isEmpty());
+    }
+
+    /*
+        Use cases :
+            - Existing products are all updated
+     */
+    @Test
+    void updateAll() {
+        final String PRODUCT_NAME_AFTER_MODIFICATION = "Some other name";
+
+        Product firstProduct = createCompliantProduct();
+        Product secondProduct = createCompliantProduct();
+        firstProduct.setReference(1);
+        secondProduct.setReference(2);
+        this.entityManagerProduct.createAll(Arrays.asList(firstProduct, secondProduct));
+
+        firstProduct.setName(PRODUCT_NAME_AFTER_MODIFICATION);
+        secondProduct.setName(PRODUCT_NAME_AFTER_MODIFICATION);
+        this.entityManagerProduct.updateAll(Arrays.asList(firstProduct, secondProduct));
+
+        assertTrue(this.entityManagerProduct.getQueryForAll().stream()
+                .allMatch(product -> product.getName().equals(PRODUCT_NAME_AFTER_MODIFICATION)));
+    }
+
     /*
         Use cases :
             - There are no products in the database, so the iterator shouldn't iterate
@@ -259,4 +333,179 @@ class EntityManagerProductTest {
         // Product reference does not exist
         assertNull(this.entityManagerProduct.getProductIfExists(-1));
     }
-}
\ No newline at end of file
+
+    /*
+    Use cases :
+        - Product is looked up twice, the second lookup is served by the cache
+        - Product is updated, the next lookup reads it from the database
+   */
+    @Test
+    void getProductIfExistsCached() {
+        Product existingProduct = createCompliantProduct();
+        this.entityManagerProduct.create(existingProduct);
+
+        Product firstLookup = this.entityManagerProduct.getProductIfExists(existingProduct.getReference());
+        assertSame(firstLookup, this.entityManagerProduct.getProductIfExists(existingProduct.getReference()));
+        assertEquals(1, this.entityManagerProduct.getCache().getHits());
+
+        this.entityManagerProduct.update(firstLookup);
+        assertNotSame(firstLookup, this.entityManagerProduct.getProductIfExists(existingProduct.getReference()));
+    }
+
+    /*
+    Use cases :
+        - Every product has a row, with the name of its vendor
+        - A product without a vendor has an empty vendor name
+   */
+    @Test
+    void getProductTrees() {
+        Vendor vendor = new Vendor();
+        vendor.setName("Some vendor");
+        vendor.setPhoneNumber("+33 6 00 00 00 00");
+        vendor.setEmail("Some email");
+        this.databaseManager.getEntityManagerVendor().create(vendor);
+
+        Product soldProduct = createCompliantProduct();
+        soldProduct.setSoldBy(vendor);
+        this.entityManagerProduct.create(soldProduct);
+
+        Product otherProduct = createCompliantProduct();
+        otherProduct.setReference(soldProduct.getReference() + 1);
+        this.entityManagerProduct.create(otherProduct);
+
+        List<Product.ProductTree> productTrees = this.entityManagerProduct.getProductTrees();
+        assertEquals(2, productTrees.size());
+
+        Product.ProductTree soldProductTree = productTrees.stream()
+                .filter(productTree -> productTree.getReference().get() == soldProduct.getReference())
+                .findFirst().orElse(null);
+        assertNotNull(soldProductTree);
+        assertEquals("Some vendor", soldProductTree.getSoldByName().get());
+        assertEquals(ProductState.IN_STOCK.toString(), soldProductTree.getState().get());
+        assertEquals(soldProduct.getSellingPrice(), soldProductTree.getSellingPrice().get(), 0.001);
+
+        Product.ProductTree otherProductTree = productTrees.stream()
+                .filter(productTree -> productTree.getReference().get() == otherProduct.getReference())
+                .findFirst().orElse(null);
+        assertNotNull(otherProductTree);
+        assertEquals("", otherProductTree.getSoldByName().get());
+    }
+
+    /*
+    Use cases :
+        - Pages are sorted by reference and start after the given reference
+   */
+    @Test
+    void getProductTreePage() {
+        for (long reference = 1; reference <= 5; reference++) {
+            Product product = createCompliantProduct();
+            product.setReference(reference);
+            this.entityManagerProduct.create(product);
+        }
+
+        List<Product.ProductTree> firstPage = this.entityManagerProduct.getProductTreePage(null, 3);
+        assertEquals(Arrays.asList(1L, 2L, 3L), firstPage.stream().map(productTree -> productTree.getReference().get()).collect(Collectors.toList()));
+
+        List<Product.ProductTree> secondPage = this.entityManagerProduct.getProductTreePage(3L, 3);
+        assertEquals(Arrays.asList(4L, 5L), secondPage.stream().map(productTree -> productTree.getReference().get()).collect(Collectors.toList()));
+    }
+
+    /*
+    Use cases :
+        - The products whose name, brand, reference or bar code contains the input are found, ignoring the case
+        - The product whose name is the input ranks first
+        - Updated and deleted products are searched as they are in the database
+   */
+    @Test
+    void searchProductTrees() {
+        Product matchingProduct = createCompliantProduct();
+        matchingProduct.setName("Blue pencil");
+        this.entityManagerProduct.create(matchingProduct);
+
+        Product exactProduct = createCompliantProduct();
+        exactProduct.setReference(matchingProduct.getReference() + 1);
+        exactProduct.setName("Pencil");
+        exactProduct.setBarCode("3760000000011");
+        this.entityManagerProduct.create(exactProduct);
+
+        Product otherProduct = createCompliantProduct();
+        otherProduct.setReference(matchingProduct.getReference() + 2);
+        otherProduct.setName("Red notebook");
+        this.entityManagerProduct.create(otherProduct);
+
+        assertEquals(Arrays.asList(exactProduct.getReference(), matchingProduct.getReference()), this.getReferences(
+                this.entityManagerProduct.searchProductTrees("PENCIL", SearchIndex.DEFAULT_LIMIT)));
+        assertEquals(Collections.singletonList(exactProduct.getReference()), this.getReferences(
+                this.entityManagerProduct.searchProductTrees("0000011", SearchIndex.DEFAULT_LIMIT)));
+        assertTrue(this.entityManagerProduct.searchProductTrees("eraser", SearchIndex.DEFAULT_LIMIT).isEmpty());
+
+        otherProduct.setName("Red eraser");
+        this.entityManagerProduct.update(otherProduct);
+        this.entityManagerProduct.delete(exactProduct);
+        assertEquals(Collections.singletonList(otherProduct.getReference()), this.getReferences(
+                this.entityManagerProduct.searchProductTrees("eraser", SearchIndex.DEFAULT_LIMIT)));
+        assertEquals(Collections.singletonList(matchingProduct.getReference()), this.getReferences(
+                this.entityManagerProduct.searchProductTrees("pencil", SearchIndex.DEFAULT_LIMIT)));
+
+        Product.ProductTree productTree = matchingProduct.toProductTree();
+        assertTrue(EntityManagerProduct.matches(productTree, "BLUE"));
+        assertTrue(EntityManagerProduct.matches(productTree, "Barcode"));
+        assertFalse(EntityManagerProduct.matches(productTree, "eraser"));
+    }
+
+    /*
+    Use cases :
+        - The index is rebuilt from the database
+   */
+    @Test
+    void rebuildSearchIndex() {
+        Product product = createCompliantProduct();
+        product.setName("Blue pencil");
+        this.entityManagerProduct.create(product);
+
+        this.entityManagerProduct.getSearchIndex().clear();
+        assertTrue(this.entityManagerProduct.search("pencil", SearchIndex.DEFAULT_LIMIT).isEmpty());
+
+        this.entityManagerProduct.rebuildSearchIndex();
+        assertEquals(Collections.singletonList(product.getId()), this.entityManagerProduct.search("pencil", SearchIndex.DEFAULT_LIMIT));
+    }
+
+    /*
+    Use cases :
+        - The products are searched in the table, and ranked as the index would, until the index is rebuilt
+        - A product deleted while the index is rebuilt isn't indexed again from an older read of the table
+   */
+    @Test
+    void searchDuringRebuild() {
+        Product matchingProduct = createCompliantProduct();
+        matchingProduct.setName("Blue pencil");
+        this.entityManagerProduct.create(matchingProduct);
+
+        Product exactProduct = createCompliantProduct();
+        exactProduct.setReference(matchingProduct.getReference() + 1);
+        exactProduct.setName("Pencil");
+        this.entityManagerProduct.create(exactProduct);
+
+        List<Product> deletedProducts = new ArrayList<>();
+        EntityManagerProduct entityManagerProduct = new EntityManagerProduct(this.databaseManager.getConnectionSource()) {
+            @Override
+            protected void index(Product product) throws SQLException {
+                super.index(product);
+                if (deletedProducts.isEmpty() && product.getId() == matchingProduct.getId()) {
+                    deletedProducts.add(exactProduct);
+                    this.delete(exactProduct);
+                }
+            }
+        };
+
+        assertFalse(entityManagerProduct.isSearchIndexReady());
+        assertEquals(Arrays.asList(exactProduct.getId(), matchingProduct.getId()), entityManagerProduct.search("PENCIL", SearchIndex.DEFAULT_LIMIT));
+        assertEquals(Collections.singletonList(exactProduct.getId()),
+                entityManagerProduct.search(String.valueOf(exactProduct.getReference()), 1));
+
+        entityManagerProduct.rebuildSearchIndex();
+        assertTrue(entityManagerProduct.isSearchIndexReady());
+        assertEquals(Collections.singletonList(exactProduct), deletedProducts);
+        assertEquals(Collections.singletonList(matchingProduct.getId()), entityManagerProduct.search("pencil", SearchIndex.DEFAULT_LIMIT));
+    }
+}
@@ -3,6 +3,7 @@ package fr.s4e2.ouatelse.managers;
 import com.j256.ormlite.dao.CloseableIterator;
 import fr.s4e2.ouatelse.objects.Client;
 import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.Permission;
 import fr.s4e2.ouatelse.objects.Role;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +12,8 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,7 +58,7 @@ class EntityManagerRoleTest {
     @Test
     void create() {
         // Role is not compliant
-        Role notCompliantRole = this.entityManagerRole.create(null);
+        Role notCompliantRole = this.entityManagerRole.create((String) null);
         // Inserted objects have an ID > 0
         assertFalse(notCompliantRole.getId() > 0);
 
@@ -220,4 +223,28 @@ class EntityManagerRoleTest {
         // Role is null
         assertFalse(this.entityManagerRole.exists(null));
     }
-}
\ No newline at end of file
+
+    /*
+        Use cases :
+            - The roles granting a permission are found from their permission mask
+            - The permissions of a role are kept once saved, added and removed
+     */
+    @Test
+    void getRoles() {
+        Role stockRole = this.entityManagerRole.create("Stock role");
+        stockRole.setPermissions(Arrays.asList(Permission.STOCKS_MANAGEMENT, Permission.VENDORS_MANAGEMENT));
+        this.entityManagerRole.update(stockRole);
+        Role salesRole = this.entityManagerRole.create("Sales role");
+        salesRole.addPermission(Permission.SALES_MANAGEMENT);
+        salesRole.addPermission(Permission.STOCKS_MANAGEMENT);
+        salesRole.removePermission(Permission.STOCKS_MANAGEMENT);
+        this.entityManagerRole.update(salesRole);
+
+        List<Role> stockRoles = this.entityManagerRole.getRoles(Permission.STOCKS_MANAGEMENT);
+        assertEquals(1, stockRoles.size());
+        assertEquals(stockRole.getId(), stockRoles.get(0).getId());
+        assertEquals(EnumSet.of(Permission.STOCKS_MANAGEMENT, Permission.VENDORS_MANAGEMENT), stockRoles.get(0).getPermissions());
+        assertEquals(1, this.entityManagerRole.getRoles(Permission.SALES_MANAGEMENT).size());
+        assertTrue(this.entityManagerRole.getRoles(Permission.MONITORING).isEmpty());
+    }
+}
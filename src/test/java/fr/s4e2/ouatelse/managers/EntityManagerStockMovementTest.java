@@ -0,0 +1,150 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.exceptions.OversellException;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.StockMovement;
+import fr.s4e2.ouatelse.objects.StockMovementType;
+import fr.s4e2.ouatelse.objects.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityManagerStockMovementTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+    private final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    private DatabaseManager databaseManager;
+    private EntityManagerStockMovement entityManagerStockMovement;
+    private StockLedger stockLedger;
+    private Store store;
+
+    private Product createCompliantProduct(long reference) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode("Barcode");
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+
+        this.databaseManager.getEntityManagerProduct().create(compliantProduct);
+        return compliantProduct;
+    }
+
+    private ProductStock createProductStock(Product product, int quantity) {
+        ProductStock productStock = new ProductStock();
+        productStock.setProduct(product);
+        productStock.setStore(this.store);
+        productStock.setQuantity(quantity);
+
+        this.databaseManager.getEntityManagerProductStock().create(productStock);
+        return productStock;
+    }
+
+    private void appendMovement(Product product, int quantity, long daysAgo) throws SQLException {
+        StockMovement movement = new StockMovement(this.store, product, quantity, StockMovementType.RECEIPT);
+        movement.setDate(new Date(System.currentTimeMillis() - daysAgo * DAY_MILLIS));
+
+        this.entityManagerStockMovement.append(movement);
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerStockMovement = databaseManager.getEntityManagerStockMovement();
+        this.stockLedger = databaseManager.getStockLedger();
+
+        this.store = new Store("journal-store");
+        this.store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(this.store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - The moves of the ledger are journaled, the quantity of the journal follows the product stock
+            - The quantity is the same once snapshotted, and only the stocks which moved are snapshotted again
+     */
+    @Test
+    void getQuantity() throws OversellException {
+        Product product = this.createCompliantProduct(900401);
+        ProductStock productStock = this.createProductStock(product, 0);
+
+        this.stockLedger.add(productStock, 10, StockMovementType.RECEIPT);
+        this.stockLedger.remove(productStock, 3, StockMovementType.ADJUSTMENT);
+        assertEquals(7, this.entityManagerStockMovement.getQuantity(product, this.store));
+        assertEquals(2, this.entityManagerStockMovement.getMovements(product, this.store, new Date(0), new Date(Long.MAX_VALUE)).size());
+
+        assertEquals(1, this.entityManagerStockMovement.takeSnapshots(this.store));
+        assertEquals(0, this.entityManagerStockMovement.takeSnapshots(this.store));
+        assertEquals(7, this.entityManagerStockMovement.getQuantity(product, this.store));
+
+        this.stockLedger.remove(productStock, 2, StockMovementType.ADJUSTMENT);
+        assertEquals(5, this.entityManagerStockMovement.getQuantity(product, this.store));
+        assertEquals(1, this.entityManagerStockMovement.takeSnapshots(this.store));
+        assertEquals(5, this.entityManagerStockMovement.getQuantity(product, this.store));
+        assertEquals(productStock.getQuantity(), this.entityManagerStockMovement.getQuantity(product, this.store));
+    }
+
+    /*
+        Use cases :
+            - The quantity at a past date only counts the movements made until then, snapshotted or not
+     */
+    @Test
+    void getQuantityAt() throws SQLException {
+        Product product = this.createCompliantProduct(900501);
+
+        this.appendMovement(product, 4, 10);
+        this.appendMovement(product, 6, 5);
+        this.entityManagerStockMovement.takeSnapshots(this.store);
+        this.appendMovement(product, -3, 0);
+
+        Date now = new Date();
+        assertEquals(0, this.entityManagerStockMovement.getQuantityAt(product, this.store, new Date(now.getTime() - 20 * DAY_MILLIS)));
+        assertEquals(4, this.entityManagerStockMovement.getQuantityAt(product, this.store, new Date(now.getTime() - 7 * DAY_MILLIS)));
+        assertEquals(10, this.entityManagerStockMovement.getQuantityAt(product, this.store, new Date(now.getTime() - DAY_MILLIS)));
+        assertEquals(7, this.entityManagerStockMovement.getQuantity(product, this.store));
+    }
+
+    /*
+        Use cases :
+            - The quantities held before the journal was started are snapshotted once
+     */
+    @Test
+    void seedSnapshots() {
+        Product product = this.createCompliantProduct(900601);
+        this.createProductStock(product, 8);
+        assertEquals(0, this.entityManagerStockMovement.getQuantity(product, this.store));
+
+        this.entityManagerStockMovement.seedSnapshots();
+        assertEquals(8, this.entityManagerStockMovement.getQuantity(product, this.store));
+
+        this.entityManagerStockMovement.seedSnapshots();
+        assertEquals(8, this.entityManagerStockMovement.getQuantity(product, this.store));
+    }
+}
@@ -4,6 +4,7 @@ import com.j256.ormlite.dao.CloseableIterator;
 import fr.s4e2.ouatelse.objects.Civility;
 import fr.s4e2.ouatelse.objects.PersonState;
 import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Role;
 import fr.s4e2.ouatelse.objects.User;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -245,4 +246,29 @@ class EntityManagerUserTest {
         // User is null
         assertFalse(this.entityManagerUser.exists(null));
     }
-}
\ No newline at end of file
+
+    /*
+        Use cases :
+            - Every user has a row, with the name of its role and the id of its store
+     */
+    @Test
+    void getUserTrees() {
+        Role role = new Role("Some role");
+        this.databaseManager.getEntityManagerRole().create(role);
+
+        User user = createCompliantUser();
+        user.setRole(role);
+        this.entityManagerUser.create(user);
+
+        List<User.UserTree> userTrees = this.entityManagerUser.getUserTrees();
+        assertEquals(this.entityManagerUser.getQueryForAll().size(), userTrees.size());
+
+        User.UserTree userTree = userTrees.stream()
+                .filter(tree -> tree.getId().get().equals(user.getCredentials()))
+                .findFirst().orElse(null);
+        assertNotNull(userTree);
+        assertEquals(user.toUserTree().getRole().get(), userTree.getRole().get());
+        assertEquals(user.toUserTree().getStoreName().get(), userTree.getStoreName().get());
+        assertEquals(PersonState.EMPLOYED.toString(), userTree.getStatus().get());
+    }
+}
@@ -1,6 +1,7 @@
 package fr.s4e2.ouatelse.managers;
 
 import com.j256.ormlite.dao.CloseableIterator;
+import fr.s4e2.ouatelse.objects.Address;
 import fr.s4e2.ouatelse.objects.User;
 import fr.s4e2.ouatelse.objects.Vendor;
 import org.junit.jupiter.api.AfterEach;
@@ -261,4 +262,28 @@ class EntityManagerVendorTest {
         // Vendor name is null
         assertNull(this.entityManagerVendor.getVendorIfExists(null));
     }
-}
\ No newline at end of file
+
+    /*
+        Use cases :
+            - Every vendor has a row, with the city of its address
+     */
+    @Test
+    void getVendorTrees() {
+        Address address = new Address(33000, "Bordeaux", "1 rue Sainte-Catherine");
+        this.databaseManager.getEntityManagerAddress().create(address);
+
+        Vendor vendor = createCompliantVendor();
+        vendor.setAddress(address);
+        this.entityManagerVendor.create(vendor);
+
+        List<Vendor.VendorTree> vendorTrees = this.entityManagerVendor.getVendorTrees();
+        assertEquals(this.entityManagerVendor.getQueryForAll().size(), vendorTrees.size());
+
+        Vendor.VendorTree vendorTree = vendorTrees.stream()
+                .filter(tree -> tree.getName().get().equals(vendor.getName()))
+                .findFirst().orElse(null);
+        assertNotNull(vendorTree);
+        assertEquals("Bordeaux", vendorTree.getCity().get());
+        assertEquals(vendor.toVendorTree().getContractState().get(), vendorTree.getContractState().get());
+    }
+}
@@ -0,0 +1,109 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Address;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.Civility;
+import fr.s4e2.ouatelse.objects.Client;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FetchProfileTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+    private EntityManagerClient entityManagerClient;
+
+    private Client createClientWithCart() {
+        Address address = new Address(33000, "Bordeaux", "1 rue Sainte-Catherine");
+        this.databaseManager.getEntityManagerAddress().create(address);
+
+        Client client = new Client();
+        client.setName("Some name");
+        client.setSurname("Some surname");
+        client.setMobilePhoneNumber("+33 6 00 00 00 00");
+        client.setEmail(Double.toString(Math.random()));
+        client.setBirthDate(new Date());
+        client.setCivility(Civility.M);
+        client.setAddress(address);
+        this.entityManagerClient.create(client);
+
+        Cart cart = new Cart();
+        cart.setClient(client);
+        this.databaseManager.getEntityManagerCart().create(cart);
+
+        return client;
+    }
+
+    private Client findClient(List<Client> clients, Client client) {
+        return clients.stream().filter(result -> result.getId() == client.getId()).findFirst().orElse(null);
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerClient = databaseManager.getEntityManagerClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - Foreign collections are lazy by default
+            - An eager profile loads the collection with the entity
+            - A lazy profile only loads the id of a foreign field
+     */
+    @Test
+    void profiles() {
+        Client client = this.createClientWithCart();
+
+        Client defaultClient = this.findClient(this.entityManagerClient.getQueryForAll(), client);
+        assertNotNull(defaultClient);
+        assertFalse(defaultClient.getCarts().isEager());
+        assertEquals("Bordeaux", defaultClient.getAddress().getCity());
+
+        FetchProfile<Client> eagerProfile = FetchProfile.of(Client.class).eager("carts");
+        Client eagerClient = this.findClient(this.entityManagerClient.getQueryForAll(eagerProfile), client);
+        assertNotNull(eagerClient);
+        assertTrue(eagerClient.getCarts().isEager());
+        assertEquals(1, eagerClient.getCarts().size());
+
+        Client lazyClient = this.findClient(this.entityManagerClient.getQueryForAll(EntityManagerClient.LIST_PROFILE), client);
+        assertNotNull(lazyClient);
+        assertEquals(client.getAddress().getId(), lazyClient.getAddress().getId());
+        assertNull(lazyClient.getAddress().getCity());
+    }
+
+    /*
+        Use cases :
+            - A profile on an unknown field falls back to the default loading
+     */
+    @Test
+    void unknownField() {
+        Client client = this.createClientWithCart();
+
+        FetchProfile<Client> profile = FetchProfile.of(Client.class).eager("notAField");
+        Client result = this.findClient(this.entityManagerClient.getQueryForAll(profile), client);
+
+        assertNotNull(result);
+        assertFalse(result.getCarts().isEager());
+    }
+}
@@ -0,0 +1,195 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.ScheduledOrder;
+import fr.s4e2.ouatelse.objects.StockMovement;
+import fr.s4e2.ouatelse.objects.StockMovementType;
+import fr.s4e2.ouatelse.objects.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderSchedulerTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+    private final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    private DatabaseManager databaseManager;
+    private EntityManagerScheduledOrder entityManagerScheduledOrder;
+    private EntityManagerProductStock entityManagerProductStock;
+    private OrderScheduler orderScheduler;
+    private Store store;
+
+    private Product createCompliantProduct(long reference) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode("Barcode");
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+
+        this.databaseManager.getEntityManagerProduct().create(compliantProduct);
+        return compliantProduct;
+    }
+
+    private ScheduledOrder createScheduledOrder(Product product, long delayMillis, int quantity) {
+        ScheduledOrder scheduledOrder = new ScheduledOrder(product, this.store, new Date(System.currentTimeMillis() + delayMillis), quantity);
+
+        this.entityManagerScheduledOrder.create(scheduledOrder);
+        return scheduledOrder;
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerScheduledOrder = databaseManager.getEntityManagerScheduledOrder();
+        this.entityManagerProductStock = databaseManager.getEntityManagerProductStock();
+        this.orderScheduler = databaseManager.getOrderScheduler();
+
+        this.store = new Store("scheduler-store");
+        this.store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(this.store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - The due orders are delivered into the stock of the store and deleted, the stock being created if needed
+            - The orders which aren't due yet stay pending
+            - A delivered order isn't delivered twice
+     */
+    @Test
+    void deliverDueOrders() {
+        Product product = this.createCompliantProduct(900701);
+        ScheduledOrder firstOrder = this.createScheduledOrder(product, -2 * HOUR_MILLIS, 3);
+        ScheduledOrder secondOrder = this.createScheduledOrder(product, -HOUR_MILLIS, 4);
+        ScheduledOrder futureOrder = this.createScheduledOrder(product, 24 * HOUR_MILLIS, 5);
+
+        this.orderScheduler.schedule(firstOrder);
+        this.orderScheduler.schedule(secondOrder);
+        this.orderScheduler.schedule(futureOrder);
+        assertEquals(3, this.orderScheduler.getPendingOrders());
+
+        assertEquals(2, this.orderScheduler.deliverDueOrders());
+        assertEquals(1, this.orderScheduler.getPendingOrders());
+        assertEquals(7, this.entityManagerProductStock.getQuantity(product, this.store));
+        assertFalse(this.entityManagerScheduledOrder.exists(firstOrder));
+        assertFalse(this.entityManagerScheduledOrder.exists(secondOrder));
+        assertTrue(this.entityManagerScheduledOrder.exists(futureOrder));
+
+        List<StockMovement> movements = this.databaseManager.getEntityManagerStockMovement()
+                .getMovements(product, this.store, new Date(0), new Date(Long.MAX_VALUE));
+        assertEquals(2, movements.size());
+        assertTrue(movements.stream().allMatch(movement -> movement.getType() == StockMovementType.DELIVERY));
+
+        this.orderScheduler.schedule(firstOrder);
+        assertEquals(0, this.orderScheduler.deliverDueOrders());
+        assertEquals(7, this.entityManagerProductStock.getQuantity(product, this.store));
+    }
+
+    /*
+        Use cases :
+            - The orders which fell due while the scheduler was stopped are delivered on start
+            - An order scheduled once started is delivered at its date
+     */
+    @Test
+    void start() throws InterruptedException {
+        Product product = this.createCompliantProduct(900801);
+        this.createScheduledOrder(product, -HOUR_MILLIS, 2);
+
+        this.orderScheduler.start();
+        for (int i = 0; i < 50 && this.entityManagerProductStock.getQuantity(product, this.store) < 2; i++) Thread.sleep(100);
+        assertEquals(2, this.entityManagerProductStock.getQuantity(product, this.store));
+
+        this.orderScheduler.schedule(this.createScheduledOrder(product, 200, 3));
+        for (int i = 0; i < 50 && this.entityManagerProductStock.getQuantity(product, this.store) < 5; i++) Thread.sleep(100);
+        assertEquals(5, this.entityManagerProductStock.getQuantity(product, this.store));
+        assertEquals(0, this.orderScheduler.getPendingOrders());
+    }
+
+    /*
+        Use cases :
+            - The orders of a failed delivery stay pending and are delivered on a later attempt
+     */
+    @Test
+    void retryFailedDeliveries() {
+        int[] failedDeliveries = {1};
+        StockLedger failingLedger = new StockLedger(this.databaseManager.getConnectionSource(), this.entityManagerProductStock,
+                this.databaseManager.getEntityManagerCart(), this.databaseManager.getEntityManagerStockMovement(),
+                this.entityManagerScheduledOrder, this.databaseManager.getEntityManagerDailySales()) {
+            @Override
+            public int deliver(Collection<ScheduledOrder> scheduledOrders) {
+                return failedDeliveries[0]-- > 0 ? -1 : super.deliver(scheduledOrders);
+            }
+        };
+        OrderScheduler retryingScheduler = new OrderScheduler(this.entityManagerScheduledOrder, failingLedger, 0);
+
+        Product product = this.createCompliantProduct(900901);
+        ScheduledOrder scheduledOrder = this.createScheduledOrder(product, -HOUR_MILLIS, 6);
+        retryingScheduler.schedule(scheduledOrder);
+
+        assertEquals(0, retryingScheduler.deliverDueOrders());
+        assertEquals(1, retryingScheduler.getPendingOrders());
+        assertTrue(this.entityManagerScheduledOrder.exists(scheduledOrder));
+
+        assertEquals(1, retryingScheduler.deliverDueOrders());
+        assertEquals(0, retryingScheduler.getPendingOrders());
+        assertEquals(6, this.entityManagerProductStock.getQuantity(product, this.store));
+    }
+
+    /*
+        Use cases :
+            - An exception thrown by a delivery doesn't stop the scheduler, the orders are retried and delivered
+     */
+    @Test
+    void deliveryException() throws InterruptedException {
+        int[] failedDeliveries = {1};
+        StockLedger throwingLedger = new StockLedger(this.databaseManager.getConnectionSource(), this.entityManagerProductStock,
+                this.databaseManager.getEntityManagerCart(), this.databaseManager.getEntityManagerStockMovement(),
+                this.entityManagerScheduledOrder, this.databaseManager.getEntityManagerDailySales()) {
+            @Override
+            public int deliver(Collection<ScheduledOrder> scheduledOrders) {
+                if (failedDeliveries[0]-- > 0) throw new IllegalStateException("delivery failed");
+                return super.deliver(scheduledOrders);
+            }
+        };
+        OrderScheduler retryingScheduler = new OrderScheduler(this.entityManagerScheduledOrder, throwingLedger, 0);
+
+        Product product = this.createCompliantProduct(901001);
+        this.createScheduledOrder(product, -HOUR_MILLIS, 4);
+
+        retryingScheduler.start();
+        try {
+            for (int i = 0; i < 50 && this.entityManagerProductStock.getQuantity(product, this.store) < 4; i++) Thread.sleep(100);
+            assertEquals(4, this.entityManagerProductStock.getQuantity(product, this.store));
+            assertEquals(0, retryingScheduler.getPendingOrders());
+        } finally {
+            retryingScheduler.stop();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package fr.s4e2.ouatelse.managers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryExecutorTest {
+
+    private final BlockingQueue<Runnable> uiTasks = new LinkedBlockingQueue<>();
+    private QueryExecutor queryExecutor;
+
+    private void runUiTasks() throws InterruptedException {
+        Runnable task;
+        while ((task = this.uiTasks.poll(200, TimeUnit.MILLISECONDS)) != null) task.run();
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.uiTasks.clear();
+        this.queryExecutor = new QueryExecutor(2, this.uiTasks::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.queryExecutor.close();
+    }
+
+    /*
+        Use cases :
+            - The result of a query is handed to the UI executor
+            - A failing query is logged and its handler isn't called
+     */
+    @Test
+    void submit() throws Exception {
+        List<Integer> results = new ArrayList<>();
+
+        CompletableFuture<Integer> request = this.queryExecutor.submit(() -> 42, results::add);
+        assertEquals(42, request.get(5, TimeUnit.SECONDS));
+        this.runUiTasks();
+        assertEquals(1, results.size());
+
+        CompletableFuture<Integer> failingRequest = this.queryExecutor.submit(() -> {
+            throw new SQLException("Failing query");
+        }, results::add);
+        assertThrows(ExecutionException.class, () -> failingRequest.get(5, TimeUnit.SECONDS));
+        this.runUiTasks();
+        assertEquals(1, results.size());
+    }
+
+    /*
+        Use cases :
+            - A request superseded by a request with the same key is cancelled and its result is dropped
+            - A request cancelled by its key doesn't deliver its result
+     */
+    @Test
+    void supersede() throws Exception {
+        List<String> results = new ArrayList<>();
+        CountDownLatch slowQueryStarted = new CountDownLatch(1);
+        CountDownLatch slowQueryReleased = new CountDownLatch(1);
+
+        CompletableFuture<String> slowRequest = this.queryExecutor.submit("search", () -> {
+            slowQueryStarted.countDown();
+            slowQueryReleased.await();
+            return "slow";
+        }, results::add);
+        assertTrue(slowQueryStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> fastRequest = this.queryExecutor.submit("search", () -> "fast", results::add);
+        slowQueryReleased.countDown();
+
+        assertTrue(slowRequest.isCancelled());
+        assertEquals("fast", fastRequest.get(5, TimeUnit.SECONDS));
+        this.runUiTasks();
+        assertEquals(1, results.size());
+        assertEquals("fast", results.get(0));
+
+        CountDownLatch cancelledQueryReleased = new CountDownLatch(1);
+        CompletableFuture<String> cancelledRequest = this.queryExecutor.submit("search", () -> {
+            cancelledQueryReleased.await();
+            return "cancelled";
+        }, results::add);
+        this.queryExecutor.cancel("search");
+        cancelledQueryReleased.countDown();
+
+        assertTrue(cancelledRequest.isCancelled());
+        this.runUiTasks();
+        assertEquals(1, results.size());
+    }
+}
@@ -0,0 +1,147 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.ScheduledOrder;
+import fr.s4e2.ouatelse.objects.StockMovement;
+import fr.s4e2.ouatelse.objects.StockMovementType;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.objects.Vendor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReorderEngineTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+    private final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    private DatabaseManager databaseManager;
+    private ReorderEngine reorderEngine;
+    private Store store;
+    private Vendor vendor;
+
+    private Product createCompliantProduct(long reference, Vendor vendor) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode("Barcode");
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+        compliantProduct.setSoldBy(vendor);
+
+        this.databaseManager.getEntityManagerProduct().create(compliantProduct);
+        return compliantProduct;
+    }
+
+    private void createProductStock(Product product, int quantity) {
+        ProductStock productStock = new ProductStock();
+        productStock.setProduct(product);
+        productStock.setStore(this.store);
+        productStock.setQuantity(quantity);
+
+        this.databaseManager.getEntityManagerProductStock().create(productStock);
+    }
+
+    private void sellEveryDay(Product product, int quantity, int days) throws SQLException {
+        for (int daysAgo = days; daysAgo > 0; daysAgo--) {
+            StockMovement sale = new StockMovement(this.store, product, -quantity, StockMovementType.SALE);
+            sale.setDate(new Date(System.currentTimeMillis() - daysAgo * DAY_MILLIS));
+
+            this.databaseManager.getEntityManagerStockMovement().append(sale);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.reorderEngine = databaseManager.getReorderEngine();
+
+        this.store = new Store("reorder-store");
+        this.store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(this.store);
+
+        this.vendor = new Vendor();
+        this.vendor.setName("Reorder vendor");
+        this.vendor.setEmail("reorder@vendor.fr");
+        this.vendor.setPhoneNumber("0600000000");
+        this.vendor.setContractState(true);
+        this.databaseManager.getEntityManagerVendor().create(this.vendor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - The velocity follows the sales of the journal, the new sales being added incrementally
+            - A product never sold has no velocity
+     */
+    @Test
+    void getVelocity() throws SQLException {
+        Product product = this.createCompliantProduct(901001, this.vendor);
+        Product unsoldProduct = this.createCompliantProduct(901002, this.vendor);
+
+        this.sellEveryDay(product, 7, 14);
+        double velocity = this.reorderEngine.getVelocity(product, this.store);
+        assertTrue(velocity > 3 && velocity < 7);
+        assertEquals(0, this.reorderEngine.getVelocity(unsoldProduct, this.store));
+
+        this.sellEveryDay(product, 7, 1);
+        assertTrue(this.reorderEngine.getVelocity(product, this.store) > velocity);
+        assertEquals(0, this.reorderEngine.update());
+    }
+
+    /*
+        Use cases :
+            - A product about to run out is ordered, enough of it to get back above its reorder point
+            - A product with enough stock, or without vendor, isn't ordered
+            - A product already ordered isn't ordered twice
+     */
+    @Test
+    void reorder() throws SQLException {
+        Product runningOutProduct = this.createCompliantProduct(901101, this.vendor);
+        Product stockedProduct = this.createCompliantProduct(901102, this.vendor);
+        Product unsoldByProduct = this.createCompliantProduct(901103, null);
+        this.createProductStock(runningOutProduct, 5);
+        this.createProductStock(stockedProduct, 1000);
+
+        this.sellEveryDay(runningOutProduct, 7, 14);
+        this.sellEveryDay(stockedProduct, 7, 14);
+        this.sellEveryDay(unsoldByProduct, 7, 14);
+
+        List<ScheduledOrder> orders = this.reorderEngine.reorder(this.store);
+        assertEquals(1, orders.size());
+        assertEquals(runningOutProduct.getId(), orders.get(0).getProduct().getId());
+        assertEquals(this.store.getId(), orders.get(0).getStore().getId());
+        assertTrue(orders.get(0).getScheduledOrderDate().after(new Date()));
+        assertTrue(5 + orders.get(0).getQuantity() > 10 * this.reorderEngine.getVelocity(runningOutProduct, this.store));
+        assertTrue(this.databaseManager.getEntityManagerScheduledOrder().exists(orders.get(0)));
+        assertEquals(1, this.databaseManager.getOrderScheduler().getPendingOrders());
+
+        assertTrue(this.reorderEngine.reorder(this.store).isEmpty());
+    }
+}
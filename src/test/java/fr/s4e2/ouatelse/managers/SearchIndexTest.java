@@ -0,0 +1,83 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private SearchIndex<Product, Long> searchIndex;
+
+    private Product createProduct(long id, String name, String brand, String barCode) {
+        Product product = new Product();
+        product.setId(id);
+        product.setReference(1000 + id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setBarCode(barCode);
+        return product;
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.searchIndex = new SearchIndex<Product, Long>()
+                .withField("name", Product::getName)
+                .withField("brand", Product::getBrand)
+                .withField("reference", Product::getReference)
+                .withField("barCode", Product::getBarCode);
+
+        this.searchIndex.put(1L, createProduct(1, "Blue pencil", "Staedtler", "3760000000011"));
+        this.searchIndex.put(2L, createProduct(2, "Pencil case", "Kipling", "3760000000028"));
+        this.searchIndex.put(3L, createProduct(3, "Red notebook", "Clairefontaine", "3760000000035"));
+        this.searchIndex.put(4L, createProduct(4, "Pencil", "Bic", "3760000000042"));
+    }
+
+    /*
+        Use cases :
+            - Any field containing the input matches, ignoring the case
+            - An equal field ranks first, then a field starting with the input, then a word starting with it
+            - Short inputs match inside words too
+            - Nothing matches an unknown input
+     */
+    @Test
+    void search() {
+        assertEquals(Arrays.asList(4L, 2L, 1L), this.searchIndex.search("PENCIL", 10));
+        assertEquals(Arrays.asList(4L, 2L), this.searchIndex.search("pencil", 2));
+        assertEquals(Collections.singletonList(3L), this.searchIndex.search("fontaine", 10));
+        assertEquals(Collections.singletonList(2L), this.searchIndex.search("3760000000028", 10));
+        assertEquals(Collections.singletonList(2L), this.searchIndex.search("1002", 10));
+        assertEquals(Arrays.asList(3L, 1L), this.searchIndex.search("ed", 10));
+        assertEquals(Collections.singletonList(2L), this.searchIndex.search("l c", 10));
+        assertTrue(this.searchIndex.search("eraser", 10).isEmpty());
+        assertTrue(this.searchIndex.search(" ", 10).isEmpty());
+    }
+
+    /*
+        Use cases :
+            - A put entity replaces its previous version
+            - A removed entity isn't found anymore
+            - The index is compacted once most entities are removed, and still finds the others
+     */
+    @Test
+    void putAndRemove() {
+        this.searchIndex.put(3L, createProduct(3, "Red pencil", "Clairefontaine", "3760000000035"));
+        assertTrue(this.searchIndex.search("notebook", 10).isEmpty());
+        assertTrue(this.searchIndex.search("pencil", 10).contains(3L));
+        assertEquals(4, this.searchIndex.size());
+
+        this.searchIndex.remove(1L);
+        this.searchIndex.remove(2L);
+        this.searchIndex.remove(4L);
+        assertEquals(1, this.searchIndex.size());
+        assertEquals(Collections.singletonList(3L), this.searchIndex.search("pencil", 10));
+        assertEquals(Collections.singletonList(3L), this.searchIndex.search("re", 10));
+
+        assertTrue(this.searchIndex.matches(createProduct(5, "Green pen", "Bic", "3760000000059"), "GREEN"));
+        assertFalse(this.searchIndex.matches(createProduct(5, "Green pen", "Bic", "3760000000059"), "pencil"));
+    }
+}
@@ -0,0 +1,186 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.exceptions.OversellException;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.DailySales;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.ProductStock;
+import fr.s4e2.ouatelse.objects.StockMovementType;
+import fr.s4e2.ouatelse.objects.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockLedgerTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+    private EntityManagerProductStock entityManagerProductStock;
+    private StockLedger stockLedger;
+    private Store store;
+    private Cart cart;
+
+    private Product createCompliantProduct(long reference) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode("Barcode");
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+
+        this.databaseManager.getEntityManagerProduct().create(compliantProduct);
+        return compliantProduct;
+    }
+
+    private ProductStock createProductStock(Product product, int quantity) {
+        ProductStock productStock = new ProductStock();
+        productStock.setProduct(product);
+        productStock.setStore(this.store);
+        productStock.setQuantity(quantity);
+
+        this.entityManagerProductStock.create(productStock);
+        return productStock;
+    }
+
+    private ClientStock createClientStock(Product product, int quantity) {
+        ClientStock clientStock = new ClientStock();
+        clientStock.setProduct(product);
+        clientStock.setQuantity(quantity);
+        clientStock.setCart(this.cart);
+
+        this.databaseManager.getEntityManagerClientStock().create(clientStock);
+        return clientStock;
+    }
+
+    private int getSoldQuantity() {
+        return this.databaseManager.getEntityManagerDailySales().getQueryForAll().stream()
+                .filter(dailySales -> dailySales.getStore() == null && dailySales.getCategory().equals("Category"))
+                .mapToInt(DailySales::getQuantity)
+                .sum();
+    }
+
+    private int getQuantity(ProductStock productStock) {
+        return this.entityManagerProductStock.getIfExists(productStock.getId()).getQuantity();
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerProductStock = databaseManager.getEntityManagerProductStock();
+        this.stockLedger = databaseManager.getStockLedger();
+
+        this.store = new Store("ledger-store");
+        this.store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(this.store);
+
+        this.cart = new Cart();
+        this.databaseManager.getEntityManagerCart().create(this.cart);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - The products of the cart are removed from the stock of the store, the lines of a product being summed
+            - The cart is closed and can't be sold twice
+            - The products are added to the daily sales rollup along with the sale
+     */
+    @Test
+    void sell() throws OversellException {
+        Product firstProduct = this.createCompliantProduct(900101);
+        Product secondProduct = this.createCompliantProduct(900102);
+        ProductStock firstStock = this.createProductStock(firstProduct, 5);
+        ProductStock secondStock = this.createProductStock(secondProduct, 2);
+        List<ClientStock> clientStocks = Arrays.asList(
+                this.createClientStock(firstProduct, 2),
+                this.createClientStock(secondProduct, 2),
+                this.createClientStock(firstProduct, 1)
+        );
+
+        int soldQuantity = this.getSoldQuantity();
+        assertTrue(this.stockLedger.sell(this.cart, this.store, clientStocks));
+        assertTrue(this.cart.isClosed());
+        assertEquals(soldQuantity + 5, this.getSoldQuantity());
+        assertTrue(this.databaseManager.getEntityManagerCart().getIfExists(this.cart.getId()).isClosed());
+        assertEquals(2, this.getQuantity(firstStock));
+        assertEquals(0, this.getQuantity(secondStock));
+
+        this.cart.setClosed(false);
+        assertFalse(this.stockLedger.sell(this.cart, this.store, clientStocks));
+        assertEquals(2, this.getQuantity(firstStock));
+        assertEquals(soldQuantity + 5, this.getSoldQuantity());
+    }
+
+    /*
+        Use cases :
+            - A product isn't in stock in a sufficient quantity, nothing is written and the cart stays open
+     */
+    @Test
+    void sellOversold() {
+        Product firstProduct = this.createCompliantProduct(900201);
+        Product secondProduct = this.createCompliantProduct(900202);
+        ProductStock firstStock = this.createProductStock(firstProduct, 5);
+        ProductStock secondStock = this.createProductStock(secondProduct, 1);
+        List<ClientStock> clientStocks = Arrays.asList(
+                this.createClientStock(firstProduct, 2),
+                this.createClientStock(secondProduct, 2)
+        );
+
+        OversellException exception = assertThrows(OversellException.class,
+                () -> this.stockLedger.sell(this.cart, this.store, clientStocks));
+        assertEquals(secondProduct.getId(), exception.getProduct().getId());
+        assertFalse(this.cart.isClosed());
+        assertFalse(this.databaseManager.getEntityManagerCart().getIfExists(this.cart.getId()).isClosed());
+        assertEquals(5, this.getQuantity(firstStock));
+        assertEquals(1, this.getQuantity(secondStock));
+    }
+
+    /*
+        Use cases :
+            - A quantity is added to a product stock
+            - A quantity held by the product stock is removed
+            - A quantity greater than the product stock is refused
+     */
+    @Test
+    void addAndRemove() throws OversellException {
+        ProductStock productStock = this.createProductStock(this.createCompliantProduct(900301), 1);
+
+        // another till reads the product stock before it is changed
+        ProductStock staleStock = this.entityManagerProductStock.getIfExists(productStock.getId());
+
+        assertTrue(this.stockLedger.add(productStock, 4, StockMovementType.RECEIPT));
+        assertEquals(5, productStock.getQuantity());
+
+        assertTrue(this.stockLedger.remove(staleStock, 3, StockMovementType.ADJUSTMENT));
+        assertEquals(2, staleStock.getQuantity());
+
+        assertThrows(OversellException.class, () -> this.stockLedger.remove(productStock, 3, StockMovementType.ADJUSTMENT));
+        assertEquals(2, productStock.getQuantity());
+        assertEquals(2, this.getQuantity(productStock));
+    }
+}
@@ -0,0 +1,141 @@
+package fr.s4e2.ouatelse.managers;
+
+import fr.s4e2.ouatelse.objects.Address;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.ProductState;
+import fr.s4e2.ouatelse.objects.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitOfWorkTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+    private EntityManagerProduct entityManagerProduct;
+    private EntityManagerAddress entityManagerAddress;
+
+    private Product createCompliantProduct(long reference) {
+        Product compliantProduct = new Product();
+
+        compliantProduct.setName("Some name");
+        compliantProduct.setBarCode("Barcode");
+        compliantProduct.setReference(reference);
+        compliantProduct.setMargin(25);
+        compliantProduct.setTaxes(25);
+        compliantProduct.setPurchasePrice(15);
+        compliantProduct.setBrand("Some brand");
+        compliantProduct.setState(ProductState.IN_STOCK);
+        compliantProduct.setCategory("Category");
+        compliantProduct.setStore(new Store());
+
+        return compliantProduct;
+    }
+
+    private void clearTables() {
+        this.entityManagerProduct.getAll().forEachRemaining(product -> this.entityManagerProduct.delete(product));
+        this.entityManagerAddress.getAll().forEachRemaining(address -> this.entityManagerAddress.delete(address));
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.entityManagerProduct = databaseManager.getEntityManagerProduct();
+        this.entityManagerAddress = databaseManager.getEntityManagerAddress();
+
+        clearTables();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearTables();
+
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - Entities of different types are inserted, updated and deleted together
+            - Operations are cleared once committed
+            - An empty unit of work commits nothing
+     */
+    @Test
+    void commit() {
+        Product product = createCompliantProduct(1);
+        Address address = new Address();
+        address.setStreetNameAndNumber("Some street");
+        address.setCity("Some city");
+        address.setZipCode(33000);
+
+        UnitOfWork unitOfWork = this.databaseManager.createUnitOfWork();
+        unitOfWork.create(product).create(address);
+        assertEquals(2, unitOfWork.size());
+        assertTrue(unitOfWork.commit());
+        assertEquals(0, unitOfWork.size());
+        assertTrue(this.entityManagerProduct.exists(product));
+        assertTrue(this.entityManagerAddress.exists(address));
+
+        product.setName("Some other name");
+        assertTrue(unitOfWork.update(product).delete(address).commit());
+        assertEquals("Some other name", this.entityManagerProduct.getProductIfExists(1).getName());
+        assertFalse(this.entityManagerAddress.exists(address));
+
+        assertTrue(this.databaseManager.createUnitOfWork().commit());
+    }
+
+    /*
+        Use cases :
+            - A cached product updated by a unit of work is read again from the database
+            - The search index and the bar codes follow the products written by a unit of work
+     */
+    @Test
+    void commitUpdatesEntityManagers() {
+        Product product = createCompliantProduct(1);
+        UnitOfWork unitOfWork = this.databaseManager.createUnitOfWork();
+        assertTrue(unitOfWork.create(product).commit());
+        assertEquals("Some name", this.entityManagerProduct.getProductIfExists(1).getName());
+        assertEquals(product.getId(), this.entityManagerProduct.getProductByBarCode("Barcode").getId());
+        assertTrue(this.entityManagerProduct.search("Some name", 10).contains(product.getId()));
+
+        product.setName("Other");
+        product.setBarCode("Other barcode");
+        assertTrue(unitOfWork.update(product).commit());
+        assertEquals("Other", this.entityManagerProduct.getProductIfExists(1).getName());
+        assertEquals(product.getId(), this.entityManagerProduct.getProductByBarCode("Other barcode").getId());
+        assertFalse(this.entityManagerProduct.search("Some name", 10).contains(product.getId()));
+
+        assertTrue(unitOfWork.delete(product).commit());
+        assertNull(this.entityManagerProduct.getProductIfExists(1));
+        assertNull(this.entityManagerProduct.getProductByBarCode("Other barcode"));
+        assertFalse(this.entityManagerProduct.search("Other", 10).contains(product.getId()));
+    }
+
+    /*
+        Use cases :
+            - One operation fails, none of them is written
+            - Null entities are ignored
+     */
+    @Test
+    void rollback() {
+        UnitOfWork unitOfWork = this.databaseManager.createUnitOfWork();
+        unitOfWork.createAll(Arrays.asList(createCompliantProduct(1), null, createCompliantProduct(1)));
+        assertEquals(2, unitOfWork.size());
+
+        assertFalse(unitOfWork.commit());
+        assertTrue(this.entityManagerProduct.getQueryForAll().isEmpty());
+    }
+}
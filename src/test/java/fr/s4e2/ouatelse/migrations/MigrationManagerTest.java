@@ -0,0 +1,182 @@
+package fr.s4e2.ouatelse.migrations;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.misc.TransactionManager;
+import fr.s4e2.ouatelse.managers.DatabaseManager;
+import fr.s4e2.ouatelse.objects.Order;
+import fr.s4e2.ouatelse.objects.Permission;
+import fr.s4e2.ouatelse.objects.Role;
+import fr.s4e2.ouatelse.objects.SchemaVersion;
+import fr.s4e2.ouatelse.objects.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MigrationManagerTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private DatabaseManager databaseManager;
+
+    private boolean schemaObjectExists(String type, String name) throws Exception {
+        try (GenericRawResults<String[]> results = DaoManager.createDao(this.databaseManager.getConnectionSource(), SchemaVersion.class)
+                .queryRaw("SELECT name FROM sqlite_master WHERE type = ? AND name = ?", type, name)) {
+            return results.getFirstResult() != null;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+    }
+
+    /*
+        Use cases :
+            - A new database is brought to the latest version and has the indexes
+            - Migrations already applied are not applied again
+     */
+    @Test
+    void migrate() throws Exception {
+        List<Migration> migrations = Migrations.getMigrations();
+        MigrationManager migrationManager = new MigrationManager(this.databaseManager.getConnectionSource(), migrations);
+
+        assertEquals(migrations.get(migrations.size() - 1).getVersion(), migrationManager.getCurrentVersion());
+        assertTrue(schemaObjectExists("index", "client_stock_cart_product_idx"));
+        assertTrue(schemaObjectExists("index", "product_stock_store_quantity_idx"));
+
+        assertEquals(0, migrationManager.migrate());
+    }
+
+    /*
+        Use cases :
+            - Migrations are applied in version order, whatever their declaration order
+            - A failing migration is rolled back and stops the migration
+     */
+    @Test
+    void migrateOrderAndFailure() throws Exception {
+        int currentVersion = new MigrationManager(this.databaseManager.getConnectionSource(), Migrations.getMigrations())
+                .getCurrentVersion();
+
+        MigrationManager migrationManager = new MigrationManager(this.databaseManager.getConnectionSource(), Arrays.asList(
+                new SqlMigration(currentVersion + 3, "Failing", "CREATE TABLE migration_test_failing (id INTEGER)", "NOT SQL"),
+                new SqlMigration(currentVersion + 2, "Second", "ALTER TABLE migration_test ADD COLUMN name TEXT"),
+                new SqlMigration(currentVersion + 1, "First", "CREATE TABLE migration_test (id INTEGER)")
+        ));
+
+        assertThrows(SQLException.class, migrationManager::migrate);
+        assertEquals(currentVersion + 2, migrationManager.getCurrentVersion());
+        assertTrue(schemaObjectExists("table", "migration_test"));
+        assertFalse(schemaObjectExists("table", "migration_test_failing"));
+    }
+
+    /*
+        Use cases :
+            - The legacy orders serializing their products get an id and keep their store and vendor
+            - The orders already having the new schema are left untouched
+     */
+    @Test
+    void migrateOrderLines() throws Exception {
+        Store store = new Store("legacy-store");
+        store.setPassword("test");
+        this.databaseManager.getEntityManagerStore().create(store);
+
+        Dao<Order, Long> orders = DaoManager.createDao(this.databaseManager.getConnectionSource(), Order.class);
+        OrderLinesMigration migration = new OrderLinesMigration(1);
+        // the legacy table is rebuilt on the connection migrating it
+        TransactionManager.callInTransaction(this.databaseManager.getConnectionSource(), () -> {
+            orders.executeRaw("DROP TABLE \"order\"");
+            orders.executeRaw("CREATE TABLE \"order\" (products BLOB, store_id VARCHAR, vendor_id BIGINT)");
+            orders.executeRaw("INSERT INTO \"order\" (products, store_id, vendor_id) VALUES (NULL, 'legacy-store', NULL)");
+
+            migration.migrate(this.databaseManager.getConnectionSource());
+            return null;
+        });
+
+        List<Order> migratedOrders = orders.queryForAll();
+        assertEquals(1, migratedOrders.size());
+        assertTrue(migratedOrders.get(0).getId() > 0);
+        assertEquals("legacy-store", migratedOrders.get(0).getStore().getId());
+        assertFalse(schemaObjectExists("table", "order_legacy"));
+
+        migration.migrate(this.databaseManager.getConnectionSource());
+        assertEquals(1, orders.countOf());
+    }
+
+    /*
+        Use cases :
+            - The serialized permissions of the legacy roles are converted into their permission mask
+            - The roles already having a permission mask are left untouched
+     */
+    @Test
+    void migrateRolePermissions() throws Exception {
+        ByteArrayOutputStream serializedPermissions = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(serializedPermissions)) {
+            outputStream.writeObject(new ArrayList<>(Arrays.asList(Permission.STOCKS_MANAGEMENT, Permission.STATISTICS)));
+        }
+        StringBuilder hexPermissions = new StringBuilder();
+        for (byte serializedByte : serializedPermissions.toByteArray()) hexPermissions.append(String.format("%02X", serializedByte));
+
+        Dao<Role, Long> roles = DaoManager.createDao(this.databaseManager.getConnectionSource(), Role.class);
+        RolePermissionsMigration migration = new RolePermissionsMigration(1);
+        // the legacy table is rebuilt on the connection migrating it
+        TransactionManager.callInTransaction(this.databaseManager.getConnectionSource(), () -> {
+            roles.executeRaw("DROP TABLE role");
+            roles.executeRaw("CREATE TABLE role (id INTEGER PRIMARY KEY AUTOINCREMENT, name VARCHAR NOT NULL, permissions BLOB)");
+            roles.executeRaw("INSERT INTO role (name, permissions) VALUES ('Legacy role', X'" + hexPermissions + "')");
+            roles.executeRaw("INSERT INTO role (name, permissions) VALUES ('Empty role', NULL)");
+
+            migration.migrate(this.databaseManager.getConnectionSource());
+            return null;
+        });
+
+        List<Role> migratedRoles = roles.queryBuilder().orderBy("id", true).query();
+        assertEquals(EnumSet.of(Permission.STOCKS_MANAGEMENT, Permission.STATISTICS), migratedRoles.get(0).getPermissions());
+        assertTrue(migratedRoles.get(1).getPermissions().isEmpty());
+
+        migration.migrate(this.databaseManager.getConnectionSource());
+        assertEquals(EnumSet.of(Permission.STOCKS_MANAGEMENT, Permission.STATISTICS),
+                roles.queryForId(migratedRoles.get(0).getId()).getPermissions());
+    }
+
+    /*
+        Use cases :
+            - Only lists of permissions are read from the serialized roles
+     */
+    @Test
+    void deserializePermissions() throws Exception {
+        ByteArrayOutputStream serializedObject = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(serializedObject)) {
+            outputStream.writeObject(new Date());
+        }
+
+        assertThrows(SQLException.class, () -> RolePermissionsMigration.deserialize(serializedObject.toByteArray()));
+        assertThrows(SQLException.class, () -> RolePermissionsMigration.deserialize(new byte[]{1, 2, 3}));
+    }
+}
@@ -0,0 +1,41 @@
+package fr.s4e2.ouatelse.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    /*
+        Use cases :
+            - An empty histogram has no latency
+            - The latencies are counted in the bucket of their upper bound, the longer ones in the last bucket
+            - The percentiles are the upper bound of their bucket, never above the longest latency
+     */
+    @Test
+    void record() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMillis());
+        assertEquals(0, histogram.getPercentileMillis(0.5));
+
+        for (int i = 0; i < 98; i++) histogram.record(TimeUnit.MICROSECONDS.toNanos(80));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.SECONDS.toNanos(2));
+
+        long[] bucketCounts = histogram.getBucketCounts();
+        assertEquals(LatencyHistogram.BUCKET_BOUNDS.length + 1, bucketCounts.length);
+        assertEquals(98, bucketCounts[1]);
+        assertEquals(1, bucketCounts[6]);
+        assertEquals(1, bucketCounts[LatencyHistogram.BUCKET_BOUNDS.length]);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(2000, histogram.getMaxMillis());
+        assertEquals((98 * 0.08 + 3 + 2000) / 100, histogram.getMeanMillis(), 1e-9);
+        assertEquals(0.1, histogram.getPercentileMillis(0.5));
+        assertEquals(5, histogram.getPercentileMillis(0.99));
+        assertEquals(2000, histogram.getPercentileMillis(1));
+    }
+}
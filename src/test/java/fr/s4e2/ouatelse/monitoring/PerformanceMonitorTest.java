@@ -0,0 +1,108 @@
+package fr.s4e2.ouatelse.monitoring;
+
+import fr.s4e2.ouatelse.managers.DatabaseManager;
+import fr.s4e2.ouatelse.objects.Store;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerformanceMonitorTest {
+
+    private final String DATABASE_NAME = "sqlite-test.db";
+
+    private final PerformanceMonitor performanceMonitor = PerformanceMonitor.getInstance();
+    private DatabaseManager databaseManager;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.deleteDatabase(DATABASE_NAME);
+        this.databaseManager = new DatabaseManager(DATABASE_NAME);
+        this.performanceMonitor.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.databaseManager != null) {
+            try {
+                this.databaseManager.close();
+            } catch (IOException exception) {
+                exception.printStackTrace();
+                fail();
+            }
+        }
+        this.performanceMonitor.reset();
+    }
+
+    /*
+        Use cases :
+            - The database calls of the entity managers are recorded under the entity and the DAO method
+            - The calls which don't query the database aren't recorded
+     */
+    @Test
+    void recordQuery() {
+        Store store = new Store();
+        store.setId("Test");
+        store.setPassword("password");
+
+        this.databaseManager.getEntityManagerStore().create(store);
+        this.databaseManager.getEntityManagerStore().getQueryForAll();
+        this.databaseManager.getEntityManagerStore().getQueryForAll();
+
+        assertEquals(1, this.performanceMonitor.getQueries().get("Store.create").getCount());
+        assertEquals(2, this.performanceMonitor.getQueries().get("Store.queryForAll").getCount());
+        assertFalse(this.performanceMonitor.getQueries().containsKey("Store.extractId"));
+        assertFalse(this.performanceMonitor.getQueries().containsKey("Store.queryBuilder"));
+        assertEquals(3, this.performanceMonitor.getQueryCount());
+    }
+
+    /*
+        Use cases :
+            - The sales are counted in total and over the last minute
+            - Resetting the monitor forgets the sales and the operations
+     */
+    @Test
+    void recordSale() {
+        this.performanceMonitor.recordSale();
+        this.performanceMonitor.recordSale();
+        this.performanceMonitor.record("Screen.monitoring.fxml", 1000);
+
+        assertEquals(2, this.performanceMonitor.getSales());
+        assertEquals(2, this.performanceMonitor.getSalesPerMinute());
+        assertEquals(1, this.performanceMonitor.getOperations().get("Screen.monitoring.fxml").getCount());
+
+        this.performanceMonitor.reset();
+        assertEquals(0, this.performanceMonitor.getSales());
+        assertEquals(0, this.performanceMonitor.getSalesPerMinute());
+        assertTrue(this.performanceMonitor.getOperations().isEmpty());
+    }
+
+    /*
+        Use cases :
+            - A busy or locked SQLite error is a lock failure, even wrapped
+            - The lock failures logged by the software are counted, not the other errors
+     */
+    @Test
+    void lockFailures() {
+        SQLiteException busy = new SQLiteException("database is locked", SQLiteErrorCode.SQLITE_BUSY);
+        SQLiteException constraint = new SQLiteException("constraint failed", SQLiteErrorCode.SQLITE_CONSTRAINT);
+
+        assertTrue(PerformanceMonitor.isLockFailure(busy));
+        assertTrue(PerformanceMonitor.isLockFailure(new SQLException("wrapped", busy)));
+        assertFalse(PerformanceMonitor.isLockFailure(constraint));
+        assertFalse(PerformanceMonitor.isLockFailure(null));
+
+        Logger logger = Logger.getLogger(DatabaseManager.class.getName());
+        logger.log(Level.WARNING, "busy", busy);
+        logger.log(Level.WARNING, "constraint", constraint);
+        assertEquals(1, this.performanceMonitor.getLockFailures());
+    }
+}
@@ -0,0 +1,122 @@
+package fr.s4e2.ouatelse.statistics;
+
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.DailySales;
+import fr.s4e2.ouatelse.objects.Product;
+import fr.s4e2.ouatelse.objects.Store;
+import fr.s4e2.ouatelse.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesAggregatorTest {
+
+    private DailySales createDailySales(LocalDate day, String storeId, double amount) {
+        return createDailySales(day, storeId, "Category", amount);
+    }
+
+    private DailySales createDailySales(LocalDate day, String storeId, String category, double amount) {
+        DailySales dailySales = new DailySales(Utils.localDateToDate(day), storeId != null ? new Store(storeId) : null, category);
+        dailySales.setAmount(amount);
+        return dailySales;
+    }
+
+    /*
+        Use cases :
+            - Rollup rows fill the month, day and day of the week buckets
+            - Only the rows of the local store fill the local buckets
+            - Null rows are ignored
+     */
+    @Test
+    void addDailySales() {
+        // Wednesday the 15th of January 2020
+        LocalDate day = LocalDate.of(2020, 1, 15);
+        SalesAggregator salesAggregator = new SalesAggregator(new Store("Local store"));
+
+        salesAggregator.addDailySales(Arrays.asList(
+                createDailySales(day, "Local store", 10),
+                createDailySales(day, "Other store", 5),
+                createDailySales(day, null, 1)
+        ));
+
+        assertEquals(16, salesAggregator.getGlobalTotal());
+        assertEquals(16, salesAggregator.getGlobalMonthSales()[0]);
+        assertEquals(16, salesAggregator.getGlobalDaySales()[14]);
+        assertEquals(16, salesAggregator.getGlobalDayOfTheWeekSales()[3]);
+
+        assertEquals(10, salesAggregator.getLocalTotal());
+        assertEquals(10, salesAggregator.getLocalMonthSales()[0]);
+        assertEquals(10, salesAggregator.getLocalDaySales()[14]);
+        assertEquals(10, salesAggregator.getLocalDayOfTheWeekSales()[3]);
+
+        assertDoesNotThrow(() -> salesAggregator.addDailySales(null));
+    }
+
+    /*
+        Use cases :
+            - Rollup rows are summed by the key of their group
+            - A null collection gives no group
+     */
+    @Test
+    void groupBy() {
+        LocalDate day = LocalDate.of(2020, 1, 15);
+        SalesAggregator salesAggregator = new SalesAggregator(null);
+
+        Map<String, Double> categorySales = salesAggregator.groupBy(Arrays.asList(
+                createDailySales(day, "Local store", "Pens", 10),
+                createDailySales(day, "Other store", "Pens", 5),
+                createDailySales(day.plusDays(1), "Local store", "Paper", 2)
+        ), DailySales::getCategory);
+
+        assertEquals(2, categorySales.size());
+        assertEquals(15, categorySales.get("Pens"));
+        assertEquals(2, categorySales.get("Paper"));
+        assertTrue(salesAggregator.groupBy(null, DailySales::getCategory).isEmpty());
+    }
+
+    /*
+        Use cases :
+            - Sold lines are summed at the selling price of their product, times their quantity
+            - Lines without a product are ignored
+     */
+    @Test
+    void groupLinesBy() {
+        SalesAggregator salesAggregator = new SalesAggregator(null);
+        Product pen = new Product();
+        pen.setId(1);
+        pen.setBrand("Bic");
+        pen.setPurchasePrice(10);
+
+        ClientStock penLine = new ClientStock();
+        penLine.setProduct(pen);
+        penLine.setQuantity(3);
+        ClientStock emptyLine = new ClientStock();
+
+        Map<String, Double> brandSales = salesAggregator.groupLinesBy(Arrays.asList(penLine, emptyLine),
+                clientStock -> clientStock.getProduct().getBrand());
+
+        assertEquals(1, brandSales.size());
+        assertEquals(30, brandSales.get("Bic"));
+    }
+
+    /*
+        Use cases :
+            - The selling price of a product is computed once, later price changes are ignored
+     */
+    @Test
+    void getSellingPrice() {
+        SalesAggregator salesAggregator = new SalesAggregator(null);
+        Product product = new Product();
+        product.setId(1);
+        product.setPurchasePrice(10);
+
+        assertEquals(10, salesAggregator.getSellingPrice(product));
+
+        product.setPurchasePrice(20);
+        assertEquals(10, salesAggregator.getSellingPrice(product));
+    }
+}
@@ -0,0 +1,61 @@
+package fr.s4e2.ouatelse.utils;
+
+import com.itextpdf.text.DocumentException;
+import fr.s4e2.ouatelse.objects.Address;
+import fr.s4e2.ouatelse.objects.Cart;
+import fr.s4e2.ouatelse.objects.Client;
+import fr.s4e2.ouatelse.objects.ClientStock;
+import fr.s4e2.ouatelse.objects.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoiceGeneratorTest {
+
+    /*
+        Use cases :
+            - The invoice of a cart is a PDF document named after the client and the cart
+     */
+    @Test
+    void write() throws DocumentException {
+        Address address = new Address();
+        address.setStreetNameAndNumber("137 avenue Pasteur");
+        address.setCity("Le Haillan");
+        address.setZipCode(33185);
+
+        Client client = new Client();
+        client.setId(12);
+        client.setName("Camille");
+        client.setSurname("Martin");
+        client.setEmail("camille.martin@ouatelse.fr");
+        client.setAddress(address);
+
+        Cart cart = new Cart();
+        cart.setId(34);
+        cart.setClient(client);
+        cart.setClosed(true);
+
+        Product product = new Product();
+        product.setReference(195622386);
+        product.setName("SENSEO Select");
+        product.setBrand("Senseo");
+        product.setPurchasePrice(85.0);
+        product.setMargin(0.2);
+        product.setTaxes(0.2);
+
+        ClientStock clientStock = new ClientStock();
+        clientStock.setCart(cart);
+        clientStock.setProduct(product);
+        clientStock.setQuantity(2);
+
+        assertEquals("12-34", InvoiceGenerator.getInvoiceName(cart));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        InvoiceGenerator.write(cart, Collections.singletonList(clientStock), outputStream);
+        assertTrue(new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1).startsWith("%PDF"));
+    }
+}
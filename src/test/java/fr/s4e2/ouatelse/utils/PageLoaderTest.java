@@ -0,0 +1,97 @@
+package fr.s4e2.ouatelse.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageLoaderTest {
+
+    private static final int ROWS = 25;
+    private static final int PAGE_SIZE = 10;
+
+    private final BlockingQueue<Runnable> uiTasks = new LinkedBlockingQueue<>();
+    private PageLoader<Integer, Integer> pageLoader;
+
+    private List<Integer> getPage(Integer afterKey, int pageSize) {
+        int start = afterKey != null ? afterKey + 1 : 0;
+        return IntStream.range(start, Math.min(start + pageSize, ROWS)).boxed().collect(Collectors.toList());
+    }
+
+    private void runNextUiTask() throws InterruptedException {
+        Runnable task = this.uiTasks.poll(5, TimeUnit.SECONDS);
+        assertNotNull(task);
+        task.run();
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.uiTasks.clear();
+        this.pageLoader = new PageLoader<>(this::getPage, Integer::intValue, PAGE_SIZE, this.uiTasks::add);
+    }
+
+    /*
+        Use cases :
+            - The first page is loaded in the background on reset
+            - The next pages are appended in order until the last one
+            - Nothing is loaded once the last page is appended
+     */
+    @Test
+    void loadNextPage() throws InterruptedException {
+        this.pageLoader.reset();
+        assertTrue(this.pageLoader.getRows().isEmpty());
+        this.runNextUiTask();
+        assertEquals(PAGE_SIZE, this.pageLoader.getRows().size());
+        assertFalse(this.pageLoader.isExhausted());
+
+        this.pageLoader.loadNextPage();
+        // a page is being appended, a second call is ignored
+        this.pageLoader.loadNextPage();
+        this.runNextUiTask();
+        assertEquals(2 * PAGE_SIZE, this.pageLoader.getRows().size());
+
+        this.pageLoader.loadNextPage();
+        this.runNextUiTask();
+        assertEquals(ROWS, this.pageLoader.getRows().size());
+        assertTrue(this.pageLoader.isExhausted());
+        assertEquals(IntStream.range(0, ROWS).boxed().collect(Collectors.toList()), this.pageLoader.getRows());
+
+        this.pageLoader.loadNextPage();
+        assertNull(this.uiTasks.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+        Use cases :
+            - A page requested before a cancel is dropped, the first page included
+            - A reset starts again from the first page
+     */
+    @Test
+    void cancelAndReset() throws InterruptedException {
+        this.pageLoader.reset();
+        this.pageLoader.cancel();
+        this.runNextUiTask();
+        assertTrue(this.pageLoader.getRows().isEmpty());
+
+        this.pageLoader.reset();
+        this.runNextUiTask();
+        this.pageLoader.loadNextPage();
+        this.pageLoader.cancel();
+
+        this.runNextUiTask();
+        assertEquals(PAGE_SIZE, this.pageLoader.getRows().size());
+
+        this.pageLoader.loadNextPage();
+        assertNull(this.uiTasks.poll(100, TimeUnit.MILLISECONDS));
+
+        this.pageLoader.reset();
+        this.runNextUiTask();
+        assertEquals(IntStream.range(0, PAGE_SIZE).boxed().collect(Collectors.toList()), this.pageLoader.getRows());
+    }
+}
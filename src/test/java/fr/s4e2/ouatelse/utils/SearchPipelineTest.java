@@ -0,0 +1,112 @@
+package fr.s4e2.ouatelse.utils;
+
+import fr.s4e2.ouatelse.managers.QueryExecutor;
+import javafx.scene.control.TreeItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchPipelineTest {
+
+    private static final List<String> ROWS = Arrays.asList("Apple", "Apricot", "Banana", "Blueberry");
+    private static final long DEBOUNCE_MILLIS = 20;
+
+    private final BlockingQueue<Runnable> uiTasks = new LinkedBlockingQueue<>();
+    private final List<TreeItem<String>> items = new ArrayList<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private QueryExecutor queryExecutor;
+    private SearchPipeline<String, String> searchPipeline;
+
+    private List<String> search(String input) {
+        this.queries.incrementAndGet();
+        return ROWS.stream().filter(row -> SearchPipeline.containsIgnoreCase(row, input)).collect(Collectors.toList());
+    }
+
+    private List<String> getValues() {
+        return this.items.stream().map(TreeItem::getValue).collect(Collectors.toList());
+    }
+
+    private void runNextUiTask() throws InterruptedException {
+        Runnable task = this.uiTasks.poll(5, TimeUnit.SECONDS);
+        assertNotNull(task);
+        task.run();
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.uiTasks.clear();
+        this.items.clear();
+        this.queries.set(0);
+        this.queryExecutor = new QueryExecutor(1, this.uiTasks::add);
+        this.searchPipeline = new SearchPipeline<>(this.queryExecutor, "test.search", this::search,
+                SearchPipeline::containsIgnoreCase, row -> row, () -> this.items, DEBOUNCE_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.queryExecutor.close();
+    }
+
+    /*
+        Use cases :
+            - The first input is queried
+            - A longer input is refined in memory, keeping the rows already shown
+            - An input that isn't a refinement is queried again
+     */
+    @Test
+    void refine() throws InterruptedException {
+        this.searchPipeline.search("ap");
+        this.runNextUiTask();
+        assertEquals(Arrays.asList("Apple", "Apricot"), this.getValues());
+        assertEquals(1, this.queries.get());
+
+        TreeItem<String> appleItem = this.items.get(0);
+        this.searchPipeline.search("app");
+        assertEquals(ROWS.subList(0, 1), this.getValues());
+        assertSame(appleItem, this.items.get(0));
+        assertEquals(1, this.queries.get());
+
+        this.searchPipeline.search("b");
+        this.runNextUiTask();
+        assertEquals(Arrays.asList("Banana", "Blueberry"), this.getValues());
+        assertEquals(2, this.queries.get());
+    }
+
+    /*
+        Use cases :
+            - Inputs typed before the debounce delay are only queried once, with the last input
+            - Invalidated results are queried again
+            - Nothing is shown once the search is cleared
+     */
+    @Test
+    void debounceAndClear() throws InterruptedException {
+        this.searchPipeline.search("b");
+        this.searchPipeline.search("bl");
+        this.searchPipeline.search("blu");
+        this.runNextUiTask();
+        assertEquals(ROWS.subList(3, 4), this.getValues());
+        assertEquals(1, this.queries.get());
+        assertNull(this.uiTasks.poll(100, TimeUnit.MILLISECONDS));
+
+        this.searchPipeline.invalidate();
+        this.searchPipeline.search("blue");
+        this.runNextUiTask();
+        assertEquals(2, this.queries.get());
+
+        this.searchPipeline.search("a");
+        this.searchPipeline.clear();
+        assertNull(this.uiTasks.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(2, this.queries.get());
+    }
+}